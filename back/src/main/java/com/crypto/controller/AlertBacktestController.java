@@ -0,0 +1,112 @@
+package com.crypto.controller;
+
+import com.crypto.model.AlertRule;
+import com.crypto.service.AlertBacktestService;
+import com.crypto.util.InputSanitizer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/alerts")
+@RequiredArgsConstructor
+public class AlertBacktestController {
+
+    private final AlertBacktestService alertBacktestService;
+    private final InputSanitizer sanitizer;
+
+
+    /**
+     * Replay de um conjunto de regras sobre o histórico da moeda.
+     *
+     * Corpo: { coinId, days, cooldownMinutes?, buyThreshold?, sellThreshold?,
+     *          rules: [{ alertType, thresholdValue, timePeriod, indicatorPeriod, indicatorPeriodLong }] }
+     */
+    @PostMapping("/backtest")
+    public ResponseEntity<?> backtest(@RequestBody Map<String, Object> request) {
+        try {
+            String coinIdRaw = (String) request.get("coinId");
+            if (coinIdRaw == null || coinIdRaw.isBlank()) {
+                return ResponseEntity.badRequest().body(Map.of("error", "coinId é obrigatório"));
+            }
+            String coinId = sanitizer.sanitizeCoinId(coinIdRaw);
+
+            int days = request.get("days") != null ? ((Number) request.get("days")).intValue() : 30;
+            if (days < 1 || days > 365) {
+                return ResponseEntity.badRequest().body(Map.of("error", "days deve estar entre 1 e 365"));
+            }
+
+            Integer cooldownMinutes = request.get("cooldownMinutes") != null
+                    ? ((Number) request.get("cooldownMinutes")).intValue()
+                    : null;
+            if (cooldownMinutes != null && cooldownMinutes < 0) {
+                return ResponseEntity.badRequest().body(Map.of("error", "cooldownMinutes deve ser >= 0"));
+            }
+
+            List<AlertRule> rules = new ArrayList<>(AlertBacktestService.thresholdRules(
+                    toDouble(request.get("buyThreshold")),
+                    toDouble(request.get("sellThreshold"))
+            ));
+
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> rawRules = (List<Map<String, Object>>) request.get("rules");
+            if (rawRules != null) {
+                for (Map<String, Object> raw : rawRules) {
+                    rules.add(toRule(raw));
+                }
+            }
+
+            return ResponseEntity.ok(alertBacktestService.backtest(coinId, days, rules, cooldownMinutes));
+
+        } catch (IllegalArgumentException | ClassCastException e) {
+            log.warn("⚠️ Backtest inválido: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(503).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("❌ Erro no backtest: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().body(Map.of("error", "Erro ao executar backtest"));
+        }
+    }
+
+    @GetMapping("/backtest/stats")
+    public ResponseEntity<?> stats() {
+        return ResponseEntity.ok(alertBacktestService.getStats());
+    }
+
+    /**
+     * Converte o JSON de uma regra (também usado por PUT /api/alerts/rules).
+     */
+    static AlertRule toRule(Map<String, Object> raw) {
+        Object type = raw.get("alertType");
+        if (type == null) {
+            throw new IllegalArgumentException("alertType é obrigatório");
+        }
+
+        Double threshold = toDouble(raw.get("thresholdValue"));
+
+        return AlertRule.builder()
+                .coinSymbol(raw.get("coinSymbol") != null ? raw.get("coinSymbol").toString() : null)
+                .alertType(AlertRule.AlertType.valueOf(type.toString().toUpperCase()))
+                .thresholdValue(threshold != null ? BigDecimal.valueOf(threshold) : null)
+                .timePeriod(raw.get("timePeriod") != null ? raw.get("timePeriod").toString() : null)
+                .indicatorPeriod(toInteger(raw.get("indicatorPeriod")))
+                .indicatorPeriodLong(toInteger(raw.get("indicatorPeriodLong")))
+                .build();
+    }
+
+    private static Double toDouble(Object value) {
+        return value != null ? ((Number) value).doubleValue() : null;
+    }
+
+    private static Integer toInteger(Object value) {
+        return value != null ? ((Number) value).intValue() : null;
+    }
+}
@@ -0,0 +1,98 @@
+package com.crypto.controller;
+
+import com.crypto.model.AlertRule;
+import com.crypto.model.User;
+import com.crypto.repository.UserRepository;
+import com.crypto.service.AlertService;
+import com.crypto.util.InputSanitizer;
+import com.crypto.util.LogMasker;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/alerts")
+@RequiredArgsConstructor
+public class AlertRuleController {
+
+    private final AlertService alertService;
+    private final UserRepository userRepository;
+    private final InputSanitizer sanitizer;
+
+    @Value("${alert.rules.max-per-replace:500}")
+    private int maxRulesPerReplace;
+
+
+    /**
+     * Substitui todas as regras ativas do e-mail pelo conjunto informado.
+     *
+     * Corpo: { email?, rules: [{ coinSymbol, alertType, thresholdValue, timePeriod,
+     *                            indicatorPeriod, indicatorPeriodLong }] }
+     */
+    @PutMapping("/rules")
+    public ResponseEntity<?> replaceRules(
+            @RequestBody Map<String, Object> request,
+            Authentication authentication
+    ) {
+        try {
+            if (authentication == null) {
+                return ResponseEntity.status(401).body(Map.of("error", "Não autenticado"));
+            }
+
+            User owner = userRepository.findByUsername(authentication.getName()).orElse(null);
+            if (owner == null) {
+                return ResponseEntity.status(404).body(Map.of("error", "Usuário não encontrado"));
+            }
+
+            String emailRaw = (String) request.get("email");
+            String email = emailRaw != null && !emailRaw.isBlank()
+                    ? sanitizer.sanitizeEmail(emailRaw)
+                    : owner.getEmail();
+
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> rawRules = (List<Map<String, Object>>) request.get("rules");
+            if (rawRules == null) {
+                return ResponseEntity.badRequest().body(Map.of("error", "rules é obrigatório"));
+            }
+            if (rawRules.size() > maxRulesPerReplace) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "Máximo de " + maxRulesPerReplace + " regras por requisição"));
+            }
+
+            List<AlertRule> rules = new ArrayList<>(rawRules.size());
+            for (Map<String, Object> raw : rawRules) {
+                AlertRule rule = AlertBacktestController.toRule(raw);
+                if (rule.getCoinSymbol() != null) {
+                    rule.setCoinSymbol(sanitizer.sanitizeCoinSymbol(rule.getCoinSymbol()));
+                }
+                rules.add(rule);
+            }
+
+            log.info("🔁 Substituindo regras de {} ({} regras)",
+                    LogMasker.maskUsername(owner.getUsername()), rules.size());
+
+            int created = alertService.replaceRulesForUser(owner, email, rules);
+
+            return ResponseEntity.ok(Map.of(
+                    "success", true,
+                    "email", email,
+                    "alertRulesCreated", created
+            ));
+
+        } catch (IllegalArgumentException | ClassCastException e) {
+            log.warn("⚠️ Regras inválidas: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("❌ Erro ao substituir regras: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().body(Map.of("error", "Erro ao substituir regras"));
+        }
+    }
+}
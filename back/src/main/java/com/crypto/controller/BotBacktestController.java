@@ -0,0 +1,148 @@
+package com.crypto.controller;
+
+import com.crypto.model.TradingBot.TradingStrategy;
+import com.crypto.service.BotBacktestService;
+import com.crypto.util.InputSanitizer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/bots")
+@RequiredArgsConstructor
+public class BotBacktestController {
+
+    private static final int MAX_RANGE_VALUES = 10_000;
+
+    private final BotBacktestService botBacktestService;
+    private final InputSanitizer sanitizer;
+
+
+    /**
+     * Backtest de uma estratégia sobre o histórico da moeda, com sweep de parâmetros.
+     *
+     * Cada parâmetro aceita um número, uma lista ou uma faixa {from, to, step}.
+     * Corpo: { coinId, days, strategy, sortBy?, top?,
+     *          gridLowerPrice, gridUpperPrice, gridLevels, amountPerGrid,      (GRID_TRADING)
+     *          dcaAmount, dcaIntervalMinutes,                                (DCA)
+     *          amount, stopLossPercent?, takeProfitPercent?,                 (STOP_LOSS)
+     *          customStrategy, params? }                                     (CUSTOM)
+     *
+     * Em CUSTOM, {@code params} mapeia cada {@code ${nome}} da regra para os valores varridos.
+     */
+    @PostMapping("/backtest")
+    public ResponseEntity<?> backtest(@RequestBody Map<String, Object> request) {
+        try {
+            String coinIdRaw = (String) request.get("coinId");
+            if (coinIdRaw == null || coinIdRaw.isBlank()) {
+                return ResponseEntity.badRequest().body(Map.of("error", "coinId é obrigatório"));
+            }
+            String coinId = sanitizer.sanitizeCoinId(coinIdRaw);
+
+            int days = request.get("days") != null ? ((Number) request.get("days")).intValue() : 365;
+            if (days < 1 || days > 365) {
+                return ResponseEntity.badRequest().body(Map.of("error", "days deve estar entre 1 e 365"));
+            }
+
+            Object strategyRaw = request.get("strategy");
+            if (strategyRaw == null) {
+                return ResponseEntity.badRequest().body(Map.of("error", "strategy é obrigatório"));
+            }
+            TradingStrategy strategy = TradingStrategy.valueOf(strategyRaw.toString().toUpperCase());
+
+            String sortBy = request.get("sortBy") != null ? request.get("sortBy").toString() : "pnl";
+            int top = request.get("top") != null ? ((Number) request.get("top")).intValue() : 20;
+
+            // O "amount" de cada estratégia tem o nome do campo do bot
+            Object amount = switch (strategy) {
+                case GRID_TRADING -> request.get("amountPerGrid");
+                case DCA -> request.get("dcaAmount");
+                default -> request.get("amount");
+            };
+
+            BotBacktestService.Sweep sweep = new BotBacktestService.Sweep(
+                    strategy,
+                    values(request.get("gridLowerPrice")),
+                    values(request.get("gridUpperPrice")),
+                    values(request.get("gridLevels")),
+                    values(amount),
+                    values(request.get("dcaIntervalMinutes")),
+                    values(request.get("stopLossPercent")),
+                    values(request.get("takeProfitPercent")),
+                    (String) request.get("customStrategy"),
+                    customParams(request.get("params"))
+            );
+
+            return ResponseEntity.ok(botBacktestService.backtest(coinId, days, sweep, sortBy, top));
+
+        } catch (IllegalArgumentException | ClassCastException e) {
+            log.warn("⚠️ Backtest de bot inválido: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(503).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("❌ Erro no backtest de bot: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().body(Map.of("error", "Erro ao executar backtest"));
+        }
+    }
+
+    @GetMapping("/backtest/stats")
+    public ResponseEntity<?> stats() {
+        return ResponseEntity.ok(botBacktestService.getStats());
+    }
+
+    private static Map<String, double[]> customParams(Object raw) {
+        if (raw == null) return null;
+        if (!(raw instanceof Map<?, ?> map)) throw new IllegalArgumentException("params deve ser um objeto");
+
+        Map<String, double[]> out = new LinkedHashMap<>();
+        map.forEach((name, value) -> {
+            if (value != null) out.put(name.toString(), values(value));
+        });
+        return out;
+    }
+
+    /**
+     * Número, lista de números ou faixa {from, to, step}; ausente → null.
+     */
+    static double[] values(Object raw) {
+        if (raw == null) return null;
+
+        if (raw instanceof Number n) {
+            return new double[]{n.doubleValue()};
+        }
+
+        if (raw instanceof List<?> list) {
+            double[] out = new double[list.size()];
+            for (int i = 0; i < out.length; i++) out[i] = ((Number) list.get(i)).doubleValue();
+            return out;
+        }
+
+        if (raw instanceof Map<?, ?> range) {
+            double from = ((Number) range.get("from")).doubleValue();
+            double to = ((Number) range.get("to")).doubleValue();
+            double step = range.get("step") != null ? ((Number) range.get("step")).doubleValue() : 1;
+
+            if (!(step > 0) || to < from) {
+                throw new IllegalArgumentException("Faixa inválida: " + range);
+            }
+
+            long count = (long) Math.floor((to - from) / step + 1e-9) + 1;
+            if (count > MAX_RANGE_VALUES) {
+                throw new IllegalArgumentException("Faixa com valores demais: " + range);
+            }
+
+            double[] out = new double[(int) count];
+            for (int i = 0; i < out.length; i++) out[i] = from + i * step;
+            return out;
+        }
+
+        throw new IllegalArgumentException("Valor de parâmetro inválido: " + raw);
+    }
+}
@@ -2,8 +2,12 @@
 package com.crypto.controller;
 
 import com.crypto.model.AlertRule;
+import com.crypto.model.User;
+import com.crypto.repository.UserRepository;
 import com.crypto.util.InputSanitizer;
+import com.crypto.service.AlertBacktestService;
 import com.crypto.service.AlertService;
+import com.crypto.service.MonitoringClusterService;
 import com.crypto.service.MonitoringControlService;
 
 import com.crypto.util.LogMasker;
@@ -14,7 +18,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
-import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -25,7 +29,9 @@ import java.util.Map;
 public class MonitoringController {
 
     private final MonitoringControlService monitoringControlService;
+    private final MonitoringClusterService monitoringClusterService;
     private final AlertService alertService;
+    private final UserRepository userRepository;
     private final InputSanitizer sanitizer;
 
 
@@ -62,7 +68,14 @@ public class MonitoringController {
                     })
                     .toList();
 
-            Integer checkIntervalMinutes = (Integer) request.get("checkIntervalMinutes");
+            Integer checkIntervalMinutes = request.get("checkIntervalMinutes") != null
+                    ? ((Number) request.get("checkIntervalMinutes")).intValue()
+                    : 5;
+
+            if (checkIntervalMinutes < 1 || checkIntervalMinutes > 1440) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "checkIntervalMinutes deve estar entre 1 e 1440"));
+            }
 
 
             Double buyThreshold = request.get("buyThreshold") != null
@@ -99,15 +112,8 @@ public class MonitoringController {
             log.info("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
 
 
-            try {
-                log.info("🗑️  Apagando alertas antigos de {}", email);
-                alertService.deactivateAllAlertsForUser(email);
-            } catch (Exception e) {
-                log.warn("⚠️  Erro ao deletar alertas antigos: {}", e.getMessage());
-            }
-
-
-            int rulesCreated = createAlertRulesForUser(
+            int rulesCreated = replaceAlertRulesForUser(
+                    username,
                     email,
                     cryptocurrencies,
                     buyThreshold,
@@ -115,25 +121,18 @@ public class MonitoringController {
             );
 
 
-            boolean started = monitoringControlService.startMonitoring(username, email);
+            // Sessão já ativa é reiniciada com os novos parâmetros
+            monitoringControlService.startMonitoring(username, email, checkIntervalMinutes);
 
-            if (started) {
-                return ResponseEntity.ok(Map.of(
-                        "message", "Monitoramento iniciado com sucesso",
-                        "username", username,
-                        "email", email,
-                        "cryptocurrencies", cryptocurrencies,
-                        "alertRulesCreated", rulesCreated,
-                        "interval", checkIntervalMinutes != null ? checkIntervalMinutes : 5,
-                        "active", true
-                ));
-            } else {
-                return ResponseEntity.badRequest()
-                        .body(Map.of(
-                                "error", "Monitoramento já está ativo",
-                                "message", "Pare o atual antes de iniciar outro."
-                        ));
-            }
+            return ResponseEntity.ok(Map.of(
+                    "message", "Monitoramento iniciado com sucesso",
+                    "username", username,
+                    "email", email,
+                    "cryptocurrencies", cryptocurrencies,
+                    "alertRulesCreated", rulesCreated,
+                    "interval", checkIntervalMinutes,
+                    "active", true
+            ));
 
         } catch (IllegalArgumentException e) {
             log.error("⚠️  Entrada inválida: {}", e.getMessage());
@@ -151,49 +150,38 @@ public class MonitoringController {
     }
 
 
-    private int createAlertRulesForUser(
+    /**
+     * Troca as regras antigas pelas de compra/venda de cada moeda em uma única
+     * transação (1 UPDATE + 1 INSERT em batch). Falhas sobem para o endpoint,
+     * que não inicia o monitoramento.
+     */
+    private int replaceAlertRulesForUser(
+            String username,
             String email,
             List<String> cryptos,
             Double buyThreshold,
             Double sellThreshold
     ) {
-        int count = 0;
-
         log.info("🔧 Criando alertas para {} cryptos", cryptos.size());
 
-        for (String cryptoId : cryptos) {
-            try {
-                String symbol = mapCoinIdToSymbol(cryptoId);
-
-                log.info("   🔹 Criando alertas para: {} ({})", symbol, cryptoId);
-
-
-                AlertRule buyRule = new AlertRule();
-                buyRule.setCoinSymbol(symbol);
-                buyRule.setNotificationEmail(email);
-                buyRule.setAlertType(AlertRule.AlertType.PERCENT_CHANGE_24H);
-                buyRule.setThresholdValue(BigDecimal.valueOf(-buyThreshold)); // NEGATIVO CORRETAMENTE
-                buyRule.setActive(true);
+        List<AlertRule> rules = new ArrayList<>(cryptos.size() * 2);
 
-                alertService.createAlertRule(buyRule);
-                count++;
-
-
-                AlertRule sellRule = new AlertRule();
-                sellRule.setCoinSymbol(symbol);
-                sellRule.setNotificationEmail(email);
-                sellRule.setAlertType(AlertRule.AlertType.PERCENT_CHANGE_24H);
-                sellRule.setThresholdValue(BigDecimal.valueOf(sellThreshold)); // POSITIVO
-                sellRule.setActive(true);
-
-                alertService.createAlertRule(sellRule);
-                count++;
+        for (String cryptoId : cryptos) {
+            String symbol = mapCoinIdToSymbol(cryptoId);
 
-            } catch (Exception e) {
-                log.error("   ❌ Erro ao criar regras para {}: {}", cryptoId, e.getMessage());
+            for (AlertRule rule : AlertBacktestService.thresholdRules(buyThreshold, sellThreshold)) {
+                rule.setCoinSymbol(symbol);
+                rule.setNotificationEmail(email);
+                rules.add(rule);
             }
         }
 
+        // Sem dono não há regra: o monitoramento não pode começar "com sucesso" e vazio
+        User owner = userRepository.findByUsername(username)
+                .orElseThrow(() -> new IllegalArgumentException("Usuário não encontrado"));
+
+        int count = alertService.replaceRulesForUser(owner, email, rules);
+
         log.info("🎯 Total de alertas criados: {}", count);
         return count;
     }
@@ -280,9 +268,15 @@ public class MonitoringController {
     @GetMapping("/active")
     public ResponseEntity<?> getActiveMonitorings() {
         try {
+            Map<String, Object> cluster = monitoringClusterService.getStats();
+            Map<String, Object> local = monitoringControlService.getGlobalStatus();
+
             return ResponseEntity.ok(Map.of(
-                    "message", "Endpoint em desenvolvimento",
-                    "totalActive", 0
+                    "totalActive", cluster.get("activeSessions"),
+                    "nodeId", cluster.get("nodeId"),
+                    "liveNodes", cluster.get("liveNodes"),
+                    "localSessions", local.get("totalActiveMonitors"),
+                    "pendingBatches", local.get("pendingBatches")
             ));
         } catch (Exception e) {
             log.error("❌ Erro ao listar monitoramentos: {}", e.getMessage(), e);
@@ -2,8 +2,12 @@
 package com.crypto.controller;
 
 import com.crypto.model.Transaction;
+import com.crypto.service.PortfolioHistoryService;
+import com.crypto.service.PortfolioLotService;
+import com.crypto.service.PortfolioRiskService;
 import com.crypto.service.PortfolioService;
 import com.crypto.util.InputSanitizer;
+import com.crypto.util.LotLedger;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -21,6 +25,9 @@ import java.util.Map;
 public class PortfolioController {
 
     private final PortfolioService portfolioService;
+    private final PortfolioLotService portfolioLotService;
+    private final PortfolioHistoryService portfolioHistoryService;
+    private final PortfolioRiskService portfolioRiskService;
 
     private final InputSanitizer sanitizer;
 
@@ -39,6 +46,70 @@ public class PortfolioController {
     }
 
 
+    /**
+     * PnL realizado e não realizado por lotes: {@code method} = FIFO (padrão), LIFO ou AVERAGE.
+     */
+    @GetMapping("/pnl")
+    public ResponseEntity<?> getPnl(
+            @RequestParam(required = false) String method,
+            Authentication authentication
+    ) {
+        try {
+            return ResponseEntity.ok(portfolioLotService.getPnl(
+                    authentication.getName(), LotLedger.Method.parse(method)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Erro ao calcular PnL por lotes: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError()
+                    .body(Map.of("error", "Erro ao calcular PnL"));
+        }
+    }
+
+
+    /**
+     * Valor diário do portfolio: {@code range} = 7d, 30d (padrão), 90d, 1y ou all.
+     */
+    @GetMapping("/history")
+    public ResponseEntity<?> getHistory(
+            @RequestParam(required = false) String range,
+            Authentication authentication
+    ) {
+        try {
+            return ResponseEntity.ok(portfolioHistoryService.getHistory(authentication.getName(), range));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Erro ao montar histórico do portfolio: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError()
+                    .body(Map.of("error", "Erro ao montar histórico"));
+        }
+    }
+
+
+    /**
+     * VaR e CVaR (95% e 99%) de 1 e 7 dias por Monte Carlo.
+     */
+    @GetMapping("/risk")
+    public ResponseEntity<?> getRisk(
+            @RequestParam(required = false) Integer paths,
+            @RequestParam(required = false) Long seed,
+            Authentication authentication
+    ) {
+        try {
+            return ResponseEntity.ok(portfolioRiskService.getRisk(authentication.getName(), paths, seed));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(503).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Erro ao calcular risco do portfolio: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError()
+                    .body(Map.of("error", "Erro ao calcular risco"));
+        }
+    }
+
+
     @PostMapping("/transaction")
     public ResponseEntity<?> addTransaction(
             @RequestBody Transaction transaction,
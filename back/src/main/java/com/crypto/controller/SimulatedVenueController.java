@@ -0,0 +1,100 @@
+package com.crypto.controller;
+
+import com.crypto.model.CryptoCurrency;
+import com.crypto.service.CryptoService;
+import com.crypto.service.SimulatedVenue;
+import com.crypto.util.CryptoSymbolMapper;
+import com.crypto.util.SimOrderBook;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/venue")
+@RequiredArgsConstructor
+public class SimulatedVenueController {
+
+    private final SimulatedVenue venue;
+    private final CryptoService cryptoService;
+
+
+    /**
+     * Ordem na exchange simulada.
+     * Corpo: { coin, side: BUY|SELL, quantity, price? } — sem price = a mercado.
+     */
+    @PostMapping("/orders")
+    public ResponseEntity<?> placeOrder(@RequestBody Map<String, Object> request, Authentication authentication) {
+        try {
+            String coin = (String) request.get("coin");
+            if (coin == null || coin.isBlank()) {
+                return ResponseEntity.badRequest().body(Map.of("error", "coin é obrigatório"));
+            }
+            String symbol = CryptoSymbolMapper.toSymbol(coin);
+            if (symbol == null) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Moeda não suportada: " + coin));
+            }
+
+            String sideRaw = String.valueOf(request.get("side")).toUpperCase();
+            int side = switch (sideRaw) {
+                case "BUY" -> SimOrderBook.BUY;
+                case "SELL" -> SimOrderBook.SELL;
+                default -> throw new IllegalArgumentException("side deve ser BUY ou SELL");
+            };
+
+            if (!(request.get("quantity") instanceof Number quantity)) {
+                return ResponseEntity.badRequest().body(Map.of("error", "quantity é obrigatório"));
+            }
+            Double limitPrice = request.get("price") != null ? ((Number) request.get("price")).doubleValue() : null;
+
+            CryptoCurrency quote = cryptoService.getCryptoByCoinId(CryptoSymbolMapper.toCoinId(symbol))
+                    .filter(c -> c.getCurrentPrice() != null)
+                    .orElseThrow(() -> new IllegalStateException("Sem cotação para " + coin));
+
+            SimulatedVenue.Order order = venue.placeOrder(authentication.getName(), symbol, quote.getCurrentPrice().doubleValue(),
+                    side, quantity.doubleValue(), limitPrice);
+
+            return ResponseEntity.ok(Map.of("success", true, "order", order.toMap()));
+
+        } catch (IllegalArgumentException | ClassCastException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(503).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("❌ Erro na ordem simulada: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().body(Map.of("error", "Erro ao processar ordem"));
+        }
+    }
+
+    @GetMapping("/orders/{orderId}")
+    public ResponseEntity<?> getOrder(@PathVariable long orderId, Authentication authentication) {
+        return venue.order(authentication.getName(), orderId)
+                .<ResponseEntity<?>>map(o -> ResponseEntity.ok(Map.of("success", true, "order", o.toMap())))
+                .orElseGet(() -> ResponseEntity.status(404).body(Map.of("error", "Ordem não encontrada")));
+    }
+
+    @DeleteMapping("/orders/{orderId}")
+    public ResponseEntity<?> cancelOrder(@PathVariable long orderId, Authentication authentication) {
+        return venue.cancel(authentication.getName(), orderId)
+                .<ResponseEntity<?>>map(o -> ResponseEntity.ok(Map.of("success", true, "order", o.toMap())))
+                .orElseGet(() -> ResponseEntity.status(404).body(Map.of("error", "Ordem não encontrada")));
+    }
+
+    @GetMapping("/book/{coin}")
+    public ResponseEntity<?> getBook(@PathVariable String coin, @RequestParam(defaultValue = "20") int depth) {
+        try {
+            return ResponseEntity.ok(venue.depth(coin, depth));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(404).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<?> stats() {
+        return ResponseEntity.ok(venue.getStats());
+    }
+}
@@ -4,12 +4,16 @@ package com.crypto.controller;
 import com.crypto.model.BotTrade;
 import com.crypto.model.TradingBot;
 import com.crypto.service.TradingBotService;
+import com.crypto.util.BotPerformance;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -163,19 +167,38 @@ public class TradingBotController {
     public ResponseEntity<?> getBotStats(@PathVariable Long botId, Authentication auth) {
         try {
             String username = auth.getName();
-            List<BotTrade> trades = tradingBotService.getBotTrades(username, botId);
-
-            int totalTrades = trades.size();
-            long buyTrades = trades.stream().filter(t -> t.getSide() == BotTrade.TradeSide.BUY).count();
-            long sellTrades = trades.stream().filter(t -> t.getSide() == BotTrade.TradeSide.SELL).count();
+            BotPerformance.Snapshot p = tradingBotService.getBotPerformance(username, botId);
+
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("totalTrades", p.buys() + p.sells());
+            stats.put("buyTrades", p.buys());
+            stats.put("sellTrades", p.sells());
+            stats.put("realizedPnl", p.realizedPnl());
+            stats.put("unrealizedPnl", p.unrealizedPnl());
+            stats.put("totalPnl", p.totalPnl());
+            stats.put("maxDrawdown", p.maxDrawdown());
+            stats.put("winRate", p.winRate());
+            stats.put("averageWin", p.averageWin());
+            stats.put("averageLoss", p.averageLoss());
+            stats.put("sharpe", finite(p.sharpe()));
+            stats.put("averageReturn", finite(p.returnMean()));
+            stats.put("returnStdDev", finite(p.returnStdDev()));
+            stats.put("exposureSeconds", p.exposedMillis() / 1000);
+            stats.put("exposure", p.exposure());
+            stats.put("position", p.position());
+            stats.put("averageCost", finite(p.averageCost()));
+
+            List<Map<String, Object>> curve = new ArrayList<>(p.curveTimes().length);
+            for (int i = 0; i < p.curveTimes().length; i++) {
+                curve.add(Map.of(
+                        "time", Instant.ofEpochMilli(p.curveTimes()[i]).toString(),
+                        "equity", p.curveEquity()[i]));
+            }
+            stats.put("equityCurve", curve);
 
             return ResponseEntity.ok(Map.of(
                     "success", true,
-                    "stats", Map.of(
-                            "totalTrades", totalTrades,
-                            "buyTrades", buyTrades,
-                            "sellTrades", sellTrades
-                    )
+                    "stats", stats
             ));
         } catch (Exception e) {
             log.error("Erro ao buscar estatísticas: {}", e.getMessage());
@@ -185,4 +208,9 @@ public class TradingBotController {
             ));
         }
     }
-}
\ No newline at end of file
+
+    /** NaN (sem dados suficientes) vira null no JSON */
+    private static Double finite(double value) {
+        return Double.isFinite(value) ? value : null;
+    }
+}
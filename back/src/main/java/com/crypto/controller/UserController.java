@@ -237,6 +237,65 @@ public class UserController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Vincula (ou remove, com chatId vazio) o chat do Telegram do usuário.
+     */
+    @PutMapping("/telegram")
+    public ResponseEntity<?> updateTelegramChat(
+            @RequestHeader("Authorization") String authHeader,
+            @RequestBody Map<String, String> request) {
+
+        String token = authHeader.replace("Bearer ", "");
+        String username = jwtUtil.extractUsername(token);
+        String chatId = request.get("chatId") != null ? request.get("chatId").trim() : "";
+
+        if (!chatId.isEmpty() && !chatId.matches("^-?\\d{1,20}$|^@[A-Za-z0-9_]{5,32}$")) {
+            return ResponseEntity.badRequest().body(Map.of("error", "chatId inválido"));
+        }
+
+        log.info("📨 Atualização do chat Telegram para {}", LogMasker.maskUsername(username));
+
+        return userRepository.findByUsername(username)
+                .<ResponseEntity<?>>map(user -> {
+                    user.setTelegramChatId(chatId.isEmpty() ? null : chatId);
+                    userRepository.save(user);
+                    return ResponseEntity.ok(Map.of(
+                            "success", true,
+                            "telegramLinked", !chatId.isEmpty()
+                    ));
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Preferências de entrega: pular email enquanto conectado via WebSocket
+     * (só vale com nó único; em cluster o email sempre sai).
+     */
+    @PutMapping("/notifications")
+    public ResponseEntity<?> updateNotificationPreferences(
+            @RequestHeader("Authorization") String authHeader,
+            @RequestBody Map<String, Boolean> request) {
+
+        String token = authHeader.replace("Bearer ", "");
+        String username = jwtUtil.extractUsername(token);
+        Boolean skipEmailWhenOnline = request.get("skipEmailWhenOnline");
+
+        if (skipEmailWhenOnline == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "skipEmailWhenOnline é obrigatório"));
+        }
+
+        return userRepository.findByUsername(username)
+                .<ResponseEntity<?>>map(user -> {
+                    user.setSkipEmailWhenOnline(skipEmailWhenOnline);
+                    userRepository.save(user);
+                    return ResponseEntity.ok(Map.of(
+                            "success", true,
+                            "skipEmailWhenOnline", skipEmailWhenOnline
+                    ));
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     private boolean isValidEmail(String email) {
         if (email == null || email.isEmpty()) return false;
         String emailRegex = "^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$";
@@ -0,0 +1,23 @@
+package com.crypto.event;
+
+import com.crypto.model.CryptoCurrency;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.List;
+
+
+/**
+ * 📈 Cotações novas vindas da API (só o caminho de refresh publica;
+ * leituras servidas do cache ou do banco não geram tick).
+ */
+@Getter
+public class PriceTickEvent extends ApplicationEvent {
+
+    private final List<CryptoCurrency> quotes;
+
+    public PriceTickEvent(Object source, List<CryptoCurrency> quotes) {
+        super(source);
+        this.quotes = quotes;
+    }
+}
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 
 @Entity
@@ -38,6 +39,14 @@ public class AlertRule {
     @Column(name = "time_period", length = 20)
     private String timePeriod;
 
+    /** Período do indicador (RSI, Bollinger, z-score) ou média rápida do cruzamento */
+    @Column(name = "indicator_period")
+    private Integer indicatorPeriod;
+
+    /** Média lenta do cruzamento de médias */
+    @Column(name = "indicator_period_long")
+    private Integer indicatorPeriodLong;
+
     @Email(message = "E-mail inválido")
     @NotBlank(message = "E-mail é obrigatório")
     @Column(name = "notification_email", nullable = false)
@@ -50,23 +59,84 @@ public class AlertRule {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
+    @Column(name = "last_triggered_at")
+    private LocalDateTime lastTriggeredAt;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
     }
 
     public enum AlertType {
-        PRICE_INCREASE,
-        PRICE_DECREASE,
-        VOLUME_SPIKE,
-        PERCENT_CHANGE_24H,
-        MARKET_CAP
+        PRICE_INCREASE(false),
+        PRICE_DECREASE(false),
+        VOLUME_SPIKE(false),
+        PERCENT_CHANGE_24H(false),
+        MARKET_CAP(false),
+
+        // 📐 Indicadores (estado incremental compartilhado por moeda)
+        MA_CROSS_UP(true),
+        MA_CROSS_DOWN(true),
+        RSI_ABOVE(true),
+        RSI_BELOW(true),
+        BOLLINGER_BREAKOUT_UP(true),
+        BOLLINGER_BREAKOUT_DOWN(true),
+        PERCENT_CHANGE_WINDOW(true),
+        VOLUME_ZSCORE(true);
+
+        private final boolean indicator;
+
+        AlertType(boolean indicator) {
+            this.indicator = indicator;
+        }
+
+        public boolean isIndicator() {
+            return indicator;
+        }
     }
 
     public enum TimePeriod {
-        ONE_HOUR,
-        TWENTY_FOUR_HOURS,
-        SEVEN_DAYS
+        ONE_HOUR(Duration.ofHours(1)),
+        TWENTY_FOUR_HOURS(Duration.ofHours(24)),
+        SEVEN_DAYS(Duration.ofDays(7));
+
+        private final Duration duration;
+
+        TimePeriod(Duration duration) {
+            this.duration = duration;
+        }
+
+        public Duration getDuration() {
+            return duration;
+        }
+
+        /**
+         * Aceita o nome do enum ou uma janela livre: "15m", "4h", "3d".
+         */
+        public static Duration parse(String value) {
+            if (value == null || value.isBlank()) {
+                throw new IllegalArgumentException("timePeriod é obrigatório");
+            }
+
+            String v = value.trim();
+
+            for (TimePeriod period : values()) {
+                if (period.name().equalsIgnoreCase(v)) return period.duration;
+            }
+
+            if (!v.matches("^\\d{1,5}[mhdMHD]$")) {
+                throw new IllegalArgumentException("timePeriod inválido: " + value + " (ex.: 15m, 4h, 3d)");
+            }
+
+            long amount = Long.parseLong(v.substring(0, v.length() - 1));
+            if (amount <= 0) throw new IllegalArgumentException("timePeriod deve ser > 0");
+
+            return switch (Character.toLowerCase(v.charAt(v.length() - 1))) {
+                case 'm' -> Duration.ofMinutes(amount);
+                case 'h' -> Duration.ofHours(amount);
+                default -> Duration.ofDays(amount);
+            };
+        }
     }
 
     public Boolean getActive() {
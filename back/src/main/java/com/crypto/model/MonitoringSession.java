@@ -0,0 +1,45 @@
+package com.crypto.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "monitoring_sessions")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MonitoringSession {
+
+    @Id
+    @Column(name = "username")
+    private String username;
+
+    @Column(name = "email", nullable = false)
+    private String email;
+
+    @Column(name = "interval_minutes", nullable = false)
+    private Integer intervalMinutes;
+
+    @Builder.Default
+    @Column(name = "is_active", nullable = false)
+    private Boolean active = true;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Mantidos só por UPDATE nativo (claim); o save da entidade não os sobrescreve
+    @Column(name = "fencing_token", insertable = false, updatable = false)
+    private Long fencingToken;
+
+    @Column(name = "owner_node", insertable = false, updatable = false)
+    private String ownerNode;
+
+    @Column(name = "last_activity_at", insertable = false, updatable = false)
+    private LocalDateTime lastActivityAt;
+}
@@ -75,6 +75,10 @@ public class TradingBot {
     @Column(name = "entry_price", precision = 19, scale = 8)
     private BigDecimal entryPrice;
 
+    // ---------- CUSTOM ----------
+    @Column(name = "custom_strategy", columnDefinition = "TEXT")
+    private String customStrategy;
+
     // ---------- MÉTRICAS E ESTATÍSTICAS ----------
     @Builder.Default
     @Column(name = "total_profit_loss", precision = 19, scale = 2)
@@ -92,6 +96,15 @@ public class TradingBot {
     @Column(name = "losing_trades")
     private Integer losingTrades = 0;
 
+    // ---------- POSIÇÃO (gravada só pelo motor, em deltas) ----------
+    @Builder.Default
+    @Column(name = "position_quantity", precision = 19, scale = 8, insertable = false, updatable = false)
+    private BigDecimal positionQuantity = BigDecimal.ZERO;
+
+    @Builder.Default
+    @Column(name = "position_cost", precision = 19, scale = 8, insertable = false, updatable = false)
+    private BigDecimal positionCost = BigDecimal.ZERO;
+
     // ---------- DATAS ----------
     @Column(name = "created_at")
     private LocalDateTime createdAt;
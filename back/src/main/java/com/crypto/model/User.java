@@ -29,10 +29,20 @@ public class User {
     @Builder.Default
     private String role = "USER";
 
+    @Column(name = "telegram_chat_id", length = 64)
+    private String telegramChatId;
+
+    @Column(name = "skip_email_when_online", nullable = false)
+    @Builder.Default
+    private Boolean skipEmailWhenOnline = false;
+
     @Column(nullable = false)
     @Builder.Default
     private Boolean enabled = false;
 
+    @Column(name = "portfolio_changed_at", insertable = false, updatable = false)
+    private LocalDateTime portfolioChangedAt;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -14,4 +14,12 @@ public class NotificationMessage {
     private AlertType alertType;
     private String message;
     private String recipient;
+    private Long ruleId;
+    private String telegramChatId;
+
+    /** Usuário conectado via WebSocket: o alerta também sai em /user/queue/alerts */
+    private boolean inApp;
+
+    /** Usuário online optou por não receber email */
+    private boolean skipEmail;
 }
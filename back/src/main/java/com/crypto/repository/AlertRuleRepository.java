@@ -2,9 +2,11 @@ package com.crypto.repository;
 
 import com.crypto.model.AlertRule;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -34,4 +36,16 @@ public interface AlertRuleRepository extends JpaRepository<AlertRule, Long> {
             @Param("email") String email,
             @Param("symbols") Set<String> symbols
     );
+
+    /**
+     * 🔥 Lote de usuários do mesmo tick do scheduler em uma única query
+     */
+    @Query("SELECT ar FROM AlertRule ar " +
+            "WHERE ar.notificationEmail IN :emails " +
+            "AND ar.coinSymbol IN :symbols " +
+            "AND ar.active = true")
+    List<AlertRule> findByNotificationEmailInAndCoinSymbolInAndActiveTrue(
+            @Param("emails") Collection<String> emails,
+            @Param("symbols") Set<String> symbols
+    );
 }
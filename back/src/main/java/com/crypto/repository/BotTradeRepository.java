@@ -4,8 +4,11 @@ package com.crypto.repository;
 import com.crypto.model.BotTrade;
 import com.crypto.model.TradingBot;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -13,10 +16,24 @@ public interface BotTradeRepository extends JpaRepository<BotTrade, Long> {
 
     List<BotTrade> findByBotOrderByExecutedAtDesc(TradingBot bot);
 
+    List<BotTrade> findByBotIdOrderByIdAsc(Long botId);
+
+    List<BotTrade> findByBotIdAndIdGreaterThanOrderByIdAsc(Long botId, Long afterId);
+
     List<BotTrade> findByBotAndSideOrderByExecutedAtAsc(
             TradingBot bot,
             BotTrade.TradeSide side
     );
 
     List<BotTrade> findByBotAndIsSimulation(TradingBot bot, Boolean isSimulation);
+
+    /**
+     * 🔥 Lotes de compra com saldo, de vários bots, em ordem FIFO (uma query por ciclo do motor)
+     */
+    @Query("SELECT t FROM BotTrade t " +
+            "WHERE t.bot.id IN :botIds " +
+            "AND t.side = com.crypto.model.BotTrade.TradeSide.BUY " +
+            "AND (t.soldQuantity IS NULL OR t.soldQuantity < t.quantity) " +
+            "ORDER BY t.executedAt ASC, t.id ASC")
+    List<BotTrade> findOpenBuyLots(@Param("botIds") Collection<Long> botIds);
 }
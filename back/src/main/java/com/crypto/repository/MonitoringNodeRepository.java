@@ -0,0 +1,22 @@
+package com.crypto.repository;
+
+import com.crypto.model.MonitoringNode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface MonitoringNodeRepository extends JpaRepository<MonitoringNode, String> {
+
+    @Query("SELECT n.nodeId FROM MonitoringNode n WHERE n.heartbeatAt > :cutoff")
+    List<String> findLiveNodeIds(@Param("cutoff") LocalDateTime cutoff);
+
+    @Modifying
+    @Query("DELETE FROM MonitoringNode n WHERE n.heartbeatAt < :before")
+    int deleteExpired(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,68 @@
+package com.crypto.repository;
+
+import com.crypto.model.MonitoringSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface MonitoringSessionRepository extends JpaRepository<MonitoringSession, String> {
+
+    List<MonitoringSession> findByActiveTrue();
+
+    /**
+     * Sincronização incremental: inclui sessões desativadas para que o nó dono as remova
+     */
+    List<MonitoringSession> findByUpdatedAtAfter(LocalDateTime since);
+
+    boolean existsByUsernameAndActiveTrue(String username);
+
+    long countByActiveTrue();
+
+    @Modifying
+    @Query("UPDATE MonitoringSession s SET s.active = false, s.updatedAt = :now " +
+            "WHERE s.username = :username AND s.active = true")
+    int deactivate(@Param("username") String username, @Param("now") LocalDateTime now);
+
+    /**
+     * Assume a sessão: novo fencing token, que invalida o do dono anterior
+     */
+    @Modifying
+    @Query(value = "UPDATE monitoring_sessions SET fencing_token = fencing_token + 1, owner_node = :node " +
+            "WHERE username = :username AND is_active = TRUE", nativeQuery = true)
+    int claim(@Param("username") String username, @Param("node") String node);
+
+    @Query("SELECT s.fencingToken FROM MonitoringSession s WHERE s.username = :username")
+    Long findFencingToken(@Param("username") String username);
+
+    @Query("SELECT s.username, s.fencingToken FROM MonitoringSession s " +
+            "WHERE s.username IN :usernames AND s.active = true")
+    List<Object[]> findActiveTokens(@Param("usernames") Collection<String> usernames);
+
+    /**
+     * Sessões sem atividade registrada (em nenhum nó) desde o corte
+     */
+    @Query("SELECT s.username FROM MonitoringSession s WHERE s.active = true AND s.startedAt < :cutoff " +
+            "AND (s.lastActivityAt IS NULL OR s.lastActivityAt < :cutoff)")
+    List<String> findIdleUsernames(@Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * Desativa só se continua ociosa: atividade gravada depois da leitura preserva a sessão
+     */
+    @Modifying
+    @Query("UPDATE MonitoringSession s SET s.active = false, s.updatedAt = :now " +
+            "WHERE s.username = :username AND s.active = true AND s.startedAt < :cutoff " +
+            "AND (s.lastActivityAt IS NULL OR s.lastActivityAt < :cutoff)")
+    int deactivateIdle(@Param("username") String username, @Param("cutoff") LocalDateTime cutoff,
+                       @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM MonitoringSession s WHERE s.active = false AND s.updatedAt < :before")
+    int purgeInactive(@Param("before") LocalDateTime before);
+}
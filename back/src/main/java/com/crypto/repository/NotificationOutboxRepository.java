@@ -0,0 +1,71 @@
+package com.crypto.repository;
+
+import com.crypto.model.NotificationOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+
+    /**
+     * 🔒 Claim em lote: linhas pendentes vencidas + linhas PROCESSING de workers mortos.
+     * SKIP LOCKED permite vários workers/instâncias sem disputa.
+     */
+    @Query(value = "SELECT * FROM notification_outbox " +
+            "WHERE (status = 'PENDING' AND next_attempt_at <= :now) " +
+            "OR (status = 'PROCESSING' AND locked_at < :staleBefore) " +
+            "ORDER BY id " +
+            "LIMIT :limit " +
+            "FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<NotificationOutbox> lockNextBatch(
+            @Param("now") LocalDateTime now,
+            @Param("staleBefore") LocalDateTime staleBefore,
+            @Param("limit") int limit
+    );
+
+    @Modifying
+    @Query("UPDATE NotificationOutbox o SET o.status = :status, o.lockedBy = :worker, " +
+            "o.lockedAt = :now, o.attempts = o.attempts + 1 WHERE o.id IN :ids")
+    int markProcessing(
+            @Param("ids") Collection<Long> ids,
+            @Param("worker") String worker,
+            @Param("now") LocalDateTime now,
+            @Param("status") NotificationOutbox.Status status
+    );
+
+    @Modifying
+    @Query("UPDATE NotificationOutbox o SET o.status = :status, o.sentAt = :now, " +
+            "o.lockedBy = null, o.lockedAt = null, o.lastError = null WHERE o.id IN :ids")
+    int markSent(
+            @Param("ids") Collection<Long> ids,
+            @Param("now") LocalDateTime now,
+            @Param("status") NotificationOutbox.Status status
+    );
+
+    @Modifying
+    @Query("UPDATE NotificationOutbox o SET o.status = :status, o.nextAttemptAt = :nextAttemptAt, " +
+            "o.lockedBy = null, o.lockedAt = null, o.lastError = :error WHERE o.id = :id")
+    int reschedule(
+            @Param("id") Long id,
+            @Param("status") NotificationOutbox.Status status,
+            @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+            @Param("error") String error
+    );
+
+    @Modifying
+    @Query("DELETE FROM NotificationOutbox o WHERE o.status = :status AND o.sentAt < :before")
+    int purgeSentBefore(
+            @Param("status") NotificationOutbox.Status status,
+            @Param("before") LocalDateTime before
+    );
+
+    long countByStatus(NotificationOutbox.Status status);
+}
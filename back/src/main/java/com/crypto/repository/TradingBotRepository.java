@@ -4,8 +4,14 @@ package com.crypto.repository;
 import com.crypto.model.TradingBot;
 import com.crypto.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -13,4 +19,21 @@ public interface TradingBotRepository extends JpaRepository<TradingBot, Long> {
     List<TradingBot> findByUser(User user);
     List<TradingBot> findByUserAndStatus(User user, TradingBot.BotStatus status);
     List<TradingBot> findByStatus(TradingBot.BotStatus status);
+    List<TradingBot> findByStatusAndStrategyIn(TradingBot.BotStatus status, Collection<TradingBot.TradingStrategy> strategies);
+
+    /**
+     * Start/stop só tocam nas colunas de controle: os contadores gravados
+     * pelo motor como deltas não são sobrescritos por uma entidade antiga.
+     */
+    @Modifying
+    @Query("UPDATE TradingBot b SET b.status = com.crypto.model.TradingBot.BotStatus.RUNNING, " +
+            "b.startedAt = :startedAt, b.entryPrice = COALESCE(:entryPrice, b.entryPrice) " +
+            "WHERE b.id = :id AND b.status <> com.crypto.model.TradingBot.BotStatus.RUNNING")
+    int markRunning(@Param("id") Long id, @Param("startedAt") LocalDateTime startedAt,
+                    @Param("entryPrice") BigDecimal entryPrice);
+
+    @Modifying
+    @Query("UPDATE TradingBot b SET b.status = com.crypto.model.TradingBot.BotStatus.STOPPED, " +
+            "b.stoppedAt = :stoppedAt WHERE b.id = :id")
+    int markStopped(@Param("id") Long id, @Param("stoppedAt") LocalDateTime stoppedAt);
 }
\ No newline at end of file
@@ -12,4 +12,8 @@ import java.util.List;
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
     List<Transaction> findByUserOrderByTransactionDateDesc(User user);
     List<Transaction> findByUserAndCoinSymbolOrderByTransactionDateDesc(User user, String coinSymbol);
+
+    // Ordem de aplicação da contabilidade por lotes (data, depois id)
+    List<Transaction> findByUserUsernameOrderByTransactionDateAscIdAsc(String username);
+    List<Transaction> findByUserUsernameAndCoinSymbolIgnoreCaseOrderByTransactionDateAscIdAsc(String username, String coinSymbol);
 }
\ No newline at end of file
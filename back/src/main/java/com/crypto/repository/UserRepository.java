@@ -2,11 +2,23 @@ package com.crypto.repository;
 
 import com.crypto.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
+
+    @Modifying
+    @Query("UPDATE User u SET u.portfolioChangedAt = :now WHERE u.id = :id")
+    int touchPortfolio(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Query("SELECT u.username FROM User u WHERE u.portfolioChangedAt > :since")
+    List<String> findPortfolioChangedSince(@Param("since") LocalDateTime since);
 }
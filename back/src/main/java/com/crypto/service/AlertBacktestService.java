@@ -0,0 +1,267 @@
+package com.crypto.service;
+
+import com.crypto.model.AlertRule;
+import com.crypto.model.AlertRule.AlertType;
+import com.crypto.util.AlertBacktester;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 🧪 Backtest de regras de alerta sobre o histórico de uma moeda.
+ *
+ * A série (e os indicadores derivados dela) fica em cache; cada requisição
+ * só paga o replay das regras, executado em paralelo num ForkJoinPool próprio.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AlertBacktestService {
+
+    private final CoinGeckoApiService coinGeckoService;
+    private final IndicatorStateService indicatorStateService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${alert.backtest.parallelism:0}")
+    private int parallelism;
+
+    @Value("${alert.backtest.max-rules:1000}")
+    private int maxRules;
+
+    @Value("${alert.backtest.max-events-per-rule:200}")
+    private int maxEventsPerRule;
+
+    @Value("${alert.backtest.series-cache-size:32}")
+    private int seriesCacheSize;
+
+    @Value("${alert.backtest.series-cache-ttl-minutes:30}")
+    private int seriesCacheTtlMinutes;
+
+    @Value("${notification.email.cooldown-minutes:60}")
+    private int defaultCooldownMinutes;
+
+    private ForkJoinPool pool;
+    private Cache<String, AlertBacktester> seriesCache;
+    private Timer replayTimer;
+
+
+    @PostConstruct
+    public void init() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(threads);
+
+        seriesCache = Caffeine.newBuilder()
+                .maximumSize(seriesCacheSize)
+                .expireAfterWrite(seriesCacheTtlMinutes, TimeUnit.MINUTES)
+                .recordStats()
+                .build();
+
+        replayTimer = Timer.builder("crypto_alert_backtest_seconds")
+                .description("Tempo de replay das regras (sem carga da série)")
+                .register(meterRegistry);
+
+        log.info("🧪 Backtest de alertas: paralelismo {} | cache {} séries", threads, seriesCacheSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) pool.shutdown();
+    }
+
+
+    /**
+     * Converte as regras propostas, carrega a série (cacheada) e executa o replay.
+     */
+    public Map<String, Object> backtest(String coinId, int days, List<AlertRule> rules, Integer cooldownMinutes) {
+        if (rules.isEmpty()) {
+            throw new IllegalArgumentException("Informe ao menos uma regra");
+        }
+        if (rules.size() > maxRules) {
+            throw new IllegalArgumentException("Máximo de " + maxRules + " regras por backtest");
+        }
+
+        List<AlertBacktester.RuleSpec> specs = new ArrayList<>(rules.size());
+        for (AlertRule rule : rules) {
+            specs.add(toSpec(rule));
+        }
+
+        AlertBacktester backtester = loadSeries(coinId, days);
+        AlertBacktester.Series series = backtester.series();
+
+        if (series.size() == 0) {
+            throw new IllegalStateException("Histórico indisponível para " + coinId);
+        }
+
+        long cooldownMillis = TimeUnit.MINUTES.toMillis(cooldownMinutes != null ? cooldownMinutes : defaultCooldownMinutes);
+
+        long start = System.nanoTime();
+        AlertBacktester.Result[] results = backtester.runAll(specs, cooldownMillis, maxEventsPerRule, pool);
+        long elapsedNanos = System.nanoTime() - start;
+        replayTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        List<Map<String, Object>> ruleResults = new ArrayList<>(results.length);
+        for (int i = 0; i < results.length; i++) {
+            ruleResults.add(toResponse(i, rules.get(i), results[i], series));
+        }
+
+        log.info("🧪 Backtest {} ({}d): {} regras × {} pontos em {}ms",
+                coinId, days, rules.size(), series.size(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("success", true);
+        response.put("coinId", coinId);
+        response.put("days", days);
+        response.put("points", series.size());
+        response.put("resolutionMinutes", series.resolutionMinutes());
+        response.put("limitation", "Replay sobre a série da CoinGecko: pontos a cada 5 min (1 dia), "
+                + "de hora em hora (até 90 dias) ou diários (acima disso). Janelas e cooldowns menores "
+                + "que a resolução não são reproduzidos; só os pontos da série disparam.");
+        response.put("from", Instant.ofEpochMilli(series.times()[0]).toString());
+        response.put("to", Instant.ofEpochMilli(series.times()[series.size() - 1]).toString());
+        response.put("cooldownMinutes", TimeUnit.MILLISECONDS.toMinutes(cooldownMillis));
+        response.put("replayMillis", TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        response.put("results", ruleResults);
+        return response;
+    }
+
+    /**
+     * Série histórica cacheada (compartilhada com o backtest de bots).
+     */
+    public AlertBacktester.Series series(String coinId, int days) {
+        return loadSeries(coinId, days).series();
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+                "cachedSeries", seriesCache.estimatedSize(),
+                "hitRate", seriesCache.stats().hitRate(),
+                "parallelism", pool.getParallelism()
+        );
+    }
+
+
+    // ================================================
+    // 🔧 INTERNOS
+    // ================================================
+
+    private AlertBacktester loadSeries(String coinId, int days) {
+        String key = coinId + "|" + days;
+        AlertBacktester cached = seriesCache.getIfPresent(key);
+        if (cached != null) return cached;
+
+        AlertBacktester loaded = new AlertBacktester(fetchSeries(coinId, days));
+
+        // Série vazia (falha na API) não vai para o cache
+        if (loaded.series().size() > 0) {
+            seriesCache.put(key, loaded);
+        }
+        return loaded;
+    }
+
+    private AlertBacktester.Series fetchSeries(String coinId, int days) {
+        List<Map<String, Number>> history = coinGeckoService.getHistory(coinId, days);
+
+        int n = history.size();
+        long[] times = new long[n];
+        double[] prices = new double[n];
+        double[] volumes = new double[n];
+
+        for (int i = 0; i < n; i++) {
+            Map<String, Number> point = history.get(i);
+            times[i] = point.get("timestamp").longValue();
+            prices[i] = point.get("price").doubleValue();
+            Number volume = point.get("volume");
+            volumes[i] = volume != null ? volume.doubleValue() : Double.NaN;
+        }
+
+        log.debug("📥 Série carregada para backtest: {} ({}d) - {} pontos", coinId, days, n);
+        return new AlertBacktester.Series(times, prices, volumes);
+    }
+
+    private AlertBacktester.RuleSpec toSpec(AlertRule rule) {
+        AlertType type = rule.getAlertType();
+
+        if (type == null) {
+            throw new IllegalArgumentException("alertType é obrigatório");
+        }
+        if (type == AlertType.MARKET_CAP) {
+            throw new IllegalArgumentException("MARKET_CAP não possui histórico para backtest");
+        }
+
+        if (type.isIndicator()) {
+            indicatorStateService.validate(rule);
+        } else if (rule.getThresholdValue() == null) {
+            throw new IllegalArgumentException(type + " requer thresholdValue");
+        }
+
+        double threshold = rule.getThresholdValue() != null ? rule.getThresholdValue().doubleValue() : 0;
+        long window = type == AlertType.PERCENT_CHANGE_WINDOW
+                ? AlertRule.TimePeriod.parse(rule.getTimePeriod()).toMillis()
+                : 0;
+        int period = rule.getIndicatorPeriod() != null ? rule.getIndicatorPeriod() : 0;
+        int periodLong = rule.getIndicatorPeriodLong() != null ? rule.getIndicatorPeriodLong() : 0;
+
+        return AlertBacktester.RuleSpec.of(type, threshold, window, period, periodLong);
+    }
+
+    private static Map<String, Object> toResponse(int index, AlertRule rule, AlertBacktester.Result result,
+                                                  AlertBacktester.Series series) {
+        List<Map<String, Object>> events = new ArrayList<>(result.eventIndexes().length);
+
+        for (int e = 0; e < result.eventIndexes().length; e++) {
+            int i = result.eventIndexes()[e];
+            events.add(Map.of(
+                    "timestamp", series.times()[i],
+                    "price", series.prices()[i],
+                    "value", result.eventValues()[e]
+            ));
+        }
+
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("index", index);
+        m.put("alertType", rule.getAlertType());
+        m.put("thresholdValue", rule.getThresholdValue());
+        if (rule.getIndicatorPeriod() != null) m.put("indicatorPeriod", rule.getIndicatorPeriod());
+        if (rule.getIndicatorPeriodLong() != null) m.put("indicatorPeriodLong", rule.getIndicatorPeriodLong());
+        if (rule.getTimePeriod() != null) m.put("timePeriod", rule.getTimePeriod());
+        m.put("fires", result.fires());
+        m.put("truncated", result.fires() > events.size());
+        m.put("events", events);
+        return m;
+    }
+
+    /**
+     * Regras de compra/venda equivalentes às criadas em /api/monitoring/start.
+     */
+    public static List<AlertRule> thresholdRules(Double buyThreshold, Double sellThreshold) {
+        List<AlertRule> rules = new ArrayList<>(2);
+
+        if (buyThreshold != null) {
+            rules.add(AlertRule.builder()
+                    .alertType(AlertType.PERCENT_CHANGE_24H)
+                    .thresholdValue(BigDecimal.valueOf(-Math.abs(buyThreshold)))
+                    .build());
+        }
+        if (sellThreshold != null) {
+            rules.add(AlertRule.builder()
+                    .alertType(AlertType.PERCENT_CHANGE_24H)
+                    .thresholdValue(BigDecimal.valueOf(Math.abs(sellThreshold)))
+                    .build());
+        }
+
+        return rules;
+    }
+}
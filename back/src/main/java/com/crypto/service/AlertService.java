@@ -3,18 +3,28 @@ package com.crypto.service;
 import com.crypto.model.AlertRule;
 import com.crypto.model.AlertRule.AlertType;
 import com.crypto.model.CryptoCurrency;
+import com.crypto.model.User;
 import com.crypto.model.dto.NotificationMessage;
 import com.crypto.repository.AlertRuleRepository;
 import com.crypto.repository.UserRepository;
+import com.crypto.util.AlertPredicate;
+import com.crypto.util.AlertRuleCompiler;
+import com.crypto.util.LogMasker;
+import com.crypto.util.QuoteView;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.text.DecimalFormat;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -25,9 +35,15 @@ public class AlertService {
     private final AlertRuleRepository alertRuleRepository;
     private final NotificationService notificationService;
     private final UserRepository userRepository;
+    private final UserAlertPushService userAlertPushService;
+    private final IndicatorStateService indicatorStateService;
+    private final JdbcTemplate jdbcTemplate;
 
     private final DecimalFormat df = new DecimalFormat("#,##0.00");
 
+    // Regras só mudam ao serem desativadas; id → predicado compilado
+    private final Map<Long, AlertPredicate> compiledRules = new ConcurrentHashMap<>();
+
     @Transactional
     public AlertRule createAlertRule(AlertRule alertRule) {
         try {
@@ -68,6 +84,10 @@ public class AlertService {
             throw new IllegalArgumentException("coinSymbol é obrigatório");
         }
 
+        if (type == null) {
+            throw new IllegalArgumentException("alertType é obrigatório");
+        }
+
         if (type == AlertType.PERCENT_CHANGE_24H) {
             if (rule.getThresholdValue() == null)
                 throw new IllegalArgumentException("PERCENT_CHANGE_24H requer thresholdValue");
@@ -90,20 +110,91 @@ public class AlertService {
                 throw new IllegalArgumentException(type + " requer thresholdValue");
             rule.setTargetPrice(null);
         }
+
+        if (type.isIndicator()) {
+            indicatorStateService.validate(rule);
+            rule.setTargetPrice(null);
+        }
+    }
+
+    /**
+     * Desativa as regras ativas do dono (pelo id, nunca pelo e-mail informado na requisição).
+     */
+    @Transactional
+    public int deactivateAllAlertsForUser(Long userId) {
+        List<Long> ids = jdbcTemplate.queryForList(SELECT_ACTIVE_IDS_SQL, Long.class, userId);
+        if (ids.isEmpty()) return 0;
+
+        int count = jdbcTemplate.update(DEACTIVATE_BY_OWNER_SQL, userId);
+        ids.forEach(this::evictCompiled);
+
+        return count;
     }
 
+    // ==========================================================================================
+    // 🔁 SUBSTITUIÇÃO EM LOTE: 1 UPDATE + 1 INSERT EM BATCH, NUMA ÚNICA TRANSAÇÃO
+    // ==========================================================================================
+
+    private static final String SELECT_ACTIVE_IDS_SQL =
+            "SELECT id FROM alert_rules WHERE user_id = ? AND is_active = TRUE FOR UPDATE";
+
+    private static final String DEACTIVATE_BY_OWNER_SQL =
+            "UPDATE alert_rules SET is_active = FALSE WHERE user_id = ? AND is_active = TRUE";
+
+    private static final String INSERT_RULE_SQL =
+            "INSERT INTO alert_rules (user_id, coin_symbol, alert_type, threshold_value, target_price, " +
+            "time_period, indicator_period, indicator_period_long, notification_email, is_active, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, TRUE, ?)";
+
+    /**
+     * Desativa todas as regras ativas do dono e insere o novo conjunto.
+     *
+     * O id das regras é IDENTITY (sem batch de insert pelo Hibernate), então
+     * desativação e inserção vão direto por JDBC, na mesma conexão e transação.
+     * O e-mail só define o destino das notificações, nunca quais regras são
+     * desativadas. Qualquer regra inválida desfaz a operação inteira.
+     *
+     * @return quantidade de regras inseridas
+     */
     @Transactional
-    public int deactivateAllAlertsForUser(String email) {
-        List<AlertRule> rules = alertRuleRepository.findByNotificationEmailAndActiveTrue(email);
+    public int replaceRulesForUser(User owner, String email, List<AlertRule> rules) {
+        if (owner == null || owner.getId() == null) {
+            throw new IllegalArgumentException("Usuário não encontrado");
+        }
+        if (email == null || email.isBlank()) {
+            throw new IllegalArgumentException("Email é obrigatório");
+        }
 
-        int count = 0;
         for (AlertRule rule : rules) {
-            rule.setActive(false);
-            alertRuleRepository.save(rule);
-            count++;
+            if (rule.getCoinSymbol() != null) {
+                rule.setCoinSymbol(rule.getCoinSymbol().toUpperCase());
+            }
+            validateAlertRule(rule);
         }
 
-        return count;
+        int deactivated = deactivateAllAlertsForUser(owner.getId());
+
+        if (!rules.isEmpty()) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+            jdbcTemplate.batchUpdate(INSERT_RULE_SQL, rules, rules.size(), (ps, rule) -> {
+                ps.setLong(1, owner.getId());
+                ps.setString(2, rule.getCoinSymbol());
+                ps.setString(3, rule.getAlertType().name());
+                ps.setBigDecimal(4, rule.getThresholdValue());
+                ps.setBigDecimal(5, rule.getTargetPrice());
+                ps.setString(6, rule.getTimePeriod());
+                ps.setObject(7, rule.getIndicatorPeriod(), Types.INTEGER);
+                ps.setObject(8, rule.getIndicatorPeriodLong(), Types.INTEGER);
+                ps.setString(9, email);
+                ps.setTimestamp(10, now);
+            });
+        }
+
+        log.info("🔁 Regras substituídas para {}: {} desativadas | {} criadas",
+                LogMasker.maskEmail(email), deactivated, rules.size());
+
+        return rules.size();
     }
 
     @Transactional
@@ -113,6 +204,7 @@ public class AlertService {
 
         rule.setActive(false);
         alertRuleRepository.save(rule);
+        evictCompiled(rule.getId());
     }
 
     public List<AlertRule> getActiveAlertRules() {
@@ -126,13 +218,11 @@ public class AlertService {
     // ==========================================================================================
     // 🔥 NOVO MÉTODO OTIMIZADO COM IN QUERY + READONLY + ZERO N+1
     // ==========================================================================================
-    @Transactional(readOnly = true)
+    @Transactional
     public void processAlertsForUser(List<CryptoCurrency> cryptos, String userEmail) {
 
         // 🔥 Extrai apenas os símbolos relevantes
-        Set<String> symbols = cryptos.stream()
-                .map(c -> c.getSymbol().toUpperCase())
-                .collect(Collectors.toSet());
+        Set<String> symbols = symbolsOf(cryptos);
 
         if (symbols.isEmpty()) return;
 
@@ -142,27 +232,71 @@ public class AlertService {
                         userEmail, symbols
                 );
 
+        evaluateRules(cryptos, rules);
+    }
+
+    /**
+     * Uma passada para vários usuários (lote do scheduler): uma query, um snapshot
+     * de preços e um frame WebSocket por usuário.
+     */
+    @Transactional
+    public void processAlertsForUsers(List<CryptoCurrency> cryptos, Collection<String> userEmails) {
+        if (userEmails.isEmpty()) return;
+
+        Set<String> symbols = symbolsOf(cryptos);
+
+        if (symbols.isEmpty()) return;
+
+        List<AlertRule> rules = alertRuleRepository
+                .findByNotificationEmailInAndCoinSymbolInAndActiveTrue(
+                        userEmails, symbols
+                );
+
+        evaluateRules(cryptos, rules);
+    }
+
+    private static Set<String> symbolsOf(List<CryptoCurrency> cryptos) {
+        return cryptos.stream()
+                .map(c -> c.getSymbol().toUpperCase())
+                .collect(Collectors.toSet());
+    }
+
+    private void evaluateRules(List<CryptoCurrency> cryptos, List<AlertRule> rules) {
         if (rules.isEmpty()) return;
 
         Map<String, List<AlertRule>> rulesBySymbol = rules.stream()
                 .collect(Collectors.groupingBy(r -> r.getCoinSymbol().toUpperCase()));
 
+        // 🔔 Alertas in-app desta passada saem num único frame por usuário
+        UserAlertPushService.Batch pushBatch = userAlertPushService.newBatch();
+        QuoteView quote = new QuoteView();
+
         for (CryptoCurrency crypto : cryptos) {
             List<AlertRule> cryptoRules =
                     rulesBySymbol.get(crypto.getSymbol().toUpperCase());
 
             if (cryptoRules == null) continue;
 
+            quote.load(crypto);
+
             for (AlertRule rule : cryptoRules) {
+                boolean hit;
                 try {
-                    if (shouldTriggerAlert(crypto, rule)) {
-                        triggerAlert(crypto, rule);
-                    }
+                    hit = compiled(rule).test(quote);
                 } catch (Exception e) {
                     log.error("Erro processando regra {}: {}", rule.getId(), e.getMessage());
+                    continue;
+                }
+
+                // Fora do try: falha no enqueue já marcou a transação como rollback-only,
+                // então propaga e a passada inteira volta (cooldowns devolvidos no rollback)
+                if (hit) {
+                    triggerAlert(crypto, rule, pushBatch);
                 }
             }
         }
+
+        userAlertPushService.publish(pushBatch);
     }
 
     @Transactional
@@ -177,61 +311,58 @@ public class AlertService {
         log.info("⚠️ Monitoramento automático não dispara alertas — apenas via /monitoring/start");
     }
 
+    @Transactional
     public void checkAlertsForCryptoAndUser(CryptoCurrency crypto, String email) {
         List<AlertRule> rules = alertRuleRepository
                 .findByCoinSymbolAndNotificationEmailAndActiveTrue(
                         crypto.getSymbol().toUpperCase(), email
                 );
 
+        UserAlertPushService.Batch pushBatch = userAlertPushService.newBatch();
+        QuoteView quote = QuoteView.of(crypto);
+
         for (AlertRule rule : rules) {
             try {
-                if (shouldTriggerAlert(crypto, rule)) {
-                    triggerAlert(crypto, rule);
+                if (compiled(rule).test(quote)) {
+                    triggerAlert(crypto, rule, pushBatch);
                 }
             } catch (Exception ignored) {}
         }
+
+        userAlertPushService.publish(pushBatch);
     }
 
-    private boolean shouldTriggerAlert(CryptoCurrency crypto, AlertRule rule) {
-        if (crypto == null || rule == null || rule.getThresholdValue() == null) {
-            return false;
+    // ==========================================================================================
+    // ⚡ REGRAS COMPILADAS (switch + unboxing uma vez por regra, não por avaliação)
+    // ==========================================================================================
+    private AlertPredicate compiled(AlertRule rule) {
+        if (rule.getId() == null) {
+            return AlertRuleCompiler.compile(rule, this::indicatorPredicate);
         }
+        return compiledRules.computeIfAbsent(rule.getId(),
+                id -> AlertRuleCompiler.compile(rule, this::indicatorPredicate));
+    }
 
-        BigDecimal threshold = rule.getThresholdValue();
-
-        switch (rule.getAlertType()) {
-
-            case PRICE_INCREASE:
-                return crypto.getCurrentPrice() != null &&
-                        crypto.getCurrentPrice().compareTo(threshold) >= 0;
-
-            case PRICE_DECREASE:
-                return crypto.getCurrentPrice() != null &&
-                        crypto.getCurrentPrice().compareTo(threshold) <= 0;
-
-            case VOLUME_SPIKE:
-                return crypto.getTotalVolume() != null &&
-                        crypto.getTotalVolume().compareTo(threshold) >= 0;
-
-            case MARKET_CAP:
-                return crypto.getMarketCap() != null &&
-                        crypto.getMarketCap().compareTo(threshold) >= 0;
-
-            case PERCENT_CHANGE_24H:
-                if (crypto.getPriceChange24h() == null) return false;
-                double change = crypto.getPriceChange24h();
-                double trg = threshold.doubleValue();
+    private AlertPredicate indicatorPredicate(AlertRule rule) {
+        return quote -> indicatorStateService.evaluate(rule);
+    }
 
-                return trg < 0 ? change <= trg : change >= trg;
+    private void evictCompiled(Long ruleId) {
+        if (ruleId != null) compiledRules.remove(ruleId);
+        indicatorStateService.forget(ruleId);
+    }
 
-            default:
-                return false;
-        }
+    public int compiledRuleCount() {
+        return compiledRules.size();
     }
 
-    private void triggerAlert(CryptoCurrency crypto, AlertRule rule) {
+    private void triggerAlert(CryptoCurrency crypto, AlertRule rule, UserAlertPushService.Batch pushBatch) {
         String msg = buildAlertMessage(crypto, rule);
 
+        User owner = rule.getUser();
+        String username = owner != null ? owner.getUsername() : null;
+        boolean online = pushBatch.isOnline(username);
+
         NotificationMessage notification = NotificationMessage.builder()
                 .coinSymbol(crypto.getSymbol().toUpperCase())
                 .coinName(crypto.getName())
@@ -242,10 +373,22 @@ public class AlertService {
                 )
                 .alertType(rule.getAlertType())
                 .recipient(rule.getNotificationEmail())
+                .ruleId(rule.getId())
+                .telegramChatId(owner != null ? owner.getTelegramChatId() : null)
+                .inApp(online)
+                .skipEmail(online && pushBatch.replacesEmail()
+                        && owner != null && Boolean.TRUE.equals(owner.getSkipEmailWhenOnline()))
                 .message(msg)
                 .build();
 
-        notificationService.sendNotification(notification);
+        // Estado da regra + outbox na mesma transação (entrega at-least-once)
+        if (notificationService.enqueue(notification) > 0) {
+            rule.setLastTriggeredAt(LocalDateTime.now());
+
+            if (online) {
+                pushBatch.add(username, notification);
+            }
+        }
     }
 
     private String buildAlertMessage(CryptoCurrency crypto, AlertRule rule) {
@@ -265,6 +408,35 @@ public class AlertService {
             case PERCENT_CHANGE_24H:
                 return "⚡ " + crypto.getName() + " variou " + crypto.getPriceChange24h() + "% em 24h";
 
+            case MA_CROSS_UP:
+                return "📈 " + crypto.getName() + ": média " + rule.getIndicatorPeriod()
+                        + " cruzou acima da média " + rule.getIndicatorPeriodLong();
+
+            case MA_CROSS_DOWN:
+                return "📉 " + crypto.getName() + ": média " + rule.getIndicatorPeriod()
+                        + " cruzou abaixo da média " + rule.getIndicatorPeriodLong();
+
+            case RSI_ABOVE:
+            case RSI_BELOW:
+                return "📐 RSI(" + rule.getIndicatorPeriod() + ") de " + crypto.getName() + " em "
+                        + String.format("%.1f", indicatorStateService.currentValue(rule));
+
+            case BOLLINGER_BREAKOUT_UP:
+                return "🚀 " + crypto.getName() + " rompeu a banda superior de Bollinger ($"
+                        + df.format(crypto.getCurrentPrice()) + ")";
+
+            case BOLLINGER_BREAKOUT_DOWN:
+                return "📉 " + crypto.getName() + " rompeu a banda inferior de Bollinger ($"
+                        + df.format(crypto.getCurrentPrice()) + ")";
+
+            case PERCENT_CHANGE_WINDOW:
+                return "⚡ " + crypto.getName() + " variou "
+                        + String.format("%.2f", indicatorStateService.currentValue(rule)) + "% em " + rule.getTimePeriod();
+
+            case VOLUME_ZSCORE:
+                return "📊 Volume anômalo em " + crypto.getName() + " (z = "
+                        + String.format("%.2f", indicatorStateService.currentValue(rule)) + ")";
+
             default:
                 return "🔔 Alerta ativado para " + crypto.getName();
         }
@@ -0,0 +1,304 @@
+package com.crypto.service;
+
+import com.crypto.model.TradingBot.TradingStrategy;
+import com.crypto.util.AlertBacktester;
+import com.crypto.util.BotBacktester;
+import com.crypto.util.BotRuleCompiler;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 🧪 Backtest e sweep de parâmetros das estratégias de bot.
+ *
+ * A série vem do cache do backtest de alertas (mesma cota da CoinGecko);
+ * cada combinação de parâmetros é um replay independente no ForkJoinPool.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BotBacktestService {
+
+    private final AlertBacktestService alertBacktestService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${bots.backtest.parallelism:0}")
+    private int parallelism;
+
+    @Value("${bots.backtest.max-combinations:50000}")
+    private int maxCombinations;
+
+    @Value("${bots.backtest.max-results:200}")
+    private int maxResults;
+
+    private ForkJoinPool pool;
+    private Timer sweepTimer;
+
+
+    @PostConstruct
+    public void init() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(threads);
+
+        sweepTimer = Timer.builder("crypto_bot_backtest_seconds")
+                .description("Tempo do sweep de parâmetros (sem carga da série)")
+                .register(meterRegistry);
+
+        log.info("🧪 Backtest de bots: paralelismo {} | máx {} combinações", threads, maxCombinations);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) pool.shutdown();
+    }
+
+
+    /**
+     * Valores candidatos de cada parâmetro; o sweep é o produto cartesiano.
+     * Parâmetros que não se aplicam à estratégia são ignorados.
+     * CUSTOM varre os {@code ${param}} da especificação ({@code customParams}).
+     */
+    public record Sweep(TradingStrategy strategy,
+                        double[] gridLower, double[] gridUpper, double[] gridLevels,
+                        double[] amount,
+                        double[] dcaIntervalMinutes,
+                        double[] stopLossPercent, double[] takeProfitPercent,
+                        String customStrategy, Map<String, double[]> customParams) {}
+
+    public Map<String, Object> backtest(String coinId, int days, Sweep sweep, String sortBy, int top) {
+        List<BotBacktester.Params> combinations = expand(sweep);
+
+        if (combinations.isEmpty()) {
+            throw new IllegalArgumentException("Nenhuma combinação válida de parâmetros");
+        }
+
+        AlertBacktester.Series series = alertBacktestService.series(coinId, days);
+        if (series.size() == 0) {
+            throw new IllegalStateException("Histórico indisponível para " + coinId);
+        }
+
+        // DCA mais fino que a série compraria em todo ponto: o resultado não diria nada
+        long resolutionMinutes = series.resolutionMinutes();
+        if (sweep.strategy() == TradingStrategy.DCA) {
+            double finest = Arrays.stream(sweep.dcaIntervalMinutes()).min().orElse(Double.NaN);
+            if (finest < resolutionMinutes) {
+                throw new IllegalArgumentException("dcaIntervalMinutes deve ser >= " + resolutionMinutes
+                        + " (resolução da série de " + days + " dias)");
+            }
+        }
+
+        BotBacktester backtester = new BotBacktester(series.times(), series.prices());
+
+        long start = System.nanoTime();
+        BotBacktester.Result[] results = backtester.runAll(combinations, pool);
+        long elapsedNanos = System.nanoTime() - start;
+        sweepTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        Comparator<Integer> order = comparator(sortBy, results);
+        List<Integer> ranked = new ArrayList<>(results.length);
+        for (int i = 0; i < results.length; i++) ranked.add(i);
+        ranked.sort(order);
+
+        int limit = Math.min(Math.max(top, 1), Math.min(maxResults, ranked.size()));
+        List<Map<String, Object>> best = new ArrayList<>(limit);
+        for (int i = 0; i < limit; i++) {
+            int idx = ranked.get(i);
+            best.add(toResponse(combinations.get(idx), results[idx]));
+        }
+
+        log.info("🧪 Backtest de bots {} {} ({}d): {} combinações × {} pontos em {}ms",
+                sweep.strategy(), coinId, days, combinations.size(), series.size(),
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("success", true);
+        response.put("coinId", coinId);
+        response.put("days", days);
+        response.put("strategy", sweep.strategy());
+        response.put("points", series.size());
+        response.put("resolutionMinutes", resolutionMinutes);
+        response.put("from", Instant.ofEpochMilli(series.times()[0]).toString());
+        response.put("to", Instant.ofEpochMilli(series.times()[series.size() - 1]).toString());
+        response.put("combinations", combinations.size());
+        response.put("sortBy", sortBy);
+        response.put("replayMillis", TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        response.put("results", best);
+        return response;
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+                "parallelism", pool.getParallelism(),
+                "maxCombinations", maxCombinations,
+                "maxResults", maxResults
+        );
+    }
+
+
+    // ================================================
+    // 🔧 INTERNOS
+    // ================================================
+
+    /**
+     * Produto cartesiano só dos parâmetros da estratégia, descartando
+     * combinações inválidas (faixa invertida, níveis < 3...).
+     */
+    private List<BotBacktester.Params> expand(Sweep s) {
+        if (s.strategy() == TradingStrategy.CUSTOM) return expandCustom(s);
+
+        double[] none = {Double.NaN};
+        TradingStrategy strategy = s.strategy();
+
+        double[] lowers = strategy == TradingStrategy.GRID_TRADING ? required(s.gridLower(), "gridLowerPrice") : none;
+        double[] uppers = strategy == TradingStrategy.GRID_TRADING ? required(s.gridUpper(), "gridUpperPrice") : none;
+        double[] levels = strategy == TradingStrategy.GRID_TRADING ? required(s.gridLevels(), "gridLevels") : none;
+        double[] intervals = strategy == TradingStrategy.DCA ? required(s.dcaIntervalMinutes(), "dcaIntervalMinutes") : none;
+        double[] stops = strategy == TradingStrategy.STOP_LOSS ? orNone(s.stopLossPercent()) : none;
+        double[] takes = strategy == TradingStrategy.STOP_LOSS ? orNone(s.takeProfitPercent()) : none;
+        double[] amounts = required(s.amount(), "amount");
+
+        long total = (long) lowers.length * uppers.length * levels.length * intervals.length
+                * stops.length * takes.length * amounts.length;
+        if (total > maxCombinations) {
+            throw new IllegalArgumentException("Sweep gera " + total + " combinações (máximo " + maxCombinations + ")");
+        }
+
+        List<BotBacktester.Params> out = new ArrayList<>((int) total);
+
+        for (double lower : lowers)
+            for (double upper : uppers)
+                for (double lv : levels)
+                    for (double interval : intervals)
+                        for (double stop : stops)
+                            for (double take : takes)
+                                for (double amount : amounts) {
+                                    if (!(amount > 0)) continue;
+
+                                    if (strategy == TradingStrategy.GRID_TRADING
+                                            && (lower <= 0 || upper <= lower || lv < 3)) continue;
+                                    if (strategy == TradingStrategy.DCA && interval < 1) continue;
+                                    if (strategy == TradingStrategy.STOP_LOSS
+                                            && Double.isNaN(stop) && Double.isNaN(take)) continue;
+
+                                    out.add(new BotBacktester.Params(strategy,
+                                            lower, upper, (int) lv,
+                                            amount,
+                                            (int) interval,
+                                            stop, take, null));
+                                }
+
+        return out;
+    }
+
+    /**
+     * Uma estratégia compilada por combinação dos parâmetros varridos;
+     * os demais ficam com o valor da própria especificação.
+     */
+    private List<BotBacktester.Params> expandCustom(Sweep s) {
+        if (s.customStrategy() == null || s.customStrategy().isBlank()) {
+            throw new IllegalArgumentException("customStrategy é obrigatório para a estratégia");
+        }
+
+        BotRuleCompiler.Spec spec = BotRuleCompiler.parse(s.customStrategy());
+
+        Map<String, double[]> swept = s.customParams() != null ? s.customParams() : Map.of();
+        List<String> names = new ArrayList<>(swept.keySet());
+
+        long total = 1;
+        for (String name : names) total *= swept.get(name).length;
+        if (total > maxCombinations) {
+            throw new IllegalArgumentException("Sweep gera " + total + " combinações (máximo " + maxCombinations + ")");
+        }
+
+        List<BotBacktester.Params> out = new ArrayList<>((int) total);
+        int[] cursor = new int[names.size()];
+
+        for (long k = 0; k < total; k++) {
+            Map<String, Double> values = new HashMap<>();
+            for (int j = 0; j < names.size(); j++) {
+                values.put(names.get(j), swept.get(names.get(j))[cursor[j]]);
+            }
+
+            out.add(new BotBacktester.Params(TradingStrategy.CUSTOM,
+                    Double.NaN, Double.NaN, 0, 0, 0, Double.NaN, Double.NaN,
+                    BotRuleCompiler.compile(spec, values)));
+
+            // Odômetro sobre os índices dos parâmetros
+            for (int j = names.size() - 1; j >= 0; j--) {
+                if (++cursor[j] < swept.get(names.get(j)).length) break;
+                cursor[j] = 0;
+            }
+        }
+
+        return out;
+    }
+
+    private static double[] required(double[] values, String name) {
+        if (values == null || values.length == 0) {
+            throw new IllegalArgumentException(name + " é obrigatório para a estratégia");
+        }
+        return values;
+    }
+
+    private static double[] orNone(double[] values) {
+        return values == null || values.length == 0 ? new double[]{Double.NaN} : values;
+    }
+
+    private static Comparator<Integer> comparator(String sortBy, BotBacktester.Result[] r) {
+        return switch (sortBy) {
+            case "pnl" -> Comparator.comparingDouble((Integer i) -> r[i].totalPnl()).reversed();
+            case "drawdown" -> Comparator.comparingDouble((Integer i) -> r[i].maxDrawdown());
+            case "winRate" -> Comparator.comparingDouble((Integer i) -> r[i].winRate()).reversed();
+            case "trades" -> Comparator.comparingInt((Integer i) -> r[i].trades()).reversed();
+            default -> throw new IllegalArgumentException("sortBy inválido: " + sortBy);
+        };
+    }
+
+    private static Map<String, Object> toResponse(BotBacktester.Params p, BotBacktester.Result r) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        switch (p.strategy()) {
+            case GRID_TRADING -> {
+                params.put("gridLowerPrice", p.gridLower());
+                params.put("gridUpperPrice", p.gridUpper());
+                params.put("gridLevels", p.gridLevels());
+                params.put("amountPerGrid", p.amount());
+            }
+            case DCA -> {
+                params.put("dcaAmount", p.amount());
+                params.put("dcaIntervalMinutes", p.dcaIntervalMinutes());
+            }
+            case CUSTOM -> {
+                if (p.custom() instanceof BotRuleCompiler.RuleStrategy rule) params.putAll(rule.params());
+            }
+            default -> {
+                params.put("amount", p.amount());
+                if (!Double.isNaN(p.stopLossPercent())) params.put("stopLossPercent", p.stopLossPercent());
+                if (!Double.isNaN(p.takeProfitPercent())) params.put("takeProfitPercent", p.takeProfitPercent());
+            }
+        }
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("params", params);
+        out.put("totalPnl", r.totalPnl());
+        out.put("realizedPnl", r.realizedPnl());
+        out.put("unrealizedPnl", r.unrealizedPnl());
+        out.put("maxDrawdown", r.maxDrawdown());
+        out.put("trades", r.trades());
+        out.put("buys", r.buys());
+        out.put("sells", r.sells());
+        out.put("winRate", r.winRate());
+        out.put("openPosition", r.position());
+        out.put("costBasis", r.costBasis());
+        return out;
+    }
+}
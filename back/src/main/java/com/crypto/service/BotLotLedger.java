@@ -0,0 +1,116 @@
+package com.crypto.service;
+
+import com.crypto.model.BotTrade;
+import com.crypto.model.TradingBot;
+import com.crypto.repository.BotTradeRepository;
+import com.crypto.repository.TradingBotRepository;
+import com.crypto.util.FifoLots;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 📦 Livro de lotes FIFO por bot, em memória.
+ *
+ * Reconstruído de bot_trades na subida (só os lotes em aberto dos bots
+ * RUNNING) e carregado sob demanda para os demais. O motor é o único
+ * escritor; se uma gravação falha, o bot é descartado daqui e relido do
+ * banco na próxima vez. Quando o hash ring muda, o motor limpa o livro
+ * inteiro: um bot que passou por outro nó pode ter lotes que este não viu.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BotLotLedger {
+
+    private final BotTradeRepository tradeRepository;
+    private final TradingBotRepository botRepository;
+
+    @Value("${bots.engine.lot-query-chunk:1000}")
+    private int lotQueryChunk;
+
+    private final Map<Long, FifoLots> ledgers = new ConcurrentHashMap<>();
+
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            List<Long> running = botRepository.findByStatus(TradingBot.BotStatus.RUNNING).stream()
+                    .map(TradingBot::getId)
+                    .toList();
+
+            preload(running);
+            log.info("📦 Livro de lotes reconstruído: {} bots", ledgers.size());
+
+        } catch (Exception e) {
+            log.error("❌ Erro ao reconstruir livro de lotes: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Garante os bots em memória com uma query por bloco de ids (só os ausentes).
+     */
+    public void preload(Collection<Long> botIds) {
+        List<Long> missing = botIds.stream().filter(id -> !ledgers.containsKey(id)).toList();
+
+        for (int from = 0; from < missing.size(); from += lotQueryChunk) {
+            List<Long> chunk = missing.subList(from, Math.min(missing.size(), from + lotQueryChunk));
+
+            Map<Long, FifoLots> loaded = new HashMap<>();
+            chunk.forEach(id -> loaded.put(id, new FifoLots()));
+
+            for (BotTrade lot : tradeRepository.findOpenBuyLots(chunk)) {
+                loaded.get(lot.getBot().getId()).add(
+                        lot.getId(),
+                        lot.getPrice(),
+                        lot.getQuantity(),
+                        lot.getSoldQuantity() == null ? BigDecimal.ZERO : lot.getSoldQuantity());
+            }
+
+            loaded.forEach(ledgers::putIfAbsent);
+        }
+    }
+
+    /**
+     * @return lotes do bot (carrega do banco se ainda não estiver em memória)
+     */
+    public FifoLots lotsOf(Long botId) {
+        FifoLots lots = ledgers.get(botId);
+        if (lots != null) return lots;
+
+        preload(List.of(botId));
+        return ledgers.get(botId);
+    }
+
+    /**
+     * Compra confirmada no banco entra no fim da fila (bots fora da memória
+     * a verão na próxima carga).
+     */
+    public void appendIfLoaded(Long botId, long tradeId, BigDecimal price, BigDecimal quantity) {
+        FifoLots lots = ledgers.get(botId);
+        if (lots != null) lots.add(tradeId, price, quantity, BigDecimal.ZERO);
+    }
+
+    public void evict(Long botId) {
+        ledgers.remove(botId);
+    }
+
+    public void evictAll(Collection<Long> botIds) {
+        botIds.forEach(ledgers::remove);
+    }
+
+    public void clear() {
+        ledgers.clear();
+    }
+
+    public int size() {
+        return ledgers.size();
+    }
+}
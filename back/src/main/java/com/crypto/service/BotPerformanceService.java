@@ -0,0 +1,148 @@
+package com.crypto.service;
+
+import com.crypto.event.PriceTickEvent;
+import com.crypto.model.BotTrade;
+import com.crypto.model.CryptoCurrency;
+import com.crypto.repository.BotTradeRepository;
+import com.crypto.util.BotPerformance;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 📈 Desempenho dos bots em memória.
+ *
+ * O motor alimenta cada trade confirmado ({@link #onTrades}) e os ticks de
+ * preço marcam a curva dos bots carregados; a primeira leitura de um bot
+ * ausente reconstrói o estado a partir de bot_trades uma única vez. Depois
+ * disso cada leitura só busca os trades com id acima do último aplicado
+ * (normalmente nenhum): em cluster, trades de bots de outro nó, ou gravados
+ * antes de o bot mudar de dono, nunca passam por {@link #onTrades} aqui.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BotPerformanceService {
+
+    private final BotTradeRepository tradeRepository;
+
+    @Value("${bots.performance.curve-points:512}")
+    private int curvePoints;
+
+    private final Map<Long, Tracked> performances = new ConcurrentHashMap<>();
+
+
+    /**
+     * Trades já gravados (com id). Aplicados sob o lock da chave: se a
+     * reconstrução do bot estiver em curso, espera por ela (o id repetido
+     * é ignorado). Bots não carregados ficam para a reconstrução, que lê
+     * os mesmos trades do banco.
+     */
+    public void onTrades(List<BotTrade> trades) {
+        for (BotTrade trade : trades) {
+            performances.computeIfPresent(trade.getBot().getId(), (id, tracked) -> {
+                apply(tracked.performance(), trade);
+                return tracked;
+            });
+        }
+    }
+
+    /**
+     * Marca a curva dos bots carregados na cotação nova.
+     */
+    @EventListener
+    public void onPriceTick(PriceTickEvent event) {
+        if (performances.isEmpty()) return;
+
+        Map<String, Double> prices = new HashMap<>();
+        for (CryptoCurrency quote : event.getQuotes()) {
+            if (quote.getSymbol() != null && quote.getCurrentPrice() != null) {
+                prices.putIfAbsent(quote.getSymbol().toUpperCase(), quote.getCurrentPrice().doubleValue());
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        performances.values().forEach(tracked -> {
+            Double price = prices.get(tracked.symbol());
+            if (price != null) tracked.performance().onPrice(now, price);
+        });
+    }
+
+    /**
+     * Leitura sem efeito nas métricas: o preço atual só entra no não realizado.
+     */
+    public BotPerformance.Snapshot snapshot(Long botId, String coinSymbol, BigDecimal currentPrice) {
+        // Sob o lock da chave, como onTrades: ids fora de ordem seriam ignorados
+        Tracked tracked = performances.computeIfPresent(botId, (id, t) -> {
+            catchUp(id, t.performance());
+            return t;
+        });
+        if (tracked == null) {
+            tracked = performances.computeIfAbsent(botId, id -> new Tracked(coinSymbol.toUpperCase(), rebuild(id)));
+        }
+
+        double price = currentPrice != null ? currentPrice.doubleValue() : Double.NaN;
+        return tracked.performance().snapshot(System.currentTimeMillis(), price);
+    }
+
+    public void evict(Long botId) {
+        performances.remove(botId);
+    }
+
+    public int size() {
+        return performances.size();
+    }
+
+
+    // ================================================
+    // 🔧 INTERNOS
+    // ================================================
+
+    private record Tracked(String symbol, BotPerformance performance) {}
+
+    private BotPerformance rebuild(Long botId) {
+        BotPerformance performance = new BotPerformance(curvePoints);
+
+        List<BotTrade> trades = tradeRepository.findByBotIdOrderByIdAsc(botId);
+        for (BotTrade trade : trades) apply(performance, trade);
+
+        log.debug("📈 Desempenho do bot {} reconstruído de {} trades", botId, trades.size());
+        return performance;
+    }
+
+    private void catchUp(Long botId, BotPerformance performance) {
+        List<BotTrade> newer = tradeRepository.findByBotIdAndIdGreaterThanOrderByIdAsc(botId, performance.lastTradeId());
+        for (BotTrade trade : newer) apply(performance, trade);
+
+        if (!newer.isEmpty()) {
+            log.debug("📈 Desempenho do bot {}: {} trades novos lidos do banco", botId, newer.size());
+        }
+    }
+
+    private static void apply(BotPerformance performance, BotTrade trade) {
+        double price = trade.getPrice().doubleValue();
+        double quantity = trade.getQuantity().doubleValue();
+        boolean buy = trade.getSide() == BotTrade.TradeSide.BUY;
+        double profit = trade.getProfitLoss() != null ? trade.getProfitLoss().doubleValue() : 0;
+
+        // Custo FIFO da venda = valor vendido - lucro
+        double costBasis = buy ? 0 : price * quantity - profit;
+
+        performance.onTrade(trade.getId(), epochMillis(trade.getExecutedAt()), buy,
+                price, quantity, profit, costBasis);
+    }
+
+    private static long epochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,104 @@
+package com.crypto.service;
+
+import com.crypto.model.CryptoCurrency;
+import com.crypto.model.TradingBot;
+import com.crypto.util.BotTriggers;
+import com.crypto.util.CryptoSymbolMapper;
+import com.crypto.util.PriceTriggerBook;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 🎯 Inscrições dos bots nos ticks de preço: um {@link PriceTriggerBook} por moeda.
+ *
+ * Um tick só consulta o livro da moeda que mudou e só visita os níveis
+ * cruzados; bots parados ou guiados por tempo (DCA) não ficam aqui e não
+ * custam nada entre os ticks.
+ */
+@Slf4j
+@Service
+public class BotTriggerRegistry {
+
+    private final Map<String, PriceTriggerBook> books = new ConcurrentHashMap<>();
+    private final Map<Long, String> coinOfBot = new ConcurrentHashMap<>();
+
+
+    /**
+     * Inscreve (ou reinscreve com os parâmetros atuais) um bot RUNNING.
+     *
+     * @return true se o bot passou a ser disparado por preço
+     */
+    public boolean register(TradingBot bot) {
+        unregister(bot.getId());
+        return add(bot);
+    }
+
+    public void unregister(Long botId) {
+        String coinId = coinOfBot.remove(botId);
+        if (coinId == null) return;
+
+        PriceTriggerBook book = books.get(coinId);
+        if (book != null) book.remove(botId);
+    }
+
+    /**
+     * Stop/take disparam uma vez; se o bot segue rodando depois do tick, volta
+     * a ser armado. Linhas de grid são permanentes e não precisam disso.
+     */
+    public void rearm(TradingBot bot) {
+        if (bot.getStrategy() != TradingBot.TradingStrategy.GRID_TRADING) {
+            register(bot);
+        }
+    }
+
+    /**
+     * Reconcilia com o banco reconstruindo os livros (o último preço de cada
+     * moeda é preservado para a detecção de cruzamentos).
+     */
+    public void replaceAll(Collection<TradingBot> runningBots) {
+        books.values().forEach(PriceTriggerBook::clear);
+        coinOfBot.clear();
+
+        for (TradingBot bot : runningBots) {
+            add(bot);
+        }
+    }
+
+    /**
+     * @return ids (sem repetição) dos bots desta moeda com nível cruzado pela cotação
+     */
+    public Set<Long> triggered(CryptoCurrency quote) {
+        if (quote.getCoinId() == null || quote.getCurrentPrice() == null) return Set.of();
+
+        // O livro existe mesmo sem bots: guarda o último preço para o próximo cruzamento
+        PriceTriggerBook book = books.computeIfAbsent(quote.getCoinId().toLowerCase(), k -> new PriceTriggerBook());
+
+        Set<Long> fired = new LinkedHashSet<>();
+        book.onPrice(quote.getCurrentPrice().doubleValue(), fired::add);
+        return fired;
+    }
+
+    public boolean isRegistered(Long botId) {
+        return coinOfBot.containsKey(botId);
+    }
+
+    public int size() {
+        return coinOfBot.size();
+    }
+
+    private boolean add(TradingBot bot) {
+        if (bot.getStatus() != TradingBot.BotStatus.RUNNING) return false;
+
+        BotTriggers.Levels levels = BotTriggers.forBot(bot);
+        if (levels == null) return false;
+
+        String coinId = CryptoSymbolMapper.toCoinId(bot.getCoinSymbol()).toLowerCase();
+        books.computeIfAbsent(coinId, k -> new PriceTriggerBook())
+                .add(bot.getId(), levels.lines(), levels.stop(), levels.take());
+        coinOfBot.put(bot.getId(), coinId);
+        return true;
+    }
+}
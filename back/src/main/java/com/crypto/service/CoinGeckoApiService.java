@@ -486,14 +486,30 @@ public class CoinGeckoApiService {
                 @SuppressWarnings("unchecked")
                 List<List<Number>> prices = (List<List<Number>>) response.get("prices");
 
+                @SuppressWarnings("unchecked")
+                List<List<Number>> volumes = (List<List<Number>>) response.getOrDefault("total_volumes", List.of());
+
                 metricsService.recordSuccess();
 
-                return prices.stream()
-                        .map(point -> Map.<String, Number>of(
+                List<Map<String, Number>> history = new ArrayList<>(prices.size());
+                for (int i = 0; i < prices.size(); i++) {
+                    List<Number> point = prices.get(i);
+
+                    // total_volumes vem alinhado com prices (mesmos timestamps)
+                    if (i < volumes.size() && volumes.get(i).get(1) != null) {
+                        history.add(Map.of(
+                                "timestamp", point.get(0).longValue(),
+                                "price", point.get(1).doubleValue(),
+                                "volume", volumes.get(i).get(1).doubleValue()
+                        ));
+                    } else {
+                        history.add(Map.of(
                                 "timestamp", point.get(0).longValue(),
                                 "price", point.get(1).doubleValue()
-                        ))
-                        .collect(Collectors.toList());
+                        ));
+                    }
+                }
+                return history;
             }
 
             return Collections.emptyList();
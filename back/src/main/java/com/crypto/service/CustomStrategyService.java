@@ -0,0 +1,83 @@
+package com.crypto.service;
+
+import com.crypto.model.TradingBot;
+import com.crypto.util.BotRuleCompiler;
+import com.crypto.util.BotStrategy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 🧩 Estratégias CUSTOM compiladas, uma por bot.
+ *
+ * A especificação é compilada na criação (validação) e na primeira execução;
+ * o motor reaproveita a instância enquanto o texto do bot não mudar.
+ * Enquanto compilada, a estratégia mantém referência aos sinais que lê
+ * na {@link SignalService}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CustomStrategyService {
+
+    private final SignalService signalService;
+
+    private record Compiled(String spec, String coin, BotStrategy strategy) {}
+
+    private final Map<Long, Compiled> compiled = new ConcurrentHashMap<>();
+
+    /**
+     * @throws IllegalArgumentException com a mensagem do erro de compilação
+     */
+    public void validate(String spec) {
+        BotRuleCompiler.compile(spec);
+    }
+
+    public BotStrategy strategyFor(TradingBot bot) {
+        Compiled current = compiled.get(bot.getId());
+        if (current != null && current.spec().equals(bot.getCustomStrategy())
+                && current.coin().equalsIgnoreCase(bot.getCoinSymbol())) {
+            return current.strategy();
+        }
+        return recompile(bot);
+    }
+
+    public synchronized void evict(Long botId) {
+        Compiled removed = compiled.remove(botId);
+        if (removed != null) signalService.release(removed.coin(), removed.strategy().signals());
+    }
+
+    /**
+     * Solta os bots que não estão mais rodando (paradas fora desta instância).
+     */
+    public void retain(Set<Long> runningIds) {
+        for (Long botId : compiled.keySet()) {
+            if (!runningIds.contains(botId)) evict(botId);
+        }
+    }
+
+    public int size() {
+        return compiled.size();
+    }
+
+
+    // ================================================
+    // 🔧 INTERNOS
+    // ================================================
+
+    private synchronized BotStrategy recompile(TradingBot bot) {
+        BotStrategy strategy = BotRuleCompiler.compile(bot.getCustomStrategy());
+
+        // Referências novas antes de soltar as antigas: sinais em comum não são descartados
+        signalService.acquire(bot.getCoinSymbol(), strategy.signals());
+        Compiled previous = compiled.put(bot.getId(), new Compiled(bot.getCustomStrategy(), bot.getCoinSymbol(), strategy));
+        if (previous != null) signalService.release(previous.coin(), previous.strategy().signals());
+
+        log.debug("🧩 Estratégia do bot {} compilada ({} sinais)", bot.getId(), strategy.signals().size());
+        return strategy;
+    }
+}
@@ -0,0 +1,278 @@
+package com.crypto.service;
+
+import com.crypto.event.PriceTickEvent;
+import com.crypto.model.AlertRule;
+import com.crypto.model.AlertRule.AlertType;
+import com.crypto.model.CryptoCurrency;
+import com.crypto.util.CoinIndicatorState;
+import com.crypto.util.IndicatorView;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 📐 Estado de indicadores por moeda, compartilhado por todas as regras.
+ *
+ * Alimentado pelos ticks de preço ({@link PriceTickEvent}), independente de
+ * haver usuários monitorando; a amostra só é aceita após
+ * {@code sample-interval-seconds}, então outras fontes no mesmo ciclo não
+ * duplicam pontos. As regras apenas consultam o valor já calculado para seus
+ * parâmetros; cruzamentos de médias ficam guardados até cada regra consumi-los.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IndicatorStateService {
+
+    public static final int DEFAULT_MA_FAST = 9;
+    public static final int DEFAULT_MA_SLOW = 21;
+    public static final int DEFAULT_RSI_PERIOD = 14;
+    public static final int DEFAULT_BOLLINGER_PERIOD = 20;
+    public static final BigDecimal DEFAULT_BOLLINGER_K = BigDecimal.valueOf(2);
+    public static final int DEFAULT_ZSCORE_PERIOD = 20;
+    public static final BigDecimal DEFAULT_ZSCORE = BigDecimal.valueOf(3);
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${alert.indicators.sample-interval-seconds:60}")
+    private long sampleIntervalSeconds;
+
+    @Value("${alert.indicators.history-size:1440}")
+    private int historySize;
+
+    @Value("${alert.indicators.idle-samples:1440}")
+    private long idleSamples;
+
+    private final Map<String, CoinIndicatorState> states = new ConcurrentHashMap<>();
+
+    /** Regra MA_CROSS → amostra do último cruzamento já disparado */
+    private final Map<Long, Long> consumedCrosses = new ConcurrentHashMap<>();
+
+    private Counter samplesCounter;
+
+
+    @PostConstruct
+    public void initMetrics() {
+        samplesCounter = Counter.builder("crypto_indicator_samples_total")
+                .description("Amostras aceitas pelo estado de indicadores")
+                .register(meterRegistry);
+
+        Gauge.builder("crypto_indicator_coins", states, Map::size)
+                .description("Moedas com estado de indicadores")
+                .register(meterRegistry);
+
+        Gauge.builder("crypto_indicator_instances", this, s -> s.indicatorCount())
+                .description("Indicadores ativos (compartilhados entre regras)")
+                .register(meterRegistry);
+    }
+
+
+    // ================================================
+    // 🔥 ALIMENTAÇÃO
+    // ================================================
+    @EventListener
+    public void onPriceTick(PriceTickEvent event) {
+        event.getQuotes().forEach(this::onTick);
+    }
+
+    public void onTick(CryptoCurrency crypto) {
+        if (crypto == null || crypto.getSymbol() == null || crypto.getCurrentPrice() == null) return;
+
+        double volume = crypto.getTotalVolume() != null ? crypto.getTotalVolume().doubleValue() : 0.0;
+
+        boolean accepted = state(crypto.getSymbol()).offer(
+                System.currentTimeMillis(),
+                crypto.getCurrentPrice().doubleValue(),
+                volume,
+                sampleIntervalSeconds * 1000
+        );
+
+        if (accepted) samplesCounter.increment();
+    }
+
+
+    /**
+     * Indicadores da moeda para as estratégias de bot (mesmo estado dos alertas).
+     */
+    public IndicatorView view(String symbol) {
+        return state(symbol);
+    }
+
+
+    // ================================================
+    // 🔥 AVALIAÇÃO
+    // ================================================
+    public boolean evaluate(AlertRule rule) {
+        CoinIndicatorState state = states.get(rule.getCoinSymbol().toUpperCase());
+        if (state == null) return false;
+
+        double threshold = rule.getThresholdValue() != null ? rule.getThresholdValue().doubleValue() : Double.NaN;
+
+        return switch (rule.getAlertType()) {
+            case MA_CROSS_UP -> consumeCross(rule, state, 1);
+            case MA_CROSS_DOWN -> consumeCross(rule, state, -1);
+            case RSI_ABOVE -> state.rsi(period(rule, DEFAULT_RSI_PERIOD)) >= threshold;
+            case RSI_BELOW -> state.rsi(period(rule, DEFAULT_RSI_PERIOD)) <= threshold;
+            case BOLLINGER_BREAKOUT_UP -> state.priceZScore(period(rule, DEFAULT_BOLLINGER_PERIOD)) > threshold;
+            case BOLLINGER_BREAKOUT_DOWN -> state.priceZScore(period(rule, DEFAULT_BOLLINGER_PERIOD)) < -threshold;
+            case VOLUME_ZSCORE -> state.volumeZScore(period(rule, DEFAULT_ZSCORE_PERIOD)) >= threshold;
+            case PERCENT_CHANGE_WINDOW -> {
+                double change = state.percentChange(windowMillis(rule));
+                // NaN falha as duas comparações
+                yield threshold < 0 ? change <= threshold : change >= threshold;
+            }
+            default -> false;
+        };
+    }
+
+    /**
+     * Valor atual do indicador da regra (para a mensagem do alerta).
+     */
+    public double currentValue(AlertRule rule) {
+        CoinIndicatorState state = states.get(rule.getCoinSymbol().toUpperCase());
+        if (state == null) return Double.NaN;
+
+        return switch (rule.getAlertType()) {
+            case RSI_ABOVE, RSI_BELOW -> state.rsi(period(rule, DEFAULT_RSI_PERIOD));
+            case BOLLINGER_BREAKOUT_UP, BOLLINGER_BREAKOUT_DOWN ->
+                    state.priceZScore(period(rule, DEFAULT_BOLLINGER_PERIOD));
+            case VOLUME_ZSCORE -> state.volumeZScore(period(rule, DEFAULT_ZSCORE_PERIOD));
+            case PERCENT_CHANGE_WINDOW -> state.percentChange(windowMillis(rule));
+            default -> Double.NaN;
+        };
+    }
+
+
+    // ================================================
+    // 🔥 VALIDAÇÃO / DEFAULTS
+    // ================================================
+
+    /**
+     * Preenche defaults e valida os parâmetros da regra de indicador.
+     */
+    public void validate(AlertRule rule) {
+        AlertType type = rule.getAlertType();
+        int maxPeriod = historySize - 2;
+
+        switch (type) {
+            case MA_CROSS_UP, MA_CROSS_DOWN -> {
+                if (rule.getIndicatorPeriod() == null) rule.setIndicatorPeriod(DEFAULT_MA_FAST);
+                if (rule.getIndicatorPeriodLong() == null) rule.setIndicatorPeriodLong(DEFAULT_MA_SLOW);
+
+                if (rule.getIndicatorPeriod() >= rule.getIndicatorPeriodLong())
+                    throw new IllegalArgumentException("Média rápida deve ser menor que a lenta");
+            }
+            case RSI_ABOVE, RSI_BELOW -> {
+                if (rule.getIndicatorPeriod() == null) rule.setIndicatorPeriod(DEFAULT_RSI_PERIOD);
+                if (rule.getThresholdValue() == null)
+                    throw new IllegalArgumentException(type + " requer thresholdValue (0-100)");
+                if (rule.getThresholdValue().signum() < 0 || rule.getThresholdValue().compareTo(BigDecimal.valueOf(100)) > 0)
+                    throw new IllegalArgumentException("RSI deve estar entre 0 e 100");
+            }
+            case BOLLINGER_BREAKOUT_UP, BOLLINGER_BREAKOUT_DOWN -> {
+                if (rule.getIndicatorPeriod() == null) rule.setIndicatorPeriod(DEFAULT_BOLLINGER_PERIOD);
+                if (rule.getThresholdValue() == null) rule.setThresholdValue(DEFAULT_BOLLINGER_K);
+                if (rule.getThresholdValue().signum() <= 0)
+                    throw new IllegalArgumentException("Multiplicador das bandas deve ser > 0");
+            }
+            case VOLUME_ZSCORE -> {
+                if (rule.getIndicatorPeriod() == null) rule.setIndicatorPeriod(DEFAULT_ZSCORE_PERIOD);
+                if (rule.getThresholdValue() == null) rule.setThresholdValue(DEFAULT_ZSCORE);
+            }
+            case PERCENT_CHANGE_WINDOW -> {
+                if (rule.getThresholdValue() == null)
+                    throw new IllegalArgumentException("PERCENT_CHANGE_WINDOW requer thresholdValue");
+
+                long window = AlertRule.TimePeriod.parse(rule.getTimePeriod()).toMillis();
+                if (window > (historySize - 1) * sampleIntervalSeconds * 1000)
+                    throw new IllegalArgumentException("Janela maior que o histórico mantido em memória");
+            }
+            default -> throw new IllegalArgumentException(type + " não é um alerta de indicador");
+        }
+
+        Integer longest = rule.getIndicatorPeriodLong() != null ? rule.getIndicatorPeriodLong() : rule.getIndicatorPeriod();
+        if (rule.getIndicatorPeriod() != null && rule.getIndicatorPeriod() < 2)
+            throw new IllegalArgumentException("Período do indicador deve ser >= 2");
+        if (longest != null && longest > maxPeriod)
+            throw new IllegalArgumentException("Período do indicador deve ser <= " + maxPeriod);
+    }
+
+    /** Regra removida/alterada: esquece os cruzamentos já consumidos */
+    public void forget(Long ruleId) {
+        if (ruleId != null) consumedCrosses.remove(ruleId);
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+                "coins", states.size(),
+                "indicators", indicatorCount(),
+                "sampleIntervalSeconds", sampleIntervalSeconds,
+                "historySize", historySize
+        );
+    }
+
+
+    // ================================================
+    // 🔧 INTERNOS
+    // ================================================
+
+    private CoinIndicatorState state(String symbol) {
+        return states.computeIfAbsent(symbol.toUpperCase(), s -> new CoinIndicatorState(historySize, idleSamples));
+    }
+
+    /**
+     * Dispara uma vez por cruzamento e por regra, mesmo que a passada da regra
+     * chegue depois do tick do cruzamento. Regra vista pela primeira vez só
+     * considera um cruzamento na amostra mais recente (não dispara por um antigo).
+     */
+    private boolean consumeCross(AlertRule rule, CoinIndicatorState state, int direction) {
+        long at = state.lastCross(fast(rule), slow(rule), direction);
+        if (at == 0) return false;
+
+        long latest = state.sampleCount();
+        if (rule.getId() == null) return at == latest;
+
+        boolean[] fire = {false};
+        consumedCrosses.compute(rule.getId(), (id, seen) -> {
+            long baseline = seen != null ? seen : latest - 1;
+            if (at <= baseline) return baseline;
+            fire[0] = true;
+            return at;
+        });
+        return fire[0];
+    }
+
+    private int indicatorCount() {
+        int total = 0;
+        for (CoinIndicatorState state : states.values()) {
+            total += state.indicatorCount();
+        }
+        return total;
+    }
+
+    private static int period(AlertRule rule, int fallback) {
+        return rule.getIndicatorPeriod() != null ? rule.getIndicatorPeriod() : fallback;
+    }
+
+    private static int fast(AlertRule rule) {
+        return period(rule, DEFAULT_MA_FAST);
+    }
+
+    private static int slow(AlertRule rule) {
+        return rule.getIndicatorPeriodLong() != null ? rule.getIndicatorPeriodLong() : DEFAULT_MA_SLOW;
+    }
+
+    private static long windowMillis(AlertRule rule) {
+        return AlertRule.TimePeriod.parse(rule.getTimePeriod()).toMillis();
+    }
+}
@@ -0,0 +1,281 @@
+package com.crypto.service;
+
+import com.crypto.model.MonitoringNode;
+import com.crypto.model.MonitoringSession;
+import com.crypto.repository.MonitoringNodeRepository;
+import com.crypto.repository.MonitoringSessionRepository;
+import com.crypto.util.ConsistentHashRing;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * 🌐 Membership do cluster de monitoramento.
+ *
+ * Cada instância renova seu lease gravando heartbeat em monitoring_nodes; os
+ * nós com heartbeat dentro do lease formam o hash ring que decide o dono de
+ * cada sessão. Nó que morre sai do anel quando o lease expira e suas sessões
+ * passam para os vizinhos; nó novo assume ~1/N das sessões.
+ *
+ * Todos os instantes do cluster (heartbeat, sessões) vêm do relógio do banco,
+ * em UTC: relógios desalinhados entre nós não encurtam nem estendem leases.
+ * Cada sessão assumida ganha um fencing token; o dono anterior deixa de
+ * avaliá-la assim que vê o token trocado.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MonitoringClusterService {
+
+    private final MonitoringNodeRepository nodeRepository;
+    private final MonitoringSessionRepository sessionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${monitoring.cluster.node-id:}")
+    private String configuredNodeId;
+
+    @Value("${server.port:8080}")
+    private int serverPort;
+
+    @Value("${monitoring.cluster.lease-seconds:30}")
+    private int leaseSeconds;
+
+    @Value("${monitoring.cluster.virtual-nodes:128}")
+    private int virtualNodes;
+
+    @Value("${monitoring.cluster.inactive-retention-hours:24}")
+    private int inactiveRetentionHours;
+
+    private String nodeId;
+    private LocalDateTime startedAt;
+    private volatile ConsistentHashRing ring;
+    private volatile long ringVersion;
+
+    private static final String TOUCH_SESSION_SQL =
+            "UPDATE monitoring_sessions SET last_activity_at = ? " +
+            "WHERE username = ? AND is_active = TRUE AND (last_activity_at IS NULL OR last_activity_at < ?)";
+
+
+    @PostConstruct
+    public void init() {
+        nodeId = configuredNodeId != null && !configuredNodeId.isBlank()
+                ? configuredNodeId
+                : resolveNodeId(serverPort);
+        startedAt = LocalDateTime.now(ZoneOffset.UTC);
+        ring = new ConsistentHashRing(List.of(nodeId), virtualNodes);
+
+        Gauge.builder("crypto_monitoring_cluster_nodes", this, s -> s.ring.nodes().size())
+                .description("Nós vivos no hash ring de monitoramento")
+                .register(meterRegistry);
+
+        log.info("🌐 Nó de monitoramento {} (lease {}s, {} nós virtuais)", nodeId, leaseSeconds, virtualNodes);
+    }
+
+
+    /**
+     * Renova o lease deste nó e recarrega os nós vivos.
+     *
+     * @return true se o conjunto de nós (e portanto o anel) mudou
+     */
+    @Transactional
+    public boolean heartbeat() {
+        LocalDateTime now = databaseNow();
+
+        nodeRepository.save(MonitoringNode.builder()
+                .nodeId(nodeId)
+                .heartbeatAt(now)
+                .startedAt(startedAt)
+                .build());
+
+        // Nós mortos há mais de 3 leases somem da tabela
+        nodeRepository.deleteExpired(now.minusSeconds(leaseSeconds * 3L));
+
+        Set<String> live = new TreeSet<>(nodeRepository.findLiveNodeIds(now.minusSeconds(leaseSeconds)));
+        live.add(nodeId);
+
+        if (live.equals(ring.nodes())) return false;
+
+        log.info("🔁 Hash ring de monitoramento: {} → {}", ring.nodes(), live);
+        ring = new ConsistentHashRing(live, virtualNodes);
+        ringVersion++;   // escritor único: o heartbeat agendado
+        return true;
+    }
+
+    /**
+     * Saída graciosa: os outros nós rebalanceiam no próximo heartbeat, sem esperar o lease.
+     */
+    @Transactional
+    public void leave() {
+        nodeRepository.deleteById(nodeId);
+        log.info("👋 Nó {} saiu do cluster de monitoramento", nodeId);
+    }
+
+    public boolean owns(String username) {
+        return nodeId.equals(ring.ownerOf(username));
+    }
+
+    public String ownerOf(String username) {
+        return ring.ownerOf(username);
+    }
+
+    /** Mais de um nó vivo no anel */
+    public boolean isClustered() {
+        return ring.nodes().size() > 1;
+    }
+
+    /**
+     * Incrementa a cada troca do anel: quem guarda estado por dono compara
+     * com o valor visto na última passada.
+     */
+    public long ringVersion() {
+        return ringVersion;
+    }
+
+    /**
+     * Instante atual do banco (UTC), referência comum a todos os nós.
+     */
+    public LocalDateTime databaseNow() {
+        BigDecimal epochSeconds = jdbcTemplate.queryForObject(
+                "SELECT EXTRACT(EPOCH FROM CURRENT_TIMESTAMP)", BigDecimal.class);
+        long micros = epochSeconds.movePointRight(6).longValue();
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1000, ZoneOffset.UTC);
+    }
+
+
+    // ================================================
+    // 💾 SESSÕES
+    // ================================================
+
+    @Transactional
+    public MonitoringSession saveSession(String username, String email, int intervalMinutes) {
+        LocalDateTime now = databaseNow();
+
+        MonitoringSession session = sessionRepository.findById(username)
+                .orElseGet(() -> MonitoringSession.builder().username(username).build());
+
+        session.setEmail(email);
+        session.setIntervalMinutes(intervalMinutes);
+        session.setActive(true);
+        session.setStartedAt(now);
+        session.setUpdatedAt(now);
+
+        return sessionRepository.save(session);
+    }
+
+    @Transactional
+    public boolean deactivateSession(String username) {
+        return sessionRepository.deactivate(username, databaseNow()) > 0;
+    }
+
+    /**
+     * Este nó assume a sessão.
+     *
+     * @return fencing token deste nó para a sessão, ou null se ela não está ativa
+     */
+    @Transactional
+    public Long claimSession(String username) {
+        if (sessionRepository.claim(username, nodeId) == 0) return null;
+        return sessionRepository.findFencingToken(username);
+    }
+
+    /**
+     * Sessões cujo token ainda é o informado (nenhum outro nó as assumiu).
+     *
+     * @param tokens username → token obtido em {@link #claimSession}
+     */
+    public Set<String> stillHeld(Map<String, Long> tokens) {
+        if (tokens.isEmpty()) return Set.of();
+
+        Set<String> held = new HashSet<>(tokens.size() * 2);
+        for (Object[] row : sessionRepository.findActiveTokens(tokens.keySet())) {
+            if (Objects.equals(tokens.get((String) row[0]), row[1])) held.add((String) row[0]);
+        }
+        return held;
+    }
+
+    /**
+     * Grava a última atividade vista por este nó (só avança; não mexe em updated_at).
+     *
+     * @param activity username → instante da atividade no relógio do banco
+     */
+    public void touchSessions(Map<String, LocalDateTime> activity) {
+        if (activity.isEmpty()) return;
+
+        jdbcTemplate.batchUpdate(TOUCH_SESSION_SQL, activity.entrySet(), activity.size(), (ps, e) -> {
+            Timestamp at = Timestamp.valueOf(e.getValue());
+            ps.setTimestamp(1, at);
+            ps.setString(2, e.getKey());
+            ps.setTimestamp(3, at);
+        });
+    }
+
+    public List<String> idleSessions(LocalDateTime cutoff) {
+        return sessionRepository.findIdleUsernames(cutoff);
+    }
+
+    @Transactional
+    public boolean deactivateIdleSession(String username, LocalDateTime cutoff) {
+        return sessionRepository.deactivateIdle(username, cutoff, databaseNow()) > 0;
+    }
+
+    public Optional<MonitoringSession> findSession(String username) {
+        return sessionRepository.findById(username).filter(s -> Boolean.TRUE.equals(s.getActive()));
+    }
+
+    public boolean isSessionActive(String username) {
+        return sessionRepository.existsByUsernameAndActiveTrue(username);
+    }
+
+    public List<MonitoringSession> activeSessions() {
+        return sessionRepository.findByActiveTrue();
+    }
+
+    public List<MonitoringSession> sessionsChangedSince(LocalDateTime since) {
+        return sessionRepository.findByUpdatedAtAfter(since);
+    }
+
+    @Transactional
+    public int purgeInactiveSessions() {
+        return sessionRepository.purgeInactive(databaseNow().minusHours(inactiveRetentionHours));
+    }
+
+
+    public String nodeId() { return nodeId; }
+    public int leaseSeconds() { return leaseSeconds; }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+                "nodeId", nodeId,
+                "liveNodes", ring.nodes(),
+                "leaseSeconds", leaseSeconds,
+                "virtualNodes", virtualNodes,
+                "activeSessions", sessionRepository.countByActiveTrue()
+        );
+    }
+
+    private static String resolveNodeId(int port) {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        // Estável entre restarts: o nó reassume suas sessões sem esperar o lease
+        return host + ":" + port;
+    }
+}
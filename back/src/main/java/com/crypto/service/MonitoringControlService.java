@@ -1,133 +1,205 @@
 package com.crypto.service;
 
+import com.crypto.model.CryptoCurrency;
+import com.crypto.model.MonitoringSession;
+import com.crypto.util.TimerWheel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.TaskScheduler;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
-import jakarta.annotation.PreDestroy;
 
 import java.time.Duration;
 import java.time.Instant;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
-
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ⏱️ Monitoramento por usuário sobre um único timer wheel compartilhado.
+ *
+ * Uma thread avança o wheel a cada tick; os usuários vencidos são agrupados
+ * por intervalo, divididos em lotes e avaliados contra o mesmo snapshot de
+ * preços por um pool fixo de workers. O número de threads não depende da
+ * quantidade de usuários monitorados.
+ *
+ * As sessões ficam em monitoring_sessions; cada nó executa só as sessões que
+ * o hash ring do {@link MonitoringClusterService} lhe atribui, e cada lote
+ * confere o fencing token antes de avaliar. O heartbeat roda numa thread
+ * própria, fora do agendador compartilhado.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class MonitoringControlService {
 
-    private final CryptoMonitoringService cryptoMonitoringService;
+    private final CryptoService cryptoService;
+    private final AlertService alertService;
     private final UserActivityTracker activityTracker;
+    private final MonitoringClusterService clusterService;
+    private final MeterRegistry meterRegistry;
 
-    private final Map<String, ScheduledFuture<?>> activeMonitors = new ConcurrentHashMap<>();
-    private final Map<String, Lock> userLocks = new ConcurrentHashMap<>();
-    private final Map<String, MonitoringMetadata> monitoringMetadata = new ConcurrentHashMap<>();
+    @Value("${monitoring.scheduler.tick-millis:1000}")
+    private long tickMillis;
 
-    private final TaskScheduler taskScheduler = createTaskScheduler();
+    @Value("${monitoring.scheduler.wheel-size:4096}")
+    private int wheelSize;
 
+    @Value("${monitoring.scheduler.workers:2}")
+    private int workers;
 
-    public boolean startMonitoring(String username, String userEmail) {
-        if (username == null || username.isBlank()) return false;
-        if (userEmail == null || userEmail.isBlank()) return false;
+    @Value("${monitoring.scheduler.batch-size:500}")
+    private int batchSize;
 
-        Lock lock = userLocks.computeIfAbsent(username, k -> new ReentrantLock());
-        lock.lock();
+    @Value("${monitoring.scheduler.first-check-delay-seconds:2}")
+    private int firstCheckDelaySeconds;
 
-        try {
-            return startMonitoring_INTERNAL(username, userEmail);
-        } finally {
-            lock.unlock();
-        }
-    }
+    @Value("${monitoring.scheduler.default-interval-minutes:5}")
+    private int defaultIntervalMinutes;
 
-    public boolean stopMonitoring(String username) {
-        if (username == null || username.isBlank()) return false;
+    @Value("${monitoring.cluster.heartbeat-millis:10000}")
+    private long heartbeatMillis;
 
-        Lock lock = userLocks.computeIfAbsent(username, k -> new ReentrantLock());
-        lock.lock();
+    @Value("${monitoring.cluster.initial-delay-millis:5000}")
+    private long heartbeatInitialDelayMillis;
 
-        try {
-            return stopMonitoring_INTERNAL(username);
-        } finally {
-            lock.unlock();
-        }
-    }
+    @Value("${monitoring.cluster.full-sync-seconds:60}")
+    private long fullSyncSeconds;
 
+    private final Map<String, MonitoredUser> activeMonitors = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingBatches = new AtomicInteger();
 
-    private boolean startMonitoring_INTERNAL(String username, String userEmail) {
+    private TimerWheel<MonitoredUser> wheel;
+    private ScheduledExecutorService ticker;
+    private ScheduledExecutorService heartbeat;
+    private ExecutorService workerPool;
+    private long expectedTickAt;
 
-        if (isMonitoringActiveInternal(username)) {
-            stopMonitoring_INTERNAL(username);
-        }
+    private volatile LocalDateTime lastSyncAt;
+    private volatile LocalDateTime lastFullSyncAt;
+    private volatile long lastHeartbeatOkAt;
 
-        log.info("🚀 Iniciando monitoramento para {}...", username);
+    private Timer tickLagTimer;
+    private Timer batchTimer;
+    private DistributionSummary batchSizeSummary;
+    private Counter dueUsersCounter;
 
-        ScheduledFuture<?> scheduledTask = taskScheduler.scheduleAtFixedRate(
-                () -> runMonitoringCycle(username, userEmail),
-                Duration.ofMinutes(5)
-        );
 
-        activeMonitors.put(username, scheduledTask);
-        monitoringMetadata.put(username, new MonitoringMetadata(userEmail, Instant.now()));
+    @PostConstruct
+    public void init() {
+        wheel = new TimerWheel<>(tickMillis, wheelSize);
 
-        activityTracker.recordActivity(username);
+        workerPool = Executors.newFixedThreadPool(workers, new CustomizableThreadFactory("crypto-monitor-"));
+        ticker = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("crypto-monitor-wheel-"));
+        heartbeat = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("crypto-monitor-heartbeat-"));
 
-        runFirstCheckAsync(username, userEmail);
+        tickLagTimer = Timer.builder("crypto_monitoring_tick_lag_seconds")
+                .description("Atraso entre o horário previsto do tick e sua execução")
+                .register(meterRegistry);
 
-        return true;
-    }
+        batchTimer = Timer.builder("crypto_monitoring_batch_seconds")
+                .description("Tempo de avaliação de um lote de usuários")
+                .register(meterRegistry);
 
-    private boolean stopMonitoring_INTERNAL(String username) {
-        ScheduledFuture<?> scheduledTask = activeMonitors.get(username);
+        batchSizeSummary = DistributionSummary.builder("crypto_monitoring_batch_size")
+                .description("Usuários avaliados por lote")
+                .register(meterRegistry);
 
-        if (scheduledTask == null) {
-            log.warn("⚠️ Nenhum monitoramento ativo para {}", username);
-            return false;
-        }
+        dueUsersCounter = Counter.builder("crypto_monitoring_due_users_total")
+                .description("Verificações de usuário disparadas pelo scheduler")
+                .register(meterRegistry);
 
-        boolean cancelled = scheduledTask.cancel(false);
+        Gauge.builder("crypto_monitoring_pending_batches", pendingBatches, AtomicInteger::get)
+                .description("Lotes aguardando ou em avaliação nos workers")
+                .register(meterRegistry);
 
-        activeMonitors.remove(username);
-        monitoringMetadata.remove(username);
+        expectedTickAt = System.currentTimeMillis() + tickMillis;
+        ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
 
-        log.info("🛑 Monitoramento PARADO para {}", username);
+        // Lease não pode esperar por jobs do agendador compartilhado
+        heartbeat.scheduleWithFixedDelay(this::syncWithCluster,
+                heartbeatInitialDelayMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
 
-        return cancelled;
+        log.info("⏱️ Scheduler de monitoramento: tick {}ms | wheel {} | {} workers | lote {}",
+                tickMillis, wheelSize, workers, batchSize);
     }
 
 
-    public boolean isMonitoringActive(String username) {
-        if (username == null || username.isBlank()) return false;
-        return isMonitoringActiveInternal(username);
+    public boolean startMonitoring(String username, String userEmail) {
+        return startMonitoring(username, userEmail, null);
     }
 
-    private boolean isMonitoringActiveInternal(String username) {
-        ScheduledFuture<?> task = activeMonitors.get(username);
+    /**
+     * Persiste a sessão; só o nó dono no hash ring agenda localmente. Os demais
+     * nós descobrem a sessão no próximo heartbeat. Uma sessão já ativa é
+     * reiniciada com os novos parâmetros.
+     *
+     * @return false só para username ou email em branco
+     */
+    public boolean startMonitoring(String username, String userEmail, Integer intervalMinutes) {
+        if (username == null || username.isBlank()) return false;
+        if (userEmail == null || userEmail.isBlank()) return false;
 
-        if (task == null) return false;
+        int interval = intervalMinutes != null && intervalMinutes > 0 ? intervalMinutes : defaultIntervalMinutes;
 
-        boolean active = !task.isCancelled() && !task.isDone();
+        clusterService.saveSession(username, userEmail, interval);
 
-        if (!active) {
-            activeMonitors.remove(username);
-            monitoringMetadata.remove(username);
+        if (clusterService.owns(username)) {
+            scheduleLocal(username, userEmail, interval);
+        } else {
+            unscheduleLocal(username);
         }
 
-        return active;
+        activityTracker.recordActivity(username);
+        activityTracker.monitoringStarted(username);
+
+        log.info("🚀 Monitoramento iniciado para {} (a cada {} min, nó {})",
+                username, interval, clusterService.ownerOf(username));
+        return true;
+    }
+
+    public boolean stopMonitoring(String username) {
+        if (username == null || username.isBlank()) return false;
+
+        boolean persisted = clusterService.deactivateSession(username);
+        boolean local = unscheduleLocal(username);
+        activityTracker.monitoringStopped(username);
+
+        if (!persisted && !local) {
+            log.warn("⚠️ Nenhum monitoramento ativo para {}", username);
+            return false;
+        }
+
+        log.info("🛑 Monitoramento PARADO para {}", username);
+        return true;
+    }
+
+
+    public boolean isMonitoringActive(String username) {
+        if (username == null || username.isBlank()) return false;
+        return activeMonitors.containsKey(username) || clusterService.isSessionActive(username);
     }
 
     public Map<String, Object> getMonitoringStatus(String username) {
-        MonitoringMetadata meta = monitoringMetadata.get(username);
+        Optional<MonitoringSession> session = clusterService.findSession(username);
 
         return Map.of(
                 "username", username,
-                "active", isMonitoringActive(username),
-                "email", meta != null ? meta.getEmail() : "N/A",
-                "startedAt", meta != null ? meta.getStartedAt().toEpochMilli() : 0,
+                "active", session.isPresent(),
+                "email", session.map(MonitoringSession::getEmail).orElse("N/A"),
+                "intervalMinutes", session.map(MonitoringSession::getIntervalMinutes).orElse(0),
+                "startedAt", session.map(s -> s.getStartedAt().toInstant(ZoneOffset.UTC).toEpochMilli())
+                        .orElse(0L),
+                "node", String.valueOf(clusterService.ownerOf(username)),
                 "totalActiveMonitors", activeMonitors.size()
         );
     }
@@ -136,63 +208,250 @@ public class MonitoringControlService {
         return Map.of(
                 "totalActiveMonitors", activeMonitors.size(),
                 "activeUsers", activeMonitors.keySet(),
+                "scheduledTasks", wheel.size(),
+                "pendingBatches", pendingBatches.get(),
+                "tickMillis", tickMillis,
+                "nodeId", clusterService.nodeId(),
                 "systemHealthy", true
         );
     }
 
 
-    private void runMonitoringCycle(String username, String email) {
+    // ================================================
+    // 🌐 SINCRONIZAÇÃO COM O CLUSTER
+    // ================================================
+
+    /**
+     * Heartbeat + reconciliação: agenda as sessões que este nó passou a possuir
+     * e solta as que foram paradas ou migraram para outro nó.
+     *
+     * Mudança no anel (ou a cada full-sync-seconds) relê todas as sessões ativas;
+     * fora isso, só as alteradas desde a última passada.
+     */
+    void syncWithCluster() {
+        try {
+            LocalDateTime syncStartedAt = clusterService.databaseNow();
+            boolean ringChanged = clusterService.heartbeat();
+            lastHeartbeatOkAt = System.currentTimeMillis();
+
+            boolean full = ringChanged || lastSyncAt == null
+                    || Duration.between(lastFullSyncAt, syncStartedAt).getSeconds() >= fullSyncSeconds;
+
+            if (full) {
+                List<MonitoringSession> sessions = clusterService.activeSessions();
+                Set<String> active = new HashSet<>(sessions.size() * 2);
+
+                for (MonitoringSession session : sessions) {
+                    active.add(session.getUsername());
+                    reconcile(session);
+                }
+
+                for (String username : new ArrayList<>(activeMonitors.keySet())) {
+                    if (!active.contains(username)) unscheduleLocal(username);
+                }
+
+                lastFullSyncAt = syncStartedAt;
+                clusterService.purgeInactiveSessions();
+
+                log.debug("🌐 Sync completo: {} sessões no cluster, {} locais", sessions.size(), activeMonitors.size());
+            } else {
+                // Margem de um heartbeat para commits tardios
+                LocalDateTime since = lastSyncAt.minus(Duration.ofMillis(heartbeatMillis));
+                clusterService.sessionsChangedSince(since).forEach(this::reconcile);
+            }
+
+            lastSyncAt = syncStartedAt;
+
+        } catch (Exception e) {
+            log.error("❌ Falha no heartbeat do monitoramento: {}", e.getMessage());
+
+            // Sem lease válido outro nó pode ter assumido: parar evita verificação duplicada
+            long sinceOk = System.currentTimeMillis() - lastHeartbeatOkAt;
+            if (lastHeartbeatOkAt > 0 && sinceOk > TimeUnit.SECONDS.toMillis(clusterService.leaseSeconds())) {
+                log.warn("⚠️ Lease expirado ({}ms sem heartbeat); soltando {} sessões locais",
+                        sinceOk, activeMonitors.size());
+                new ArrayList<>(activeMonitors.keySet()).forEach(this::unscheduleLocal);
+                lastSyncAt = null;
+            }
+        }
+    }
+
+    private void reconcile(MonitoringSession session) {
+        String username = session.getUsername();
+
+        if (!Boolean.TRUE.equals(session.getActive()) || !clusterService.owns(username)) {
+            if (unscheduleLocal(username)) {
+                log.debug("↪️ Sessão {} liberada por este nó", username);
+            }
+            return;
+        }
+
+        MonitoredUser local = activeMonitors.get(username);
+        if (local == null
+                || !local.email.equals(session.getEmail())
+                || local.intervalMinutes != session.getIntervalMinutes()) {
+            scheduleLocal(username, session.getEmail(), session.getIntervalMinutes());
+        }
+    }
+
+    private void scheduleLocal(String username, String email, int intervalMinutes) {
+        Long token = clusterService.claimSession(username);
+        if (token == null) {
+            unscheduleLocal(username);
+            return;
+        }
+
+        long firstCheckAt = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(firstCheckDelaySeconds);
+
+        activeMonitors.compute(username, (key, previous) -> {
+            if (previous != null) {
+                wheel.cancel(previous.timeout);
+            }
+
+            MonitoredUser user = new MonitoredUser(username, email, intervalMinutes, token, Instant.now());
+            user.timeout = wheel.schedule(user, firstCheckAt, TimeUnit.MINUTES.toMillis(intervalMinutes));
+            return user;
+        });
+    }
+
+    private boolean unscheduleLocal(String username) {
+        MonitoredUser removed = activeMonitors.remove(username);
+        if (removed == null) return false;
+
+        wheel.cancel(removed.timeout);
+        return true;
+    }
+
+
+    // ================================================
+    // ⏱️ TICK DO WHEEL
+    // ================================================
+
+    private void tick() {
         try {
-            if (!isMonitoringActiveInternal(username)) return;
+            long now = System.currentTimeMillis();
+            tickLagTimer.record(Math.max(0, now - expectedTickAt), TimeUnit.MILLISECONDS);
+            expectedTickAt += tickMillis;
+
+            // Pausa longa (GC, suspensão): realinha em vez de acumular lag eterno
+            if (now - expectedTickAt > tickMillis * wheelSize) {
+                expectedTickAt = now + tickMillis;
+            }
+
+            List<MonitoredUser> due = new ArrayList<>();
+            if (wheel.advance(now, due) == 0) return;
 
-            cryptoMonitoringService.updateAndProcessAlertsForUser(email);
+            dueUsersCounter.increment(due.size());
+            dispatch(due);
 
         } catch (Exception e) {
-            log.error("Erro no ciclo para {}: {}", username, e.getMessage(), e);
+            log.error("❌ Erro no tick do scheduler de monitoramento: {}", e.getMessage(), e);
         }
     }
 
-    private void runFirstCheckAsync(String username, String email) {
-        new Thread(() -> {
+    private void dispatch(List<MonitoredUser> due) {
+        List<CryptoCurrency> snapshot = cryptoService.getCurrentPrices();
+
+        if (snapshot.isEmpty()) {
+            log.warn("⚠️ Sem snapshot de preços; {} verificações puladas neste tick", due.size());
+            return;
+        }
+
+        Map<Integer, List<MonitoredUser>> usersByInterval = new TreeMap<>();
+        for (MonitoredUser user : due) {
+            usersByInterval.computeIfAbsent(user.intervalMinutes, k -> new ArrayList<>()).add(user);
+        }
+
+        for (Map.Entry<Integer, List<MonitoredUser>> group : usersByInterval.entrySet()) {
+            List<MonitoredUser> users = group.getValue();
+
+            log.debug("⏱️ Intervalo {} min: {} usuários vencidos", group.getKey(), users.size());
+
+            for (int from = 0; from < users.size(); from += batchSize) {
+                List<MonitoredUser> batch = users.subList(from, Math.min(users.size(), from + batchSize));
+                submitBatch(snapshot, new ArrayList<>(batch));
+            }
+        }
+    }
+
+    private void submitBatch(List<CryptoCurrency> snapshot, List<MonitoredUser> users) {
+        pendingBatches.incrementAndGet();
+        batchSizeSummary.record(users.size());
+
+        workerPool.execute(() -> {
             try {
-                Thread.sleep(2000);
-                runMonitoringCycle(username, email);
-            } catch (Exception ignored) {}
-        }, "FirstCheck-" + username).start();
+                List<String> emails = fenced(users);
+                if (!emails.isEmpty()) {
+                    batchTimer.record(() -> alertService.processAlertsForUsers(snapshot, emails));
+                }
+            } catch (Exception e) {
+                log.error("❌ Erro no lote de {} usuários: {}", users.size(), e.getMessage(), e);
+            } finally {
+                pendingBatches.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Fencing: só avalia quem ainda tem o token deste nó; as sessões
+     * assumidas por outro nó são soltas aqui mesmo.
+     */
+    private List<String> fenced(List<MonitoredUser> users) {
+        Map<String, Long> tokens = new HashMap<>(users.size() * 2);
+        for (MonitoredUser user : users) tokens.put(user.username, user.fencingToken);
+
+        Set<String> held = clusterService.stillHeld(tokens);
+        List<String> emails = new ArrayList<>(held.size());
+
+        for (MonitoredUser user : users) {
+            if (held.contains(user.username)) {
+                emails.add(user.email);
+            } else if (activeMonitors.remove(user.username, user)) {
+                wheel.cancel(user.timeout);
+                log.info("↪️ Sessão {} assumida por outro nó (token {} obsoleto)", user.username, user.fencingToken);
+            }
+        }
+        return emails;
     }
 
 
     public void stopAllMonitoring() {
-        activeMonitors.keySet().forEach(this::stopMonitoring);
+        new ArrayList<>(activeMonitors.keySet()).forEach(this::stopMonitoring);
     }
 
+    /**
+     * Encerramento do nó: as sessões continuam ativas no banco e são
+     * reassumidas pelos outros nós (ou por este, ao reiniciar).
+     */
     @PreDestroy
     public void shutdown() {
-        stopAllMonitoring();
+        new ArrayList<>(activeMonitors.keySet()).forEach(this::unscheduleLocal);
 
-        if (taskScheduler instanceof ThreadPoolTaskScheduler scheduler) {
-            scheduler.shutdown();
+        try {
+            clusterService.leave();
+        } catch (Exception e) {
+            log.warn("⚠️ Não foi possível remover o nó do cluster: {}", e.getMessage());
         }
-    }
 
-    private TaskScheduler createTaskScheduler() {
-        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
-        scheduler.setPoolSize(10);
-        scheduler.setThreadNamePrefix("crypto-monitor-");
-        scheduler.initialize();
-        return scheduler;
+        if (heartbeat != null) heartbeat.shutdownNow();
+        if (ticker != null) ticker.shutdownNow();
+        if (workerPool != null) workerPool.shutdown();
     }
 
-    private static class MonitoringMetadata {
+    private static class MonitoredUser {
+        private final String username;
         private final String email;
+        private final int intervalMinutes;
+        private final long fencingToken;
         private final Instant startedAt;
+        private TimerWheel.Timeout<MonitoredUser> timeout;
 
-        public MonitoringMetadata(String email, Instant startedAt) {
+        MonitoredUser(String username, String email, int intervalMinutes, long fencingToken, Instant startedAt) {
+            this.username = username;
             this.email = email;
+            this.intervalMinutes = intervalMinutes;
+            this.fencingToken = fencingToken;
             this.startedAt = startedAt;
         }
-
-        public String getEmail() { return email; }
-        public Instant getStartedAt() { return startedAt; }
     }
 }
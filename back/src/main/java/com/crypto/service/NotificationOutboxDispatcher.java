@@ -0,0 +1,255 @@
+package com.crypto.service;
+
+import com.crypto.model.NotificationOutbox;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 📬 Workers do outbox de notificações.
+ *
+ * - Claim em lote com SKIP LOCKED (várias instâncias podem rodar juntas)
+ * - Envio concorrente com limite por canal (SendGrid bloqueante em pool próprio,
+ *   Telegram não bloqueante via WebClient)
+ * - Conclusão em lote: um único UPDATE para todas as linhas entregues
+ *
+ * Linhas cujo envio não terminar dentro do timeout ficam PROCESSING e são
+ * reivindicadas novamente após o stale-lock (entrega at-least-once).
+ *
+ * A drenagem (que espera permits e o fim de cada lote) roda numa thread
+ * própria: o agendador compartilhado só a dispara e volta na hora.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NotificationOutboxDispatcher {
+
+    private final NotificationOutboxService outboxService;
+    private final NotificationService notificationService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${notification.outbox.enabled:true}")
+    private boolean enabled;
+
+    @Value("${notification.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${notification.outbox.max-batches-per-run:10}")
+    private int maxBatchesPerRun;
+
+    @Value("${notification.outbox.email-concurrency:4}")
+    private int emailConcurrency;
+
+    @Value("${notification.outbox.telegram-concurrency:64}")
+    private int telegramConcurrency;
+
+    @Value("${notification.outbox.batch-timeout-seconds:60}")
+    private long batchTimeoutSeconds;
+
+    private final String workerId = resolveWorkerId();
+
+    private ExecutorService emailExecutor;
+    private ExecutorService dispatchExecutor;
+    private final AtomicBoolean dispatching = new AtomicBoolean();
+    private final Map<NotificationOutbox.Channel, Semaphore> channelPermits =
+            new EnumMap<>(NotificationOutbox.Channel.class);
+
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        emailExecutor = Executors.newFixedThreadPool(emailConcurrency, runnable -> {
+            Thread thread = new Thread(runnable, "outbox-email-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        dispatchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outbox-dispatch");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        channelPermits.put(NotificationOutbox.Channel.EMAIL, new Semaphore(emailConcurrency));
+        channelPermits.put(NotificationOutbox.Channel.TELEGRAM, new Semaphore(telegramConcurrency));
+
+        log.info("📬 Outbox dispatcher {}: lote {} | email {} | telegram {}",
+                workerId, batchSize, emailConcurrency, telegramConcurrency);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (dispatchExecutor != null) {
+            dispatchExecutor.shutdownNow();
+        }
+        if (emailExecutor != null) {
+            emailExecutor.shutdown();
+        }
+    }
+
+
+    /**
+     * Dispara a drenagem na thread do dispatcher; se a anterior ainda roda,
+     * este ciclo é pulado (o próximo poll retoma).
+     */
+    @Scheduled(fixedDelayString = "${notification.outbox.poll-interval-ms:2000}", initialDelay = 10000)
+    public void poll() {
+        if (!enabled || !dispatching.compareAndSet(false, true)) return;
+
+        try {
+            dispatchExecutor.execute(() -> {
+                try {
+                    dispatch();
+                } finally {
+                    dispatching.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            dispatching.set(false);
+        }
+    }
+
+    /**
+     * Drena até {@code max-batches-per-run} lotes (bloqueante).
+     */
+    public void dispatch() {
+        if (!enabled) return;
+
+        try {
+            for (int round = 0; round < maxBatchesPerRun; round++) {
+                List<NotificationOutbox> batch = outboxService.claimBatch(workerId, batchSize);
+
+                if (batch.isEmpty()) return;
+
+                deliverBatch(batch);
+
+                if (batch.size() < batchSize) return;
+            }
+        } catch (Exception e) {
+            log.error("❌ Erro no dispatcher do outbox: {}", e.getMessage(), e);
+        }
+    }
+
+    void deliverBatch(List<NotificationOutbox> batch) {
+        List<InFlight> inFlight = new ArrayList<>(batch.size());
+
+        for (NotificationOutbox row : batch) {
+            Semaphore permits = channelPermits.get(row.getChannel());
+
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            CompletableFuture<Void> future;
+            try {
+                future = send(row);
+            } catch (Exception e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+
+            inFlight.add(new InFlight(row, future.whenComplete((r, e) -> permits.release())));
+        }
+
+        try {
+            CompletableFuture.allOf(inFlight.stream().map(InFlight::future).toArray(CompletableFuture[]::new))
+                    .get(batchTimeoutSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            log.warn("⏱️ Lote do outbox excedeu {}s — pendentes serão reprocessados", batchTimeoutSeconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ignored) {
+            // falhas individuais tratadas abaixo
+        }
+
+        List<Long> delivered = new ArrayList<>(inFlight.size());
+        int failed = 0;
+
+        for (InFlight entry : inFlight) {
+            NotificationOutbox row = entry.row();
+            CompletableFuture<Void> future = entry.future();
+
+            if (!future.isDone()) continue;
+
+            if (future.isCompletedExceptionally()) {
+                failed++;
+                outboxService.markFailed(row, rootMessage(future));
+                counter(row.getChannel(), "failed").increment();
+            } else {
+                delivered.add(row.getId());
+                counter(row.getChannel(), "sent").increment();
+                recordLatency(row);
+            }
+        }
+
+        outboxService.markSent(delivered);
+
+        log.info("📬 Outbox: {} entregues, {} falhas (lote {})", delivered.size(), failed, batch.size());
+    }
+
+    private CompletableFuture<Void> send(NotificationOutbox row) {
+        return switch (row.getChannel()) {
+            case EMAIL -> CompletableFuture.runAsync(() -> notificationService.deliverEmail(row), emailExecutor);
+            case TELEGRAM -> notificationService.deliverTelegram(row).toFuture();
+        };
+    }
+
+    private Counter counter(NotificationOutbox.Channel channel, String result) {
+        return Counter.builder("crypto_notification_outbox_deliveries_total")
+                .description("Entregas do outbox por canal e resultado")
+                .tag("channel", channel.name().toLowerCase())
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private void recordLatency(NotificationOutbox row) {
+        if (row.getCreatedAt() == null) return;
+
+        Timer.builder("crypto_notification_outbox_latency_seconds")
+                .description("Tempo entre o enfileiramento e a entrega")
+                .tag("channel", row.getChannel().name().toLowerCase())
+                .register(meterRegistry)
+                .record(Duration.between(row.getCreatedAt(), LocalDateTime.now()));
+    }
+
+    private static String rootMessage(CompletableFuture<Void> future) {
+        try {
+            future.join();
+            return null;
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            return cause.getClass().getSimpleName() + ": " + cause.getMessage();
+        } catch (CancellationException e) {
+            return "cancelado";
+        }
+    }
+
+    private static String resolveWorkerId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    private record InFlight(NotificationOutbox row, CompletableFuture<Void> future) {}
+}
@@ -0,0 +1,114 @@
+package com.crypto.service;
+
+import com.crypto.model.NotificationOutbox;
+import com.crypto.repository.NotificationOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Operações transacionais do outbox de notificações (claim, conclusão em lote, retry).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NotificationOutboxService {
+
+    private final NotificationOutboxRepository outboxRepository;
+
+    @Value("${notification.outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${notification.outbox.backoff-base-seconds:30}")
+    private long backoffBaseSeconds;
+
+    @Value("${notification.outbox.backoff-max-seconds:1800}")
+    private long backoffMaxSeconds;
+
+    @Value("${notification.outbox.stale-lock-seconds:300}")
+    private long staleLockSeconds;
+
+    @Value("${notification.outbox.retention-days:7}")
+    private int retentionDays;
+
+
+    /**
+     * Trava um lote com SKIP LOCKED e marca como PROCESSING na mesma transação.
+     */
+    @Transactional
+    public List<NotificationOutbox> claimBatch(String workerId, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+
+        List<NotificationOutbox> batch = outboxRepository.lockNextBatch(
+                now, now.minusSeconds(staleLockSeconds), limit);
+
+        if (batch.isEmpty()) return batch;
+
+        List<Long> ids = batch.stream().map(NotificationOutbox::getId).toList();
+        outboxRepository.markProcessing(ids, workerId, now, NotificationOutbox.Status.PROCESSING);
+
+        batch.forEach(row -> row.setAttempts(row.getAttempts() + 1));
+
+        log.debug("📦 Outbox: {} linhas travadas por {}", batch.size(), workerId);
+        return batch;
+    }
+
+    @Transactional
+    public int markSent(Collection<Long> ids) {
+        if (ids.isEmpty()) return 0;
+        return outboxRepository.markSent(ids, LocalDateTime.now(), NotificationOutbox.Status.SENT);
+    }
+
+    /**
+     * Backoff exponencial; após {@code maxAttempts} a linha vira FAILED.
+     */
+    @Transactional
+    public void markFailed(NotificationOutbox row, String error) {
+        String message = error == null ? "erro desconhecido" : error;
+        if (message.length() > 500) message = message.substring(0, 500);
+
+        if (row.getAttempts() >= maxAttempts) {
+            outboxRepository.reschedule(row.getId(), NotificationOutbox.Status.FAILED,
+                    LocalDateTime.now(), message);
+            log.error("❌ Outbox {} descartado após {} tentativas: {}", row.getId(), row.getAttempts(), message);
+            return;
+        }
+
+        long delay = backoffBaseSeconds << Math.min(20, row.getAttempts() - 1);
+        delay = Math.min(delay, backoffMaxSeconds);
+
+        outboxRepository.reschedule(row.getId(), NotificationOutbox.Status.PENDING,
+                LocalDateTime.now().plusSeconds(delay), message);
+
+        log.warn("⚠️ Outbox {} reagendado em {}s (tentativa {}): {}", row.getId(), delay, row.getAttempts(), message);
+    }
+
+    @Scheduled(cron = "0 30 3 * * *")
+    @Transactional
+    public void purgeSent() {
+        int removed = outboxRepository.purgeSentBefore(
+                NotificationOutbox.Status.SENT,
+                LocalDateTime.now().minusDays(retentionDays));
+
+        if (removed > 0) {
+            log.info("🗑️ Outbox: {} notificações entregues removidas", removed);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+                "pending", outboxRepository.countByStatus(NotificationOutbox.Status.PENDING),
+                "processing", outboxRepository.countByStatus(NotificationOutbox.Status.PROCESSING),
+                "failed", outboxRepository.countByStatus(NotificationOutbox.Status.FAILED),
+                "maxAttempts", maxAttempts
+        );
+    }
+}
@@ -1,23 +1,32 @@
 package com.crypto.service;
 
+import com.crypto.model.NotificationOutbox;
 import com.crypto.model.dto.NotificationMessage;
+import com.crypto.repository.NotificationOutboxRepository;
+import com.crypto.util.CooldownWheel;
 import com.crypto.util.LogMasker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Serviço de envio de notificações assíncronas.
+ * Serviço de notificações: aplica cooldown, renderiza as mensagens e grava
+ * no outbox transacional. A entrega fica a cargo do {@link NotificationOutboxDispatcher}.
  */
 @Slf4j
 @Service
@@ -25,7 +34,9 @@ import java.util.concurrent.ConcurrentHashMap;
 public class NotificationService {
 
     private final EmailService emailService;
-    private final WebClient webClient;
+    private final TelegramNotificationChannel telegramChannel;
+    private final MeterRegistry meterRegistry;
+    private final NotificationOutboxRepository outboxRepository;
 
     @Value("${notification.email.enabled:true}")
     private Boolean emailNotificationEnabled;
@@ -48,96 +59,167 @@ public class NotificationService {
     @Value("${notification.email.cooldown-minutes:5}")
     private int notificationCooldownMinutes;
 
-    private final Map<String, LocalDateTime> notificationCache = new ConcurrentHashMap<>();
+    @Value("${notification.cooldown.max-entries:200000}")
+    private int cooldownMaxEntries;
+
+    @Value("${notification.cooldown.tick-millis:1000}")
+    private long cooldownTickMillis;
+
+    @Value("${notification.cooldown.wheel-size:4096}")
+    private int cooldownWheelSize;
+
+    private CooldownWheel cooldowns;
+    private Counter emailSkippedCounter;
+
+
+    @PostConstruct
+    public void initCooldownStore() {
+        cooldowns = new CooldownWheel(cooldownMaxEntries, cooldownTickMillis, cooldownWheelSize);
+
+        Gauge.builder("crypto_notification_cooldown_entries", cooldowns, CooldownWheel::size)
+                .description("Pares (destinatário, regra, tipo) em cooldown")
+                .register(meterRegistry);
+
+        FunctionCounter.builder("crypto_notification_cooldown_checks_total", cooldowns, CooldownWheel::allowedCount)
+                .description("Verificações de cooldown")
+                .tag("result", "allowed")
+                .register(meterRegistry);
+
+        FunctionCounter.builder("crypto_notification_cooldown_checks_total", cooldowns, CooldownWheel::suppressedCount)
+                .description("Verificações de cooldown")
+                .tag("result", "suppressed")
+                .register(meterRegistry);
+
+        FunctionCounter.builder("crypto_notification_cooldown_expired_total", cooldowns, CooldownWheel::expiredCount)
+                .description("Cooldowns expirados pelo timer wheel")
+                .register(meterRegistry);
+
+        FunctionCounter.builder("crypto_notification_cooldown_evicted_total", cooldowns, CooldownWheel::evictedCount)
+                .description("Cooldowns expulsos por limite de memória")
+                .register(meterRegistry);
+
+        emailSkippedCounter = Counter.builder("crypto_notification_email_skipped_total")
+                .description("Emails não enviados porque o usuário recebeu o alerta in-app")
+                .register(meterRegistry);
+
+        log.info("Cooldown store: capacidade {} | tick {}ms | wheel {}",
+                cooldownMaxEntries, cooldownTickMillis, cooldownWheelSize);
+    }
 
 
     // ================================================
-    // 🔥 CLEANUP DO CACHE (executa a cada 1h)
+    // 🔥 AVANÇO DO TIMER WHEEL (libera memória mesmo sem tráfego)
     // ================================================
-    @Scheduled(fixedDelay = 3600000)
+    @Scheduled(fixedDelayString = "${notification.cooldown.sweep-interval-ms:5000}")
     public void cleanupNotificationCache() {
-        LocalDateTime cutoff = LocalDateTime.now().minusHours(2);
-        long before = notificationCache.size();
-
-        notificationCache.entrySet().removeIf(
-                entry -> entry.getValue().isBefore(cutoff)
-        );
+        int removed = cooldowns.advance(System.currentTimeMillis());
 
-        long removed = before - notificationCache.size();
         if (removed > 0) {
-            log.debug("Cleanup executado: {} entradas removidas do cache", removed);
+            log.debug("Cleanup executado: {} cooldowns expirados", removed);
         }
     }
 
 
     // ================================================
-    // 🔥 MÉTODO ASSÍNCRONO PRINCIPAL
+    // 🔥 ENFILEIRAMENTO (mesma transação do estado da regra)
     // ================================================
-    @Async("taskExecutor")
-    public CompletableFuture<Void> sendNotification(NotificationMessage message) {
 
+    /**
+     * Grava a notificação no outbox, uma linha por canal habilitado.
+     * Deve ser chamado dentro da transação que atualiza a regra: se ela
+     * sofrer rollback, nada é enviado; se commitar, a entrega é garantida
+     * pelos workers do {@link NotificationOutboxDispatcher}.
+     *
+     * Alertas in-app (usuário online) contam como canal; se o usuário optou
+     * por pular email enquanto online, a linha EMAIL não é gravada.
+     *
+     * @return quantidade de canais acionados (0 se em cooldown)
+     */
+    @Transactional
+    public int enqueue(NotificationMessage message) {
         final String masked = LogMasker.maskEmail(message.getRecipient());
 
-        try {
-            log.info("Enviando notificação para {} - Crypto: {} ({})",
-                    masked,
-                    message.getCoinSymbol(),
-                    message.getAlertType());
-
-            if (isInCooldown(message)) {
-                log.debug("Notificação em cooldown: {} - {}",
-                        message.getCoinSymbol(), message.getAlertType());
-                return CompletableFuture.completedFuture(null);
-            }
+        if (!acquireCooldown(message)) {
+            log.debug("Notificação em cooldown: {} - {}",
+                    message.getCoinSymbol(), message.getAlertType());
+            return 0;
+        }
 
-            updateNotificationCache(message);
+        List<NotificationOutbox> rows = new ArrayList<>(2);
+
+        if (emailNotificationEnabled && message.isSkipEmail()) {
+            emailSkippedCounter.increment();
+        } else if (emailNotificationEnabled) {
+            rows.add(NotificationOutbox.builder()
+                    .channel(NotificationOutbox.Channel.EMAIL)
+                    .recipient(message.getRecipient())
+                    .subject(String.format("🚨 Alerta Crypto: %s (%s)",
+                            message.getCoinName(), message.getCoinSymbol()))
+                    .body(buildEmailBody(message))
+                    .coinSymbol(message.getCoinSymbol())
+                    .alertRuleId(message.getRuleId())
+                    .build());
+        }
 
-            boolean emailSent = false;
+        String chatId = resolveTelegramChatId(message);
 
-            if (emailNotificationEnabled) {
-                emailSent = sendEmailNotification(message);
-            }
+        if (telegramNotificationEnabled && !telegramBotToken.isEmpty() && chatId != null) {
+            rows.add(NotificationOutbox.builder()
+                    .channel(NotificationOutbox.Channel.TELEGRAM)
+                    .recipient(chatId)
+                    .body(buildTelegramMessage(message))
+                    .coinSymbol(message.getCoinSymbol())
+                    .alertRuleId(message.getRuleId())
+                    .build());
+        }
 
-            if (telegramNotificationEnabled && !telegramBotToken.isEmpty()) {
-                sendTelegramNotification(message);
-            }
+        int channels = rows.size() + (message.isInApp() ? 1 : 0);
 
-            if (emailSent) {
-                log.info("Notificação enviada com sucesso");
-            } else {
-                log.warn("Notificação enviada parcialmente (Telegram OK?)");
-            }
+        if (channels == 0) {
+            log.warn("Nenhum canal de notificação habilitado");
+            return 0;
+        }
 
-        } catch (Exception e) {
-            log.error("Erro ao enviar notificação: {}", e.getMessage(), e);
+        if (!rows.isEmpty()) {
+            outboxRepository.saveAll(rows);
         }
 
-        return CompletableFuture.completedFuture(null);
+        log.info("Notificação enfileirada para {} - Crypto: {} ({}) - {} canal(is){}",
+                masked, message.getCoinSymbol(), message.getAlertType(), rows.size(),
+                message.isInApp() ? " + in-app" : "");
+
+        return channels;
     }
 
 
     // ================================================
-    // 🔥 ENVIO DE EMAIL
+    // 🔥 ENTREGA (chamada pelos workers do outbox)
     // ================================================
-    private boolean sendEmailNotification(NotificationMessage message) {
-        try {
-            log.debug("Preparando email");
 
-            String subject = String.format("🚨 Alerta Crypto: %s (%s)",
-                    message.getCoinName(), message.getCoinSymbol());
-
-            String body = buildEmailBody(message);
-
-            emailService.sendEmail(message.getRecipient(), subject, body);
+    /**
+     * Envio bloqueante via SendGrid — executado no pool dedicado do dispatcher.
+     */
+    public void deliverEmail(NotificationOutbox row) {
+        emailService.sendEmail(row.getRecipient(), row.getSubject(), row.getBody());
+        log.debug("Email enviado (outbox {})", row.getId());
+    }
 
-            log.debug("Email enviado");
-            return true;
+    /**
+     * Envio não bloqueante para o Telegram (rate limit e coalescência no canal).
+     */
+    public Mono<Void> deliverTelegram(NotificationOutbox row) {
+        return telegramChannel.send(row.getRecipient(), row.getBody())
+                .doOnSuccess(r -> log.debug("Telegram enviado (outbox {})", row.getId()));
+    }
 
-        } catch (Exception e) {
-            log.error("Erro ao enviar email para {}: {}",
-                    LogMasker.maskEmail(message.getRecipient()), e.getMessage());
-            return false;
+    /**
+     * Chat do usuário dono da regra; sem ele, cai no chat global configurado.
+     */
+    private String resolveTelegramChatId(NotificationMessage message) {
+        if (message.getTelegramChatId() != null && !message.getTelegramChatId().isBlank()) {
+            return message.getTelegramChatId();
         }
+        return telegramChatId == null || telegramChatId.isBlank() ? null : telegramChatId;
     }
 
 
@@ -169,34 +251,6 @@ public class NotificationService {
     // ================================================
     // 🔥 TELEGRAM
     // ================================================
-    private void sendTelegramNotification(NotificationMessage message) {
-        try {
-            String telegramMessage = buildTelegramMessage(message);
-
-            String url = "https://api.telegram.org/bot" + telegramBotToken + "/sendMessage";
-
-            Map<String, Object> requestBody = Map.of(
-                    "chat_id", telegramChatId,
-                    "text", telegramMessage,
-                    "parse_mode", "Markdown"
-            );
-
-            webClient.post()
-                    .uri(url)
-                    .bodyValue(requestBody)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .subscribe(
-                            r -> log.debug("Telegram enviado"),
-                            e -> log.error("Erro ao enviar Telegram: {}", e.getMessage())
-                    );
-
-        } catch (Exception e) {
-            log.error("Falha geral no Telegram: {}", e.getMessage());
-        }
-    }
-
-
     private String buildTelegramMessage(NotificationMessage message) {
         return String.format("""
                 %s *%s*
@@ -220,31 +274,52 @@ public class NotificationService {
     // ================================================
     // 🔥 COOLDOWN
     // ================================================
-    private boolean isInCooldown(NotificationMessage message) {
-        String key = message.getCoinSymbol().toUpperCase() + "_" + message.getAlertType();
-        LocalDateTime last = notificationCache.get(key);
-
-        if (last == null) return false;
+    /**
+     * Verifica e registra o cooldown de forma atômica.
+     * Chave: (destinatário, regra ou símbolo, tipo) — um usuário não silencia o outro.
+     * Dentro de transação, o rollback devolve o cooldown: sem linha no outbox,
+     * o próximo disparo não pode ficar silenciado.
+     */
+    private boolean acquireCooldown(NotificationMessage message) {
+        String key = cooldownKey(message);
+        boolean acquired = cooldowns.tryAcquire(
+                key,
+                System.currentTimeMillis(),
+                notificationCooldownMinutes * 60_000L
+        );
 
-        LocalDateTime cooldownEnd = last.plusMinutes(notificationCooldownMinutes);
-        boolean inCooldown = LocalDateTime.now().isBefore(cooldownEnd);
+        if (acquired) {
+            log.debug("Cooldown registrado: {}", LogMasker.maskEmail(message.getRecipient()));
+            releaseOnRollback(key);
+        } else {
+            long minutesLeft = cooldowns.remainingMillis(key, System.currentTimeMillis()) / 60_000;
+            log.debug("Cooldown ativo: {} {} (faltam {} minutos)",
+                    message.getCoinSymbol(), message.getAlertType(), minutesLeft);
+        }
 
-        if (inCooldown) {
-            long minutesLeft = java.time.Duration
-                    .between(LocalDateTime.now(), cooldownEnd)
-                    .toMinutes();
+        return acquired;
+    }
 
-            log.debug("Cooldown ativo: {} (faltam {} minutos)", key, minutesLeft);
-        }
+    private void releaseOnRollback(String key) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
 
-        return inCooldown;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK && cooldowns.remove(key)) {
+                    log.debug("Cooldown devolvido após rollback: {}", key);
+                }
+            }
+        });
     }
 
+    static String cooldownKey(NotificationMessage message) {
+        String recipient = message.getRecipient() != null
+                ? message.getRecipient().toLowerCase()
+                : "";
+        String key = recipient + '|' + message.getCoinSymbol().toUpperCase() + '|' + message.getAlertType();
 
-    private void updateNotificationCache(NotificationMessage message) {
-        String key = message.getCoinSymbol().toUpperCase() + "_" + message.getAlertType();
-        notificationCache.put(key, LocalDateTime.now());
-        log.debug("Cooldown registrado: {}", key);
+        return message.getRuleId() != null ? key + "|#" + message.getRuleId() : key;
     }
 
 
@@ -258,6 +333,11 @@ public class NotificationService {
             case VOLUME_SPIKE -> "Aumento de Volume";
             case PERCENT_CHANGE_24H -> "Variação 24h";
             case MARKET_CAP -> "Market Cap";
+            case MA_CROSS_UP, MA_CROSS_DOWN -> "Cruzamento de Médias";
+            case RSI_ABOVE, RSI_BELOW -> "RSI";
+            case BOLLINGER_BREAKOUT_UP, BOLLINGER_BREAKOUT_DOWN -> "Rompimento de Bollinger";
+            case PERCENT_CHANGE_WINDOW -> "Variação na Janela";
+            case VOLUME_ZSCORE -> "Volume Anômalo";
             default -> "Alerta Geral";
         };
     }
@@ -269,6 +349,11 @@ public class NotificationService {
             case VOLUME_SPIKE -> "🔊";
             case PERCENT_CHANGE_24H -> "⚡";
             case MARKET_CAP -> "🏦";
+            case MA_CROSS_UP, BOLLINGER_BREAKOUT_UP -> "📈";
+            case MA_CROSS_DOWN, BOLLINGER_BREAKOUT_DOWN -> "📉";
+            case RSI_ABOVE, RSI_BELOW -> "📐";
+            case PERCENT_CHANGE_WINDOW -> "⚡";
+            case VOLUME_ZSCORE -> "📊";
             default -> "🔔";
         };
     }
@@ -297,27 +382,32 @@ public class NotificationService {
     // 🔥 ADMIN
     // ================================================
     public void clearCooldown(String coinSymbol, String alertType) {
-        String key = coinSymbol.toUpperCase() + "_" + alertType;
-        LocalDateTime removed = notificationCache.remove(key);
+        String marker = "|" + coinSymbol.toUpperCase() + "|" + alertType;
+
+        int removed = cooldowns.removeIf(key -> key.endsWith(marker) || key.contains(marker + "|#"));
 
-        if (removed != null) {
-            log.info("Cooldown removido: {}", key);
+        if (removed > 0) {
+            log.info("Cooldown removido: {}_{} ({} destinatários)", coinSymbol.toUpperCase(), alertType, removed);
         } else {
-            log.debug("Cooldown não existia: {}", key);
+            log.debug("Cooldown não existia: {}_{}", coinSymbol.toUpperCase(), alertType);
         }
     }
 
     public void clearAllCooldowns() {
-        int sizeBefore = notificationCache.size();
-        notificationCache.clear();
+        int sizeBefore = cooldowns.size();
+        cooldowns.clear();
         log.info("Todos os cooldowns removidos (total: {})", sizeBefore);
     }
 
     public Map<String, Object> getCooldownStats() {
         return Map.of(
-                "totalCooldowns", notificationCache.size(),
+                "totalCooldowns", cooldowns.size(),
+                "capacity", cooldowns.capacity(),
                 "cooldownMinutes", notificationCooldownMinutes,
-                "activeCooldowns", new ArrayList<>(notificationCache.keySet())
+                "suppressed", cooldowns.suppressedCount(),
+                "expired", cooldowns.expiredCount(),
+                "evicted", cooldowns.evictedCount(),
+                "activeCooldowns", cooldowns.keys(100)
         );
     }
 }
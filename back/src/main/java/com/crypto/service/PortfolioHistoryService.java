@@ -0,0 +1,202 @@
+package com.crypto.service;
+
+import com.crypto.model.CryptoCurrency;
+import com.crypto.model.Transaction;
+import com.crypto.repository.TransactionRepository;
+import com.crypto.util.AlertBacktester;
+import com.crypto.util.CryptoSymbolMapper;
+import com.crypto.util.EquityCurve;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 📉 Evolução diária do valor do portfolio ({@code GET /api/portfolio/history}).
+ *
+ * A série de cada usuário fica em memória ({@link EquityCurve}): os dias
+ * fechados são acrescentados conforme passam e uma transação nova ou
+ * excluída descarta só os pontos a partir da data dela. Os preços vêm das
+ * séries históricas já cacheadas para os backtests.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PortfolioHistoryService {
+
+    private static final Map<String, Integer> RANGES = Map.of(
+            "7d", 7, "30d", 30, "90d", 90, "1y", 365, "all", Integer.MAX_VALUE);
+
+    private final TransactionRepository transactionRepository;
+    private final AlertBacktestService alertBacktestService;
+    private final CryptoService cryptoService;
+
+    @Value("${portfolio.history.price-days:365}")
+    private int priceDays;
+
+    @Value("${portfolio.history.idle-minutes:60}")
+    private long idleMinutes;
+
+    private final Map<String, UserCurve> curves = new ConcurrentHashMap<>();
+
+
+    /**
+     * @param range 7d, 30d (padrão), 90d, 1y ou all
+     */
+    public Map<String, Object> getHistory(String username, String range) {
+        Integer rangeDays = RANGES.get(range == null || range.isBlank() ? "30d" : range.trim().toLowerCase());
+        if (rangeDays == null) {
+            throw new IllegalArgumentException("range deve ser 7d, 30d, 90d, 1y ou all");
+        }
+
+        long today = LocalDate.now(ZoneOffset.UTC).toEpochDay();
+        UserCurve userCurve = curves.computeIfAbsent(username, u -> new UserCurve());
+
+        List<Map<String, Object>> points = new ArrayList<>();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("range", range == null || range.isBlank() ? "30d" : range);
+
+        synchronized (userCurve) {
+            userCurve.lastRead = System.currentTimeMillis();
+            if (userCurve.checkedUntil < today - 1) extend(username, userCurve, today - 1);
+
+            EquityCurve curve = userCurve.curve;
+            long from = rangeDays == Integer.MAX_VALUE ? Long.MIN_VALUE : today - rangeDays;
+
+            for (int i = 0; i < curve.size(); i++) {
+                if (curve.day(i) < from) continue;
+                points.add(point(LocalDate.ofEpochDay(curve.day(i)), curve.value(i), curve.invested(i)));
+            }
+
+            // Hoje: posição atual a preço corrente
+            if (userCurve.symbols.length > 0) points.add(livePoint(userCurve, today));
+
+            if (!userCurve.estimated.isEmpty()) result.put("estimatedCoins", List.copyOf(userCurve.estimated));
+        }
+
+        result.put("points", points);
+        return result;
+    }
+
+    /**
+     * Transação nova, alterada ou excluída: descarta os pontos a partir do dia dela.
+     */
+    public void invalidateFrom(String username, LocalDateTime date) {
+        UserCurve userCurve = curves.get(username);
+        if (userCurve == null) return;
+
+        synchronized (userCurve) {
+            long day = date != null ? utcDay(date) : Long.MIN_VALUE;
+            userCurve.curve.truncateFrom(day);
+            userCurve.checkedUntil = Long.MIN_VALUE;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${portfolio.valuation.sweep-millis:60000}")
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleMinutes * 60_000;
+        curves.entrySet().removeIf(e -> e.getValue().lastRead < cutoff);
+    }
+
+
+    // ================================================
+    // 🔧 INTERNOS
+    // ================================================
+
+    /**
+     * Relê as transações (só quantidades até o último ponto) e precifica os dias novos.
+     */
+    private void extend(String username, UserCurve userCurve, long toDay) {
+        List<Transaction> transactions = transactionRepository.findByUserUsernameOrderByTransactionDateAscIdAsc(username);
+
+        Map<String, Integer> coinIndex = new LinkedHashMap<>();
+        List<EquityCurve.Flow> flows = new ArrayList<>(transactions.size());
+        for (Transaction t : transactions) {
+            int coin = coinIndex.computeIfAbsent(t.getCoinSymbol().toUpperCase(), s -> coinIndex.size());
+            flows.add(new EquityCurve.Flow(
+                    utcDay(t.getTransactionDate()), coin,
+                    t.getType() == Transaction.TransactionType.BUY,
+                    t.getQuantity().doubleValue(), t.getPricePerUnit().doubleValue()));
+        }
+
+        String[] symbols = coinIndex.keySet().toArray(new String[0]);
+        EquityCurve.DailyCloses[] closes = new EquityCurve.DailyCloses[symbols.length];
+
+        // Só busca preços se há dia novo a precificar
+        boolean pricing = !flows.isEmpty() && (userCurve.curve.size() == 0 || userCurve.curve.nextDay() <= toDay);
+        if (pricing) userCurve.estimated.clear();
+        for (int c = 0; c < symbols.length; c++) {
+            closes[c] = pricing ? closes(symbols[c]) : EquityCurve.DailyCloses.EMPTY;
+            if (pricing && closes[c].isEmpty()) userCurve.estimated.add(symbols[c]);
+        }
+
+        int before = userCurve.curve.size();
+        userCurve.holdings = userCurve.curve.extend(flows, closes, toDay);
+        userCurve.symbols = symbols;
+        userCurve.checkedUntil = toDay;
+
+        log.debug("📉 Histórico de {}: +{} dias ({} transações, {} moedas)",
+                username, userCurve.curve.size() - before, flows.size(), symbols.length);
+    }
+
+    /** transaction_date é hora local do servidor; a série é por dia UTC */
+    private static long utcDay(LocalDateTime localTime) {
+        return localTime.atZone(ZoneId.systemDefault()).withZoneSameInstant(ZoneOffset.UTC).toLocalDate().toEpochDay();
+    }
+
+    private EquityCurve.DailyCloses closes(String symbol) {
+        try {
+            AlertBacktester.Series series = alertBacktestService.series(CryptoSymbolMapper.toCoinId(symbol), priceDays);
+            return EquityCurve.DailyCloses.of(series.times(), series.prices());
+        } catch (Exception e) {
+            log.warn("⚠️ Sem histórico de preços para {}: {}", symbol, e.getMessage());
+            return EquityCurve.DailyCloses.EMPTY;
+        }
+    }
+
+    private Map<String, Object> livePoint(UserCurve userCurve, long today) {
+        Map<String, Double> prices = new HashMap<>();
+        for (CryptoCurrency c : cryptoService.getCurrentPrices()) {
+            if (c.getSymbol() != null && c.getCurrentPrice() != null) {
+                prices.putIfAbsent(c.getSymbol().toUpperCase(), c.getCurrentPrice().doubleValue());
+            }
+        }
+
+        EquityCurve.Holdings holdings = userCurve.holdings;
+        double value = 0;
+        double invested = 0;
+        for (int c = 0; c < userCurve.symbols.length; c++) {
+            if (holdings.quantity()[c] <= 0) continue;
+            Double price = prices.get(userCurve.symbols[c]);
+            value += holdings.quantity()[c] * (price != null ? price : holdings.lastPrice()[c]);
+            invested += holdings.cost()[c];
+        }
+        return point(LocalDate.ofEpochDay(today), value, invested);
+    }
+
+    private static Map<String, Object> point(LocalDate date, double value, double invested) {
+        Map<String, Object> point = new LinkedHashMap<>();
+        point.put("date", date.toString());
+        point.put("value", value);
+        point.put("invested", invested);
+        point.put("profitLoss", value - invested);
+        return point;
+    }
+
+    private static final class UserCurve {
+        final EquityCurve curve = new EquityCurve();
+        final Set<String> estimated = new TreeSet<>();
+        String[] symbols = new String[0];
+        EquityCurve.Holdings holdings;
+        long checkedUntil = Long.MIN_VALUE;
+        volatile long lastRead = System.currentTimeMillis();
+    }
+}
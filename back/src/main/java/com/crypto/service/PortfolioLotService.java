@@ -0,0 +1,246 @@
+package com.crypto.service;
+
+import com.crypto.model.CryptoCurrency;
+import com.crypto.model.Transaction;
+import com.crypto.model.User;
+import com.crypto.repository.TransactionRepository;
+import com.crypto.util.LotLedger;
+import com.crypto.util.LotLedger.Method;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 🧾 PnL realizado/não realizado por lotes (FIFO, LIFO e custo médio).
+ *
+ * Os livros de cada usuário ficam em memória, os três métodos lado a lado
+ * por moeda: a primeira leitura replaya o histórico uma vez; depois cada
+ * transação nova é aplicada incrementalmente e exclusão ou transação
+ * retroativa reconstrói só a moeda afetada.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PortfolioLotService {
+
+    private static final Method[] METHODS = Method.values();
+
+    private final TransactionRepository transactionRepository;
+    private final CryptoService cryptoService;
+
+    @Value("${portfolio.lots.idle-minutes:60}")
+    private long idleMinutes;
+
+    private final Map<String, UserLots> users = new ConcurrentHashMap<>();
+
+
+    public Map<String, Object> getPnl(String username, Method method) {
+        UserLots userLots = users.computeIfAbsent(username, u -> new UserLots());
+
+        Map<String, BigDecimal> prices = currentPrices();
+        List<Map<String, Object>> positions = new ArrayList<>();
+        BigDecimal totalRealized = BigDecimal.ZERO;
+        BigDecimal totalUnrealized = BigDecimal.ZERO;
+        BigDecimal totalCost = BigDecimal.ZERO;
+        BigDecimal totalValue = BigDecimal.ZERO;
+
+        synchronized (userLots) {
+            userLots.lastRead = System.currentTimeMillis();
+            refresh(username, userLots);
+
+            for (Map.Entry<String, LotLedger[]> entry : userLots.coins.entrySet()) {
+                LotLedger ledger = entry.getValue()[method.ordinal()];
+                BigDecimal price = prices.get(entry.getKey());
+
+                BigDecimal unrealized = ledger.unrealizedPnl(price);
+                BigDecimal value = price != null ? ledger.quantity().multiply(price) : ledger.costBasis();
+
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("coinSymbol", entry.getKey());
+                item.put("quantity", ledger.quantity());
+                item.put("costBasis", ledger.costBasis());
+                item.put("averageCost", ledger.averageCost());
+                item.put("currentPrice", price);
+                item.put("marketValue", value);
+                item.put("realizedPnl", ledger.realizedPnl());
+                item.put("unrealizedPnl", unrealized);
+                item.put("totalPnl", ledger.realizedPnl().add(unrealized));
+                item.put("buys", ledger.buys());
+                item.put("sells", ledger.sells());
+                if (ledger.unmatchedQuantity().signum() > 0) {
+                    item.put("unmatchedQuantity", ledger.unmatchedQuantity());
+                }
+                if (method != Method.AVERAGE) item.put("openLots", ledger.openLots());
+                positions.add(item);
+
+                totalRealized = totalRealized.add(ledger.realizedPnl());
+                totalUnrealized = totalUnrealized.add(unrealized);
+                totalCost = totalCost.add(ledger.costBasis());
+                totalValue = totalValue.add(value);
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("method", method);
+        result.put("positions", positions);
+        result.put("totalCostBasis", totalCost);
+        result.put("totalMarketValue", totalValue);
+        result.put("totalRealizedPnl", totalRealized);
+        result.put("totalUnrealizedPnl", totalUnrealized);
+        result.put("totalPnl", totalRealized.add(totalUnrealized));
+        return result;
+    }
+
+    /**
+     * Transação nova (após o commit). Sem livro em memória não há nada a fazer:
+     * a próxima leitura carrega o histórico já com ela.
+     */
+    public void onTransactionAdded(String username, Transaction transaction) {
+        UserLots userLots = users.get(username);
+        if (userLots == null || transaction.getId() == null) return;
+
+        String symbol = transaction.getCoinSymbol().toUpperCase();
+        synchronized (userLots) {
+            if (!userLots.loaded || userLots.dirty.contains(symbol)) return;
+
+            LotLedger[] ledgers = userLots.coins.computeIfAbsent(symbol, s -> newLedgers());
+            if (ledgers[0].follows(transaction.getTransactionDate(), transaction.getId())) {
+                apply(ledgers, transaction);
+            } else {
+                // Retroativa: a ordem dos lotes muda a partir dela
+                userLots.dirty.add(symbol);
+            }
+        }
+    }
+
+    /**
+     * Reconstrói uma moeda a partir do banco (dentro da transação de quem chama,
+     * já enxergando a exclusão/edição) e, após o commit, marca a moeda para releitura.
+     *
+     * @return livro em custo médio da moeda (a posição de {@code portfolio})
+     */
+    public LotLedger rebuildCoin(User user, String coinSymbol) {
+        String symbol = coinSymbol.toUpperCase();
+        LotLedger[] ledgers = build(coinHistory(user.getUsername(), coinSymbol));
+
+        // Só após o commit: antes disso uma leitura concorrente relê o estado antigo e limpa a marca
+        String username = user.getUsername();
+        afterCommit(() -> {
+            UserLots userLots = users.get(username);
+            if (userLots == null) return;
+            synchronized (userLots) {
+                userLots.dirty.add(symbol);
+            }
+        });
+
+        log.debug("🧾 Lotes de {} reconstruídos para {}: {} transações",
+                symbol, user.getUsername(), ledgers[0].buys() + ledgers[0].sells());
+        return ledgers[Method.AVERAGE.ordinal()];
+    }
+
+    public void evict(String username) {
+        users.remove(username);
+    }
+
+    @Scheduled(fixedDelayString = "${portfolio.valuation.sweep-millis:60000}")
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleMinutes * 60_000;
+        users.entrySet().removeIf(e -> e.getValue().lastRead < cutoff);
+    }
+
+
+    // ================================================
+    // 🔧 INTERNOS
+    // ================================================
+
+    /** Carga inicial do histórico ou reconstrução das moedas sujas */
+    private void refresh(String username, UserLots userLots) {
+        if (!userLots.loaded) {
+            Map<String, List<Transaction>> bySymbol = transactionRepository
+                    .findByUserUsernameOrderByTransactionDateAscIdAsc(username).stream()
+                    .collect(Collectors.groupingBy(t -> t.getCoinSymbol().toUpperCase(),
+                            TreeMap::new, Collectors.toList()));
+
+            userLots.coins.clear();
+            bySymbol.forEach((symbol, transactions) -> userLots.coins.put(symbol, build(transactions)));
+            userLots.dirty.clear();
+            userLots.loaded = true;
+
+            log.debug("🧾 Lotes carregados para {}: {} moedas", username, userLots.coins.size());
+            return;
+        }
+
+        if (userLots.dirty.isEmpty()) return;
+
+        for (String symbol : userLots.dirty) {
+            List<Transaction> transactions = coinHistory(username, symbol);
+
+            if (transactions.isEmpty()) userLots.coins.remove(symbol);
+            else userLots.coins.put(symbol, build(transactions));
+        }
+        userLots.dirty.clear();
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private List<Transaction> coinHistory(String username, String symbol) {
+        return transactionRepository
+                .findByUserUsernameAndCoinSymbolIgnoreCaseOrderByTransactionDateAscIdAsc(username, symbol);
+    }
+
+    private static LotLedger[] build(List<Transaction> transactions) {
+        LotLedger[] ledgers = newLedgers();
+        for (Transaction t : transactions) apply(ledgers, t);
+        return ledgers;
+    }
+
+    private static LotLedger[] newLedgers() {
+        LotLedger[] ledgers = new LotLedger[METHODS.length];
+        for (Method m : METHODS) ledgers[m.ordinal()] = new LotLedger(m);
+        return ledgers;
+    }
+
+    private static void apply(LotLedger[] ledgers, Transaction t) {
+        boolean buy = t.getType() == Transaction.TransactionType.BUY;
+        for (LotLedger ledger : ledgers) {
+            ledger.apply(t.getId(), t.getTransactionDate(), buy, t.getQuantity(), t.getPricePerUnit());
+        }
+    }
+
+    private Map<String, BigDecimal> currentPrices() {
+        return cryptoService.getCurrentPrices().stream()
+                .filter(c -> c.getSymbol() != null && c.getCurrentPrice() != null)
+                .collect(Collectors.toMap(
+                        c -> c.getSymbol().toUpperCase(),
+                        CryptoCurrency::getCurrentPrice,
+                        (a, b) -> a
+                ));
+    }
+
+    private static final class UserLots {
+        final Map<String, LotLedger[]> coins = new TreeMap<>();
+        final Set<String> dirty = new HashSet<>();
+        boolean loaded;
+        volatile long lastRead = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,241 @@
+package com.crypto.service;
+
+import com.crypto.model.CryptoCurrency;
+import com.crypto.repository.PortfolioRepository;
+import com.crypto.util.AlertBacktester;
+import com.crypto.util.CryptoSymbolMapper;
+import com.crypto.util.EquityCurve;
+import com.crypto.util.MonteCarloRisk;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 🎲 Risco do portfolio: VaR e CVaR de 1 e 7 dias por Monte Carlo.
+ *
+ * Posições do usuário a preço corrente; retornos diários correlacionados
+ * calibrados nas séries históricas já cacheadas para os backtests.
+ * A simulação roda num ForkJoinPool próprio ({@link MonteCarloRisk}), com
+ * no máximo {@code max-concurrent} cálculos ao mesmo tempo.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PortfolioRiskService {
+
+    private static final int[] HORIZONS = {1, 7};
+    private static final double[] CONFIDENCES = {0.95, 0.99};
+    private static final int MIN_RETURNS = 20;
+
+    private final PortfolioRepository portfolioRepository;
+    private final CryptoService cryptoService;
+    private final AlertBacktestService alertBacktestService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${portfolio.risk.paths:100000}")
+    private int defaultPaths;
+
+    @Value("${portfolio.risk.max-paths:1000000}")
+    private int maxPaths;
+
+    @Value("${portfolio.risk.calibration-days:365}")
+    private int calibrationDays;
+
+    @Value("${portfolio.risk.parallelism:0}")
+    private int parallelism;
+
+    @Value("${portfolio.risk.max-concurrent:2}")
+    private int maxConcurrent;
+
+    private ForkJoinPool pool;
+    private Semaphore permits;
+    private Timer simulationTimer;
+
+
+    @PostConstruct
+    public void init() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(threads);
+        permits = new Semaphore(Math.max(1, maxConcurrent));
+
+        simulationTimer = Timer.builder("crypto_portfolio_risk_seconds")
+                .description("Tempo da simulação de Monte Carlo (sem carga das séries)")
+                .register(meterRegistry);
+
+        log.info("🎲 Risco de portfolio: {} caminhos padrão | paralelismo {}", defaultPaths, threads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) pool.shutdown();
+    }
+
+
+    /**
+     * @param paths caminhos simulados (null = padrão)
+     * @param seed  semente (null = aleatória); mesma semente, mesmo resultado
+     */
+    public Map<String, Object> getRisk(String username, Integer paths, Long seed) {
+        int pathCount = paths != null ? paths : defaultPaths;
+        if (pathCount < 1000 || pathCount > maxPaths) {
+            throw new IllegalArgumentException("paths deve estar entre 1000 e " + maxPaths);
+        }
+
+        Map<String, Double> exposures = exposures(username);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("portfolioValue", exposures.values().stream().mapToDouble(Double::doubleValue).sum());
+        if (exposures.isEmpty()) {
+            result.put("horizons", Map.of());
+            return result;
+        }
+
+        // Fechamentos diários, históricos mais longos primeiro; moeda que deixaria
+        // a janela comum com menos de MIN_RETURNS dias fica fora do modelo
+        Map<String, EquityCurve.DailyCloses> candidates = new LinkedHashMap<>();
+        List<String> unmodeled = new ArrayList<>();
+        for (String symbol : exposures.keySet()) {
+            EquityCurve.DailyCloses daily = closes(symbol);
+            if (daily.isEmpty()) unmodeled.add(symbol);
+            else candidates.put(symbol, daily);
+        }
+
+        List<String> symbols = new ArrayList<>();
+        List<EquityCurve.DailyCloses> closes = new ArrayList<>();
+        long first = Long.MIN_VALUE;
+        long last = Long.MAX_VALUE;
+
+        List<Map.Entry<String, EquityCurve.DailyCloses>> byHistory = new ArrayList<>(candidates.entrySet());
+        byHistory.sort(Comparator.comparingLong(e -> e.getValue().firstDay()));
+        for (Map.Entry<String, EquityCurve.DailyCloses> e : byHistory) {
+            long from = Math.max(first, e.getValue().firstDay());
+            long to = Math.min(last, e.getValue().lastDay());
+            if (to - from < MIN_RETURNS) {
+                unmodeled.add(e.getKey());
+                continue;
+            }
+            symbols.add(e.getKey());
+            closes.add(e.getValue());
+            first = from;
+            last = to;
+        }
+
+        if (!unmodeled.isEmpty()) result.put("unmodeledCoins", unmodeled);
+        if (symbols.isEmpty()) {
+            result.put("horizons", Map.of());
+            return result;
+        }
+
+        int returnCount = (int) (last - first);
+
+        int n = symbols.size();
+        double[] exposure = new double[n];
+        double[][] returns = new double[n][returnCount];
+        for (int i = 0; i < n; i++) {
+            exposure[i] = exposures.get(symbols.get(i));
+            EquityCurve.DailyCloses daily = closes.get(i);
+            for (int k = 0; k < returnCount; k++) {
+                returns[i][k] = logReturn(daily.at(first + k), daily.at(first + k + 1));
+            }
+        }
+
+        long actualSeed = seed != null ? seed : new SplittableRandom().nextLong();
+        MonteCarloRisk model = MonteCarloRisk.calibrate(exposure, returns);
+
+        if (!permits.tryAcquire()) {
+            throw new IllegalStateException("Muitos cálculos de risco em andamento; tente novamente");
+        }
+        double[][] pnl;
+        long elapsedNanos;
+        try {
+            long start = System.nanoTime();
+            pnl = model.simulate(pathCount, HORIZONS, actualSeed, pool);
+            elapsedNanos = System.nanoTime() - start;
+        } finally {
+            permits.release();
+        }
+        simulationTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        Map<String, Object> horizons = new LinkedHashMap<>();
+        for (int h = 0; h < HORIZONS.length; h++) {
+            Map<String, Object> horizon = new LinkedHashMap<>();
+            horizon.put("expectedPnl", MonteCarloRisk.mean(pnl[h]));
+            for (double confidence : CONFIDENCES) {
+                MonteCarloRisk.Tail tail = MonteCarloRisk.tail(pnl[h], confidence);
+                String level = String.valueOf(Math.round(confidence * 100));
+                horizon.put("var" + level, tail.valueAtRisk());
+                horizon.put("cvar" + level, tail.conditionalValueAtRisk());
+            }
+            horizons.put(HORIZONS[h] + "d", horizon);
+        }
+
+        result.put("modeledValue", Arrays.stream(exposure).sum());
+        result.put("modeledCoins", symbols);
+        result.put("calibrationFrom", LocalDate.ofEpochDay(first).toString());
+        result.put("calibrationTo", LocalDate.ofEpochDay(last).toString());
+        result.put("paths", pathCount);
+        result.put("seed", actualSeed);
+        result.put("simulationMillis", TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        result.put("horizons", horizons);
+
+        log.debug("🎲 Risco de {}: {} moedas × {} caminhos em {}ms",
+                username, n, pathCount, TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        return result;
+    }
+
+
+    // ================================================
+    // 🔧 INTERNOS
+    // ================================================
+
+    /** Valor de mercado por símbolo (preço médio quando não há cotação) */
+    private Map<String, Double> exposures(String username) {
+        List<PortfolioRepository.PortfolioProjection> positions =
+                portfolioRepository.findByUserUsernameOptimized(username);
+        if (positions.isEmpty()) return Map.of();
+
+        Map<String, BigDecimal> prices = new HashMap<>();
+        for (CryptoCurrency c : cryptoService.getCurrentPrices()) {
+            if (c.getSymbol() != null && c.getCurrentPrice() != null) {
+                prices.putIfAbsent(c.getSymbol().toUpperCase(), c.getCurrentPrice());
+            }
+        }
+
+        Map<String, Double> exposures = new TreeMap<>();
+        for (PortfolioRepository.PortfolioProjection p : positions) {
+            String symbol = p.getCoinSymbol().toUpperCase();
+            BigDecimal price = prices.getOrDefault(symbol, p.getAverageBuyPrice());
+            exposures.merge(symbol, p.getQuantity().multiply(price).doubleValue(), Double::sum);
+        }
+        return exposures;
+    }
+
+    /** Fechamento zerado ou inválido na série: dia sem retorno em vez de ±Infinity/NaN */
+    private static double logReturn(double from, double to) {
+        if (!(from > 0) || !(to > 0)) return 0;
+        double r = Math.log(to / from);
+        return Double.isFinite(r) ? r : 0;
+    }
+
+    private EquityCurve.DailyCloses closes(String symbol) {
+        try {
+            AlertBacktester.Series series = alertBacktestService.series(CryptoSymbolMapper.toCoinId(symbol), calibrationDays);
+            return EquityCurve.DailyCloses.of(series.times(), series.prices());
+        } catch (Exception e) {
+            log.warn("⚠️ Sem histórico de preços para {}: {}", symbol, e.getMessage());
+            return EquityCurve.DailyCloses.EMPTY;
+        }
+    }
+}
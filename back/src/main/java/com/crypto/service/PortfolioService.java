@@ -1,17 +1,29 @@
 package com.crypto.service;
 
+import com.crypto.event.PriceTickEvent;
 import com.crypto.exception.PortfolioException;
 import com.crypto.exception.UserNotFoundException;
 import com.crypto.model.*;
 import com.crypto.repository.*;
+import com.crypto.util.LotLedger;
+import com.crypto.util.PortfolioValuation;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -23,6 +35,25 @@ public class PortfolioService {
     private final TransactionRepository transactionRepository;
     private final UserRepository userRepository;
     private final CryptoService cryptoService;
+    private final PortfolioLotService portfolioLotService;
+    private final PortfolioHistoryService portfolioHistoryService;
+    private final MonitoringClusterService clusterService;
+
+    @Value("${portfolio.valuation.idle-minutes:30}")
+    private long idleMinutes;
+
+    @Value("${portfolio.valuation.cluster-sync-millis:5000}")
+    private long clusterSyncMillis;
+
+    // Valorização pronta por usuário + índice reverso moeda → usuários que a possuem
+    private final Map<String, Valued> valuations = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> holders = new ConcurrentHashMap<>();
+
+    // Carimbo de invalidação por faixa de usuários: um load só publica se nada invalidou no meio
+    private static final int STAMP_STRIPES = 1024;
+    private final AtomicLongArray stamps = new AtomicLongArray(STAMP_STRIPES);
+
+    private volatile LocalDateTime lastClusterSyncAt;
 
     @Transactional
     public Transaction addTransaction(String username, Transaction transaction) {
@@ -35,6 +66,12 @@ public class PortfolioService {
         Transaction savedTransaction = transactionRepository.save(transaction);
 
         updatePortfolio(user, transaction);
+        userRepository.touchPortfolio(user.getId(), clusterService.databaseNow());
+        afterCommit(() -> {
+            invalidate(username);
+            portfolioLotService.onTransactionAdded(username, savedTransaction);
+            portfolioHistoryService.invalidateFrom(username, savedTransaction.getTransactionDate());
+        });
 
         log.info("Transação adicionada: {} {} {} @ {}",
                 transaction.getType(),
@@ -167,81 +204,17 @@ public class PortfolioService {
     }
 
     /**
-     * 🔥 NOVA VERSÃO OTIMIZADA — SEM N+1 — SEM MÚLTIPLAS QUERIES
+     * Visão pré-calculada e imutável do portfolio: sem banco nem recálculo por
+     * requisição. A primeira leitura carrega as posições; depois os ticks de
+     * preço mantêm a valorização e uma transação nova invalida o usuário.
      */
     public Map<String, Object> getPortfolio(String username) {
         try {
-            List<PortfolioRepository.PortfolioProjection> portfolios =
-                    portfolioRepository.findByUserUsernameOptimized(username);
-
-            if (portfolios.isEmpty()) {
-                return buildEmptyPortfolio();
-            }
-
-            // 🔥 Agora pega TODOS os preços de uma vez só (cache)
-            List<CryptoCurrency> allPrices = cryptoService.getCurrentPrices();
-
-            // Mapa O(1) para lookup rápido
-            Map<String, BigDecimal> priceMap = allPrices.stream()
-                    .collect(Collectors.toMap(
-                            c -> c.getSymbol().toUpperCase(),
-                            CryptoCurrency::getCurrentPrice,
-                            (a, b) -> a
-                    ));
-
-            List<Map<String, Object>> enrichedPortfolio = new ArrayList<>();
-            BigDecimal totalInvested = BigDecimal.ZERO;
-            BigDecimal totalCurrentValue = BigDecimal.ZERO;
-
-            for (PortfolioRepository.PortfolioProjection p : portfolios) {
-
-                BigDecimal currentPrice = priceMap.getOrDefault(
-                        p.getCoinSymbol().toUpperCase(),
-                        p.getAverageBuyPrice()
-                );
-
-                BigDecimal currentValue = p.getQuantity().multiply(currentPrice);
-                BigDecimal profitLoss = currentValue.subtract(p.getTotalInvested());
-
-                BigDecimal profitLossPercent = p.getTotalInvested().compareTo(BigDecimal.ZERO) > 0
-                        ? profitLoss.divide(p.getTotalInvested(), 4, RoundingMode.HALF_UP)
-                        .multiply(BigDecimal.valueOf(100))
-                        : BigDecimal.ZERO;
-
-                Map<String, Object> item = new HashMap<>();
-                item.put("id", p.getId());
-                item.put("coinSymbol", p.getCoinSymbol());
-                item.put("coinName", p.getCoinName());
-                item.put("quantity", p.getQuantity());
-                item.put("averageBuyPrice", p.getAverageBuyPrice());
-                item.put("currentPrice", currentPrice);
-                item.put("totalInvested", p.getTotalInvested());
-                item.put("currentValue", currentValue);
-                item.put("profitLoss", profitLoss);
-                item.put("profitLossPercent", profitLossPercent);
-
-                enrichedPortfolio.add(item);
-
-                totalInvested = totalInvested.add(p.getTotalInvested());
-                totalCurrentValue = totalCurrentValue.add(currentValue);
-            }
-
-            BigDecimal totalProfitLoss = totalCurrentValue.subtract(totalInvested);
-            BigDecimal totalProfitLossPercent = totalInvested.compareTo(BigDecimal.ZERO) > 0
-                    ? totalProfitLoss.divide(totalInvested, 4, RoundingMode.HALF_UP)
-                    .multiply(BigDecimal.valueOf(100))
-                    : BigDecimal.ZERO;
-
-            Map<String, Object> result = new HashMap<>();
-            result.put("portfolio", enrichedPortfolio);
-            result.put("totalInvested", totalInvested);
-            result.put("totalCurrentValue", totalCurrentValue);
-            result.put("totalProfitLoss", totalProfitLoss);
-            result.put("totalProfitLossPercent", totalProfitLossPercent);
+            Valued valued = valuations.get(username);
+            if (valued == null) valued = load(username);
 
-            log.debug("Portfolio carregado para {}: {} itens", username, portfolios.size());
-
-            return result;
+            valued.lastRead = System.currentTimeMillis();
+            return valued.valuation.view();
 
         } catch (Exception e) {
             log.error("Erro ao carregar portfolio de {}: {}", username, e.getMessage(), e);
@@ -253,14 +226,72 @@ public class PortfolioService {
         }
     }
 
-    private Map<String, Object> buildEmptyPortfolio() {
-        Map<String, Object> empty = new HashMap<>();
-        empty.put("portfolio", Collections.emptyList());
-        empty.put("totalInvested", BigDecimal.ZERO);
-        empty.put("totalCurrentValue", BigDecimal.ZERO);
-        empty.put("totalProfitLoss", BigDecimal.ZERO);
-        empty.put("totalProfitLossPercent", BigDecimal.ZERO);
-        return empty;
+    /**
+     * Reprecifica só as posições dos usuários que têm a moeda do tick.
+     */
+    @EventListener
+    public void onPriceTick(PriceTickEvent event) {
+        if (holders.isEmpty()) return;
+
+        int repriced = 0;
+        for (CryptoCurrency quote : event.getQuotes()) {
+            if (quote.getSymbol() == null || quote.getCurrentPrice() == null) continue;
+
+            String symbol = quote.getSymbol().toUpperCase();
+            Set<String> users = holders.get(symbol);
+            if (users == null) continue;
+
+            for (String username : users) {
+                Valued valued = valuations.get(username);
+                if (valued != null && valued.valuation.reprice(symbol, quote.getCurrentPrice())) repriced++;
+            }
+        }
+
+        if (repriced > 0) log.debug("💼 {} portfolios reprecificados no tick", repriced);
+    }
+
+    /**
+     * Descarta valorizações sem leitura recente (o próximo GET recarrega).
+     */
+    @Scheduled(fixedDelayString = "${portfolio.valuation.sweep-millis:60000}")
+    public void evictIdleValuations() {
+        long cutoff = System.currentTimeMillis() - idleMinutes * 60_000;
+
+        List<String> idle = new ArrayList<>();
+        valuations.forEach((username, valued) -> {
+            if (valued.lastRead < cutoff) idle.add(username);
+        });
+        idle.forEach(this::invalidate);
+
+        if (!idle.isEmpty()) {
+            log.debug("💼 {} portfolios ociosos descartados ({} em memória)", idle.size(), valuations.size());
+        }
+    }
+
+    /**
+     * Transações gravadas por outros nós: descarta as visões locais desses
+     * usuários. A janela volta um intervalo para cobrir commits atrasados.
+     */
+    @Scheduled(fixedDelayString = "${portfolio.valuation.cluster-sync-millis:5000}")
+    public void syncWithCluster() {
+        try {
+            LocalDateTime now = clusterService.databaseNow();
+            LocalDateTime since = lastClusterSyncAt;
+            lastClusterSyncAt = now;
+            if (since == null) return;
+
+            List<String> changed = userRepository.findPortfolioChangedSince(since.minus(Duration.ofMillis(clusterSyncMillis)));
+            for (String username : changed) {
+                invalidate(username);
+                portfolioLotService.evict(username);
+                portfolioHistoryService.invalidateFrom(username, null);
+            }
+
+            if (!changed.isEmpty()) log.debug("💼 {} portfolios alterados no cluster descartados", changed.size());
+        } catch (Exception e) {
+            lastClusterSyncAt = null;
+            log.warn("⚠️ Falha ao sincronizar portfolios com o cluster: {}", e.getMessage());
+        }
     }
 
     public List<Transaction> getTransactions(String username) {
@@ -290,27 +321,132 @@ public class PortfolioService {
 
         transactionRepository.delete(transaction);
 
+        // A posição é refeita das transações restantes da moeda (custo médio)
+        syncPortfolio(user, transaction, portfolioLotService.rebuildCoin(user, transaction.getCoinSymbol()));
+        userRepository.touchPortfolio(user.getId(), clusterService.databaseNow());
+        afterCommit(() -> {
+            invalidate(username);
+            portfolioHistoryService.invalidateFrom(username, transaction.getTransactionDate());
+        });
+
         log.warn("Transação deletada por {}: ID {}", username, transactionId);
     }
 
-    private String mapSymbolToCoinId(String symbol) {
-        Map<String, String> symbolMap = Map.ofEntries(
-                Map.entry("BTC", "bitcoin"),
-                Map.entry("ETH", "ethereum"),
-                Map.entry("ADA", "cardano"),
-                Map.entry("DOT", "polkadot"),
-                Map.entry("LINK", "chainlink"),
-                Map.entry("SOL", "solana"),
-                Map.entry("AVAX", "avalanche-2"),
-                Map.entry("MATIC", "matic-network"),
-                Map.entry("LTC", "litecoin"),
-                Map.entry("BCH", "bitcoin-cash"),
-                Map.entry("XRP", "ripple"),
-                Map.entry("DOGE", "dogecoin"),
-                Map.entry("BNB", "binancecoin")
-        );
-
-        String upperSymbol = symbol.toUpperCase();
-        return symbolMap.getOrDefault(upperSymbol, symbol.toLowerCase());
+
+    // ================================================
+    // 🔧 INTERNOS
+    // ================================================
+
+    private Valued load(String username) {
+        int stripe = stripe(username);
+        long stamp = stamps.get(stripe);
+
+        List<PortfolioRepository.PortfolioProjection> portfolios =
+                portfolioRepository.findByUserUsernameOptimized(username);
+
+        PortfolioValuation valuation;
+        if (portfolios.isEmpty()) {
+            valuation = PortfolioValuation.empty();
+        } else {
+            // Preços do cache (sem API); os ticks seguintes chegam pelo índice
+            Map<String, BigDecimal> priceMap = cryptoService.getCurrentPrices().stream()
+                    .filter(c -> c.getSymbol() != null && c.getCurrentPrice() != null)
+                    .collect(Collectors.toMap(
+                            c -> c.getSymbol().toUpperCase(),
+                            CryptoCurrency::getCurrentPrice,
+                            (a, b) -> a
+                    ));
+
+            valuation = new PortfolioValuation(portfolios.stream()
+                    .map(p -> new PortfolioValuation.Position(p.getId(), p.getCoinSymbol(), p.getCoinName(),
+                            p.getQuantity(), p.getAverageBuyPrice(), p.getTotalInvested()))
+                    .toList(), priceMap::get);
+        }
+
+        Valued loaded = new Valued(valuation);
+
+        // Publica sob o lock da chave, o mesmo de invalidate: invalidação durante
+        // a leitura muda o carimbo e a visão lida serve só esta requisição
+        Valued published = valuations.compute(username, (u, current) -> {
+            if (current != null) return current;
+            if (stamps.get(stripe) != stamp) return null;
+
+            for (String symbol : valuation.symbols()) {
+                holders.compute(symbol, (s, users) -> {
+                    Set<String> set = users != null ? users : ConcurrentHashMap.<String>newKeySet();
+                    set.add(username);
+                    return set;
+                });
+            }
+            return loaded;
+        });
+
+        log.debug("Portfolio carregado para {}: {} itens", username, portfolios.size());
+        return published != null ? published : loaded;
+    }
+
+    private void invalidate(String username) {
+        valuations.compute(username, (u, current) -> {
+            stamps.incrementAndGet(stripe(u));
+            if (current == null) return null;
+
+            for (String symbol : current.valuation.symbols()) {
+                holders.computeIfPresent(symbol, (s, users) -> {
+                    users.remove(u);
+                    return users.isEmpty() ? null : users;
+                });
+            }
+            return null;
+        });
+    }
+
+    /** Só após o commit: uma leitura concorrente não recarrega o estado antigo */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void syncPortfolio(User user, Transaction removed, LotLedger average) {
+        Optional<Portfolio> existing = portfolioRepository.findByUserAndCoinSymbol(user, removed.getCoinSymbol());
+
+        if (average.quantity().signum() <= 0) {
+            existing.ifPresent(portfolioRepository::delete);
+            return;
+        }
+
+        Portfolio portfolio = existing.orElseGet(() -> Portfolio.builder()
+                .user(user)
+                .coinSymbol(removed.getCoinSymbol())
+                .coinName(removed.getCoinName())
+                .build());
+
+        portfolio.setQuantity(average.quantity());
+        portfolio.setAverageBuyPrice(average.averageCost());
+        portfolio.setTotalInvested(average.costBasis());
+        portfolioRepository.save(portfolio);
+
+        log.debug("Portfolio recalculado após exclusão: {} - Quantidade: {}",
+                removed.getCoinSymbol(), average.quantity());
+    }
+
+    private static int stripe(String username) {
+        return (username.hashCode() & 0x7fffffff) % STAMP_STRIPES;
+    }
+
+    private static final class Valued {
+        final PortfolioValuation valuation;
+        volatile long lastRead;
+
+        Valued(PortfolioValuation valuation) {
+            this.valuation = valuation;
+        }
     }
 }
@@ -30,6 +30,15 @@ public class SendGridEmailService {
     @Value("${sendgrid.from.name:Crypto Monitor}")
     private String fromName;
 
+    // Host alternativo (ex.: stand-in local nos testes) — vazio = api.sendgrid.com
+    @Value("${sendgrid.api.host:}")
+    private String sendGridHost;
+
+    @Value("${sendgrid.api.plain-http:false}")
+    private boolean plainHttp;
+
+    private volatile SendGrid client;
+
     @PostConstruct
     public void validateConfiguration() {
         log.info("Validando configuração do SendGrid");
@@ -85,7 +94,7 @@ public class SendGridEmailService {
             Content content = new Content("text/plain", body);
             Mail mail = new Mail(from, subject, toEmail, content);
 
-            SendGrid sg = new SendGrid(sendGridApiKey);
+            SendGrid sg = client();
             Request request = new Request();
 
             request.setMethod(Method.POST);
@@ -117,6 +126,30 @@ public class SendGridEmailService {
         }
     }
 
+    /**
+     * Cliente reutilizado entre envios (pool HTTP interno do SendGrid).
+     */
+    private SendGrid client() {
+        SendGrid current = client;
+        if (current == null) {
+            synchronized (this) {
+                current = client;
+                if (current == null) {
+                    current = plainHttp
+                            ? new SendGrid(sendGridApiKey, true)
+                            : new SendGrid(sendGridApiKey);
+
+                    if (sendGridHost != null && !sendGridHost.isEmpty()) {
+                        current.setHost(sendGridHost);
+                        log.info("SendGrid usando host alternativo: {}", sendGridHost);
+                    }
+                    client = current;
+                }
+            }
+        }
+        return current;
+    }
+
     public boolean testConnection() {
         try {
             if (sendGridApiKey == null || sendGridApiKey.isEmpty()) {
@@ -0,0 +1,92 @@
+package com.crypto.service;
+
+import com.crypto.model.CryptoCurrency;
+import com.crypto.util.CoinSignals;
+import com.crypto.util.IndicatorView;
+import com.crypto.util.SignalKey;
+import com.crypto.util.SignalSnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 📡 Camada de sinais por moeda compartilhada pelos bots.
+ *
+ * Cada (moeda, indicador, parâmetro) é calculado uma vez por tick, enquanto
+ * houver bot referenciando a chave; as estratégias leem o snapshot publicado
+ * sem lock. O custo cresce com sinais distintos, não com o número de bots.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SignalService {
+
+    private final IndicatorStateService indicatorStateService;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, CoinSignals> coins = new ConcurrentHashMap<>();
+
+    private Counter computedCounter;
+
+
+    @PostConstruct
+    public void initMetrics() {
+        computedCounter = Counter.builder("crypto_bot_signal_updates_total")
+                .description("Sinais calculados (um por chave distinta por tick)")
+                .register(meterRegistry);
+
+        Gauge.builder("crypto_bot_signals", this, SignalService::size)
+                .description("Sinais distintos referenciados por bots")
+                .register(meterRegistry);
+    }
+
+
+    public void acquire(String coin, Collection<SignalKey> signals) {
+        if (signals.isEmpty()) return;
+        coins.computeIfAbsent(coin.toUpperCase(), c -> new CoinSignals()).acquire(signals);
+    }
+
+    public void release(String coin, Collection<SignalKey> signals) {
+        if (signals.isEmpty()) return;
+
+        CoinSignals signalsOfCoin = coins.get(coin.toUpperCase());
+        if (signalsOfCoin != null) signalsOfCoin.release(signals);
+    }
+
+    /**
+     * Alimenta o estado incremental da moeda e publica os sinais em uso.
+     *
+     * @param coin símbolo usado pelos bots (chave das referências)
+     * @return snapshot a ser lido pelas estratégias deste tick
+     */
+    public IndicatorView onTick(String coin, CryptoCurrency quote) {
+        CoinSignals signalsOfCoin = coins.get(coin.toUpperCase());
+        if (signalsOfCoin == null || signalsOfCoin.isEmpty()) return SignalSnapshot.EMPTY;
+
+        indicatorStateService.onTick(quote);
+        SignalSnapshot snapshot = signalsOfCoin.publish(indicatorStateService.view(quote.getSymbol()));
+
+        computedCounter.increment(snapshot.size());
+        return snapshot;
+    }
+
+    /** Último snapshot publicado da moeda */
+    public IndicatorView view(String coin) {
+        CoinSignals signalsOfCoin = coins.get(coin.toUpperCase());
+        return signalsOfCoin != null ? signalsOfCoin.snapshot() : SignalSnapshot.EMPTY;
+    }
+
+    public int size() {
+        int total = 0;
+        for (CoinSignals signalsOfCoin : coins.values()) total += signalsOfCoin.size();
+        return total;
+    }
+}
@@ -0,0 +1,413 @@
+package com.crypto.service;
+
+import com.crypto.event.PriceTickEvent;
+import com.crypto.model.CryptoCurrency;
+import com.crypto.util.CryptoSymbolMapper;
+import com.crypto.util.SimOrderBook;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 🏦 Exchange simulada em processo para paper trading.
+ *
+ * Um {@link SimOrderBook} por moeda mapeada em {@link CryptoSymbolMapper},
+ * chaveado pelo símbolo e recentrado a cada tick de preço. O motor de bots
+ * executa suas ordens a mercado aqui (com {@code bots.venue.enabled}) e a API
+ * aceita ordens a mercado e limitadas; cada ordem pertence a quem a criou.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SimulatedVenue {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${bots.venue.enabled:false}")
+    private boolean enabled;
+
+    @Value("${bots.venue.levels:50}")
+    private int levels;
+
+    @Value("${bots.venue.spread-bps:4}")
+    private double spreadBps;
+
+    @Value("${bots.venue.tick-bps:2}")
+    private double tickBps;
+
+    @Value("${bots.venue.top-notional:25000}")
+    private double topNotional;
+
+    @Value("${bots.venue.depth-growth:1.1}")
+    private double depthGrowth;
+
+    @Value("${bots.venue.taker-fee-bps:10}")
+    private double takerFeeBps;
+
+    @Value("${bots.venue.maker-fee-bps:2}")
+    private double makerFeeBps;
+
+    @Value("${bots.venue.slippage-bps:1}")
+    private double slippageBps;
+
+    @Value("${bots.venue.order-retention:10000}")
+    private int orderRetention;
+
+    @Value("${bots.venue.max-open-orders-per-user:100}")
+    private int maxOpenOrdersPerUser;
+
+    @Value("${bots.venue.max-resting-per-book:10000}")
+    private int maxRestingPerBook;
+
+    @Value("${bots.venue.max-limit-ticks:2500}")
+    private int maxLimitTicks;
+
+    private SimOrderBook.Liquidity liquidity;
+    private SimOrderBook.Costs costs;
+
+    private final Map<String, SimOrderBook> books = new ConcurrentHashMap<>();
+    private final Map<Long, Order> orders = new ConcurrentHashMap<>();
+    private final Queue<Long> closedOrders = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger closedCount = new AtomicInteger();
+    private final Map<String, AtomicInteger> openByUser = new ConcurrentHashMap<>();
+    private final AtomicLong orderIds = new AtomicLong();
+
+    private Counter ordersCounter;
+    private Counter fillsCounter;
+
+    // Execuções das ordens em repouso (lado passivo) de todos os livros
+    private final SimOrderBook.FillSink makerSink = (orderId, side, price, quantity, fee, maker) -> {
+        Order order = orders.get(orderId);
+        if (order != null && order.apply(price, quantity, fee)) onClosed(order);
+        fillsCounter.increment();
+    };
+
+
+    @PostConstruct
+    public void init() {
+        liquidity = new SimOrderBook.Liquidity(levels, spreadBps, tickBps, topNotional, depthGrowth);
+        costs = new SimOrderBook.Costs(takerFeeBps, makerFeeBps, slippageBps);
+
+        ordersCounter = Counter.builder("crypto_venue_orders_total")
+                .description("Ordens recebidas pela exchange simulada")
+                .register(meterRegistry);
+
+        fillsCounter = Counter.builder("crypto_venue_fills_total")
+                .description("Execuções na exchange simulada")
+                .register(meterRegistry);
+
+        Gauge.builder("crypto_venue_resting_orders", this, SimulatedVenue::restingOrders)
+                .description("Ordens limitadas em repouso")
+                .register(meterRegistry);
+
+        if (enabled) {
+            log.info("🏦 Exchange simulada: {} níveis | spread {}bps | taxas {}/{}bps | slippage {}bps",
+                    levels, spreadBps, takerFeeBps, makerFeeBps, slippageBps);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Só moedas mapeadas têm livro (as demais não recebem ticks para recentrar) */
+    public boolean supports(String coin) {
+        return CryptoSymbolMapper.toSymbol(coin) != null;
+    }
+
+    /**
+     * Recentra os livros existentes e executa as ordens em repouso atravessadas.
+     */
+    @EventListener
+    public void onPriceTick(PriceTickEvent event) {
+        if (books.isEmpty()) return;
+
+        for (CryptoCurrency quote : event.getQuotes()) {
+            if (quote.getSymbol() == null || quote.getCurrentPrice() == null) continue;
+
+            String symbol = CryptoSymbolMapper.toSymbol(quote.getSymbol());
+            SimOrderBook book = symbol != null ? books.get(symbol) : null;
+            if (book != null) book.onQuote(quote.getCurrentPrice().doubleValue());
+        }
+    }
+
+    /**
+     * Ordem a mercado do motor de bots: preço médio efetivo, com slippage e taxa
+     * embutidas (compra paga mais, venda recebe menos).
+     *
+     * @return preço efetivo, ou NaN se a liquidez não cobriu a quantidade
+     */
+    public double executeMarket(String coin, double referencePrice, int side, double quantity) {
+        SimOrderBook book = book(coin, referencePrice);
+
+        Totals totals = new Totals();
+        double filled = book.market(orderIds.incrementAndGet(), side, quantity, totals);
+
+        ordersCounter.increment();
+        fillsCounter.increment(totals.fills);
+
+        if (filled + 1e-12 < quantity) return Double.NaN;
+
+        double notional = side == SimOrderBook.BUY ? totals.notional + totals.fees : totals.notional - totals.fees;
+        return notional / filled;
+    }
+
+    /**
+     * Ordem da API. {@code limitPrice} nulo = a mercado.
+     *
+     * @throws IllegalArgumentException moeda não mapeada, preço limite fora da
+     *                                  faixa ou limite de ordens abertas atingido
+     */
+    public Order placeOrder(String owner, String coin, double referencePrice, int side, double quantity, Double limitPrice) {
+        if (!(quantity > 0)) throw new IllegalArgumentException("quantity deve ser positiva");
+
+        SimOrderBook book = book(coin, referencePrice);
+        if (limitPrice != null) validateLimit(symbol(coin), book, limitPrice);
+
+        AtomicInteger open = openByUser.computeIfAbsent(owner, u -> new AtomicInteger());
+        if (open.incrementAndGet() > maxOpenOrdersPerUser) {
+            open.decrementAndGet();
+            throw new IllegalArgumentException("Limite de " + maxOpenOrdersPerUser + " ordens abertas atingido");
+        }
+
+        Order order = new Order(orderIds.incrementAndGet(), owner, symbol(coin), side, quantity, limitPrice);
+        orders.put(order.id, order);
+
+        SimOrderBook.FillSink taker = (id, s, price, qty, fee, maker) -> {
+            if (order.apply(price, qty, fee)) onClosed(order);
+            fillsCounter.increment();
+        };
+
+        if (limitPrice == null) {
+            book.market(order.id, side, quantity, taker);
+            if (order.close()) onClosed(order);
+        } else {
+            double resting = book.limit(order.id, side, limitPrice, quantity, taker);
+            if (resting <= 0 && order.close()) onClosed(order);
+        }
+
+        ordersCounter.increment();
+        return order;
+    }
+
+    public Optional<Order> cancel(String owner, long orderId) {
+        Optional<Order> found = order(owner, orderId);
+        found.ifPresent(order -> {
+            SimOrderBook book = books.get(order.coin);
+            if (book != null) book.cancel(orderId);
+            if (order.cancel()) onClosed(order);
+        });
+        return found;
+    }
+
+    /** Ordens de outro usuário não aparecem (mesmo 404 de uma inexistente) */
+    public Optional<Order> order(String owner, long orderId) {
+        return Optional.ofNullable(orders.get(orderId)).filter(o -> o.owner.equals(owner));
+    }
+
+    /**
+     * Topo do livro: níveis sintéticos disponíveis e melhor bid/ask (inclui ordens em repouso).
+     */
+    public Map<String, Object> depth(String coin, int depth) {
+        String symbol = symbol(coin);
+        SimOrderBook book = books.get(symbol);
+        if (book == null) throw new IllegalArgumentException("Sem livro para " + coin);
+
+        int n = Math.max(1, Math.min(depth, levels));
+        double[] prices = new double[n];
+        double[] quantities = new double[n];
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("coin", symbol);
+        out.put("mid", book.mid());
+        out.put("bestBid", book.bestBid());
+        out.put("bestAsk", book.bestAsk());
+        out.put("restingOrders", book.restingOrders());
+        out.put("bids", levels(prices, quantities, book.syntheticLevels(SimOrderBook.BUY, n, prices, quantities)));
+        out.put("asks", levels(prices, quantities, book.syntheticLevels(SimOrderBook.SELL, n, prices, quantities)));
+        return out;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("books", books.size());
+        stats.put("restingOrders", restingOrders());
+        stats.put("trackedOrders", orders.size());
+        stats.put("orders", (long) ordersCounter.count());
+        stats.put("fills", (long) fillsCounter.count());
+        stats.put("liquidity", liquidity);
+        stats.put("costs", costs);
+        return stats;
+    }
+
+
+    // ================================================
+    // 🔧 INTERNOS
+    // ================================================
+
+    /** Chave única dos livros: símbolo canônico, tanto para a API quanto para os ticks */
+    private static String symbol(String coin) {
+        String symbol = CryptoSymbolMapper.toSymbol(coin);
+        if (symbol == null) throw new IllegalArgumentException("Moeda não suportada: " + coin);
+        return symbol;
+    }
+
+    private SimOrderBook book(String coin, double referencePrice) {
+        return books.computeIfAbsent(symbol(coin), c -> {
+            SimOrderBook book = new SimOrderBook(liquidity, costs, makerSink);
+            book.onQuote(referencePrice);
+            log.debug("🏦 Livro simulado criado para {} @ {}", c, referencePrice);
+            return book;
+        });
+    }
+
+    private int restingOrders() {
+        int total = 0;
+        for (SimOrderBook book : books.values()) total += book.restingOrders();
+        return total;
+    }
+
+    /**
+     * Preço limite positivo e a no máximo {@code max-limit-ticks} passos do
+     * preço médio (ordens absurdas ficariam no livro para sempre).
+     */
+    private void validateLimit(String symbol, SimOrderBook book, double limitPrice) {
+        if (!(limitPrice > 0) || Double.isInfinite(limitPrice)) {
+            throw new IllegalArgumentException("price deve ser positivo");
+        }
+
+        double mid = book.mid();
+        double tick = mid * tickBps / 10_000.0;
+        if (Math.abs(limitPrice - mid) > maxLimitTicks * tick) {
+            throw new IllegalArgumentException("price a mais de " + maxLimitTicks + " ticks do preço atual (" + mid + ")");
+        }
+        if (book.restingOrders() >= maxRestingPerBook) {
+            throw new IllegalArgumentException("Livro de " + symbol + " sem espaço para novas ordens limitadas");
+        }
+    }
+
+    /**
+     * Ordem encerrada (uma única vez por ordem): libera a vaga do dono e entra
+     * na fila de retenção; só as {@code order-retention} mais recentes ficam.
+     */
+    private void onClosed(Order order) {
+        AtomicInteger open = openByUser.get(order.owner);
+        if (open != null) open.decrementAndGet();
+
+        closedOrders.add(order.id);
+        if (closedCount.incrementAndGet() <= orderRetention) return;
+
+        Long oldest = closedOrders.poll();
+        if (oldest != null) {
+            orders.remove(oldest);
+            closedCount.decrementAndGet();
+        }
+    }
+
+    private static List<Map<String, Object>> levels(double[] prices, double[] quantities, int n) {
+        List<Map<String, Object>> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) out.add(Map.of("price", prices[i], "quantity", quantities[i]));
+        return out;
+    }
+
+    /** Acumulador das execuções de uma ordem do motor */
+    private static final class Totals implements SimOrderBook.FillSink {
+        double notional;
+        double fees;
+        int fills;
+
+        @Override
+        public void onFill(long orderId, int side, double price, double quantity, double fee, boolean maker) {
+            notional += price * quantity;
+            fees += fee;
+            fills++;
+        }
+    }
+
+    /**
+     * Estado de uma ordem da API (atualizado pelos fills, inclusive em repouso).
+     */
+    public static final class Order {
+        private final long id;
+        private final String owner;
+        private final String coin;
+        private final int side;
+        private final double quantity;
+        private final Double limitPrice;
+        private double filled;
+        private double notional;
+        private double fees;
+        private boolean cancelled;
+        private boolean closed;
+
+        Order(long id, String owner, String coin, int side, double quantity, Double limitPrice) {
+            this.id = id;
+            this.owner = owner;
+            this.coin = coin;
+            this.side = side;
+            this.quantity = quantity;
+            this.limitPrice = limitPrice;
+        }
+
+        // Os três retornam true só na transição para encerrada
+
+        synchronized boolean apply(double price, double qty, double fee) {
+            filled += qty;
+            notional += price * qty;
+            fees += fee;
+            return filled + 1e-12 >= quantity && close();
+        }
+
+        synchronized boolean close() {
+            if (closed) return false;
+            closed = true;
+            return true;
+        }
+
+        synchronized boolean cancel() {
+            if (closed) return false;
+            cancelled = true;
+            closed = true;
+            return true;
+        }
+
+        public long getId() { return id; }
+
+        public synchronized boolean isClosed() { return closed; }
+
+        public synchronized Map<String, Object> toMap() {
+            Map<String, Object> out = new LinkedHashMap<>();
+            out.put("id", id);
+            out.put("coin", coin);
+            out.put("side", side == SimOrderBook.BUY ? "BUY" : "SELL");
+            out.put("type", limitPrice == null ? "MARKET" : "LIMIT");
+            if (limitPrice != null) out.put("limitPrice", limitPrice);
+            out.put("quantity", quantity);
+            out.put("filled", filled);
+            out.put("averagePrice", filled > 0 ? notional / filled : null);
+            out.put("fees", fees);
+            out.put("status", status());
+            return out;
+        }
+
+        private String status() {
+            if (cancelled) return "CANCELLED";
+            if (filled + 1e-12 >= quantity) return "FILLED";
+            if (closed) return "EXPIRED";   // a mercado sem liquidez para o restante
+            return filled > 0 ? "PARTIALLY_FILLED" : "OPEN";
+        }
+    }
+}
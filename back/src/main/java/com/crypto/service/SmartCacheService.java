@@ -1,9 +1,11 @@
 package com.crypto.service;
 
+import com.crypto.event.PriceTickEvent;
 import com.crypto.model.CryptoCurrency;
 import com.crypto.repository.CryptoCurrencyRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
@@ -20,6 +22,7 @@ public class SmartCacheService {
 
     private final CoinGeckoApiService coinGeckoService;
     private final CryptoCurrencyRepository repository;
+    private final ApplicationEventPublisher eventPublisher;
 
     // -------------------------
     // MEMORY CACHE
@@ -87,6 +90,7 @@ public class SmartCacheService {
 
                 updateMemoryCache(List.of(crypto));
                 saveToDatabase(List.of(crypto));
+                publishTick(List.of(crypto));
 
                 return Optional.of(crypto);
             }
@@ -150,6 +154,7 @@ public class SmartCacheService {
                 updateMemoryCache(prices);
                 saveToDatabase(prices);
                 lastFullUpdate = LocalDateTime.now();
+                publishTick(prices);
 
                 return prices;
             }
@@ -220,6 +225,15 @@ public class SmartCacheService {
         log.debug("💾 Memory cache atualizado: {} entries", memoryCache.size());
     }
 
+    // 📈 Cotação nova da API → bots inscritos reagem no mesmo tick
+    private void publishTick(List<CryptoCurrency> quotes) {
+        try {
+            eventPublisher.publishEvent(new PriceTickEvent(this, quotes));
+        } catch (Exception e) {
+            log.error("❌ Erro ao publicar tick de preço: {}", e.getMessage());
+        }
+    }
+
     private List<CryptoCurrency> getCachedPrices() {
         return memoryCache.values().stream()
                 .map(c -> c.crypto)
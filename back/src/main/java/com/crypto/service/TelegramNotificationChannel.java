@@ -0,0 +1,441 @@
+package com.crypto.service;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.Refill;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 📨 Canal Telegram com limites por chat e global, 100% não bloqueante.
+ *
+ * - Token bucket por chat (Telegram: ~1 msg/s por chat) + bucket global (~30 msg/s)
+ * - Enquanto o chat está limitado, as mensagens se acumulam e saem coalescidas
+ *   numa única mensagem (até 4096 caracteres)
+ * - 429 respeita {@code parameters.retry_after}; 5xx/erros de rede com backoff
+ * - Nenhuma thread fica parada: esperas usam {@link Mono#delay}
+ *
+ * Cada chamada a {@link #send} devolve um Mono que completa quando a mensagem
+ * (ou o lote coalescido que a contém) foi aceita pela API.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TelegramNotificationChannel {
+
+    private static final String COALESCE_SEPARATOR = "\n\n";
+    private static final int HEADER_RESERVE = 32;
+
+    private final WebClient webClient;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${notification.telegram.bot-token:}")
+    private String botToken;
+
+    @Value("${notification.telegram.api-base-url:https://api.telegram.org}")
+    private String apiBaseUrl;
+
+    @Value("${notification.telegram.per-chat-per-second:1}")
+    private int perChatPerSecond;
+
+    @Value("${notification.telegram.per-chat-burst:3}")
+    private int perChatBurst;
+
+    @Value("${notification.telegram.global-per-second:30}")
+    private int globalPerSecond;
+
+    @Value("${notification.telegram.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${notification.telegram.backoff-base-ms:500}")
+    private long backoffBaseMs;
+
+    @Value("${notification.telegram.max-message-length:4096}")
+    private int maxMessageLength;
+
+    @Value("${notification.telegram.idle-eviction-minutes:30}")
+    private long idleEvictionMinutes;
+
+    private final Map<String, ChatState> chats = new ConcurrentHashMap<>();
+    private Bucket globalBucket;
+
+    private Timer deliveryLatency;
+    private Counter sentCounter;
+    private Counter failedCounter;
+    private Counter coalescedCounter;
+    private Counter retryCounter;
+    private Counter chatThrottled;
+    private Counter globalThrottled;
+    private Counter retryAfterThrottled;
+
+
+    @PostConstruct
+    public void init() {
+        globalBucket = Bucket.builder()
+                .addLimit(Bandwidth.classic(globalPerSecond, Refill.greedy(globalPerSecond, Duration.ofSeconds(1))))
+                .build();
+
+        deliveryLatency = Timer.builder("crypto_telegram_delivery_latency_seconds")
+                .description("Tempo entre o envio ao canal e o aceite pela API do Telegram")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+
+        sentCounter = messages("sent");
+        failedCounter = messages("failed");
+        coalescedCounter = Counter.builder("crypto_telegram_coalesced_total")
+                .description("Mensagens entregues dentro de um lote coalescido")
+                .register(meterRegistry);
+        retryCounter = Counter.builder("crypto_telegram_retries_total")
+                .description("Retentativas de chamadas à API do Telegram")
+                .register(meterRegistry);
+
+        chatThrottled = throttled("chat");
+        globalThrottled = throttled("global");
+        retryAfterThrottled = throttled("retry_after");
+
+        Gauge.builder("crypto_telegram_active_chats", chats, Map::size)
+                .description("Chats com estado de rate limit em memória")
+                .register(meterRegistry);
+
+        log.info("📨 Canal Telegram: {} msg/s por chat (burst {}) | {} msg/s global",
+                perChatPerSecond, perChatBurst, globalPerSecond);
+    }
+
+
+    // ================================================
+    // 🔥 API DO CANAL
+    // ================================================
+
+    /**
+     * Enfileira a mensagem para o chat e devolve um Mono que completa na entrega.
+     */
+    public Mono<Void> send(String chatId, String text) {
+        if (chatId == null || chatId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("chat_id do Telegram não informado"));
+        }
+        if (botToken == null || botToken.isEmpty()) {
+            return Mono.error(new IllegalStateException("Bot token do Telegram não configurado"));
+        }
+
+        Sinks.One<Void> sink = Sinks.one();
+        Pending pending = new Pending(text, System.nanoTime(), sink);
+
+        while (true) {
+            ChatState state = chats.computeIfAbsent(chatId, this::newChatState);
+            boolean startFlush;
+
+            synchronized (state) {
+                if (state.retired) continue;
+
+                state.pending.addLast(pending);
+                state.lastActivityNanos = pending.enqueuedNanos();
+                startFlush = !state.flushing;
+                state.flushing = true;
+            }
+
+            if (startFlush) flush(state);
+            return sink.asMono();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        int pending = 0;
+        for (ChatState state : chats.values()) {
+            synchronized (state) {
+                pending += state.pending.size();
+            }
+        }
+
+        return Map.of(
+                "activeChats", chats.size(),
+                "pendingMessages", pending,
+                "globalTokens", globalBucket.getAvailableTokens(),
+                "sent", (long) sentCounter.count(),
+                "failed", (long) failedCounter.count(),
+                "coalesced", (long) coalescedCounter.count()
+        );
+    }
+
+
+    // ================================================
+    // 🔥 FLUSH (um por chat por vez)
+    // ================================================
+
+    private void flush(ChatState state) {
+        long blockedFor = state.blockedUntilNanos - System.nanoTime();
+        if (blockedFor > 0) {
+            scheduleFlush(state, blockedFor);
+            return;
+        }
+
+        ConsumptionProbe chatProbe = state.bucket.tryConsumeAndReturnRemaining(1);
+        if (!chatProbe.isConsumed()) {
+            chatThrottled.increment();
+            scheduleFlush(state, chatProbe.getNanosToWaitForRefill());
+            return;
+        }
+
+        ConsumptionProbe globalProbe = globalBucket.tryConsumeAndReturnRemaining(1);
+        if (!globalProbe.isConsumed()) {
+            state.bucket.addTokens(1);
+            globalThrottled.increment();
+            scheduleFlush(state, globalProbe.getNanosToWaitForRefill());
+            return;
+        }
+
+        List<Pending> batch = drain(state);
+        String text = coalesce(batch);
+
+        post(state, text, 0).subscribe(
+                null,
+                error -> {
+                    complete(batch, error);
+                    afterSend(state);
+                },
+                () -> {
+                    complete(batch, null);
+                    afterSend(state);
+                });
+    }
+
+    private void afterSend(ChatState state) {
+        boolean more;
+        synchronized (state) {
+            more = !state.pending.isEmpty();
+            state.flushing = more;
+        }
+        if (more) flush(state);
+    }
+
+    private void scheduleFlush(ChatState state, long delayNanos) {
+        Mono.delay(Duration.ofNanos(Math.max(delayNanos, 1)))
+                .subscribe(tick -> flush(state));
+    }
+
+    /**
+     * Retira da fila o máximo de mensagens que cabe numa mensagem do Telegram.
+     */
+    private List<Pending> drain(ChatState state) {
+        List<Pending> batch = new ArrayList<>();
+        int budget = maxMessageLength - HEADER_RESERVE;
+        int length = 0;
+
+        synchronized (state) {
+            while (!state.pending.isEmpty()) {
+                Pending next = state.pending.peekFirst();
+                int added = next.text().length() + (batch.isEmpty() ? 0 : COALESCE_SEPARATOR.length());
+
+                if (!batch.isEmpty() && length + added > budget) break;
+
+                batch.add(state.pending.pollFirst());
+                length += added;
+            }
+        }
+
+        return batch;
+    }
+
+    private String coalesce(List<Pending> batch) {
+        if (batch.size() == 1) {
+            return truncate(batch.get(0).text());
+        }
+
+        StringBuilder text = new StringBuilder("📦 *").append(batch.size()).append(" alertas*");
+        for (Pending pending : batch) {
+            text.append(COALESCE_SEPARATOR).append(pending.text());
+        }
+        return truncate(text.toString());
+    }
+
+    private String truncate(String text) {
+        return text.length() <= maxMessageLength ? text : text.substring(0, maxMessageLength - 1) + "…";
+    }
+
+    private void complete(List<Pending> batch, Throwable error) {
+        long now = System.nanoTime();
+
+        // Contadores antes dos sinks: quem aguarda o envio já enxerga as métricas atualizadas
+        if (error == null) {
+            sentCounter.increment(batch.size());
+            if (batch.size() > 1) coalescedCounter.increment(batch.size());
+        } else {
+            failedCounter.increment(batch.size());
+            log.warn("❌ Falha no Telegram ({} mensagem(ns)): {}", batch.size(), error.getMessage());
+        }
+
+        for (Pending pending : batch) {
+            if (error == null) {
+                deliveryLatency.record(now - pending.enqueuedNanos(), TimeUnit.NANOSECONDS);
+                pending.sink().tryEmitEmpty();
+            } else {
+                pending.sink().tryEmitError(error);
+            }
+        }
+    }
+
+
+    // ================================================
+    // 🔥 HTTP + RETRY
+    // ================================================
+
+    private Mono<Void> post(ChatState state, String text, int attempt) {
+        Map<String, Object> requestBody = Map.of(
+                "chat_id", state.chatId,
+                "text", text,
+                "parse_mode", "Markdown"
+        );
+
+        return webClient.post()
+                .uri(apiBaseUrl + "/bot" + botToken + "/sendMessage")
+                .bodyValue(requestBody)
+                .exchangeToMono(response -> {
+                    if (response.statusCode().is2xxSuccessful()) {
+                        return response.releaseBody();
+                    }
+                    int status = response.statusCode().value();
+                    return response.bodyToMono(Map.class)
+                            .defaultIfEmpty(Map.of())
+                            .flatMap(body -> Mono.error(TelegramApiException.from(status, body)));
+                })
+                .onErrorResume(error -> retry(state, text, attempt, error));
+    }
+
+    private Mono<Void> retry(ChatState state, String text, int attempt, Throwable error) {
+        boolean retryable = error instanceof WebClientRequestException
+                || (error instanceof TelegramApiException api && api.isRetryable());
+
+        if (!retryable || attempt >= maxRetries) {
+            return Mono.error(error);
+        }
+
+        Duration delay = Duration.ofMillis(backoffBaseMs * (1L << attempt));
+
+        if (error instanceof TelegramApiException api && api.retryAfterSeconds > 0) {
+            delay = Duration.ofSeconds(api.retryAfterSeconds);
+            state.blockedUntilNanos = System.nanoTime() + delay.toNanos();
+            retryAfterThrottled.increment();
+            log.warn("⏳ Telegram 429 para chat {}: aguardando {}s", maskChat(state.chatId), api.retryAfterSeconds);
+        }
+
+        retryCounter.increment();
+        return Mono.delay(delay).then(Mono.defer(() -> post(state, text, attempt + 1)));
+    }
+
+
+    // ================================================
+    // 🔥 LIMPEZA DE CHATS OCIOSOS
+    // ================================================
+    @Scheduled(fixedDelay = 300000)
+    public void evictIdleChats() {
+        long idleBefore = System.nanoTime() - TimeUnit.MINUTES.toNanos(idleEvictionMinutes);
+        int before = chats.size();
+
+        chats.values().removeIf(state -> {
+            synchronized (state) {
+                if (state.flushing || !state.pending.isEmpty() || state.lastActivityNanos > idleBefore) {
+                    return false;
+                }
+                state.retired = true;
+                return true;
+            }
+        });
+
+        int removed = before - chats.size();
+        if (removed > 0) {
+            log.debug("🧹 {} chats ociosos do Telegram removidos", removed);
+        }
+    }
+
+
+    // ================================================
+    // 🔧 INTERNOS
+    // ================================================
+
+    private ChatState newChatState(String chatId) {
+        Bucket bucket = Bucket.builder()
+                .addLimit(Bandwidth.classic(perChatBurst, Refill.greedy(perChatPerSecond, Duration.ofSeconds(1))))
+                .build();
+        return new ChatState(chatId, bucket);
+    }
+
+    private Counter messages(String result) {
+        return Counter.builder("crypto_telegram_messages_total")
+                .description("Mensagens do Telegram por resultado")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private Counter throttled(String scope) {
+        return Counter.builder("crypto_telegram_throttled_total")
+                .description("Envios adiados por limite de taxa")
+                .tag("scope", scope)
+                .register(meterRegistry);
+    }
+
+    private static String maskChat(String chatId) {
+        return chatId.length() <= 4 ? "****" : "****" + chatId.substring(chatId.length() - 4);
+    }
+
+    private static final class ChatState {
+        final String chatId;
+        final Bucket bucket;
+        final Deque<Pending> pending = new ArrayDeque<>();
+        boolean flushing;
+        boolean retired;
+        long lastActivityNanos = System.nanoTime();
+        volatile long blockedUntilNanos;
+
+        ChatState(String chatId, Bucket bucket) {
+            this.chatId = chatId;
+            this.bucket = bucket;
+        }
+    }
+
+    private record Pending(String text, long enqueuedNanos, Sinks.One<Void> sink) {}
+
+    /**
+     * Erro HTTP da Bot API. 429 e 5xx são retentáveis.
+     */
+    static final class TelegramApiException extends RuntimeException {
+        final int status;
+        final long retryAfterSeconds;
+
+        TelegramApiException(int status, long retryAfterSeconds, String description) {
+            super("Telegram HTTP " + status + (description != null ? ": " + description : ""));
+            this.status = status;
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        static TelegramApiException from(int status, Map<?, ?> body) {
+            long retryAfter = 0;
+            if (body.get("parameters") instanceof Map<?, ?> parameters
+                    && parameters.get("retry_after") instanceof Number seconds) {
+                retryAfter = seconds.longValue();
+            }
+            Object description = body.get("description");
+            return new TelegramApiException(status, retryAfter, description != null ? description.toString() : null);
+        }
+
+        boolean isRetryable() {
+            return status == 429 || status >= 500;
+        }
+    }
+}
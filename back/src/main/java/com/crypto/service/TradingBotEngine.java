@@ -0,0 +1,784 @@
+package com.crypto.service;
+
+import com.crypto.event.PriceTickEvent;
+import com.crypto.model.BotTrade;
+import com.crypto.model.CryptoCurrency;
+import com.crypto.model.TradingBot;
+import com.crypto.repository.TradingBotRepository;
+import com.crypto.util.BotStrategy;
+import com.crypto.util.BotStrategyKernel;
+import com.crypto.util.BotTickView;
+import com.crypto.util.CryptoSymbolMapper;
+import com.crypto.util.FifoLots;
+import com.crypto.util.IndicatorView;
+import com.crypto.util.OrderIntent;
+import com.crypto.util.SimOrderBook;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.ZoneId;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 🤖 Motor de execução dos bots.
+ *
+ * Bots guiados por preço (grid, stop loss/take profit) são disparados pelos
+ * ticks de {@link PriceTickEvent}: só os bots cujo gatilho casa com a nova
+ * cotação são carregados e avaliados. O ciclo agendado cuida dos bots guiados
+ * por tempo (DCA) e por indicadores (CUSTOM) e reconcilia as inscrições com o banco.
+ *
+ * Cada execução (tick ou ciclo):
+ * 1. carrega os bots e os lotes de compra em aberto (2 queries)
+ * 2. agrupa por moeda e resolve a cotação uma vez por moeda
+ * 3. avalia as estratégias em paralelo (ForkJoinPool próprio), sem tocar no banco
+ * 4. grava trades, lotes e estado dos bots em uma única transação com JDBC batch
+ *
+ * O estado dos bots é gravado como deltas (total_trades = total_trades + ?),
+ * então um stop feito pelo usuário durante o ciclo não é sobrescrito.
+ *
+ * Com várias instâncias, cada bot roda só no nó dono da chave "bot:{id}" no
+ * hash ring do {@link MonitoringClusterService}; todos os nós mantêm as
+ * inscrições e filtram por dono no momento do disparo.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TradingBotEngine {
+
+    private final TradingBotRepository botRepository;
+    private final BotLotLedger lotLedger;
+    private final BotPerformanceService performanceService;
+    private final SimulatedVenue venue;
+    private final CryptoService cryptoService;
+    private final BotTriggerRegistry triggerRegistry;
+    private final CustomStrategyService customStrategyService;
+    private final SignalService signalService;
+    private final MonitoringClusterService clusterService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${bots.engine.parallelism:0}")
+    private int parallelism;
+
+    @Value("${bots.engine.chunk-size:256}")
+    private int chunkSize;
+
+    private ForkJoinPool pool;
+
+    // Tick e ciclo nunca avaliam o mesmo bot ao mesmo tempo
+    private final ReentrantLock executionLock = new ReentrantLock();
+
+    // Versão do anel com que o livro de lotes foi montado (sob executionLock)
+    private long ledgerRingVersion;
+
+    private Timer cycleTimer;
+    private Timer flushTimer;
+    private Timer tickTimer;
+    private Counter triggeredCounter;
+    private Counter evaluationsCounter;
+    private Counter errorsCounter;
+    private Counter buyCounter;
+    private Counter sellCounter;
+    private final AtomicLong lastBotsPerSecond = new AtomicLong();
+
+    private static final List<TradingBot.TradingStrategy> CYCLE_STRATEGIES =
+            List.of(TradingBot.TradingStrategy.DCA, TradingBot.TradingStrategy.CUSTOM);
+
+    private static final String INSERT_TRADE_SQL =
+            "INSERT INTO bot_trades (bot_id, coin_symbol, side, price, quantity, sold_quantity, total_value, " +
+            "profit_loss, is_simulation, reason, executed_at) VALUES (?, ?, ?, ?, ?, 0, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_LOT_SQL =
+            "UPDATE bot_trades SET sold_quantity = sold_quantity + ? WHERE id = ? AND sold_quantity + ? <= quantity";
+
+    private static final String UPDATE_BOT_SQL =
+            "UPDATE trading_bots SET " +
+            "total_trades = COALESCE(total_trades, 0) + ?, " +
+            "total_profit_loss = COALESCE(total_profit_loss, 0) + ?, " +
+            "winning_trades = COALESCE(winning_trades, 0) + ?, " +
+            "losing_trades = COALESCE(losing_trades, 0) + ?, " +
+            "position_quantity = position_quantity + ?, " +
+            "position_cost = position_cost + ?, " +
+            "last_dca_execution = COALESCE(?, last_dca_execution), " +
+            "status = COALESCE(?, status), " +
+            "stopped_at = COALESCE(?, stopped_at) " +
+            "WHERE id = ?";
+
+
+    @PostConstruct
+    public void init() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(threads);
+
+        cycleTimer = Timer.builder("crypto_bot_cycle_seconds")
+                .description("Duração de um ciclo completo do motor de bots")
+                .register(meterRegistry);
+
+        flushTimer = Timer.builder("crypto_bot_flush_seconds")
+                .description("Latência da gravação em lote de trades e estado dos bots")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        tickTimer = Timer.builder("crypto_bot_tick_seconds")
+                .description("Do tick de preço até a gravação dos bots disparados")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        triggeredCounter = Counter.builder("crypto_bot_triggers_total")
+                .description("Bots disparados por tick de preço")
+                .register(meterRegistry);
+
+        Gauge.builder("crypto_bot_registered_triggers", triggerRegistry, BotTriggerRegistry::size)
+                .description("Bots inscritos nos ticks de preço")
+                .register(meterRegistry);
+
+        evaluationsCounter = Counter.builder("crypto_bot_evaluations_total")
+                .description("Bots avaliados pelo motor")
+                .register(meterRegistry);
+
+        errorsCounter = Counter.builder("crypto_bot_errors_total")
+                .description("Bots marcados como ERROR durante a avaliação")
+                .register(meterRegistry);
+
+        buyCounter = Counter.builder("crypto_bot_trades_total")
+                .tag("side", "BUY")
+                .register(meterRegistry);
+
+        sellCounter = Counter.builder("crypto_bot_trades_total")
+                .tag("side", "SELL")
+                .register(meterRegistry);
+
+        Gauge.builder("crypto_bot_cycle_bots_per_second", lastBotsPerSecond, AtomicLong::get)
+                .description("Bots avaliados por segundo no último ciclo")
+                .register(meterRegistry);
+
+        log.info("🤖 Motor de bots: paralelismo {} | chunk {}", threads, chunkSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) pool.shutdown();
+    }
+
+
+    /**
+     * Ciclo periódico: executa só os bots sem gatilho de preço (DCA e CUSTOM).
+     */
+    @Scheduled(fixedDelayString = "${bots.engine.cycle-millis:60000}")
+    public void runCycle() {
+        long start = System.nanoTime();
+
+        executionLock.lock();
+        try {
+            List<TradingBot> timeDriven = new ArrayList<>();
+            for (TradingBot bot : botRepository.findByStatusAndStrategyIn(TradingBot.BotStatus.RUNNING, CYCLE_STRATEGIES)) {
+                if (owns(bot.getId())) timeDriven.add(bot);
+            }
+            if (timeDriven.isEmpty()) return;
+
+            CycleBatch batch = execute(timeDriven, cryptoService.getCurrentPrices());
+
+            long elapsed = System.nanoTime() - start;
+            cycleTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            lastBotsPerSecond.set(elapsed > 0 ? batch.evaluated * 1_000_000_000L / elapsed : 0);
+
+            log.info("🤖 Ciclo de bots: {} avaliados | {} trades | {} erros | {}ms",
+                    batch.evaluated, batch.newTrades.size(), batch.errors,
+                    TimeUnit.NANOSECONDS.toMillis(elapsed));
+
+        } catch (Exception e) {
+            log.error("❌ Erro no ciclo de bots: {}", e.getMessage(), e);
+        } finally {
+            executionLock.unlock();
+        }
+    }
+
+    /**
+     * Reconcilia as inscrições com o banco (bots alterados fora desta instância).
+     * Start/stop locais já atualizam o registro na hora.
+     */
+    @Scheduled(fixedDelayString = "${bots.engine.reconcile-millis:300000}", initialDelay = 0)
+    public void reconcileTriggers() {
+        try {
+            List<TradingBot> running = botRepository.findByStatus(TradingBot.BotStatus.RUNNING);
+
+            // Sinais de bots CUSTOM parados fora desta instância deixam de ser calculados
+            Set<Long> runningIds = new HashSet<>();
+            running.forEach(b -> runningIds.add(b.getId()));
+            customStrategyService.retain(runningIds);
+
+            // O livro é reconstruído: nenhum tick pode consultar no meio
+            executionLock.lock();
+            try {
+                triggerRegistry.replaceAll(running);
+            } finally {
+                executionLock.unlock();
+            }
+
+            log.debug("🎯 Gatilhos de preço reconciliados: {} bots", triggerRegistry.size());
+        } catch (Exception e) {
+            log.error("❌ Erro ao reconciliar gatilhos: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Tick de preço: só os bots com nível cruzado pela nova cotação rodam.
+     */
+    @Async
+    @EventListener
+    public void onPriceTick(PriceTickEvent event) {
+        long start = System.nanoTime();
+
+        List<TradingBot> bots = new ArrayList<>();
+
+        executionLock.lock();
+        try {
+            Set<Long> fired = new LinkedHashSet<>();
+            for (CryptoCurrency quote : event.getQuotes()) {
+                fired.addAll(triggerRegistry.triggered(quote));
+            }
+            if (fired.isEmpty()) return;
+
+            triggeredCounter.increment(fired.size());
+
+            // Estado atual do banco: o bot pode ter sido parado, editado ou removido desde a inscrição
+            // Bots de outro nó só voltam a ser armados (o gatilho é de uso único)
+            Set<Long> gone = new HashSet<>(fired);
+            for (TradingBot bot : botRepository.findAllById(fired)) {
+                if (bot.getStatus() != TradingBot.BotStatus.RUNNING) continue;
+                gone.remove(bot.getId());
+                if (owns(bot.getId())) bots.add(bot);
+                else triggerRegistry.rearm(bot);
+            }
+            gone.forEach(triggerRegistry::unregister);
+            if (bots.isEmpty()) return;
+
+            CycleBatch batch = execute(bots, event.getQuotes());
+
+            // Encerrados no tick (stop loss, erro) saem; os demais voltam a ser armados
+            for (TradingBot bot : bots) {
+                CycleBatch.BotUpdate update = batch.botUpdates.get(bot.getId());
+                if (update != null && update.status != null) triggerRegistry.unregister(bot.getId());
+                else triggerRegistry.rearm(bot);
+            }
+
+            tickTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+            log.info("⚡ Tick de preço: {} bots disparados | {} trades | {} erros",
+                    batch.evaluated, batch.newTrades.size(), batch.errors);
+
+        } catch (Exception e) {
+            log.error("❌ Erro ao processar tick de preço: {}", e.getMessage(), e);
+
+            // Nada foi gravado: os gatilhos disparados (de uso único) voltam a valer
+            for (TradingBot bot : bots) {
+                if (owns(bot.getId())) triggerRegistry.rearm(bot);
+            }
+        } finally {
+            executionLock.unlock();
+        }
+    }
+
+    /** Dono do bot no hash ring (nó único: todos) */
+    private boolean owns(Long botId) {
+        return clusterService.owns("bot:" + botId);
+    }
+
+    private CycleBatch execute(List<TradingBot> bots, List<CryptoCurrency> quotes) throws Exception {
+        // Anel mudou: bots que passaram por outro nó podem ter lotes que este não viu
+        long ringVersion = clusterService.ringVersion();
+        if (ringVersion != ledgerRingVersion) {
+            lotLedger.clear();
+            ledgerRingVersion = ringVersion;
+        }
+
+        // Lotes em memória antes da avaliação: as tarefas não tocam no banco.
+        // DCA só compra e não precisa da fila (a posição é mantida pelos deltas)
+        lotLedger.preload(bots.stream()
+                .filter(b -> b.getStrategy() != TradingBot.TradingStrategy.DCA)
+                .map(TradingBot::getId)
+                .toList());
+
+        CycleBatch batch = evaluate(bots, quoteIndex(quotes));
+
+        try {
+            flush(batch);
+        } catch (RuntimeException e) {
+            // Lotes já consumidos em memória não chegaram ao banco: relê na próxima vez
+            lotLedger.evictAll(batch.botUpdates.keySet());
+            throw e;
+        }
+
+        evaluationsCounter.increment(batch.evaluated);
+        return batch;
+    }
+
+
+    // ================================================
+    // 📥 CARGA
+    // ================================================
+
+    private static Map<String, CryptoCurrency> quoteIndex(List<CryptoCurrency> cryptos) {
+        Map<String, CryptoCurrency> index = new HashMap<>(cryptos.size() * 4);
+
+        for (CryptoCurrency crypto : cryptos) {
+            if (crypto.getCurrentPrice() == null) continue;
+            if (crypto.getCoinId() != null) index.put(crypto.getCoinId().toLowerCase(), crypto);
+            if (crypto.getSymbol() != null) index.putIfAbsent(crypto.getSymbol().toUpperCase(), crypto);
+        }
+
+        return index;
+    }
+
+    private static CryptoCurrency resolveQuote(Map<String, CryptoCurrency> index, String coinSymbol) {
+        CryptoCurrency byId = index.get(CryptoSymbolMapper.toCoinId(coinSymbol));
+        return byId != null ? byId : index.get(coinSymbol.toUpperCase());
+    }
+
+
+    // ================================================
+    // ⚡ AVALIAÇÃO PARALELA
+    // ================================================
+
+    private CycleBatch evaluate(List<TradingBot> bots, Map<String, CryptoCurrency> quotes) throws Exception {
+
+        Map<String, List<TradingBot>> byCoin = new HashMap<>();
+        for (TradingBot bot : bots) {
+            byCoin.computeIfAbsent(bot.getCoinSymbol().toUpperCase(), k -> new ArrayList<>()).add(bot);
+        }
+
+        List<Callable<CycleBatch>> tasks = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (Map.Entry<String, List<TradingBot>> group : byCoin.entrySet()) {
+            CryptoCurrency quote = resolveQuote(quotes, group.getKey());
+            if (quote == null) {
+                log.debug("⏭️ Sem cotação para {} ({} bots)", group.getKey(), group.getValue().size());
+                continue;
+            }
+
+            // CUSTOM lê sinais compartilhados: calculados uma vez por moeda, antes das tarefas
+            List<TradingBot> coinBots = group.getValue();
+            IndicatorView indicators = null;
+            if (coinBots.stream().anyMatch(b -> b.getStrategy() == TradingBot.TradingStrategy.CUSTOM)) {
+                referenceSignals(coinBots);
+                indicators = signalService.onTick(group.getKey(), quote);
+            }
+
+            // Moedas com muitos bots viram várias tarefas com a mesma cotação
+            IndicatorView coinIndicators = indicators;
+            for (int from = 0; from < coinBots.size(); from += chunkSize) {
+                List<TradingBot> chunk = coinBots.subList(from, Math.min(coinBots.size(), from + chunkSize));
+                tasks.add(() -> evaluateChunk(chunk, quote, coinIndicators, now));
+            }
+        }
+
+        CycleBatch merged = new CycleBatch();
+        for (Future<CycleBatch> future : pool.invokeAll(tasks)) {
+            merged.merge(future.get());
+        }
+        return merged;
+    }
+
+    /**
+     * Compila (e referencia os sinais de) bots CUSTOM ainda não vistos.
+     * Erro de compilação fica para a avaliação, que marca o bot como ERROR.
+     */
+    private void referenceSignals(List<TradingBot> coinBots) {
+        for (TradingBot bot : coinBots) {
+            if (bot.getStrategy() != TradingBot.TradingStrategy.CUSTOM) continue;
+            try {
+                customStrategyService.strategyFor(bot);
+            } catch (RuntimeException ignored) {
+                // reportado em evaluateCustom
+            }
+        }
+    }
+
+    private CycleBatch evaluateChunk(List<TradingBot> bots, CryptoCurrency quote,
+                                     IndicatorView indicators, LocalDateTime now) {
+        CycleBatch batch = new CycleBatch();
+
+        // Reaproveitados por todos os bots CUSTOM da tarefa
+        BotTickView tick = new BotTickView();
+        OrderIntent intent = new OrderIntent();
+
+        for (TradingBot bot : bots) {
+            batch.evaluated++;
+            try {
+                switch (bot.getStrategy()) {
+                    case GRID_TRADING -> evaluateGrid(bot, quote, batch, now);
+                    case DCA -> evaluateDca(bot, quote, batch, now);
+                    case STOP_LOSS -> evaluateStopLossTakeProfit(bot, quote, batch, now);
+                    case CUSTOM -> evaluateCustom(bot, quote, indicators, tick, intent, batch, now);
+                }
+            } catch (Exception e) {
+                log.error("❌ Bot {} marcado como ERROR: {}", bot.getId(), e.getMessage());
+                lotLedger.evict(bot.getId());
+                customStrategyService.evict(bot.getId());
+                batch.update(bot).status = TradingBot.BotStatus.ERROR;
+                batch.update(bot).stoppedAt = now;
+                batch.errors++;
+            }
+        }
+
+        return batch;
+    }
+
+
+    // ================================================
+    // 📈 ESTRATÉGIAS (puras: só produzem o lote)
+    // ================================================
+
+    private void evaluateGrid(TradingBot bot, CryptoCurrency crypto, CycleBatch batch, LocalDateTime now) {
+        BigDecimal currentPrice = crypto.getCurrentPrice();
+
+        int level = BotStrategyKernel.gridLevel(
+                bot.getGridLowerPrice().doubleValue(),
+                bot.getGridUpperPrice().doubleValue(),
+                bot.getGridLevels(),
+                currentPrice.doubleValue());
+
+        switch (BotStrategyKernel.gridSignal(level, bot.getGridLevels())) {
+            case BotStrategyKernel.BUY ->
+                    buy(bot, currentPrice, bot.getAmountPerGrid(), "Grid Trading - Zona de compra", batch, now);
+            case BotStrategyKernel.SELL ->
+                    sell(bot, currentPrice, bot.getAmountPerGrid(), "Grid Trading - Zona de venda", batch, now);
+            default -> { }
+        }
+    }
+
+    private void evaluateDca(TradingBot bot, CryptoCurrency crypto, CycleBatch batch, LocalDateTime now) {
+        long last = bot.getLastDcaExecution() != null ? epochMillis(bot.getLastDcaExecution()) : BotStrategyKernel.NEVER;
+        if (!BotStrategyKernel.dcaDue(last, epochMillis(now), bot.getDcaIntervalMinutes())) return;
+
+        BigDecimal quantity = bot.getDcaAmount().divide(crypto.getCurrentPrice(), 8, RoundingMode.HALF_UP);
+
+        buy(bot, crypto.getCurrentPrice(), quantity, "DCA - Compra automática", batch, now);
+        batch.update(bot).lastDcaExecution = now;
+    }
+
+    private void evaluateStopLossTakeProfit(TradingBot bot, CryptoCurrency crypto,
+                                            CycleBatch batch, LocalDateTime now) {
+        if (bot.getEntryPrice() == null) return;
+
+        BigDecimal currentPrice = crypto.getCurrentPrice();
+
+        int exit = BotStrategyKernel.exitSignal(
+                bot.getEntryPrice().doubleValue(),
+                bot.getStopLossPercent() != null ? bot.getStopLossPercent().doubleValue() : Double.NaN,
+                bot.getTakeProfitPercent() != null ? bot.getTakeProfitPercent().doubleValue() : Double.NaN,
+                currentPrice.doubleValue());
+
+        String reason = switch (exit) {
+            case BotStrategyKernel.EXIT_STOP_LOSS -> "Stop Loss acionado";
+            case BotStrategyKernel.EXIT_TAKE_PROFIT -> "Take Profit acionado";
+            default -> null;
+        };
+
+        if (reason == null) return;
+
+        // Sem quantidade configurada, encerra a posição inteira
+        BigDecimal quantity = bot.getAmountPerGrid() != null
+                ? bot.getAmountPerGrid()
+                : lotLedger.lotsOf(bot.getId()).quantity();
+        if (quantity.signum() > 0) {
+            sell(bot, currentPrice, quantity, reason, batch, now);
+        }
+
+        CycleBatch.BotUpdate update = batch.update(bot);
+        update.status = TradingBot.BotStatus.STOPPED;
+        update.stoppedAt = now;
+    }
+
+
+    private void evaluateCustom(TradingBot bot, CryptoCurrency crypto, IndicatorView indicators,
+                                BotTickView tick, OrderIntent intent, CycleBatch batch, LocalDateTime now) {
+        BotStrategy strategy = customStrategyService.strategyFor(bot);
+        FifoLots lots = lotLedger.lotsOf(bot.getId());
+        BigDecimal currentPrice = crypto.getCurrentPrice();
+
+        tick.quote(epochMillis(now),
+                currentPrice.doubleValue(),
+                crypto.getTotalVolume() != null ? crypto.getTotalVolume().doubleValue() : Double.NaN,
+                crypto.getPriceChange24h() != null ? crypto.getPriceChange24h() : Double.NaN);
+        tick.position(lots.quantity().doubleValue(), lots.cost().doubleValue(),
+                bot.getEntryPrice() != null ? bot.getEntryPrice().doubleValue() : Double.NaN);
+
+        strategy.onTick(tick, indicators, intent.hold());
+
+        if (intent.side() == BotStrategyKernel.HOLD) return;
+
+        BigDecimal quantity = BigDecimal.valueOf(intent.quantity()).setScale(8, RoundingMode.HALF_UP);
+        if (quantity.signum() <= 0) return;
+
+        if (intent.side() == BotStrategyKernel.BUY) buy(bot, currentPrice, quantity, intent.reason(), batch, now);
+        else sell(bot, currentPrice, quantity, intent.reason(), batch, now);
+    }
+
+
+    // ================================================
+    // 💱 EXECUÇÃO SIMULADA
+    // ================================================
+
+    private void buy(TradingBot bot, BigDecimal quote, BigDecimal quantity, String reason,
+                     CycleBatch batch, LocalDateTime now) {
+        BigDecimal price = fillPrice(bot, quote, SimOrderBook.BUY, quantity);
+        if (price == null) return;
+
+        batch.newTrades.add(trade(bot, BotTrade.TradeSide.BUY, price, quantity, null, reason, now));
+
+        CycleBatch.BotUpdate update = batch.update(bot);
+        update.trades++;
+        update.positionQuantity = update.positionQuantity.add(quantity);
+        update.positionCost = update.positionCost.add(price.multiply(quantity));
+    }
+
+    /**
+     * Venda FIFO sobre o livro de lotes: O(lotes consumidos).
+     */
+    private void sell(TradingBot bot, BigDecimal quote, BigDecimal quantity, String reason,
+                      CycleBatch batch, LocalDateTime now) {
+
+        FifoLots lots = lotLedger.lotsOf(bot.getId());
+
+        // Checa o saldo antes de mandar a ordem para a exchange simulada
+        if (lots.quantity().compareTo(quantity) < 0) {
+            log.warn("VENDA BLOQUEADA — saldo insuficiente. Bot: {} | Disp: {} | Req: {}",
+                    bot.getId(), lots.quantity(), quantity);
+            return;
+        }
+
+        BigDecimal price = fillPrice(bot, quote, SimOrderBook.SELL, quantity);
+        if (price == null) return;
+
+        FifoLots.Fill fill = lots.sell(quantity, price,
+                (lot, taken) -> batch.lotUpdates.add(new CycleBatch.LotUpdate(lot.tradeId(), taken)));
+
+        if (fill == null) {
+            log.warn("VENDA BLOQUEADA — saldo insuficiente. Bot: {} | Disp: {} | Req: {}",
+                    bot.getId(), lots.quantity(), quantity);
+            return;
+        }
+
+        batch.newTrades.add(trade(bot, BotTrade.TradeSide.SELL, price, fill.quantity(), fill.profit(), reason, now));
+
+        CycleBatch.BotUpdate update = batch.update(bot);
+        update.trades++;
+        update.profitLoss = update.profitLoss.add(fill.profit());
+        update.positionQuantity = update.positionQuantity.subtract(fill.quantity());
+        update.positionCost = update.positionCost.subtract(fill.costBasis());
+
+        if (fill.profit().signum() > 0) update.wins++;
+        else if (fill.profit().signum() < 0) update.losses++;
+    }
+
+    /**
+     * Preço de execução: a última cotação ou, com a exchange simulada,
+     * o preço médio da varredura do livro com slippage e taxa.
+     *
+     * @return null se o livro não tinha liquidez para a quantidade
+     */
+    private BigDecimal fillPrice(TradingBot bot, BigDecimal quote, int side, BigDecimal quantity) {
+        if (!venue.isEnabled() || !venue.supports(bot.getCoinSymbol())) return quote;
+
+        double executed = venue.executeMarket(bot.getCoinSymbol(), quote.doubleValue(), side, quantity.doubleValue());
+        if (Double.isNaN(executed)) {
+            log.warn("⚠️ Ordem do bot {} sem liquidez no livro simulado ({} {})", bot.getId(), quantity, bot.getCoinSymbol());
+            return null;
+        }
+        return BigDecimal.valueOf(executed).setScale(8, RoundingMode.HALF_UP);
+    }
+
+    private static long epochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static BotTrade trade(TradingBot bot, BotTrade.TradeSide side, BigDecimal price, BigDecimal quantity,
+                                  BigDecimal profitLoss, String reason, LocalDateTime now) {
+        return BotTrade.builder()
+                .bot(bot)
+                .coinSymbol(bot.getCoinSymbol())
+                .side(side)
+                .price(price)
+                .quantity(quantity)
+                .totalValue(price.multiply(quantity))
+                .profitLoss(profitLoss)
+                .isSimulation(bot.getIsSimulation())
+                .reason(reason)
+                .executedAt(now)
+                .build();
+    }
+
+
+    // ================================================
+    // 💾 FLUSH EM LOTE
+    // ================================================
+
+    private void flush(CycleBatch batch) {
+        if (batch.newTrades.isEmpty() && batch.lotUpdates.isEmpty() && batch.botUpdates.isEmpty()) return;
+
+        List<CycleBatch.BotUpdate> updates = new ArrayList<>(batch.botUpdates.values());
+
+        flushTimer.record(() -> transactionTemplate.executeWithoutResult(status -> {
+            if (!batch.newTrades.isEmpty()) {
+                insertTrades(batch.newTrades);
+            }
+
+            if (!batch.lotUpdates.isEmpty()) {
+                int[][] counts = jdbcTemplate.batchUpdate(UPDATE_LOT_SQL, batch.lotUpdates, batch.lotUpdates.size(),
+                        (ps, lot) -> {
+                            ps.setBigDecimal(1, lot.taken());
+                            ps.setLong(2, lot.tradeId());
+                            ps.setBigDecimal(3, lot.taken());
+                        });
+
+                // Lote vendido além da quantidade: o livro em memória estava defasado
+                for (int[] chunk : counts) {
+                    for (int count : chunk) {
+                        if (count == 0) throw new IllegalStateException("Lote de bot já consumido por outra venda");
+                    }
+                }
+            }
+
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_BOT_SQL, updates, updates.size(), (ps, u) -> {
+                    ps.setInt(1, u.trades);
+                    ps.setBigDecimal(2, u.profitLoss);
+                    ps.setInt(3, u.wins);
+                    ps.setInt(4, u.losses);
+                    ps.setBigDecimal(5, u.positionQuantity);
+                    ps.setBigDecimal(6, u.positionCost);
+                    ps.setObject(7, u.lastDcaExecution != null ? Timestamp.valueOf(u.lastDcaExecution) : null, Types.TIMESTAMP);
+                    ps.setObject(8, u.status != null ? u.status.name() : null, Types.VARCHAR);
+                    ps.setObject(9, u.stoppedAt != null ? Timestamp.valueOf(u.stoppedAt) : null, Types.TIMESTAMP);
+                    ps.setLong(10, u.botId);
+                });
+            }
+        }));
+
+        performanceService.onTrades(batch.newTrades);
+
+        // Compras confirmadas viram lotes (com o id gerado) no fim da fila
+        for (BotTrade trade : batch.newTrades) {
+            if (trade.getSide() == BotTrade.TradeSide.BUY) {
+                lotLedger.appendIfLoaded(trade.getBot().getId(), trade.getId(), trade.getPrice(), trade.getQuantity());
+                buyCounter.increment();
+            } else {
+                sellCounter.increment();
+            }
+        }
+        errorsCounter.increment(batch.errors);
+    }
+
+    /**
+     * INSERT em lote devolvendo os ids gerados (na ordem da lista).
+     */
+    private void insertTrades(List<BotTrade> trades) {
+        KeyHolder keys = new GeneratedKeyHolder();
+
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(INSERT_TRADE_SQL, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        BotTrade t = trades.get(i);
+                        ps.setLong(1, t.getBot().getId());
+                        ps.setString(2, t.getCoinSymbol());
+                        ps.setString(3, t.getSide().name());
+                        ps.setBigDecimal(4, t.getPrice());
+                        ps.setBigDecimal(5, t.getQuantity());
+                        ps.setBigDecimal(6, t.getTotalValue());
+                        ps.setBigDecimal(7, t.getProfitLoss());
+                        ps.setBoolean(8, !Boolean.FALSE.equals(t.getIsSimulation()));
+                        ps.setString(9, t.getReason());
+                        ps.setTimestamp(10, Timestamp.valueOf(t.getExecutedAt()));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return trades.size();
+                    }
+                },
+                keys);
+
+        List<Map<String, Object>> generated = keys.getKeyList();
+        for (int i = 0; i < trades.size(); i++) {
+            trades.get(i).setId(((Number) generated.get(i).values().iterator().next()).longValue());
+        }
+    }
+
+
+    /**
+     * Resultado de uma tarefa (ou do ciclo, após o merge).
+     */
+    static final class CycleBatch {
+        final List<BotTrade> newTrades = new ArrayList<>();
+        final List<LotUpdate> lotUpdates = new ArrayList<>();
+        final Map<Long, BotUpdate> botUpdates = new HashMap<>();
+        int evaluated;
+        int errors;
+
+        BotUpdate update(TradingBot bot) {
+            return botUpdates.computeIfAbsent(bot.getId(), BotUpdate::new);
+        }
+
+        void merge(CycleBatch other) {
+            newTrades.addAll(other.newTrades);
+            lotUpdates.addAll(other.lotUpdates);
+            botUpdates.putAll(other.botUpdates);
+            evaluated += other.evaluated;
+            errors += other.errors;
+        }
+
+        /** @param taken quantidade tirada do lote nesta gravação (somada ao sold_quantity) */
+        record LotUpdate(long tradeId, BigDecimal taken) {}
+
+        static final class BotUpdate {
+            final long botId;
+            int trades;
+            BigDecimal profitLoss = BigDecimal.ZERO;
+            int wins;
+            int losses;
+            BigDecimal positionQuantity = BigDecimal.ZERO;
+            BigDecimal positionCost = BigDecimal.ZERO;
+            LocalDateTime lastDcaExecution;
+            TradingBot.BotStatus status;
+            LocalDateTime stoppedAt;
+
+            BotUpdate(long botId) {
+                this.botId = botId;
+            }
+        }
+    }
+}
@@ -1,28 +1,62 @@
 package com.crypto.service;
 
+import com.crypto.util.LogMasker;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.time.Duration;
-import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
-
-
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+
+/**
+ * 👤 Atividade por usuário com expiração via wheel.
+ *
+ * - Atividade/heartbeat gravam só um long volátil (epoch millis): sem lock e sem alocação
+ * - Cada usuário fica em um bucket do wheel pelo deadline de inatividade; a
+ *   varredura só visita os buckets vencidos e re-arma quem teve atividade
+ *   nesse meio-tempo (custo O(vencidos), não O(todos os usuários))
+ * - O wheel só libera memória local. A expiração do monitoramento é decidida
+ *   pelo nó dono da sessão a partir de monitoring_sessions.last_activity_at,
+ *   que cada nó atualiza em lote com a atividade que recebeu: o usuário pode
+ *   estar conectado a outro nó, ou a sessão pode ter sido retomada após restart
+ */
 @Slf4j
 @Service
 public class UserActivityTracker {
 
     private final Map<String, UserActivity> activeUsers = new ConcurrentHashMap<>();
     private final MonitoringControlService monitoringService;
+    private final MonitoringClusterService clusterService;
 
-    private static final long INACTIVITY_THRESHOLD_MS = 60 * 60 * 1000; // 15 minutos
+    // Usuários com atividade ainda não gravada no banco (uma entrada por flush)
+    private final Queue<UserActivity> dirty = new ConcurrentLinkedQueue<>();
+
+    private static final long INACTIVITY_THRESHOLD_MS = 60 * 60 * 1000; // 60 minutos
     private static final long HEARTBEAT_TIMEOUT_MS = 3 * 60 * 1000; // 3 minutos
 
-    public UserActivityTracker(@Lazy MonitoringControlService monitoringService) {
+    // ---------- wheel de expiração (1 tick = 1 minuto) ----------
+    private static final long WHEEL_TICK_MS = 60 * 1000;
+    private static final int WHEEL_MASK = wheelMask(INACTIVITY_THRESHOLD_MS / WHEEL_TICK_MS + 2);
+
+    @SuppressWarnings("unchecked")
+    private final Queue<UserActivity>[] wheel = new Queue[WHEEL_MASK + 1];
+    private volatile long cursorTick = System.currentTimeMillis() / WHEEL_TICK_MS - 1;
+
+    public UserActivityTracker(@Lazy MonitoringControlService monitoringService,
+                               MonitoringClusterService clusterService) {
         this.monitoringService = monitoringService;
+        this.clusterService = clusterService;
+
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+
         log.info("✅ UserActivityTracker inicializado");
         log.info("   Threshold de inatividade: {} minutos",
                 INACTIVITY_THRESHOLD_MS / 60000);
@@ -30,85 +64,90 @@ public class UserActivityTracker {
 
 
     public void recordActivity(String username) {
-        UserActivity activity = activeUsers.computeIfAbsent(
-                username,
-                k -> new UserActivity(username)
-        );
-
-        activity.updateActivity();
+        UserActivity activity = activity(username);
+        activity.lastActivity = System.currentTimeMillis();
+        markDirty(activity);
 
         log.debug("👤 Atividade registrada: {}", username);
     }
 
 
     public void receiveHeartbeat(String username) {
-        recordActivity(username);
+        long now = System.currentTimeMillis();
 
-        UserActivity activity = activeUsers.get(username);
-        if (activity != null) {
-            activity.heartbeatReceived();
-        }
+        UserActivity activity = activity(username);
+        activity.lastActivity = now;
+        activity.lastHeartbeat = now;
+        markDirty(activity);
 
         log.debug("💓 Heartbeat recebido: {}", username);
     }
 
-    @Scheduled(fixedDelay = 300000, initialDelay = 60000) // 5 minutos
-    public void checkInactiveUsers() {
-        log.debug("🔍 Verificando usuários inativos...");
+    public void monitoringStarted(String username) {
+        activity(username).activeMonitoring = true;
+    }
 
-        Instant now = Instant.now();
-        int inactiveCount = 0;
-        int stoppedCount = 0;
+    public void monitoringStopped(String username) {
+        UserActivity activity = activeUsers.get(username);
+        if (activity != null) {
+            activity.activeMonitoring = false;
+        }
+    }
 
-        for (Map.Entry<String, UserActivity> entry : activeUsers.entrySet()) {
-            String username = entry.getKey();
-            UserActivity activity = entry.getValue();
+    /**
+     * Grava a atividade local no banco e para as sessões ociosas que este nó possui.
+     */
+    @Scheduled(fixedDelay = 60000, initialDelay = 60000) // 1 minuto
+    public void syncActivity() {
+        try {
+            flushActivity();
+            stopIdleSessions();
+        } catch (Exception e) {
+            log.error("❌ Erro ao sincronizar atividade: {}", e.getMessage());
+        }
+    }
 
-            if (activity.isInactive(INACTIVITY_THRESHOLD_MS)) {
-                inactiveCount++;
+    /**
+     * Percorre só os buckets cujo tick já passou.
+     */
+    @Scheduled(fixedDelay = 60000, initialDelay = 60000) // 1 minuto
+    public void checkInactiveUsers() {
+        long now = System.currentTimeMillis();
+        long lastTick = now / WHEEL_TICK_MS - 1;
 
-                if (activity.hasActiveMonitoring() &&
-                        monitoringService.isMonitoringActive(username)) {
+        int expiredCount = 0;
+        int rearmed = 0;
 
-                    log.warn("⏸️ Parando monitoramento de usuário inativo: {} " +
-                                    "(última atividade: {})",
-                            username, activity.getLastActivityDuration());
+        for (long tick = cursorTick + 1; tick <= lastTick; tick++) {
+            Queue<UserActivity> bucket = wheel[(int) (tick & WHEEL_MASK)];
 
-                    try {
-                        monitoringService.stopMonitoring(username);
-                        activity.monitoringStopped();
-                        stoppedCount++;
+            // Só o que estava no bucket antes desta passada (re-armes entram em outros ticks)
+            for (int n = bucket.size(); n > 0; n--) {
+                UserActivity activity = bucket.poll();
+                if (activity == null) break;
 
-                    } catch (Exception e) {
-                        log.error("❌ Erro ao parar monitoramento de {}: {}",
-                                username, e.getMessage());
-                    }
+                long deadline = activity.lastActivity + INACTIVITY_THRESHOLD_MS;
+                if (deadline > now) {
+                    arm(activity, deadline);
+                    rearmed++;
+                    continue;
                 }
 
-                if (activity.isInactive(60 * 60 * 1000)) {
-                    log.info("🗑️ Removendo usuário muito inativo: {}", username);
-                    activeUsers.remove(username);
-                }
+                if (expire(activity, now)) expiredCount++;
             }
 
-            if (activity.heartbeatTimeout(HEARTBEAT_TIMEOUT_MS)) {
-                log.warn("⚠️ Heartbeat timeout para: {} (última: {})",
-                        username, activity.getLastHeartbeatDuration());
-
-
-            }
+            cursorTick = tick;
         }
 
-        if (inactiveCount > 0 || stoppedCount > 0) {
-            log.info("📊 Verificação concluída: {} inativos, {} monitoramentos parados",
-                    inactiveCount, stoppedCount);
+        if (expiredCount > 0) {
+            log.info("📊 Verificação concluída: {} inativos removidos ({} re-armados)", expiredCount, rearmed);
         }
     }
 
 
     public boolean isUserActive(String username) {
         UserActivity activity = activeUsers.get(username);
-        return activity != null && !activity.isInactive(INACTIVITY_THRESHOLD_MS);
+        return activity != null && !activity.isInactive(INACTIVITY_THRESHOLD_MS, System.currentTimeMillis());
     }
 
     public void recordLogout(String username) {
@@ -122,79 +161,152 @@ public class UserActivityTracker {
             }
         }
 
+        // A entrada no wheel sai sozinha: na varredura ela já não está no mapa
         activeUsers.remove(username);
     }
 
 
+    /**
+     * Estatísticas sob demanda (O(n), uso administrativo).
+     */
     public Map<String, Object> getStats() {
+        long now = System.currentTimeMillis();
         int totalUsers = activeUsers.size();
-        int activeNow = (int) activeUsers.values().stream()
-                .filter(a -> !a.isInactive(INACTIVITY_THRESHOLD_MS))
-                .count();
-
-        int withMonitoring = (int) activeUsers.values().stream()
-                .filter(UserActivity::hasActiveMonitoring)
-                .count();
+        int activeNow = 0;
+        int withMonitoring = 0;
+        int heartbeatTimeouts = 0;
+
+        for (UserActivity activity : activeUsers.values()) {
+            if (!activity.isInactive(INACTIVITY_THRESHOLD_MS, now)) activeNow++;
+            if (activity.activeMonitoring) withMonitoring++;
+            if (activity.lastHeartbeat > 0 && now - activity.lastHeartbeat > HEARTBEAT_TIMEOUT_MS) heartbeatTimeouts++;
+        }
 
         return Map.of(
                 "totalTracked", totalUsers,
                 "activeNow", activeNow,
                 "withMonitoring", withMonitoring,
+                "heartbeatTimeouts", heartbeatTimeouts,
                 "inactiveThresholdMinutes", INACTIVITY_THRESHOLD_MS / 60000,
                 "heartbeatTimeoutMinutes", HEARTBEAT_TIMEOUT_MS / 60000
         );
     }
 
 
-    private static class UserActivity {
-        private final String username;
-        private volatile Instant lastActivity;
-        private volatile Instant lastHeartbeat;
-        private volatile boolean activeMonitoring;
+    // ================================================
+    // 🔧 INTERNOS
+    // ================================================
 
-        UserActivity(String username) {
-            this.username = username;
-            this.lastActivity = Instant.now();
-            this.lastHeartbeat = Instant.now();
-            this.activeMonitoring = false;
-        }
+    /**
+     * Caminho quente sem alocação: só cria (e arma no wheel) no primeiro acesso.
+     */
+    private UserActivity activity(String username) {
+        UserActivity activity = activeUsers.get(username);
+        if (activity != null) return activity;
 
-        void updateActivity() {
-            this.lastActivity = Instant.now();
-        }
+        UserActivity created = new UserActivity(username, System.currentTimeMillis());
+        UserActivity existing = activeUsers.putIfAbsent(username, created);
+        if (existing != null) return existing;
 
-        void heartbeatReceived() {
-            this.lastHeartbeat = Instant.now();
-        }
+        arm(created, created.lastActivity + INACTIVITY_THRESHOLD_MS);
+        return created;
+    }
 
-        void monitoringStarted() {
-            this.activeMonitoring = true;
-        }
+    private void markDirty(UserActivity activity) {
+        if (activity.dirty) return;
+        activity.dirty = true;
+        dirty.offer(activity);
+    }
 
-        void monitoringStopped() {
-            this.activeMonitoring = false;
+    /**
+     * Converte o relógio local para o do banco pela diferença até agora.
+     */
+    private void flushActivity() {
+        if (dirty.isEmpty()) return;
+
+        long now = System.currentTimeMillis();
+        LocalDateTime databaseNow = clusterService.databaseNow();
+        Map<String, LocalDateTime> touched = new HashMap<>();
+
+        for (UserActivity activity; (activity = dirty.poll()) != null; ) {
+            activity.dirty = false;   // antes da leitura: atividade concorrente volta à fila
+            long ago = Math.max(0, now - activity.lastActivity);
+            touched.merge(activity.username, databaseNow.minusNanos(ago * 1_000_000L),
+                    (a, b) -> a.isAfter(b) ? a : b);
         }
 
-        boolean hasActiveMonitoring() {
-            return activeMonitoring;
+        clusterService.touchSessions(touched);
+        log.debug("👤 Atividade de {} usuários gravada", touched.size());
+    }
+
+    /**
+     * Só o dono da sessão no hash ring expira; a desativação é condicional no banco.
+     */
+    private void stopIdleSessions() {
+        LocalDateTime cutoff = clusterService.databaseNow().minusNanos(INACTIVITY_THRESHOLD_MS * 1_000_000L);
+        int stopped = 0;
+
+        for (String username : clusterService.idleSessions(cutoff)) {
+            if (!clusterService.owns(username)) continue;
+            if (!clusterService.deactivateIdleSession(username, cutoff)) continue;
+
+            log.warn("⏸️ Parando monitoramento de usuário inativo: {}", LogMasker.maskUsername(username));
+            monitoringService.stopMonitoring(username);
+            stopped++;
         }
 
-        boolean isInactive(long thresholdMs) {
-            return Duration.between(lastActivity, Instant.now()).toMillis() > thresholdMs;
+        if (stopped > 0) {
+            log.info("📊 {} monitoramentos parados por inatividade", stopped);
         }
+    }
 
-        boolean heartbeatTimeout(long timeoutMs) {
-            return Duration.between(lastHeartbeat, Instant.now()).toMillis() > timeoutMs;
+    private void arm(UserActivity activity, long deadline) {
+        long tick = Math.max(deadline / WHEEL_TICK_MS, cursorTick + 1);
+        wheel[(int) (tick & WHEEL_MASK)].offer(activity);
+    }
+
+    /**
+     * Remove a entrada local (o monitoramento é expirado por {@link #stopIdleSessions}).
+     *
+     * @return true se a entrada ainda era a do mapa
+     */
+    private boolean expire(UserActivity activity, long now) {
+        String username = activity.username;
+
+        // Entrada órfã (logout ou já substituída)
+        if (activeUsers.get(username) != activity) return false;
+
+        log.debug("🗑️ Removendo usuário inativo: {}", username);
+        activeUsers.remove(username, activity);
+
+        // Atividade concorrente com a remoção: devolve ao mapa e ao wheel
+        long deadline = activity.lastActivity + INACTIVITY_THRESHOLD_MS;
+        if (deadline > now && activeUsers.putIfAbsent(username, activity) == null) {
+            arm(activity, deadline);
         }
 
-        String getLastActivityDuration() {
-            long minutes = Duration.between(lastActivity, Instant.now()).toMinutes();
-            return minutes + " minutos atrás";
+        return true;
+    }
+
+    private static int wheelMask(long ticks) {
+        return Integer.highestOneBit((int) Math.max(2, ticks - 1)) * 2 - 1;
+    }
+
+
+    private static class UserActivity {
+        private final String username;
+        private volatile long lastActivity;
+        private volatile long lastHeartbeat;
+        private volatile boolean activeMonitoring;
+        private volatile boolean dirty;
+
+        UserActivity(String username, long now) {
+            this.username = username;
+            this.lastActivity = now;
         }
 
-        String getLastHeartbeatDuration() {
-            long minutes = Duration.between(lastHeartbeat, Instant.now()).toMinutes();
-            return minutes + " minutos atrás";
+        boolean isInactive(long thresholdMs, long now) {
+            return now - lastActivity > thresholdMs;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,160 @@
+package com.crypto.service;
+
+import com.crypto.model.dto.NotificationMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * 🔔 Entrega in-app de alertas via STOMP em {@code /user/queue/alerts}.
+ *
+ * Os alertas de uma mesma passada de avaliação são acumulados num {@link Batch}
+ * e enviados como um único frame por usuário, somente após o commit da
+ * transação que gravou o estado das regras.
+ *
+ * O broker STOMP é o simples, em memória: presença e entrega só enxergam as
+ * sessões desta instância. Com mais de um nó no cluster, um usuário conectado
+ * a outro nó aparece offline aqui (recebe email), e o alerta in-app nunca
+ * substitui o email, já que a sessão pode cair sem que este nó saiba.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserAlertPushService {
+
+    public static final String ALERTS_DESTINATION = "/queue/alerts";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final SimpUserRegistry userRegistry;
+    private final MonitoringClusterService clusterService;
+    private final MeterRegistry meterRegistry;
+
+    private Counter framesCounter;
+    private Counter alertsCounter;
+
+
+    @PostConstruct
+    public void initMetrics() {
+        framesCounter = Counter.builder("crypto_alert_push_frames_total")
+                .description("Frames de alertas enviados via WebSocket")
+                .register(meterRegistry);
+
+        alertsCounter = Counter.builder("crypto_alert_push_alerts_total")
+                .description("Alertas entregues via WebSocket")
+                .register(meterRegistry);
+    }
+
+    public Batch newBatch() {
+        return new Batch(!clusterService.isClustered());
+    }
+
+    /**
+     * Usuário com ao menos uma sessão STOMP autenticada nesta instância.
+     */
+    public boolean isOnline(String username) {
+        if (username == null) return false;
+        SimpUser user = userRegistry.getUser(username);
+        return user != null && user.hasSessions();
+    }
+
+    /**
+     * Envia o lote após o commit (ou imediatamente, fora de transação).
+     */
+    public void publish(Batch batch) {
+        if (batch.isEmpty()) return;
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send(batch);
+                }
+            });
+        } else {
+            send(batch);
+        }
+    }
+
+    private void send(Batch batch) {
+        batch.alertsByUser.forEach((username, alerts) -> {
+            try {
+                Map<String, Object> frame = new LinkedHashMap<>();
+                frame.put("type", "ALERTS");
+                frame.put("count", alerts.size());
+                frame.put("generatedAt", Instant.now().toString());
+                frame.put("alerts", alerts.stream().map(UserAlertPushService::toPayload).toList());
+
+                messagingTemplate.convertAndSendToUser(username, ALERTS_DESTINATION, frame);
+
+                framesCounter.increment();
+                alertsCounter.increment(alerts.size());
+
+                log.debug("🔔 {} alerta(s) enviados in-app para {}", alerts.size(), username);
+
+            } catch (Exception e) {
+                log.error("❌ Erro ao enviar alertas in-app para {}: {}", username, e.getMessage());
+            }
+        });
+    }
+
+    private static Map<String, Object> toPayload(NotificationMessage message) {
+        Map<String, Object> m = new HashMap<>();
+        m.put("ruleId", message.getRuleId());
+        m.put("coinSymbol", message.getCoinSymbol());
+        m.put("coinName", message.getCoinName());
+        m.put("alertType", message.getAlertType());
+        m.put("message", message.getMessage());
+        m.put("currentPrice", message.getCurrentPrice());
+        m.put("changePercentage", message.getChangePercentage());
+        return m;
+    }
+
+
+    /**
+     * Acumulador de uma passada de avaliação (não thread-safe, uso local).
+     */
+    public final class Batch {
+
+        private final Map<String, List<NotificationMessage>> alertsByUser = new LinkedHashMap<>();
+        private final Map<String, Boolean> online = new HashMap<>();
+        private final boolean replacesEmail;
+
+        private Batch(boolean replacesEmail) {
+            this.replacesEmail = replacesEmail;
+        }
+
+        /**
+         * Presença consultada uma vez por usuário na passada.
+         */
+        public boolean isOnline(String username) {
+            return username != null && online.computeIfAbsent(username, UserAlertPushService.this::isOnline);
+        }
+
+        /**
+         * Se o alerta in-app pode dispensar o email (skip-email-when-online):
+         * só com nó único, onde a presença local é a presença do usuário.
+         */
+        public boolean replacesEmail() {
+            return replacesEmail;
+        }
+
+        public void add(String username, NotificationMessage message) {
+            alertsByUser.computeIfAbsent(username, u -> new ArrayList<>()).add(message);
+        }
+
+        public boolean isEmpty() {
+            return alertsByUser.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package com.crypto.util;
+
+import com.crypto.model.AlertRule.AlertType;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+/**
+ * 🧪 Replay de regras de alerta sobre uma série histórica.
+ *
+ * - Série em arrays primitivos (tempo, preço, volume)
+ * - Cada indicador é calculado uma vez por série/parâmetro em um double[]
+ *   e compartilhado por todas as regras que o usam
+ * - O replay de cada regra é um laço sobre double[] com um único operador,
+ *   sem alocação por ponto
+ * - Regras independentes rodam em paralelo num {@link ForkJoinPool}
+ *
+ * Semântica igual à do monitoramento: a regra dispara sempre que a condição
+ * é verdadeira e o cooldown desde o último disparo expirou.
+ */
+public final class AlertBacktester {
+
+    private static final int RULES_PER_TASK = 8;
+
+    private final Series series;
+    private final Map<String, double[]> derived = new ConcurrentHashMap<>();
+
+    public AlertBacktester(Series series) {
+        this.series = series;
+    }
+
+    public Series series() {
+        return series;
+    }
+
+    public int derivedCount() {
+        return derived.size();
+    }
+
+    /**
+     * Executa todas as regras em paralelo; resultados na mesma ordem da entrada.
+     */
+    public Result[] runAll(List<RuleSpec> rules, long cooldownMillis, int maxEvents, ForkJoinPool pool) {
+        Result[] results = new Result[rules.size()];
+        pool.invoke(new RuleTask(rules, results, 0, rules.size(), cooldownMillis, maxEvents));
+        return results;
+    }
+
+    public Result run(RuleSpec rule, long cooldownMillis, int maxEvents) {
+        double[] values = valuesFor(rule);
+        long[] times = series.times();
+        int n = values.length;
+
+        double threshold = rule.threshold();
+        int[] events = new int[Math.min(Math.max(maxEvents, 0), 64)];
+        int recorded = 0;
+        int fires = 0;
+        long nextAllowed = Long.MIN_VALUE;
+
+        Op op = rule.op();
+
+        for (int i = 0; i < n; i++) {
+            double v = values[i];
+
+            boolean active = switch (op) {
+                case ABOVE -> v >= threshold;
+                case BELOW -> v <= threshold;
+                case POSITIVE -> v > 0;
+                case NEGATIVE -> v < 0;
+            };
+
+            if (!active || times[i] < nextAllowed) continue;
+
+            fires++;
+            nextAllowed = times[i] + cooldownMillis;
+
+            if (recorded < maxEvents) {
+                if (recorded == events.length) {
+                    events = Arrays.copyOf(events, Math.min(maxEvents, events.length * 2));
+                }
+                events[recorded++] = i;
+            }
+        }
+
+        int[] indexes = Arrays.copyOf(events, recorded);
+        double[] eventValues = new double[recorded];
+        for (int e = 0; e < recorded; e++) {
+            eventValues[e] = values[indexes[e]];
+        }
+
+        return new Result(fires, indexes, eventValues);
+    }
+
+
+    // ================================================
+    // 🔥 SÉRIES DERIVADAS (uma por parâmetro, compartilhadas)
+    // ================================================
+
+    private double[] valuesFor(RuleSpec rule) {
+        return switch (rule.type()) {
+            case PRICE_INCREASE, PRICE_DECREASE -> series.prices();
+            case VOLUME_SPIKE -> series.volumes();
+            case PERCENT_CHANGE_24H -> derive("PCT:86400000", () -> percentChange(86_400_000L));
+            case PERCENT_CHANGE_WINDOW -> derive("PCT:" + rule.windowMillis(), () -> percentChange(rule.windowMillis()));
+            case RSI_ABOVE, RSI_BELOW -> derive("RSI:" + rule.period(), () -> rsi(rule.period()));
+            case BOLLINGER_BREAKOUT_UP, BOLLINGER_BREAKOUT_DOWN ->
+                    derive("PZ:" + rule.period(), () -> zScore(series.prices(), rule.period(), 0));
+            case VOLUME_ZSCORE -> derive("VZ:" + rule.period(), () -> zScore(series.volumes(), rule.period(), 1));
+            case MA_CROSS_UP, MA_CROSS_DOWN -> {
+                // médias derivadas antes: computeIfAbsent não pode ser reentrante
+                double[] fast = sma(rule.period());
+                double[] slow = sma(rule.periodLong());
+                yield derive("XMA:" + rule.period() + ":" + rule.periodLong(), () -> maCross(fast, slow));
+            }
+            default -> throw new IllegalArgumentException(rule.type() + " não suportado no backtest");
+        };
+    }
+
+    private double[] derive(String key, Supplier<double[]> compute) {
+        return derived.computeIfAbsent(key, k -> compute.get());
+    }
+
+    /**
+     * Variação % contra o último ponto com pelo menos {@code windowMillis} de idade
+     * (dois ponteiros, O(n)).
+     */
+    private double[] percentChange(long windowMillis) {
+        long[] t = series.times();
+        double[] p = series.prices();
+        double[] out = new double[p.length];
+        int j = 0;
+
+        for (int i = 0; i < p.length; i++) {
+            long cutoff = t[i] - windowMillis;
+            while (j + 1 < i && t[j + 1] <= cutoff) j++;
+
+            out[i] = t[j] <= cutoff && p[j] != 0 && j < i
+                    ? (p[i] - p[j]) / p[j] * 100.0
+                    : Double.NaN;
+        }
+        return out;
+    }
+
+    private double[] sma(int period) {
+        return derive("SMA:" + period, () -> {
+            double[] p = series.prices();
+            double[] out = new double[p.length];
+            double sum = 0;
+
+            for (int i = 0; i < p.length; i++) {
+                sum += p[i];
+                if (i >= period) sum -= p[i - period];
+                out[i] = i >= period - 1 ? sum / period : Double.NaN;
+            }
+            return out;
+        });
+    }
+
+    /**
+     * +1 no ponto em que a média rápida cruza acima da lenta, -1 abaixo, 0 caso contrário.
+     */
+    private static double[] maCross(double[] fast, double[] slow) {
+        double[] out = new double[fast.length];
+
+        for (int i = 1; i < out.length; i++) {
+            if (Double.isNaN(slow[i - 1])) continue;
+
+            boolean wasAbove = fast[i - 1] > slow[i - 1];
+            boolean isAbove = fast[i] > slow[i];
+
+            out[i] = wasAbove == isAbove ? 0 : (isAbove ? 1 : -1);
+        }
+        return out;
+    }
+
+    private double[] rsi(int period) {
+        double[] p = series.prices();
+        double[] out = new double[p.length];
+        Arrays.fill(out, Double.NaN);
+
+        double avgGain = 0;
+        double avgLoss = 0;
+
+        for (int i = 1; i < p.length; i++) {
+            double change = p[i] - p[i - 1];
+            double gain = Math.max(change, 0);
+            double loss = Math.max(-change, 0);
+
+            if (i <= period) {
+                avgGain += gain / period;
+                avgLoss += loss / period;
+                if (i < period) continue;
+            } else {
+                avgGain = (avgGain * (period - 1) + gain) / period;
+                avgLoss = (avgLoss * (period - 1) + loss) / period;
+            }
+
+            out[i] = avgLoss == 0 ? 100.0 : 100.0 - 100.0 / (1.0 + avgGain / avgLoss);
+        }
+        return out;
+    }
+
+    /**
+     * Z-score de cada ponto contra a janela [i - offset - period + 1, i - offset].
+     */
+    private static double[] zScore(double[] x, int period, int offset) {
+        double[] out = new double[x.length];
+        Arrays.fill(out, Double.NaN);
+
+        double sum = 0;
+        double sumSq = 0;
+
+        for (int i = 0; i < x.length; i++) {
+            int in = i - offset;
+            if (in >= 0) {
+                sum += x[in];
+                sumSq += x[in] * x[in];
+            }
+            int outIdx = in - period;
+            if (outIdx >= 0) {
+                sum -= x[outIdx];
+                sumSq -= x[outIdx] * x[outIdx];
+            }
+
+            if (in >= period - 1) {
+                double mean = sum / period;
+                double std = Math.sqrt(Math.max(0, sumSq / period - mean * mean));
+                if (std > 0) out[i] = (x[i] - mean) / std;
+            }
+        }
+        return out;
+    }
+
+
+    // ================================================
+    // 🔧 TIPOS
+    // ================================================
+
+    public record Series(long[] times, double[] prices, double[] volumes) {
+        public int size() {
+            return times.length;
+        }
+
+        /**
+         * Espaçamento mediano entre pontos (0 com menos de 2). A CoinGecko
+         * escolhe a granularidade pelo período: 5 min, 1 h ou diária.
+         */
+        public long resolutionMillis() {
+            if (times.length < 2) return 0;
+            long[] gaps = new long[times.length - 1];
+            for (int i = 1; i < times.length; i++) gaps[i - 1] = times[i] - times[i - 1];
+            Arrays.sort(gaps);
+            return gaps[gaps.length / 2];
+        }
+
+        public long resolutionMinutes() {
+            return Math.round(resolutionMillis() / 60_000.0);
+        }
+    }
+
+    public enum Op { ABOVE, BELOW, POSITIVE, NEGATIVE }
+
+    /**
+     * Regra já resolvida: tipo, operador e parâmetros primitivos.
+     */
+    public record RuleSpec(AlertType type, Op op, double threshold, long windowMillis, int period, int periodLong) {
+
+        public static RuleSpec of(AlertType type, double threshold, long windowMillis, int period, int periodLong) {
+            return switch (type) {
+                case PRICE_INCREASE, VOLUME_SPIKE, RSI_ABOVE, VOLUME_ZSCORE, BOLLINGER_BREAKOUT_UP ->
+                        new RuleSpec(type, Op.ABOVE, threshold, windowMillis, period, periodLong);
+                case PRICE_DECREASE, RSI_BELOW ->
+                        new RuleSpec(type, Op.BELOW, threshold, windowMillis, period, periodLong);
+                case BOLLINGER_BREAKOUT_DOWN ->
+                        new RuleSpec(type, Op.BELOW, -threshold, windowMillis, period, periodLong);
+                case PERCENT_CHANGE_24H, PERCENT_CHANGE_WINDOW ->
+                        new RuleSpec(type, threshold < 0 ? Op.BELOW : Op.ABOVE, threshold, windowMillis, period, periodLong);
+                case MA_CROSS_UP -> new RuleSpec(type, Op.POSITIVE, 0, windowMillis, period, periodLong);
+                case MA_CROSS_DOWN -> new RuleSpec(type, Op.NEGATIVE, 0, windowMillis, period, periodLong);
+                default -> throw new IllegalArgumentException(type + " não suportado no backtest");
+            };
+        }
+    }
+
+    /**
+     * @param fires        total de disparos
+     * @param eventIndexes índices na série dos primeiros disparos (até maxEvents)
+     * @param eventValues  valor observado em cada disparo (preço, RSI, z...)
+     */
+    public record Result(int fires, int[] eventIndexes, double[] eventValues) {}
+
+    private final class RuleTask extends RecursiveAction {
+        private final List<RuleSpec> rules;
+        private final Result[] results;
+        private final int from;
+        private final int to;
+        private final long cooldownMillis;
+        private final int maxEvents;
+
+        RuleTask(List<RuleSpec> rules, Result[] results, int from, int to, long cooldownMillis, int maxEvents) {
+            this.rules = rules;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.cooldownMillis = cooldownMillis;
+            this.maxEvents = maxEvents;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= RULES_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    results[i] = run(rules.get(i), cooldownMillis, maxEvents);
+                }
+                return;
+            }
+
+            int mid = (from + to) >>> 1;
+            invokeAll(
+                    new RuleTask(rules, results, from, mid, cooldownMillis, maxEvents),
+                    new RuleTask(rules, results, mid, to, cooldownMillis, maxEvents)
+            );
+        }
+    }
+}
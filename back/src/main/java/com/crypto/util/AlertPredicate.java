@@ -0,0 +1,12 @@
+package com.crypto.util;
+
+/**
+ * ⚡ Regra de alerta compilada: avaliação sobre a visão primitiva da cotação.
+ *
+ * @see AlertRuleCompiler
+ */
+@FunctionalInterface
+public interface AlertPredicate {
+
+    boolean test(QuoteView quote);
+}
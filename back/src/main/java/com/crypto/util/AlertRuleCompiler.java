@@ -0,0 +1,102 @@
+package com.crypto.util;
+
+import com.crypto.model.AlertRule;
+
+import java.util.function.Function;
+
+/**
+ * ⚡ Compila uma {@link AlertRule} em um predicado especializado.
+ *
+ * O switch por tipo e o unboxing de BigDecimal acontecem uma única vez, na
+ * compilação; cada classe gerada é final, guarda o limite já em double e
+ * faz uma só comparação sobre a {@link QuoteView}.
+ *
+ * Regras de indicador dependem de estado externo e são resolvidas pela
+ * fábrica recebida.
+ */
+public final class AlertRuleCompiler {
+
+    public static final AlertPredicate NEVER = quote -> false;
+
+    private AlertRuleCompiler() {}
+
+    public static AlertPredicate compile(AlertRule rule, Function<AlertRule, AlertPredicate> indicators) {
+        if (rule == null || rule.getAlertType() == null) {
+            return NEVER;
+        }
+
+        if (rule.getAlertType().isIndicator()) {
+            return indicators.apply(rule);
+        }
+
+        if (rule.getThresholdValue() == null) {
+            return NEVER;
+        }
+
+        double threshold = rule.getThresholdValue().doubleValue();
+
+        return switch (rule.getAlertType()) {
+            case PRICE_INCREASE -> new PriceAtLeast(threshold);
+            case PRICE_DECREASE -> new PriceAtMost(threshold);
+            case VOLUME_SPIKE -> new VolumeAtLeast(threshold);
+            case MARKET_CAP -> new MarketCapAtLeast(threshold);
+            case PERCENT_CHANGE_24H -> threshold < 0
+                    ? new Change24hAtMost(threshold)
+                    : new Change24hAtLeast(threshold);
+            default -> NEVER;
+        };
+    }
+
+
+    // ================================================
+    // 🔧 PREDICADOS ESPECIALIZADOS
+    // ================================================
+
+    static final class PriceAtLeast implements AlertPredicate {
+        private final double threshold;
+        PriceAtLeast(double threshold) { this.threshold = threshold; }
+
+        @Override
+        public boolean test(QuoteView quote) { return quote.price() >= threshold; }
+    }
+
+    static final class PriceAtMost implements AlertPredicate {
+        private final double threshold;
+        PriceAtMost(double threshold) { this.threshold = threshold; }
+
+        @Override
+        public boolean test(QuoteView quote) { return quote.price() <= threshold; }
+    }
+
+    static final class VolumeAtLeast implements AlertPredicate {
+        private final double threshold;
+        VolumeAtLeast(double threshold) { this.threshold = threshold; }
+
+        @Override
+        public boolean test(QuoteView quote) { return quote.volume() >= threshold; }
+    }
+
+    static final class MarketCapAtLeast implements AlertPredicate {
+        private final double threshold;
+        MarketCapAtLeast(double threshold) { this.threshold = threshold; }
+
+        @Override
+        public boolean test(QuoteView quote) { return quote.marketCap() >= threshold; }
+    }
+
+    static final class Change24hAtLeast implements AlertPredicate {
+        private final double threshold;
+        Change24hAtLeast(double threshold) { this.threshold = threshold; }
+
+        @Override
+        public boolean test(QuoteView quote) { return quote.change24h() >= threshold; }
+    }
+
+    static final class Change24hAtMost implements AlertPredicate {
+        private final double threshold;
+        Change24hAtMost(double threshold) { this.threshold = threshold; }
+
+        @Override
+        public boolean test(QuoteView quote) { return quote.change24h() <= threshold; }
+    }
+}
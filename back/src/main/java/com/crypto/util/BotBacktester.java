@@ -0,0 +1,287 @@
+package com.crypto.util;
+
+import com.crypto.model.TradingBot.TradingStrategy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 🧪 Replay das estratégias de bot sobre uma série histórica.
+ *
+ * - Mesmas decisões do motor ao vivo ({@link BotStrategyKernel})
+ * - Série e lotes FIFO em arrays primitivos, sem alocação por ponto
+ * - Cada combinação de parâmetros é independente: o sweep roda em paralelo
+ *   num {@link ForkJoinPool}
+ *
+ * Semântica do motor: grid age quando o preço cruza uma linha (muda de nível),
+ * DCA compra quando o intervalo venceu, stop loss/take profit parte de uma
+ * posição de {@code amount} comprada no primeiro ponto e encerra o bot na saída.
+ * CUSTOM roda a {@link BotStrategy} compilada a cada ponto; os sinais são
+ * calculados uma vez por sweep ({@link SignalSeries}) e compartilhados.
+ */
+public final class BotBacktester {
+
+    private static final int PARAMS_PER_TASK = 16;
+
+    private final long[] times;
+    private final double[] prices;
+
+    public BotBacktester(long[] times, double[] prices) {
+        if (times.length != prices.length) throw new IllegalArgumentException("Série inconsistente");
+        this.times = times;
+        this.prices = prices;
+    }
+
+    public int size() {
+        return prices.length;
+    }
+
+    /**
+     * Executa todas as combinações em paralelo; resultados na mesma ordem da entrada.
+     */
+    public Result[] runAll(List<Params> params, ForkJoinPool pool) {
+        Result[] results = new Result[params.size()];
+        SignalSeries signals = signalsFor(params);
+        pool.invoke(new SweepTask(params, signals, results, 0, params.size()));
+        return results;
+    }
+
+    public Result run(Params p) {
+        return run(p, signalsFor(List.of(p)));
+    }
+
+    /**
+     * União dos sinais lidos pelas estratégias CUSTOM do sweep.
+     */
+    private SignalSeries signalsFor(List<Params> params) {
+        List<SignalKey> keys = new ArrayList<>();
+        for (Params p : params) {
+            if (p.custom() != null) keys.addAll(p.custom().signals());
+        }
+        return keys.isEmpty() ? null : SignalSeries.compute(times, prices, keys);
+    }
+
+    private Result run(Params p, SignalSeries signals) {
+        Book book = new Book();
+        int n = prices.length;
+        if (n == 0) return book.result(0);
+
+        int prevLevel = Integer.MIN_VALUE;
+        long lastDca = BotStrategyKernel.NEVER;
+        double entry = prices[0];
+        boolean stopped = false;
+
+        // Só CUSTOM lê sinais; cursor e visões próprios por replay (combinações rodam em paralelo)
+        IndicatorView none = SignalSnapshot.EMPTY;
+        SignalSeries.Cursor cursor = signals != null ? signals.cursor() : null;
+        BotTickView tick = null;
+        OrderIntent intent = null;
+        if (p.strategy() == TradingStrategy.CUSTOM) {
+            if (p.custom() == null) throw new IllegalArgumentException("CUSTOM sem estratégia compilada");
+            tick = new BotTickView();
+            intent = new OrderIntent();
+        }
+
+        if (p.strategy() == TradingStrategy.STOP_LOSS) {
+            book.buy(p.amount(), entry);
+        }
+
+        for (int i = 0; i < n && !stopped; i++) {
+            double price = prices[i];
+
+            switch (p.strategy()) {
+                case GRID_TRADING -> {
+                    int level = BotStrategyKernel.gridLevel(p.gridLower(), p.gridUpper(), p.gridLevels(), price);
+                    if (prevLevel != Integer.MIN_VALUE && level != prevLevel) {
+                        int signal = BotStrategyKernel.gridSignal(level, p.gridLevels());
+                        if (signal == BotStrategyKernel.BUY) book.buy(p.amount(), price);
+                        else if (signal == BotStrategyKernel.SELL) book.sell(p.amount(), price);
+                    }
+                    prevLevel = level;
+                }
+                case DCA -> {
+                    if (BotStrategyKernel.dcaDue(lastDca, times[i], p.dcaIntervalMinutes())) {
+                        book.buy(p.amount() / price, price);
+                        lastDca = times[i];
+                    }
+                }
+                case STOP_LOSS -> {
+                    int exit = BotStrategyKernel.exitSignal(entry, p.stopLossPercent(), p.takeProfitPercent(), price);
+                    if (exit != BotStrategyKernel.EXIT_NONE) {
+                        book.sell(book.position, price);
+                        stopped = true;
+                    }
+                }
+                case CUSTOM -> {
+                    tick.quote(times[i], price, Double.NaN, Double.NaN)
+                            .position(book.position, book.cost, entry);
+
+                    p.custom().onTick(tick, cursor != null ? cursor.at(i) : none, intent.hold());
+
+                    if (intent.side() == BotStrategyKernel.BUY) book.buy(intent.quantity(), price);
+                    else if (intent.side() == BotStrategyKernel.SELL) book.sell(intent.quantity(), price);
+                }
+                default -> throw new IllegalArgumentException(p.strategy() + " não suportada no backtest");
+            }
+
+            book.mark(price);
+        }
+
+        return book.result(prices[n - 1]);
+    }
+
+
+    // ================================================
+    // 🔧 TIPOS
+    // ================================================
+
+    /**
+     * Uma combinação de parâmetros. {@code amount} é a quantidade por linha
+     * (grid), o valor por compra (DCA) ou a posição inicial (stop loss);
+     * CUSTOM usa a quantidade da própria regra em {@code custom}.
+     * Campos que não se aplicam à estratégia são ignorados.
+     */
+    public record Params(TradingStrategy strategy,
+                         double gridLower, double gridUpper, int gridLevels,
+                         double amount,
+                         int dcaIntervalMinutes,
+                         double stopLossPercent, double takeProfitPercent,
+                         BotStrategy custom) {}
+
+    /**
+     * @param realizedPnl   lucro das vendas (FIFO)
+     * @param unrealizedPnl posição aberta marcada no último preço
+     * @param maxDrawdown   maior queda do PnL total a partir de um pico
+     */
+    public record Result(double realizedPnl, double unrealizedPnl, double maxDrawdown,
+                         int buys, int sells, int wins, int losses,
+                         double position, double costBasis) {
+
+        public double totalPnl() {
+            return realizedPnl + unrealizedPnl;
+        }
+
+        public int trades() {
+            return buys + sells;
+        }
+
+        public double winRate() {
+            int closed = wins + losses;
+            return closed == 0 ? 0 : (double) wins / closed;
+        }
+    }
+
+    /**
+     * Posição FIFO em arrays primitivos (fila com cabeça móvel).
+     */
+    private static final class Book {
+        double[] lotPrice = new double[16];
+        double[] lotQty = new double[16];
+        int head;
+        int tail;
+
+        double position;
+        double cost;
+        double realized;
+        double peak;
+        double maxDrawdown;
+        int buys, sells, wins, losses;
+
+        void buy(double qty, double price) {
+            if (!(qty > 0)) return;
+
+            if (tail == lotQty.length) grow();
+            lotPrice[tail] = price;
+            lotQty[tail] = qty;
+            tail++;
+
+            position += qty;
+            cost += qty * price;
+            buys++;
+        }
+
+        /** Venda bloqueada se a posição não cobre a quantidade (como no motor). */
+        void sell(double qty, double price) {
+            if (!(qty > 0) || position + 1e-12 < qty) return;
+
+            double remaining = qty;
+            double profit = 0;
+
+            while (remaining > 1e-12 && head < tail) {
+                double take = Math.min(lotQty[head], remaining);
+                profit += (price - lotPrice[head]) * take;
+                cost -= take * lotPrice[head];
+                lotQty[head] -= take;
+                remaining -= take;
+                if (lotQty[head] <= 1e-12) head++;
+            }
+
+            position -= qty;
+            realized += profit;
+            sells++;
+            if (profit > 0) wins++;
+            else if (profit < 0) losses++;
+        }
+
+        void mark(double price) {
+            double equity = realized + position * price - cost;
+            if (equity > peak) peak = equity;
+            if (peak - equity > maxDrawdown) maxDrawdown = peak - equity;
+        }
+
+        Result result(double lastPrice) {
+            return new Result(realized, position * lastPrice - cost, maxDrawdown,
+                    buys, sells, wins, losses, position, cost);
+        }
+
+        private void grow() {
+            // Compacta se a cabeça já andou metade; senão dobra
+            int live = tail - head;
+            if (head > lotQty.length / 2) {
+                System.arraycopy(lotPrice, head, lotPrice, 0, live);
+                System.arraycopy(lotQty, head, lotQty, 0, live);
+            } else {
+                double[] np = new double[lotQty.length * 2];
+                double[] nq = new double[lotQty.length * 2];
+                System.arraycopy(lotPrice, head, np, 0, live);
+                System.arraycopy(lotQty, head, nq, 0, live);
+                lotPrice = np;
+                lotQty = nq;
+            }
+            head = 0;
+            tail = live;
+        }
+    }
+
+    private final class SweepTask extends RecursiveAction {
+        private final List<Params> params;
+        private final SignalSeries signals;
+        private final Result[] results;
+        private final int from;
+        private final int to;
+
+        SweepTask(List<Params> params, SignalSeries signals, Result[] results, int from, int to) {
+            this.params = params;
+            this.signals = signals;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARAMS_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    results[i] = run(params.get(i), signals);
+                }
+                return;
+            }
+
+            int mid = (from + to) >>> 1;
+            invokeAll(new SweepTask(params, signals, results, from, mid),
+                    new SweepTask(params, signals, results, mid, to));
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.crypto.util;
+
+import java.util.Arrays;
+
+/**
+ * 📈 Métricas de desempenho de um bot, atualizadas em O(1) por evento.
+ *
+ * - PnL realizado/não realizado a partir de posição e custo base
+ * - Drawdown máximo sobre a curva de patrimônio (realizado + marcação)
+ * - Média e variância dos retornos por venda via Welford (Sharpe por trade)
+ * - Tempo exposto (com posição aberta)
+ * - Curva de patrimônio compacta: no máximo {@code curveCapacity} pontos;
+ *   ao encher, descarta um ponto sim outro não e dobra o passo de amostragem
+ *
+ * Trades com id já visto são ignorados (reconstrução + append concorrentes).
+ * Thread-safe via monitor.
+ */
+public final class BotPerformance {
+
+    private long lastTradeId = Long.MIN_VALUE;
+
+    private double position;
+    private double cost;
+    private double realized;
+    private int buys, sells, wins, losses;
+    private double winSum, lossSum;
+
+    // Welford dos retornos por venda
+    private long returnCount;
+    private double returnMean;
+    private double returnM2;
+
+    private double peak;
+    private double maxDrawdown;
+
+    private long firstMillis = Long.MIN_VALUE;
+    private long lastMillis;
+    private long exposedMillis;
+
+    private final long[] curveTimes;
+    private final double[] curveEquity;
+    private int curveSize;
+    private int curveStride = 1;
+    private long curveSkipped;
+
+    public BotPerformance(int curveCapacity) {
+        if (curveCapacity < 4 || curveCapacity % 2 != 0) {
+            throw new IllegalArgumentException("curveCapacity deve ser par e >= 4");
+        }
+        curveTimes = new long[curveCapacity];
+        curveEquity = new double[curveCapacity];
+    }
+
+    /**
+     * @param costBasis custo FIFO da quantidade vendida (ignorado em compras)
+     */
+    public synchronized void onTrade(long tradeId, long timeMillis, boolean buy,
+                                     double price, double quantity, double profit, double costBasis) {
+        if (tradeId <= lastTradeId) return;
+        lastTradeId = tradeId;
+
+        advance(timeMillis);
+
+        if (buy) {
+            position += quantity;
+            cost += price * quantity;
+            buys++;
+        } else {
+            position -= quantity;
+            cost -= costBasis;
+            if (position <= 1e-12) {
+                position = 0;
+                cost = 0;
+            }
+            realized += profit;
+            sells++;
+
+            if (profit > 0) { wins++; winSum += profit; }
+            else if (profit < 0) { losses++; lossSum += profit; }
+
+            if (costBasis > 0) addReturn(profit / costBasis);
+        }
+
+        mark(timeMillis, price);
+    }
+
+    /**
+     * Marca a posição a mercado (tick de preço) sem trade.
+     */
+    public synchronized void onPrice(long timeMillis, double price) {
+        if (firstMillis == Long.MIN_VALUE) return;
+        advance(timeMillis);
+        mark(timeMillis, price);
+    }
+
+    /** Maior id de trade já aplicado ({@code Long.MIN_VALUE} sem trades) */
+    public synchronized long lastTradeId() {
+        return lastTradeId;
+    }
+
+    public synchronized Snapshot snapshot(long nowMillis, double price) {
+        double unrealized = position > 0 && !Double.isNaN(price) ? position * price - cost : 0;
+
+        long exposed = exposedMillis + (position > 0 && nowMillis > lastMillis ? nowMillis - lastMillis : 0);
+        long lifetime = firstMillis == Long.MIN_VALUE ? 0 : Math.max(0, nowMillis - firstMillis);
+
+        double stdDev = returnCount > 1 ? Math.sqrt(returnM2 / (returnCount - 1)) : Double.NaN;
+        double sharpe = stdDev > 0 ? returnMean / stdDev : Double.NaN;
+
+        return new Snapshot(
+                realized, unrealized, maxDrawdown,
+                buys, sells, wins, losses,
+                wins == 0 ? 0 : winSum / wins,
+                losses == 0 ? 0 : lossSum / losses,
+                returnCount == 0 ? Double.NaN : returnMean, stdDev, sharpe,
+                exposed, lifetime,
+                position, position > 0 ? cost / position : Double.NaN,
+                Arrays.copyOf(curveTimes, curveSize), Arrays.copyOf(curveEquity, curveSize));
+    }
+
+    public record Snapshot(double realizedPnl, double unrealizedPnl, double maxDrawdown,
+                           int buys, int sells, int wins, int losses,
+                           double averageWin, double averageLoss,
+                           double returnMean, double returnStdDev, double sharpe,
+                           long exposedMillis, long lifetimeMillis,
+                           double position, double averageCost,
+                           long[] curveTimes, double[] curveEquity) {
+
+        public double totalPnl() { return realizedPnl + unrealizedPnl; }
+
+        public double winRate() {
+            int closed = wins + losses;
+            return closed == 0 ? 0 : (double) wins / closed;
+        }
+
+        public double exposure() {
+            return lifetimeMillis == 0 ? 0 : (double) exposedMillis / lifetimeMillis;
+        }
+    }
+
+
+    // ================================================
+    // 🔧 INTERNOS
+    // ================================================
+
+    private void advance(long timeMillis) {
+        if (firstMillis == Long.MIN_VALUE) {
+            firstMillis = timeMillis;
+        } else if (position > 0 && timeMillis > lastMillis) {
+            exposedMillis += timeMillis - lastMillis;
+        }
+        lastMillis = Math.max(lastMillis, timeMillis);
+    }
+
+    private void addReturn(double r) {
+        returnCount++;
+        double delta = r - returnMean;
+        returnMean += delta / returnCount;
+        returnM2 += delta * (r - returnMean);
+    }
+
+    private void mark(long timeMillis, double price) {
+        double equity = realized + position * price - cost;
+        if (equity > peak) peak = equity;
+        if (peak - equity > maxDrawdown) maxDrawdown = peak - equity;
+
+        appendCurve(timeMillis, equity);
+    }
+
+    private void appendCurve(long timeMillis, double equity) {
+        if (curveSkipped++ % curveStride != 0) return;
+
+        if (curveSize == curveTimes.length) {
+            // Decimação: mantém os pontos pares e passa a amostrar com o dobro do passo
+            for (int i = 0; i < curveSize / 2; i++) {
+                curveTimes[i] = curveTimes[i * 2];
+                curveEquity[i] = curveEquity[i * 2];
+            }
+            curveSize /= 2;
+            curveStride *= 2;
+        }
+
+        curveTimes[curveSize] = timeMillis;
+        curveEquity[curveSize] = equity;
+        curveSize++;
+    }
+}
@@ -0,0 +1,452 @@
+package com.crypto.util;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+/**
+ * 🧩 Compila a especificação de um bot CUSTOM em uma {@link BotStrategy}.
+ *
+ * Formato (uma chave por linha ou separadas por ';'):
+ * <pre>
+ * buy: rsi(14) < ${low} && price < sma(50)
+ * sell: pnlPct >= ${tp} || rsi(14) > 70
+ * quantity: 0.01
+ * params: low=30, tp=5
+ * </pre>
+ *
+ * Operandos: números, {@code ${param}}, price, volume, change24h, position,
+ * avgCost, entry, pnlPct, rsi(n), sma(n), zscore(n), change(minutos).
+ * Comparações: {@code < <= > >=}; combinações: {@code &&} (precede) e {@code ||}.
+ *
+ * Parsing, parâmetros e constantes são resolvidos uma vez; cada nó gerado
+ * é uma classe final que só lê primitivos da {@link BotTickView} e da
+ * {@link IndicatorView} — nada é interpretado por tick.
+ */
+public final class BotRuleCompiler {
+
+    public static final int MIN_PERIOD = 2;
+    public static final int MAX_PERIOD = 1000;
+
+    private static final String BUY_REASON = "Regra customizada - Compra";
+    private static final String SELL_REASON = "Regra customizada - Venda";
+
+    private BotRuleCompiler() {}
+
+    /**
+     * Especificação já separada por chave; expressões ainda em texto.
+     */
+    public record Spec(String buy, String sell, String quantity, Map<String, Double> params) {}
+
+    public static BotStrategy compile(String text) {
+        return compile(parse(text), Map.of());
+    }
+
+    /**
+     * @param overrides valores que substituem os {@code params} da especificação
+     *                  (usado pelo sweep do backtest)
+     */
+    public static RuleStrategy compile(Spec spec, Map<String, Double> overrides) {
+        Map<String, Double> params = new LinkedHashMap<>(spec.params());
+        params.putAll(overrides);
+
+        Set<SignalKey> signals = new LinkedHashSet<>();
+        Condition buy = spec.buy() != null ? new Parser(spec.buy(), params, signals).expression() : null;
+        Condition sell = spec.sell() != null ? new Parser(spec.sell(), params, signals).expression() : null;
+
+        if (buy == null && sell == null) {
+            throw new IllegalArgumentException("Estratégia precisa de 'buy' e/ou 'sell'");
+        }
+        if (spec.quantity() == null) {
+            throw new IllegalArgumentException("'quantity' é obrigatório");
+        }
+
+        double quantity = new Parser(spec.quantity(), params, signals).constant();
+        if (!(quantity > 0)) {
+            throw new IllegalArgumentException("'quantity' deve ser positivo");
+        }
+
+        return new RuleStrategy(buy, sell, quantity, params, List.copyOf(signals));
+    }
+
+    public static Spec parse(String text) {
+        if (text == null || text.isBlank()) {
+            throw new IllegalArgumentException("Especificação da estratégia vazia");
+        }
+
+        String buy = null;
+        String sell = null;
+        String quantity = null;
+        Map<String, Double> params = new LinkedHashMap<>();
+
+        for (String line : text.split("[;\\n]")) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+
+            int colon = line.indexOf(':');
+            if (colon < 0) throw new IllegalArgumentException("Linha sem 'chave:' → " + line);
+
+            String key = line.substring(0, colon).trim().toLowerCase();
+            String value = line.substring(colon + 1).trim();
+
+            switch (key) {
+                case "buy" -> buy = value;
+                case "sell" -> sell = value;
+                case "quantity" -> quantity = value;
+                case "params" -> parseParams(value, params);
+                default -> throw new IllegalArgumentException("Chave desconhecida: " + key);
+            }
+        }
+
+        return new Spec(buy, sell, quantity, params);
+    }
+
+    private static void parseParams(String value, Map<String, Double> params) {
+        for (String pair : value.split(",")) {
+            if (pair.isBlank()) continue;
+
+            int eq = pair.indexOf('=');
+            if (eq < 0) throw new IllegalArgumentException("Parâmetro sem valor: " + pair.trim());
+
+            String name = pair.substring(0, eq).trim();
+            try {
+                params.put(name, Double.parseDouble(pair.substring(eq + 1).trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Valor inválido para " + name);
+            }
+        }
+    }
+
+
+    // ================================================
+    // 🧩 ESTRATÉGIA COMPILADA
+    // ================================================
+
+    /**
+     * Vende (até a posição) quando a regra de venda casa; senão compra
+     * quando a de compra casa.
+     */
+    public static final class RuleStrategy implements BotStrategy {
+        private final Condition buy;
+        private final Condition sell;
+        private final double quantity;
+        private final Map<String, Double> params;
+        private final List<SignalKey> signals;
+
+        RuleStrategy(Condition buy, Condition sell, double quantity,
+                     Map<String, Double> params, List<SignalKey> signals) {
+            this.buy = buy;
+            this.sell = sell;
+            this.quantity = quantity;
+            this.params = Collections.unmodifiableMap(params);
+            this.signals = signals;
+        }
+
+        @Override
+        public void onTick(BotTickView tick, IndicatorView indicators, OrderIntent intent) {
+            if (sell != null && tick.position() > 0 && sell.test(tick, indicators)) {
+                intent.sell(Math.min(quantity, tick.position()), SELL_REASON);
+                return;
+            }
+            if (buy != null && buy.test(tick, indicators)) {
+                intent.buy(quantity, BUY_REASON);
+            }
+        }
+
+        @Override
+        public Collection<SignalKey> signals() { return signals; }
+
+        /** Parâmetros resolvidos na compilação */
+        public Map<String, Double> params() { return params; }
+    }
+
+
+    // ================================================
+    // 🔧 NÓS ESPECIALIZADOS
+    // ================================================
+
+    interface Condition {
+        boolean test(BotTickView tick, IndicatorView ind);
+    }
+
+    interface Operand {
+        double value(BotTickView tick, IndicatorView ind);
+    }
+
+    interface PeriodOperand extends Operand {
+        int period();
+    }
+
+    static final class And implements Condition {
+        private final Condition left, right;
+        And(Condition left, Condition right) { this.left = left; this.right = right; }
+
+        @Override
+        public boolean test(BotTickView t, IndicatorView i) { return left.test(t, i) && right.test(t, i); }
+    }
+
+    static final class Or implements Condition {
+        private final Condition left, right;
+        Or(Condition left, Condition right) { this.left = left; this.right = right; }
+
+        @Override
+        public boolean test(BotTickView t, IndicatorView i) { return left.test(t, i) || right.test(t, i); }
+    }
+
+    static final class Less implements Condition {
+        private final Operand left, right;
+        Less(Operand left, Operand right) { this.left = left; this.right = right; }
+
+        @Override
+        public boolean test(BotTickView t, IndicatorView i) { return left.value(t, i) < right.value(t, i); }
+    }
+
+    static final class LessOrEqual implements Condition {
+        private final Operand left, right;
+        LessOrEqual(Operand left, Operand right) { this.left = left; this.right = right; }
+
+        @Override
+        public boolean test(BotTickView t, IndicatorView i) { return left.value(t, i) <= right.value(t, i); }
+    }
+
+    static final class Greater implements Condition {
+        private final Operand left, right;
+        Greater(Operand left, Operand right) { this.left = left; this.right = right; }
+
+        @Override
+        public boolean test(BotTickView t, IndicatorView i) { return left.value(t, i) > right.value(t, i); }
+    }
+
+    static final class GreaterOrEqual implements Condition {
+        private final Operand left, right;
+        GreaterOrEqual(Operand left, Operand right) { this.left = left; this.right = right; }
+
+        @Override
+        public boolean test(BotTickView t, IndicatorView i) { return left.value(t, i) >= right.value(t, i); }
+    }
+
+    static final class Const implements Operand {
+        private final double value;
+        Const(double value) { this.value = value; }
+
+        @Override
+        public double value(BotTickView t, IndicatorView i) { return value; }
+    }
+
+    static final class Rsi implements PeriodOperand {
+        private final int period;
+        Rsi(int period) { this.period = period; }
+
+        @Override
+        public int period() { return period; }
+
+        @Override
+        public double value(BotTickView t, IndicatorView i) { return i.rsi(period); }
+    }
+
+    static final class Sma implements PeriodOperand {
+        private final int period;
+        Sma(int period) { this.period = period; }
+
+        @Override
+        public int period() { return period; }
+
+        @Override
+        public double value(BotTickView t, IndicatorView i) { return i.sma(period); }
+    }
+
+    static final class ZScore implements PeriodOperand {
+        private final int period;
+        ZScore(int period) { this.period = period; }
+
+        @Override
+        public int period() { return period; }
+
+        @Override
+        public double value(BotTickView t, IndicatorView i) { return i.priceZScore(period); }
+    }
+
+    static final class Change implements Operand {
+        private final long windowMillis;
+        Change(long windowMillis) { this.windowMillis = windowMillis; }
+
+        @Override
+        public double value(BotTickView t, IndicatorView i) { return i.percentChange(windowMillis); }
+    }
+
+    // Campos do tick: sem estado, uma instância basta
+    private static final Operand PRICE = (t, i) -> t.price();
+    private static final Operand VOLUME = (t, i) -> t.volume();
+    private static final Operand CHANGE_24H = (t, i) -> t.change24h();
+    private static final Operand POSITION = (t, i) -> t.position();
+    private static final Operand AVG_COST = (t, i) -> t.averageCost();
+    private static final Operand ENTRY = (t, i) -> t.entryPrice();
+    private static final Operand PNL_PCT = (t, i) -> t.pnlPercent();
+
+
+    // ================================================
+    // 🔧 PARSER (descendente recursivo, só na compilação)
+    // ================================================
+
+    private static final class Parser {
+        private final String src;
+        private final Map<String, Double> params;
+        private final Set<SignalKey> signals;
+        private int pos;
+
+        Parser(String src, Map<String, Double> params, Set<SignalKey> signals) {
+            this.src = src;
+            this.params = params;
+            this.signals = signals;
+        }
+
+        Condition expression() {
+            Condition c = conjunction();
+            while (consume("||")) c = new Or(c, conjunction());
+            end();
+            return c;
+        }
+
+        /** Quantidade e outros valores que precisam ser constantes */
+        double constant() {
+            Operand op = operand();
+            end();
+            if (!(op instanceof Const c)) throw error("esperado número ou parâmetro");
+            return c.value;
+        }
+
+        private Condition conjunction() {
+            Condition c = comparison();
+            while (consume("&&")) c = new And(c, comparison());
+            return c;
+        }
+
+        private Condition comparison() {
+            Operand left = operand();
+
+            if (consume("<=")) return new LessOrEqual(left, operand());
+            if (consume(">=")) return new GreaterOrEqual(left, operand());
+            if (consume("<")) return new Less(left, operand());
+            if (consume(">")) return new Greater(left, operand());
+
+            throw error("esperado operador de comparação");
+        }
+
+        private Operand operand() {
+            skipSpaces();
+            if (pos >= src.length()) throw error("expressão incompleta");
+
+            char c = src.charAt(pos);
+
+            if (c == '$') {
+                expect("${");
+                String name = identifier();
+                expect("}");
+                Double value = params.get(name);
+                if (value == null) throw error("parâmetro sem valor: " + name);
+                return new Const(value);
+            }
+
+            if (c == '-' || c == '.' || Character.isDigit(c)) {
+                return new Const(number());
+            }
+
+            String name = identifier();
+            return switch (name) {
+                case "price" -> PRICE;
+                case "volume" -> VOLUME;
+                case "change24h" -> CHANGE_24H;
+                case "position" -> POSITION;
+                case "avgCost" -> AVG_COST;
+                case "entry" -> ENTRY;
+                case "pnlPct" -> PNL_PCT;
+                case "rsi" -> signal(new Rsi(period()), SignalKey::rsi);
+                case "sma" -> signal(new Sma(period()), SignalKey::sma);
+                case "zscore" -> signal(new ZScore(period()), SignalKey::zScore);
+                case "change" -> {
+                    Change change = new Change(minutes() * 60_000L);
+                    signals.add(SignalKey.change(change.windowMillis));
+                    yield change;
+                }
+                default -> throw error("operando desconhecido: " + name);
+            };
+        }
+
+        private <T extends PeriodOperand> T signal(T operand, IntFunction<SignalKey> key) {
+            signals.add(key.apply(operand.period()));
+            return operand;
+        }
+
+        private int period() {
+            int period = (int) argument();
+            if (period < MIN_PERIOD || period > MAX_PERIOD) {
+                throw error("período deve estar entre " + MIN_PERIOD + " e " + MAX_PERIOD);
+            }
+            return period;
+        }
+
+        private long minutes() {
+            long minutes = (long) argument();
+            if (minutes < 1) throw error("janela deve ser de pelo menos 1 minuto");
+            return minutes;
+        }
+
+        private double argument() {
+            expect("(");
+            Operand op = operand();
+            if (!(op instanceof Const c)) throw error("argumento deve ser número ou parâmetro");
+            expect(")");
+            return c.value;
+        }
+
+        private String identifier() {
+            skipSpaces();
+            int start = pos;
+            while (pos < src.length() && (Character.isLetterOrDigit(src.charAt(pos)) || src.charAt(pos) == '_')) pos++;
+            if (start == pos) throw error("esperado identificador");
+            return src.substring(start, pos);
+        }
+
+        private double number() {
+            int start = pos;
+            if (src.charAt(pos) == '-') pos++;
+            while (pos < src.length() && (Character.isDigit(src.charAt(pos)) || src.charAt(pos) == '.')) pos++;
+            try {
+                return Double.parseDouble(src.substring(start, pos));
+            } catch (NumberFormatException e) {
+                throw error("número inválido");
+            }
+        }
+
+        private boolean consume(String token) {
+            skipSpaces();
+            if (src.startsWith(token, pos)) {
+                pos += token.length();
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(String token) {
+            if (!consume(token)) throw error("esperado '" + token + "'");
+        }
+
+        private void end() {
+            skipSpaces();
+            if (pos < src.length()) throw error("sobrou texto");
+        }
+
+        private void skipSpaces() {
+            while (pos < src.length() && Character.isWhitespace(src.charAt(pos))) pos++;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Regra inválida (" + message + ", posição " + pos + "): " + src);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.crypto.util;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 🧩 Estratégia plugável de bot (CUSTOM).
+ *
+ * Recebe o tick e os indicadores da moeda e preenche a intenção de ordem;
+ * não deixar nada equivale a HOLD. Implementações não devem alocar nem
+ * guardar estado por tick: a mesma instância roda no motor paralelo e no backtest.
+ *
+ * Os indicadores vêm da camada de sinais compartilhada: só as chaves
+ * declaradas em {@link #signals()} são calculadas (as demais leem NaN).
+ *
+ * @see BotRuleCompiler
+ */
+@FunctionalInterface
+public interface BotStrategy {
+
+    void onTick(BotTickView tick, IndicatorView indicators, OrderIntent intent);
+
+    /** Sinais lidos pela estratégia; registrados por moeda enquanto o bot roda */
+    default Collection<SignalKey> signals() {
+        return List.of();
+    }
+}
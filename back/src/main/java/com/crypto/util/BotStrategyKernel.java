@@ -0,0 +1,63 @@
+package com.crypto.util;
+
+/**
+ * 🧠 Decisões das estratégias de bot em primitivos, sem JPA e sem relógio.
+ *
+ * Usado pelo motor ao vivo e pelo backtest, para que os dois sigam
+ * exatamente a mesma regra. Valores monetários continuam a cargo de quem chama.
+ */
+public final class BotStrategyKernel {
+
+    public static final int SELL = -1;
+    public static final int HOLD = 0;
+    public static final int BUY = 1;
+
+    public static final int EXIT_NONE = 0;
+    public static final int EXIT_STOP_LOSS = 1;
+    public static final int EXIT_TAKE_PROFIT = 2;
+
+    public static final long NEVER = Long.MIN_VALUE;
+
+    private BotStrategyKernel() {}
+
+    /**
+     * @return nível do grid (0..levels; o topo da faixa é o nível {@code levels}),
+     *         ou -1 fora da faixa
+     */
+    public static int gridLevel(double lower, double upper, int levels, double price) {
+        if (price < lower || price > upper) return -1;
+
+        double gridSize = (upper - lower) / levels;
+        return (int) Math.floor((price - lower) / gridSize);
+    }
+
+    /**
+     * Terço inferior compra, terço superior vende, meio espera.
+     */
+    public static int gridSignal(int level, int levels) {
+        if (level < 0) return HOLD;
+        if (level < levels / 3) return BUY;
+        if (level > levels * 2 / 3) return SELL;
+        return HOLD;
+    }
+
+    /**
+     * @param lastMillis última compra DCA, ou {@link #NEVER}
+     */
+    public static boolean dcaDue(long lastMillis, long nowMillis, int intervalMinutes) {
+        if (lastMillis == NEVER) return true;
+        return (nowMillis - lastMillis) / 60_000 >= intervalMinutes;
+    }
+
+    /**
+     * @param stopLossPercent   percentual positivo, ou NaN
+     * @param takeProfitPercent percentual positivo, ou NaN
+     */
+    public static int exitSignal(double entry, double stopLossPercent, double takeProfitPercent, double price) {
+        double pct = (price - entry) / entry * 100.0;
+
+        if (!Double.isNaN(stopLossPercent) && pct <= -stopLossPercent) return EXIT_STOP_LOSS;
+        if (!Double.isNaN(takeProfitPercent) && pct >= takeProfitPercent) return EXIT_TAKE_PROFIT;
+        return EXIT_NONE;
+    }
+}
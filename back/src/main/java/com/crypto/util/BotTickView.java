@@ -0,0 +1,52 @@
+package com.crypto.util;
+
+/**
+ * 🤖 Visão primitiva de um tick para as estratégias de bot.
+ *
+ * Cotação + posição do bot em doubles. Mutável e reutilizável: o motor
+ * preenche uma instância por tarefa e o backtest uma por replay.
+ */
+public final class BotTickView {
+
+    private double price = Double.NaN;
+    private double volume = Double.NaN;
+    private double change24h = Double.NaN;
+    private long timeMillis;
+
+    private double position;
+    private double cost;
+    private double entryPrice = Double.NaN;
+
+    public BotTickView quote(long timeMillis, double price, double volume, double change24h) {
+        this.timeMillis = timeMillis;
+        this.price = price;
+        this.volume = volume;
+        this.change24h = change24h;
+        return this;
+    }
+
+    public BotTickView position(double quantity, double cost, double entryPrice) {
+        this.position = quantity;
+        this.cost = cost;
+        this.entryPrice = entryPrice;
+        return this;
+    }
+
+    public double price() { return price; }
+    public double volume() { return volume; }
+    public double change24h() { return change24h; }
+    public long timeMillis() { return timeMillis; }
+    public double position() { return position; }
+    public double entryPrice() { return entryPrice; }
+
+    /** Preço médio da posição em aberto, ou NaN sem posição */
+    public double averageCost() {
+        return position > 0 ? cost / position : Double.NaN;
+    }
+
+    /** Resultado percentual da posição em aberto, ou NaN sem posição */
+    public double pnlPercent() {
+        double avg = averageCost();
+        return avg > 0 ? (price - avg) / avg * 100.0 : Double.NaN;
+    }
+}
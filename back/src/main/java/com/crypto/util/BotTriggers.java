@@ -0,0 +1,88 @@
+package com.crypto.util;
+
+import com.crypto.model.TradingBot;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * 🎯 Níveis de preço de cada bot, calculados uma vez na inscrição.
+ *
+ * Alimentam o {@link PriceTriggerBook}: só os bots com nível cruzado no tick
+ * são avaliados. A estratégia continua sendo quem decide a ordem.
+ */
+public final class BotTriggers {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    // Folga para erro de ponto flutuante: o nível nunca é mais restrito
+    // que a decisão da estratégia
+    private static final BigDecimal ROUNDING_SLACK = new BigDecimal("0.00005");
+
+    private BotTriggers() {}
+
+    /**
+     * @param lines linhas de grid (disparam ao serem cruzadas)
+     * @param stop  nível de stop loss, ou NaN
+     * @param take  nível de take profit, ou NaN
+     */
+    public record Levels(double[] lines, double stop, double take) {}
+
+    /**
+     * @return níveis do bot, ou {@code null} se ele é guiado por tempo (DCA)
+     *         ou não tem parâmetros suficientes
+     */
+    public static Levels forBot(TradingBot bot) {
+        if (bot.getStrategy() == null) return null;
+
+        return switch (bot.getStrategy()) {
+            case GRID_TRADING -> grid(bot);
+            case STOP_LOSS -> stopLossTakeProfit(bot);
+            default -> null;
+        };
+    }
+
+    /**
+     * Só as linhas cujo cruzamento leva o preço a uma zona com ação
+     * (mesma regra de {@link BotStrategyKernel#gridSignal}).
+     */
+    static Levels grid(TradingBot bot) {
+        BigDecimal lower = bot.getGridLowerPrice();
+        BigDecimal upper = bot.getGridUpperPrice();
+        Integer levels = bot.getGridLevels();
+
+        if (lower == null || upper == null || levels == null || levels <= 0) return null;
+
+        double low = lower.doubleValue();
+        double gridSize = (upper.doubleValue() - low) / levels;
+
+        double[] lines = new double[levels + 1];
+        int n = 0;
+
+        for (int k = 0; k <= levels; k++) {
+            // subindo pela linha k o preço entra no nível k; descendo, no nível k-1
+            if (!isActionLevel(k, levels) && !isActionLevel(k - 1, levels)) continue;
+            lines[n++] = low + gridSize * k;
+        }
+
+        return new Levels(Arrays.copyOf(lines, n), Double.NaN, Double.NaN);
+    }
+
+    static Levels stopLossTakeProfit(TradingBot bot) {
+        BigDecimal entry = bot.getEntryPrice();
+        if (entry == null) return null;
+
+        double stop = bot.getStopLossPercent() == null ? Double.NaN
+                : entry.multiply(BigDecimal.ONE.subtract(bot.getStopLossPercent().divide(HUNDRED)).add(ROUNDING_SLACK)).doubleValue();
+        double take = bot.getTakeProfitPercent() == null ? Double.NaN
+                : entry.multiply(BigDecimal.ONE.add(bot.getTakeProfitPercent().divide(HUNDRED)).subtract(ROUNDING_SLACK)).doubleValue();
+
+        if (Double.isNaN(stop) && Double.isNaN(take)) return null;
+
+        return new Levels(new double[0], stop, take);
+    }
+
+    private static boolean isActionLevel(int level, int levels) {
+        return level <= levels && BotStrategyKernel.gridSignal(level, levels) != BotStrategyKernel.HOLD;
+    }
+}
@@ -0,0 +1,409 @@
+package com.crypto.util;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 📐 Estado incremental de indicadores de uma moeda.
+ *
+ * - Histórico em ring buffer de primitivos (tempo, preço, volume)
+ * - Indicadores compartilhados por parâmetro ("RSI:14", "SMA:21"...):
+ *   mil regras RSI(14) no BTC custam uma atualização por amostra + lookup
+ * - Indicador criado sob demanda é reconstruído a partir do histórico
+ * - Indicadores sem leitura por muito tempo são descartados
+ *
+ * Thread-safe via monitor. Valores indisponíveis (aquecimento) retornam NaN.
+ */
+public final class CoinIndicatorState implements IndicatorView {
+
+    private static final int REBUILD_EVERY = 1024;
+    private static final int EVICT_CHECK_EVERY = 256;
+
+    private final int capacity;
+    private final long idleSamples;
+
+    private final long[] times;
+    private final double[] prices;
+    private final double[] volumes;
+    private int head;
+    private int count;
+    private long samples;
+
+    /** Deslocamento usado durante o replay: x(k) passa a enxergar o passado */
+    private int viewOffset;
+
+    private final Map<String, Indicator> indicators = new HashMap<>();
+
+    public CoinIndicatorState(int capacity, long idleSamples) {
+        if (capacity < 4) throw new IllegalArgumentException("capacity deve ser >= 4");
+
+        this.capacity = capacity;
+        this.idleSamples = idleSamples;
+        this.times = new long[capacity];
+        this.prices = new double[capacity];
+        this.volumes = new double[capacity];
+    }
+
+    /**
+     * Registra uma amostra se passou o intervalo mínimo desde a anterior.
+     *
+     * @return true se a amostra foi aceita (indicadores atualizados)
+     */
+    public synchronized boolean offer(long nowMillis, double price, double volume, long minIntervalMillis) {
+        if (count > 0 && nowMillis - times[index(0)] < minIntervalMillis) {
+            return false;
+        }
+
+        times[head] = nowMillis;
+        prices[head] = price;
+        volumes[head] = volume;
+        head = (head + 1) % capacity;
+        if (count < capacity) count++;
+        samples++;
+
+        boolean rebuild = samples % REBUILD_EVERY == 0;
+
+        for (Indicator indicator : indicators.values()) {
+            if (rebuild) {
+                replay(indicator);
+            } else {
+                indicator.onSample();
+            }
+        }
+
+        if (samples % EVICT_CHECK_EVERY == 0) {
+            evictIdle();
+        }
+
+        return true;
+    }
+
+    public synchronized int size() { return count; }
+    public synchronized int indicatorCount() { return indicators.size(); }
+    public int capacity() { return capacity; }
+
+    public synchronized double latestPrice() {
+        return count == 0 ? Double.NaN : prices[index(0)];
+    }
+
+    /**
+     * RSI de Wilder; NaN até acumular {@code period} variações.
+     */
+    @Override
+    public synchronized double rsi(int period) {
+        Rsi rsi = (Rsi) acquire("RSI:" + period, () -> new Rsi(period));
+        return rsi.value;
+    }
+
+    /**
+     * Média móvel simples das últimas {@code period} amostras.
+     */
+    @Override
+    public synchronized double sma(int period) {
+        Sma sma = (Sma) acquire("SMA:" + period, () -> new Sma(period));
+        return sma.value;
+    }
+
+    /**
+     * Cruzamento de médias móveis simples na última amostra.
+     *
+     * @return +1 cruzou para cima, -1 cruzou para baixo, 0 sem cruzamento
+     */
+    public synchronized int maCross(int fastPeriod, int slowPeriod) {
+        Sma fast = (Sma) acquire("SMA:" + fastPeriod, () -> new Sma(fastPeriod));
+        Sma slow = (Sma) acquire("SMA:" + slowPeriod, () -> new Sma(slowPeriod));
+
+        if (Double.isNaN(fast.previous) || Double.isNaN(slow.previous)
+                || Double.isNaN(fast.value) || Double.isNaN(slow.value)) {
+            return 0;
+        }
+
+        boolean wasAbove = fast.previous > slow.previous;
+        boolean isAbove = fast.value > slow.value;
+
+        if (!wasAbove && isAbove) return 1;
+        if (wasAbove && !isAbove) return -1;
+        return 0;
+    }
+
+    /**
+     * Último cruzamento de médias numa direção, guardado até o próximo
+     * (quem consulta depois do tick do cruzamento ainda o enxerga).
+     *
+     * @param direction +1 para cima, -1 para baixo
+     * @return número da amostra do cruzamento ({@link #sampleCount()}), 0 se nenhum no histórico
+     */
+    public synchronized long lastCross(int fastPeriod, int slowPeriod, int direction) {
+        Cross cross = (Cross) acquire("CROSS:" + fastPeriod + ":" + slowPeriod, () -> new Cross(fastPeriod, slowPeriod));
+        return direction > 0 ? cross.lastUp : cross.lastDown;
+    }
+
+    /** Amostras aceitas desde a criação (numera os cruzamentos) */
+    public synchronized long sampleCount() {
+        return samples;
+    }
+
+    /**
+     * Posição do preço atual nas bandas de Bollinger, em desvios-padrão
+     * da média de {@code period} amostras (inclui a atual).
+     */
+    @Override
+    public synchronized double priceZScore(int period) {
+        MeanVariance stats = (MeanVariance) acquire("PMV:" + period, () -> new MeanVariance(period, 0, false));
+        return stats.zScore(prices[index(0)]);
+    }
+
+    /**
+     * Z-score do volume atual contra as {@code period} amostras anteriores.
+     */
+    public synchronized double volumeZScore(int period) {
+        MeanVariance stats = (MeanVariance) acquire("VMV:" + period, () -> new MeanVariance(period, 1, true));
+        return stats.zScore(volumes[index(0)]);
+    }
+
+    /**
+     * Variação percentual entre a amostra mais recente e a última amostra
+     * com pelo menos {@code windowMillis} de idade (busca binária no ring).
+     */
+    @Override
+    public synchronized double percentChange(long windowMillis) {
+        if (count < 2) return Double.NaN;
+
+        long cutoff = times[index(0)] - windowMillis;
+
+        // Mais antiga ainda é recente demais → histórico não cobre a janela
+        if (times[index(count - 1)] > cutoff) return Double.NaN;
+
+        int lo = 1;
+        int hi = count - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (times[index(mid)] <= cutoff) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+
+        double base = prices[index(lo)];
+        return base == 0 ? Double.NaN : (prices[index(0)] - base) / base * 100.0;
+    }
+
+
+    // ================================================
+    // 🔧 INTERNOS
+    // ================================================
+
+    private Indicator acquire(String key, Supplier<Indicator> factory) {
+        Indicator indicator = indicators.get(key);
+
+        if (indicator == null) {
+            indicator = factory.get();
+            replay(indicator);
+            indicators.put(key, indicator);
+        }
+
+        indicator.lastRead = samples;
+        return indicator;
+    }
+
+    /**
+     * Reconstrói o indicador reproduzindo todo o histórico disponível,
+     * o que também elimina o erro acumulado das somas corridas.
+     */
+    private void replay(Indicator indicator) {
+        indicator.reset();
+        for (int offset = count - 1; offset >= 0; offset--) {
+            viewOffset = offset;
+            indicator.onSample();
+        }
+        viewOffset = 0;
+    }
+
+    private void evictIdle() {
+        Iterator<Indicator> it = indicators.values().iterator();
+        while (it.hasNext()) {
+            if (samples - it.next().lastRead > idleSamples) it.remove();
+        }
+    }
+
+    /** Índice físico da k-ésima amostra mais recente (0 = última). */
+    private int index(int k) {
+        return Math.floorMod(head - 1 - k, capacity);
+    }
+
+    private int visible() { return count - viewOffset; }
+    private double price(int k) { return prices[index(k + viewOffset)]; }
+    private double volume(int k) { return volumes[index(k + viewOffset)]; }
+
+
+    private abstract static class Indicator {
+        long lastRead;
+        abstract void reset();
+        abstract void onSample();
+    }
+
+    private final class Sma extends Indicator {
+        final int period;
+        double sum;
+        double value = Double.NaN;
+        double previous = Double.NaN;
+
+        Sma(int period) { this.period = period; }
+
+        @Override
+        void reset() {
+            sum = 0;
+            value = Double.NaN;
+            previous = Double.NaN;
+        }
+
+        @Override
+        void onSample() {
+            int n = visible();
+            sum += price(0);
+            if (n > period) sum -= price(period);
+
+            previous = value;
+            value = n >= period ? sum / period : Double.NaN;
+        }
+    }
+
+    /**
+     * Médias próprias (independe da ordem de atualização dos {@link Sma})
+     * e a amostra do último cruzamento em cada direção.
+     */
+    private final class Cross extends Indicator {
+        final int fast;
+        final int slow;
+        double fastSum;
+        double slowSum;
+        int previous;   // +1 rápida acima, -1 abaixo/igual, 0 sem valor
+        long lastUp;
+        long lastDown;
+
+        Cross(int fast, int slow) {
+            this.fast = fast;
+            this.slow = slow;
+        }
+
+        @Override
+        void reset() {
+            fastSum = 0;
+            slowSum = 0;
+            previous = 0;
+            lastUp = 0;
+            lastDown = 0;
+        }
+
+        @Override
+        void onSample() {
+            int n = visible();
+            fastSum += price(0);
+            slowSum += price(0);
+            if (n > fast) fastSum -= price(fast);
+            if (n > slow) slowSum -= price(slow);
+            if (n < Math.max(fast, slow)) return;
+
+            int current = fastSum / fast > slowSum / slow ? 1 : -1;
+            long sample = samples - viewOffset;
+            if (previous < 0 && current > 0) lastUp = sample;
+            if (previous > 0 && current < 0) lastDown = sample;
+            previous = current;
+        }
+    }
+
+    private final class Rsi extends Indicator {
+        final int period;
+        double avgGain;
+        double avgLoss;
+        int changes;
+        double value = Double.NaN;
+
+        Rsi(int period) { this.period = period; }
+
+        @Override
+        void reset() {
+            avgGain = 0;
+            avgLoss = 0;
+            changes = 0;
+            value = Double.NaN;
+        }
+
+        @Override
+        void onSample() {
+            if (visible() < 2) return;
+
+            double change = price(0) - price(1);
+            double gain = Math.max(change, 0);
+            double loss = Math.max(-change, 0);
+
+            if (changes < period) {
+                avgGain += gain / period;
+                avgLoss += loss / period;
+                changes++;
+                if (changes < period) return;
+            } else {
+                avgGain = (avgGain * (period - 1) + gain) / period;
+                avgLoss = (avgLoss * (period - 1) + loss) / period;
+            }
+
+            value = avgLoss == 0 ? 100.0 : 100.0 - 100.0 / (1.0 + avgGain / avgLoss);
+        }
+    }
+
+    /**
+     * Média e variância da janela [offset, offset + period) de preço ou volume.
+     */
+    private final class MeanVariance extends Indicator {
+        final int period;
+        final int offset;
+        final boolean volume;
+        double sum;
+        double sumSq;
+
+        MeanVariance(int period, int offset, boolean volume) {
+            this.period = period;
+            this.offset = offset;
+            this.volume = volume;
+        }
+
+        @Override
+        void reset() {
+            sum = 0;
+            sumSq = 0;
+        }
+
+        @Override
+        void onSample() {
+            int n = visible();
+
+            if (n > offset) {
+                double in = sample(offset);
+                sum += in;
+                sumSq += in * in;
+            }
+            if (n > offset + period) {
+                double out = sample(offset + period);
+                sum -= out;
+                sumSq -= out * out;
+            }
+        }
+
+        double zScore(double x) {
+            if (visible() < offset + period) return Double.NaN;
+
+            double mean = sum / period;
+            double variance = Math.max(0, sumSq / period - mean * mean);
+            double std = Math.sqrt(variance);
+
+            return std == 0 ? Double.NaN : (x - mean) / std;
+        }
+
+        private double sample(int k) {
+            return volume ? volume(k) : price(k);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.crypto.util;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 📡 Sinais compartilhados de uma moeda, com contagem de referências.
+ *
+ * - Cada bot registra as chaves que lê ({@link #acquire}) e as solta ao parar
+ * - {@link #publish} calcula cada chave distinta uma vez e troca o snapshot
+ * - Leitores só pegam o snapshot volátil: sem lock no caminho das estratégias
+ */
+public final class CoinSignals {
+
+    private final Map<SignalKey, Integer> refs = new HashMap<>();
+    private SignalKey[] keys = new SignalKey[0];
+
+    private volatile SignalSnapshot snapshot = SignalSnapshot.EMPTY;
+
+    public synchronized void acquire(Collection<SignalKey> signals) {
+        boolean changed = false;
+        for (SignalKey key : signals) {
+            changed |= refs.merge(key, 1, Integer::sum) == 1;
+        }
+        if (changed) keys = refs.keySet().toArray(new SignalKey[0]);
+    }
+
+    public synchronized void release(Collection<SignalKey> signals) {
+        boolean changed = false;
+        for (SignalKey key : signals) {
+            Integer left = refs.computeIfPresent(key, (k, n) -> n > 1 ? n - 1 : null);
+            changed |= left == null;
+        }
+        if (changed) keys = refs.keySet().toArray(new SignalKey[0]);
+    }
+
+    /**
+     * Recalcula os sinais em uso a partir do estado incremental da moeda.
+     */
+    public synchronized SignalSnapshot publish(IndicatorView source) {
+        SignalSnapshot next = keys.length == 0 ? SignalSnapshot.EMPTY : SignalSnapshot.compute(keys, source);
+        snapshot = next;
+        return next;
+    }
+
+    public SignalSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /** Sinais distintos em uso */
+    public synchronized int size() {
+        return refs.size();
+    }
+
+    public synchronized boolean isEmpty() {
+        return refs.isEmpty();
+    }
+}
@@ -0,0 +1,76 @@
+package com.crypto.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 🔁 Hash ring consistente com nós virtuais (imutável).
+ *
+ * Cada nó ocupa {@code virtualNodes} posições no anel; a chave pertence ao
+ * primeiro ponto no sentido horário. Quando um nó entra ou sai, só as chaves
+ * dos seus segmentos mudam de dono (~1/N do total).
+ */
+public final class ConsistentHashRing {
+
+    private final long[] points;
+    private final String[] owners;
+    private final SortedSet<String> nodes;
+
+    public ConsistentHashRing(Collection<String> nodeIds, int virtualNodes) {
+        if (virtualNodes <= 0) throw new IllegalArgumentException("virtualNodes deve ser > 0");
+
+        this.nodes = Collections.unmodifiableSortedSet(new TreeSet<>(nodeIds));
+
+        TreeMap<Long, String> ring = new TreeMap<>();
+        for (String node : nodes) {
+            for (int v = 0; v < virtualNodes; v++) {
+                // Colisão (improvável): desempate determinístico pelo menor id
+                ring.merge(hash(node + "#" + v), node, (a, b) -> a.compareTo(b) <= 0 ? a : b);
+            }
+        }
+
+        this.points = new long[ring.size()];
+        this.owners = new String[ring.size()];
+
+        int i = 0;
+        for (Map.Entry<Long, String> e : ring.entrySet()) {
+            points[i] = e.getKey();
+            owners[i] = e.getValue();
+            i++;
+        }
+    }
+
+    /**
+     * @return nó dono da chave, ou {@code null} se o anel estiver vazio
+     */
+    public String ownerOf(String key) {
+        if (points.length == 0) return null;
+
+        int idx = Arrays.binarySearch(points, hash(key));
+        if (idx < 0) idx = -idx - 1;
+        if (idx == points.length) idx = 0;
+
+        return owners[idx];
+    }
+
+    public SortedSet<String> nodes() { return nodes; }
+    public boolean isEmpty() { return nodes.isEmpty(); }
+
+    /**
+     * FNV-1a 64 bits + finalizador do MurmurHash3 para espalhar chaves parecidas.
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,339 @@
+package com.crypto.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * ⏱️ Store de cooldowns com capacidade limitada e expiração via hashed timer wheel.
+ *
+ * - Índice por hash aberto (linear probing) → lookup O(1) sem boxing
+ * - Deadlines em long[] (epoch millis), sem LocalDateTime por entrada
+ * - Cada entrada fica encadeada no bucket do seu deadline → expiração O(expirados)
+ * - Ao atingir a capacidade, expulsa a entrada mais próxima de expirar
+ *
+ * Thread-safe via monitor: todas as operações são O(1) amortizado.
+ */
+public final class CooldownWheel {
+
+    private static final int NIL = -1;
+
+    private final int capacity;
+    private final long tickMillis;
+    private final int wheelMask;
+
+    // ---------- slab de entradas ----------
+    private final String[] keys;
+    private final long[] deadlines;
+    private final int[] next;
+    private final int[] prev;
+    private int freeHead;
+    private int size;
+
+    // ---------- índice hash (valor = entrada + 1, 0 = vazio) ----------
+    private final int[] table;
+    private final int tableMask;
+
+    // ---------- wheel ----------
+    private final int[] buckets;
+    private long cursorTick = Long.MIN_VALUE;
+
+    // ---------- métricas ----------
+    private long allowed;
+    private long suppressed;
+    private long expired;
+    private long evicted;
+
+    public CooldownWheel(int capacity, long tickMillis, int wheelSize) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity deve ser > 0");
+        if (tickMillis <= 0) throw new IllegalArgumentException("tickMillis deve ser > 0");
+
+        this.capacity = capacity;
+        this.tickMillis = tickMillis;
+
+        int wheel = Integer.highestOneBit(Math.max(2, wheelSize - 1)) << 1;
+        this.wheelMask = wheel - 1;
+        this.buckets = new int[wheel];
+        Arrays.fill(buckets, NIL);
+
+        this.keys = new String[capacity];
+        this.deadlines = new long[capacity];
+        this.next = new int[capacity];
+        this.prev = new int[capacity];
+
+        for (int i = 0; i < capacity - 1; i++) next[i] = i + 1;
+        next[capacity - 1] = NIL;
+        this.freeHead = 0;
+
+        int tableSize = Integer.highestOneBit(Math.max(2, capacity * 2 - 1)) << 1;
+        this.table = new int[tableSize];
+        this.tableMask = tableSize - 1;
+    }
+
+    /**
+     * Registra o cooldown se a chave estiver livre.
+     *
+     * @return true se a notificação pode seguir; false se ainda está em cooldown
+     */
+    public synchronized boolean tryAcquire(String key, long nowMillis, long cooldownMillis) {
+        advance(nowMillis);
+
+        int entry = find(key);
+
+        if (entry != NIL) {
+            if (deadlines[entry] > nowMillis) {
+                suppressed++;
+                return false;
+            }
+            unlinkFromWheel(entry);
+        } else {
+            if (size == capacity) evictEarliest();
+            entry = allocate(key);
+        }
+
+        deadlines[entry] = nowMillis + cooldownMillis;
+        linkToWheel(entry);
+        allowed++;
+        return true;
+    }
+
+    public synchronized boolean isActive(String key, long nowMillis) {
+        int entry = find(key);
+        return entry != NIL && deadlines[entry] > nowMillis;
+    }
+
+    /**
+     * Milissegundos restantes de cooldown (0 se inexistente/expirado).
+     */
+    public synchronized long remainingMillis(String key, long nowMillis) {
+        int entry = find(key);
+        return entry == NIL ? 0 : Math.max(0, deadlines[entry] - nowMillis);
+    }
+
+    public synchronized boolean remove(String key) {
+        int entry = find(key);
+        if (entry == NIL) return false;
+
+        release(entry);
+        return true;
+    }
+
+    /**
+     * Remoção por predicado (uso administrativo — O(n)).
+     */
+    public synchronized int removeIf(Predicate<String> predicate) {
+        int removed = 0;
+
+        for (int bucket = 0; bucket <= wheelMask; bucket++) {
+            int entry = buckets[bucket];
+            while (entry != NIL) {
+                int following = next[entry];
+                if (predicate.test(keys[entry])) {
+                    release(entry);
+                    removed++;
+                }
+                entry = following;
+            }
+        }
+
+        return removed;
+    }
+
+    /**
+     * Avança o ponteiro do wheel até {@code nowMillis}, liberando as entradas vencidas.
+     *
+     * @return quantidade de entradas expiradas nesta chamada
+     */
+    public synchronized int advance(long nowMillis) {
+        long nowTick = nowMillis / tickMillis;
+
+        if (cursorTick == Long.MIN_VALUE) {
+            cursorTick = nowTick;
+            return 0;
+        }
+
+        if (nowTick <= cursorTick) return 0;
+
+        // Inclui o bucket do cursor: entradas que venceram depois da última passada
+        // no mesmo tick ainda estão lá. Mais de uma volta = todos os buckets uma vez
+        long from = Math.max(cursorTick, nowTick - wheelMask);
+        int removed = 0;
+
+        for (long t = from; t <= nowTick; t++) {
+            int entry = buckets[(int) (t & wheelMask)];
+
+            while (entry != NIL) {
+                int following = next[entry];
+                if (deadlines[entry] <= nowMillis) {
+                    release(entry);
+                    removed++;
+                }
+                entry = following;
+            }
+        }
+
+        cursorTick = nowTick;
+        expired += removed;
+        return removed;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(buckets, NIL);
+        Arrays.fill(table, 0);
+        Arrays.fill(keys, null);
+
+        for (int i = 0; i < capacity - 1; i++) next[i] = i + 1;
+        next[capacity - 1] = NIL;
+
+        freeHead = 0;
+        size = 0;
+    }
+
+    public synchronized List<String> keys(int limit) {
+        List<String> result = new ArrayList<>(Math.min(limit, size));
+
+        for (int bucket = 0; bucket <= wheelMask && result.size() < limit; bucket++) {
+            for (int e = buckets[bucket]; e != NIL && result.size() < limit; e = next[e]) {
+                result.add(keys[e]);
+            }
+        }
+
+        return result;
+    }
+
+    public synchronized int size() { return size; }
+    public int capacity() { return capacity; }
+    public synchronized long allowedCount() { return allowed; }
+    public synchronized long suppressedCount() { return suppressed; }
+    public synchronized long expiredCount() { return expired; }
+    public synchronized long evictedCount() { return evicted; }
+
+
+    // ================================================
+    // 🔧 INTERNOS
+    // ================================================
+
+    private int allocate(String key) {
+        int entry = freeHead;
+        freeHead = next[entry];
+
+        keys[entry] = key;
+        size++;
+
+        int slot = spread(key.hashCode()) & tableMask;
+        while (table[slot] != 0) slot = (slot + 1) & tableMask;
+        table[slot] = entry + 1;
+
+        return entry;
+    }
+
+    private void release(int entry) {
+        unlinkFromWheel(entry);
+        removeFromTable(entry);
+
+        keys[entry] = null;
+        next[entry] = freeHead;
+        freeHead = entry;
+        size--;
+    }
+
+    private int find(String key) {
+        int slot = spread(key.hashCode()) & tableMask;
+
+        while (true) {
+            int value = table[slot];
+            if (value == 0) return NIL;
+            if (key.equals(keys[value - 1])) return value - 1;
+            slot = (slot + 1) & tableMask;
+        }
+    }
+
+    /**
+     * Remoção com backward-shift para manter as cadeias de probing sem tombstones.
+     */
+    private void removeFromTable(int entry) {
+        int slot = spread(keys[entry].hashCode()) & tableMask;
+        while (table[slot] != entry + 1) slot = (slot + 1) & tableMask;
+
+        int hole = slot;
+        int probe = (hole + 1) & tableMask;
+
+        while (table[probe] != 0) {
+            int home = spread(keys[table[probe] - 1].hashCode()) & tableMask;
+            boolean movable = hole <= probe
+                    ? (home <= hole || home > probe)
+                    : (home <= hole && home > probe);
+
+            if (movable) {
+                table[hole] = table[probe];
+                hole = probe;
+            }
+            probe = (probe + 1) & tableMask;
+        }
+
+        table[hole] = 0;
+    }
+
+    private void linkToWheel(int entry) {
+        int bucket = (int) ((deadlines[entry] / tickMillis) & wheelMask);
+        int head = buckets[bucket];
+
+        prev[entry] = NIL;
+        next[entry] = head;
+        if (head != NIL) prev[head] = entry;
+        buckets[bucket] = entry;
+    }
+
+    private void unlinkFromWheel(int entry) {
+        int p = prev[entry];
+        int n = next[entry];
+
+        if (p != NIL) {
+            next[p] = n;
+        } else {
+            buckets[(int) ((deadlines[entry] / tickMillis) & wheelMask)] = n;
+        }
+        if (n != NIL) prev[n] = p;
+
+        next[entry] = NIL;
+        prev[entry] = NIL;
+    }
+
+    /**
+     * Expulsa a entrada de menor deadline.
+     *
+     * Um bucket mistura voltas diferentes do wheel, então só vale a entrada cujo
+     * tick é exatamente o do bucket na volta atual; sem nenhuma (todas a mais de
+     * uma volta), cai no mínimo global visto na varredura.
+     */
+    private void evictEarliest() {
+        long start = cursorTick == Long.MIN_VALUE ? 0 : cursorTick;
+        int earliest = NIL;
+
+        for (int i = 0; i <= wheelMask; i++) {
+            long tick = start + i;
+            int inRound = NIL;
+
+            for (int e = buckets[(int) (tick & wheelMask)]; e != NIL; e = next[e]) {
+                if (earliest == NIL || deadlines[e] < deadlines[earliest]) earliest = e;
+                if (deadlines[e] / tickMillis <= tick
+                        && (inRound == NIL || deadlines[e] < deadlines[inRound])) inRound = e;
+            }
+
+            if (inRound != NIL) {
+                earliest = inRound;
+                break;
+            }
+        }
+
+        if (earliest == NIL) return;
+
+        release(earliest);
+        evicted++;
+    }
+
+    private static int spread(int h) {
+        return (h ^ (h >>> 16)) * 0x9E3779B1;
+    }
+}
@@ -8,6 +8,7 @@ import java.util.Map;
 public class CryptoSymbolMapper {
 
     private static final Map<String, String> SYMBOL_TO_COIN_ID = new HashMap<>();
+    private static final Map<String, String> COIN_ID_TO_SYMBOL = new HashMap<>();
 
     static {
         SYMBOL_TO_COIN_ID.put("BTC", "bitcoin");
@@ -35,6 +36,8 @@ public class CryptoSymbolMapper {
         SYMBOL_TO_COIN_ID.put("FIL", "filecoin");
         SYMBOL_TO_COIN_ID.put("APT", "aptos");
         SYMBOL_TO_COIN_ID.put("HBAR", "hedera-hashgraph");
+
+        SYMBOL_TO_COIN_ID.forEach((symbol, coinId) -> COIN_ID_TO_SYMBOL.put(coinId, symbol));
     }
 
 
@@ -53,6 +56,21 @@ public class CryptoSymbolMapper {
     }
 
 
+    /**
+     * Símbolo canônico (ex.: "BTC") a partir de símbolo ou coinId.
+     *
+     * @return null se a moeda não é mapeada
+     */
+    public static String toSymbol(String symbolOrCoinId) {
+        if (symbolOrCoinId == null || symbolOrCoinId.isBlank()) return null;
+
+        String trimmed = symbolOrCoinId.trim();
+        String upper = trimmed.toUpperCase();
+        if (SYMBOL_TO_COIN_ID.containsKey(upper)) return upper;
+        return COIN_ID_TO_SYMBOL.get(trimmed.toLowerCase());
+    }
+
+
     public static boolean isSupported(String symbol) {
         return SYMBOL_TO_COIN_ID.containsKey(symbol.toUpperCase().trim());
     }
@@ -0,0 +1,180 @@
+package com.crypto.util;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 📉 Série diária do valor de um portfolio, em arrays primitivos.
+ *
+ * - Um ponto por dia (UTC) fechado: valor de mercado e custo investido
+ * - {@link #extend} só precifica os dias novos; as transações anteriores
+ *   entram apenas nas quantidades (sem cruzar com pontos de preço)
+ * - {@link #truncateFrom} descarta a série a partir do dia de uma
+ *   transação alterada; os dias anteriores continuam válidos
+ *
+ * Preço do dia: fechamento diário da moeda; fora do histórico, o último
+ * preço negociado pelo próprio usuário. Não é thread-safe.
+ */
+public final class EquityCurve {
+
+    private static final double EPS = 1e-12;
+    private static final long DAY_MILLIS = 86_400_000L;
+
+    /** Transação resumida: moeda por índice, dia em epoch day (UTC) */
+    public record Flow(long day, int coin, boolean buy, double quantity, double price) {}
+
+    /** Posição após todas as transações aplicadas (inclusive as de hoje) */
+    public record Holdings(double[] quantity, double[] cost, double[] lastPrice) {}
+
+    /**
+     * Fechamentos diários de uma moeda: último preço de cada dia UTC,
+     * dias sem ponto herdam o anterior.
+     */
+    public static final class DailyCloses {
+        private final long firstDay;
+        private final double[] closes;
+
+        private DailyCloses(long firstDay, double[] closes) {
+            this.firstDay = firstDay;
+            this.closes = closes;
+        }
+
+        public static final DailyCloses EMPTY = new DailyCloses(0, new double[0]);
+
+        /** @param times ordenados, em epoch millis */
+        public static DailyCloses of(long[] times, double[] prices) {
+            if (times.length == 0) return EMPTY;
+
+            long first = Math.floorDiv(times[0], DAY_MILLIS);
+            long last = Math.floorDiv(times[times.length - 1], DAY_MILLIS);
+            double[] closes = new double[(int) (last - first + 1)];
+            Arrays.fill(closes, Double.NaN);
+
+            for (int i = 0; i < times.length; i++) {
+                closes[(int) (Math.floorDiv(times[i], DAY_MILLIS) - first)] = prices[i];
+            }
+            for (int d = 1; d < closes.length; d++) {
+                if (Double.isNaN(closes[d])) closes[d] = closes[d - 1];
+            }
+            return new DailyCloses(first, closes);
+        }
+
+        /** NaN antes do histórico; depois do fim, o último fechamento */
+        public double at(long day) {
+            if (closes.length == 0 || day < firstDay) return Double.NaN;
+            return closes[(int) Math.min(day - firstDay, closes.length - 1)];
+        }
+
+        public boolean isEmpty() { return closes.length == 0; }
+        public long firstDay() { return firstDay; }
+        public long lastDay() { return firstDay + closes.length - 1; }
+    }
+
+    private long firstDay;
+    private double[] values = new double[64];
+    private double[] invested = new double[64];
+    private int size;
+
+    public int size() { return size; }
+    public long firstDay() { return firstDay; }
+    public long day(int i) { return firstDay + i; }
+    public double value(int i) { return values[i]; }
+    public double invested(int i) { return invested[i]; }
+
+    /**
+     * Primeiro dia ainda sem ponto ({@code Long.MIN_VALUE} se vazia).
+     */
+    public long nextDay() {
+        return size == 0 ? Long.MIN_VALUE : firstDay + size;
+    }
+
+    /**
+     * Descarta os pontos de {@code day} em diante.
+     */
+    public void truncateFrom(long day) {
+        if (size == 0) return;
+        // Compara antes de subtrair: day - firstDay estoura com Long.MIN_VALUE
+        size = day <= firstDay ? 0 : (int) Math.min(size, day - firstDay);
+    }
+
+    /**
+     * Acrescenta os dias de {@link #nextDay()} (ou do primeiro fluxo) até {@code toDay}.
+     *
+     * @param flows  todas as transações do usuário, ordenadas por dia
+     * @param closes fechamentos por índice de moeda
+     * @return posição após todos os fluxos
+     */
+    public Holdings extend(List<Flow> flows, DailyCloses[] closes, long toDay) {
+        int coins = closes.length;
+        double[] qty = new double[coins];
+        double[] cost = new double[coins];
+        double[] lastPrice = new double[coins];
+        Arrays.fill(lastPrice, Double.NaN);
+
+        int n = flows.size();
+        if (n == 0) {
+            size = 0;
+            return new Holdings(qty, cost, lastPrice);
+        }
+
+        if (size == 0) firstDay = flows.get(0).day();
+        long start = firstDay + size;
+
+        // Dias já na série: só quantidades
+        int f = 0;
+        while (f < n && flows.get(f).day() < start) apply(flows.get(f++), qty, cost, lastPrice);
+
+        for (long day = start; day <= toDay; day++) {
+            while (f < n && flows.get(f).day() == day) apply(flows.get(f++), qty, cost, lastPrice);
+
+            double value = 0;
+            double basis = 0;
+            for (int c = 0; c < coins; c++) {
+                if (qty[c] <= 0) continue;
+                double price = closes[c].at(day);
+                value += qty[c] * (Double.isNaN(price) ? lastPrice[c] : price);
+                basis += cost[c];
+            }
+            append(value, basis);
+        }
+
+        while (f < n) apply(flows.get(f++), qty, cost, lastPrice);
+        return new Holdings(qty, cost, lastPrice);
+    }
+
+
+    // ================================================
+    // 🔧 INTERNOS
+    // ================================================
+
+    private static void apply(Flow flow, double[] qty, double[] cost, double[] lastPrice) {
+        int c = flow.coin();
+        lastPrice[c] = flow.price();
+
+        if (flow.buy()) {
+            qty[c] += flow.quantity();
+            cost[c] += flow.quantity() * flow.price();
+            return;
+        }
+
+        // Custo médio, como a posição em portfolio
+        double take = Math.min(flow.quantity(), qty[c]);
+        if (take <= 0) return;
+        cost[c] -= cost[c] * take / qty[c];
+        qty[c] -= take;
+        if (qty[c] <= EPS) {
+            qty[c] = 0;
+            cost[c] = 0;
+        }
+    }
+
+    private void append(double value, double basis) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+            invested = Arrays.copyOf(invested, size * 2);
+        }
+        values[size] = value;
+        invested[size] = basis;
+        size++;
+    }
+}
@@ -0,0 +1,93 @@
+package com.crypto.util;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.function.BiConsumer;
+
+/**
+ * 📦 Lotes de compra em aberto de um bot, em ordem FIFO, com posição e
+ * custo base mantidos incrementalmente.
+ *
+ * Uma venda consome a cabeça da fila: O(lotes consumidos), sem reler o histórico.
+ * Não é thread-safe; o motor garante um único escritor por bot.
+ */
+public final class FifoLots {
+
+    private final ArrayDeque<Lot> lots = new ArrayDeque<>();
+    private BigDecimal quantity = BigDecimal.ZERO;
+    private BigDecimal cost = BigDecimal.ZERO;
+
+    /**
+     * @param tradeId id da compra em bot_trades
+     * @param sold    quantidade já vendida do lote (reconstrução a partir do banco)
+     */
+    public void add(long tradeId, BigDecimal price, BigDecimal lotQuantity, BigDecimal sold) {
+        BigDecimal open = lotQuantity.subtract(sold);
+        if (open.signum() <= 0) return;
+
+        lots.addLast(new Lot(tradeId, price, lotQuantity, sold));
+        quantity = quantity.add(open);
+        cost = cost.add(open.multiply(price));
+    }
+
+    /**
+     * Consome {@code sellQuantity} dos lotes mais antigos.
+     *
+     * @param touched recebe cada lote alterado e a quantidade tirada dele (delta do sold_quantity)
+     * @return resultado da venda, ou {@code null} se a posição não cobre a quantidade
+     */
+    public Fill sell(BigDecimal sellQuantity, BigDecimal price, BiConsumer<Lot, BigDecimal> touched) {
+        if (sellQuantity.signum() <= 0 || quantity.compareTo(sellQuantity) < 0) return null;
+
+        BigDecimal remaining = sellQuantity;
+        BigDecimal consumedCost = BigDecimal.ZERO;
+        BigDecimal profit = BigDecimal.ZERO;
+
+        while (remaining.signum() > 0) {
+            Lot lot = lots.peekFirst();
+            BigDecimal take = lot.open().min(remaining);
+
+            lot.sold = lot.sold.add(take);
+            remaining = remaining.subtract(take);
+            consumedCost = consumedCost.add(take.multiply(lot.price));
+            profit = profit.add(price.subtract(lot.price).multiply(take));
+
+            touched.accept(lot, take);
+            if (lot.open().signum() <= 0) lots.pollFirst();
+        }
+
+        quantity = quantity.subtract(sellQuantity);
+        cost = cost.subtract(consumedCost);
+
+        return new Fill(sellQuantity, consumedCost, profit);
+    }
+
+    public BigDecimal quantity() { return quantity; }
+    public BigDecimal cost() { return cost; }
+    public int size() { return lots.size(); }
+
+
+    /**
+     * @param costBasis custo FIFO dos lotes consumidos (sai do custo da posição)
+     */
+    public record Fill(BigDecimal quantity, BigDecimal costBasis, BigDecimal profit) {}
+
+    public static final class Lot {
+        private final long tradeId;
+        private final BigDecimal price;
+        private final BigDecimal quantity;
+        private BigDecimal sold;
+
+        Lot(long tradeId, BigDecimal price, BigDecimal quantity, BigDecimal sold) {
+            this.tradeId = tradeId;
+            this.price = price;
+            this.quantity = quantity;
+            this.sold = sold;
+        }
+
+        public long tradeId() { return tradeId; }
+        public BigDecimal sold() { return sold; }
+
+        BigDecimal open() { return quantity.subtract(sold); }
+    }
+}
@@ -0,0 +1,17 @@
+package com.crypto.util;
+
+/**
+ * 📐 Leitura dos indicadores de uma moeda pelas estratégias de bot.
+ *
+ * Valores indisponíveis (aquecimento) retornam NaN, que falha qualquer comparação.
+ */
+public interface IndicatorView {
+
+    double rsi(int period);
+
+    double sma(int period);
+
+    double priceZScore(int period);
+
+    double percentChange(long windowMillis);
+}
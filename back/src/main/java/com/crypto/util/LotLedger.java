@@ -0,0 +1,165 @@
+package com.crypto.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 🧾 Contabilidade por lotes das transações de uma moeda.
+ *
+ * - FIFO / LIFO: lotes de compra em fila; a venda consome a cabeça ou a cauda
+ * - AVERAGE: só quantidade e custo; a venda baixa o custo médio proporcional
+ *
+ * Aplicação incremental em ordem (data, id): O(lotes consumidos) por
+ * transação. Uma transação anterior à última aplicada não pode entrar no
+ * meio — quem chama reconstrói a moeda ({@link #follows}).
+ * Venda acima da posição realiza só a parte coberta; o excesso fica em
+ * {@link #unmatchedQuantity()}. Não é thread-safe.
+ */
+public final class LotLedger {
+
+    private static final int COST_SCALE = 8;
+
+    public enum Method {
+        FIFO, LIFO, AVERAGE;
+
+        public static Method parse(String raw) {
+            if (raw == null || raw.isBlank()) return FIFO;
+            try {
+                return valueOf(raw.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("method deve ser FIFO, LIFO ou AVERAGE");
+            }
+        }
+    }
+
+    /** Lote em aberto (cópia imutável para leitura) */
+    public record OpenLot(long transactionId, LocalDateTime date, BigDecimal price, BigDecimal quantity) {}
+
+    private final Method method;
+    private final ArrayDeque<Lot> lots = new ArrayDeque<>();
+
+    private BigDecimal quantity = BigDecimal.ZERO;
+    private BigDecimal cost = BigDecimal.ZERO;
+    private BigDecimal realized = BigDecimal.ZERO;
+    private BigDecimal unmatched = BigDecimal.ZERO;
+    private int buys;
+    private int sells;
+
+    private LocalDateTime lastDate;
+    private long lastId = Long.MIN_VALUE;
+
+    public LotLedger(Method method) {
+        this.method = method;
+    }
+
+    /**
+     * @return true se a transação vem depois da última aplicada (pode ser aplicada incrementalmente)
+     */
+    public boolean follows(LocalDateTime date, long transactionId) {
+        if (lastDate == null) return true;
+        int cmp = date.compareTo(lastDate);
+        return cmp > 0 || (cmp == 0 && transactionId > lastId);
+    }
+
+    public void apply(long transactionId, LocalDateTime date, boolean buy, BigDecimal qty, BigDecimal price) {
+        lastDate = date;
+        lastId = transactionId;
+
+        if (buy) {
+            buys++;
+            quantity = quantity.add(qty);
+            cost = cost.add(qty.multiply(price));
+            if (method != Method.AVERAGE) lots.addLast(new Lot(transactionId, date, price, qty));
+            return;
+        }
+
+        sells++;
+        BigDecimal take = qty.min(quantity);
+        unmatched = unmatched.add(qty.subtract(take));
+        if (take.signum() <= 0) return;
+
+        BigDecimal basis = method == Method.AVERAGE ? averageBasis(take) : consumeLots(take);
+
+        realized = realized.add(take.multiply(price).subtract(basis));
+        quantity = quantity.subtract(take);
+        cost = quantity.signum() == 0 ? BigDecimal.ZERO : cost.subtract(basis);
+    }
+
+    public Method method() { return method; }
+    public BigDecimal quantity() { return quantity; }
+    public BigDecimal costBasis() { return cost; }
+    public BigDecimal realizedPnl() { return realized; }
+    public BigDecimal unmatchedQuantity() { return unmatched; }
+    public int buys() { return buys; }
+    public int sells() { return sells; }
+
+    public BigDecimal averageCost() {
+        return quantity.signum() > 0 ? cost.divide(quantity, COST_SCALE, RoundingMode.HALF_UP) : BigDecimal.ZERO;
+    }
+
+    public BigDecimal unrealizedPnl(BigDecimal price) {
+        return quantity.signum() > 0 && price != null ? quantity.multiply(price).subtract(cost) : BigDecimal.ZERO;
+    }
+
+    /**
+     * Lotes em aberto na ordem em que seriam vendidos (vazio em AVERAGE).
+     */
+    public List<OpenLot> openLots() {
+        List<OpenLot> out = new ArrayList<>(lots.size());
+        Iterator<Lot> it = method == Method.LIFO ? lots.descendingIterator() : lots.iterator();
+        while (it.hasNext()) {
+            Lot lot = it.next();
+            out.add(new OpenLot(lot.transactionId, lot.date, lot.price, lot.open));
+        }
+        return out;
+    }
+
+
+    // ================================================
+    // 🔧 INTERNOS
+    // ================================================
+
+    private BigDecimal averageBasis(BigDecimal take) {
+        if (take.compareTo(quantity) == 0) return cost;
+        return cost.multiply(take).divide(quantity, COST_SCALE, RoundingMode.HALF_UP);
+    }
+
+    private BigDecimal consumeLots(BigDecimal take) {
+        BigDecimal remaining = take;
+        BigDecimal basis = BigDecimal.ZERO;
+
+        while (remaining.signum() > 0) {
+            Lot lot = method == Method.LIFO ? lots.peekLast() : lots.peekFirst();
+            BigDecimal used = lot.open.min(remaining);
+
+            lot.open = lot.open.subtract(used);
+            remaining = remaining.subtract(used);
+            basis = basis.add(used.multiply(lot.price));
+
+            if (lot.open.signum() <= 0) {
+                if (method == Method.LIFO) lots.pollLast();
+                else lots.pollFirst();
+            }
+        }
+        return basis;
+    }
+
+    private static final class Lot {
+        final long transactionId;
+        final LocalDateTime date;
+        final BigDecimal price;
+        BigDecimal open;
+
+        Lot(long transactionId, LocalDateTime date, BigDecimal price, BigDecimal open) {
+            this.transactionId = transactionId;
+            this.date = date;
+            this.price = price;
+            this.open = open;
+        }
+    }
+}
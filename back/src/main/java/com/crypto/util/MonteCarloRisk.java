@@ -0,0 +1,215 @@
+package com.crypto.util;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 🎲 VaR/CVaR de uma carteira por Monte Carlo, em arrays primitivos.
+ *
+ * - Calibração: média e covariância dos log-retornos diários alinhados;
+ *   Cholesky da covariância (com jitter na diagonal se não for positiva definida)
+ * - Simulação: passeio aleatório correlacionado dia a dia; o PnL de cada
+ *   horizonte sai do mesmo caminho (1 dia é o começo do caminho de 7)
+ * - Paralelo num ForkJoinPool: cada tarefa recebe seu {@link SplittableRandom}
+ *   por split determinístico (mesma seed → mesmo resultado, com qualquer
+ *   número de threads) e buffers próprios, sem boxing
+ */
+public final class MonteCarloRisk {
+
+    private static final int PATHS_PER_TASK = 4096;
+    private static final int JITTER_ATTEMPTS = 6;
+
+    private final int n;
+    private final double[] exposure;
+    private final double[] mean;
+    private final double[] chol;   // triangular inferior n×n, por linha
+
+    private MonteCarloRisk(double[] exposure, double[] mean, double[] chol) {
+        this.n = exposure.length;
+        this.exposure = exposure;
+        this.mean = mean;
+        this.chol = chol;
+    }
+
+    /**
+     * @param exposure valor de mercado de cada ativo
+     * @param returns  log-retornos diários por ativo, todos do mesmo tamanho (>= 2)
+     */
+    public static MonteCarloRisk calibrate(double[] exposure, double[][] returns) {
+        int n = exposure.length;
+        if (n == 0 || returns.length != n) throw new IllegalArgumentException("Ativos inconsistentes");
+
+        int t = returns[0].length;
+        if (t < 2) throw new IllegalArgumentException("Retornos insuficientes para calibrar");
+
+        double[] mean = new double[n];
+        for (int i = 0; i < n; i++) {
+            if (returns[i].length != t) throw new IllegalArgumentException("Séries de retorno desalinhadas");
+            double sum = 0;
+            for (int k = 0; k < t; k++) sum += returns[i][k];
+            mean[i] = sum / t;
+        }
+
+        double[] cov = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j <= i; j++) {
+                double sum = 0;
+                for (int k = 0; k < t; k++) sum += (returns[i][k] - mean[i]) * (returns[j][k] - mean[j]);
+                cov[i * n + j] = cov[j * n + i] = sum / (t - 1);
+            }
+        }
+
+        return new MonteCarloRisk(exposure.clone(), mean, cholesky(cov, n));
+    }
+
+    /**
+     * @param horizons dias, em ordem crescente (ex.: {1, 7})
+     * @return PnL simulado por horizonte: {@code pnl[h][caminho]}
+     */
+    public double[][] simulate(int paths, int[] horizons, long seed, ForkJoinPool pool) {
+        if (paths < 1) throw new IllegalArgumentException("paths deve ser >= 1");
+        for (int h = 0; h < horizons.length; h++) {
+            if (horizons[h] < 1 || (h > 0 && horizons[h] <= horizons[h - 1])) {
+                throw new IllegalArgumentException("Horizontes devem ser crescentes e >= 1");
+            }
+        }
+
+        double[][] pnl = new double[horizons.length][paths];
+        pool.invoke(new PathTask(horizons, pnl, 0, paths, new SplittableRandom(seed)));
+        return pnl;
+    }
+
+    /**
+     * VaR e CVaR (perdas positivas) de uma amostra de PnL; ordena o array.
+     */
+    public static Tail tail(double[] pnl, double confidence) {
+        if (!(confidence > 0 && confidence < 1)) throw new IllegalArgumentException("confiança deve estar em (0, 1)");
+
+        Arrays.sort(pnl);
+        int k = Math.min(pnl.length - 1, (int) Math.floor((1 - confidence) * pnl.length));
+
+        double sum = 0;
+        for (int i = 0; i <= k; i++) sum += pnl[i];
+
+        return new Tail(confidence, -pnl[k], -sum / (k + 1));
+    }
+
+    public static double mean(double[] values) {
+        double sum = 0;
+        for (double v : values) sum += v;
+        return values.length == 0 ? 0 : sum / values.length;
+    }
+
+    public record Tail(double confidence, double valueAtRisk, double conditionalValueAtRisk) {}
+
+
+    // ================================================
+    // 🔧 INTERNOS
+    // ================================================
+
+    /** Cholesky com jitter crescente na diagonal; último recurso: só variâncias */
+    private static double[] cholesky(double[] cov, int n) {
+        double trace = 0;
+        for (int i = 0; i < n; i++) trace += cov[i * n + i];
+        double jitter = 0;
+
+        for (int attempt = 0; attempt < JITTER_ATTEMPTS; attempt++) {
+            double[] l = tryCholesky(cov, n, jitter);
+            if (l != null) return l;
+            jitter = jitter == 0 ? Math.max(1e-12, 1e-10 * trace / n) : jitter * 100;
+        }
+
+        double[] diag = new double[n * n];
+        for (int i = 0; i < n; i++) diag[i * n + i] = Math.sqrt(Math.max(0, cov[i * n + i]));
+        return diag;
+    }
+
+    private static double[] tryCholesky(double[] cov, int n, double jitter) {
+        double[] l = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j <= i; j++) {
+                double sum = cov[i * n + j] + (i == j ? jitter : 0);
+                for (int k = 0; k < j; k++) sum -= l[i * n + k] * l[j * n + k];
+
+                if (i == j) {
+                    if (sum <= 0) {
+                        // Variância nula (ativo sem oscilação) é válida; negativa não
+                        if (sum < 0 || hasCovariance(cov, n, i)) return null;
+                        l[i * n + i] = 0;
+                    } else {
+                        l[i * n + i] = Math.sqrt(sum);
+                    }
+                } else {
+                    double d = l[j * n + j];
+                    l[i * n + j] = d > 0 ? sum / d : 0;
+                }
+            }
+        }
+        return l;
+    }
+
+    private static boolean hasCovariance(double[] cov, int n, int i) {
+        for (int j = 0; j < n; j++) {
+            if (j != i && cov[i * n + j] != 0) return true;
+        }
+        return false;
+    }
+
+    private final class PathTask extends RecursiveAction {
+        private final int[] horizons;
+        private final double[][] pnl;
+        private final int from;
+        private final int to;
+        private final SplittableRandom random;
+
+        PathTask(int[] horizons, double[][] pnl, int from, int to, SplittableRandom random) {
+            this.horizons = horizons;
+            this.pnl = pnl;
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PATHS_PER_TASK) {
+                simulateRange();
+                return;
+            }
+
+            int mid = (from + to) >>> 1;
+            invokeAll(new PathTask(horizons, pnl, from, mid, random.split()),
+                    new PathTask(horizons, pnl, mid, to, random));
+        }
+
+        private void simulateRange() {
+            double[] z = new double[n];
+            double[] cumulative = new double[n];
+            int maxDays = horizons[horizons.length - 1];
+
+            for (int p = from; p < to; p++) {
+                Arrays.fill(cumulative, 0);
+                int h = 0;
+
+                for (int day = 1; day <= maxDays; day++) {
+                    for (int i = 0; i < n; i++) z[i] = random.nextGaussian();
+
+                    for (int i = 0; i < n; i++) {
+                        double shock = 0;
+                        int row = i * n;
+                        for (int j = 0; j <= i; j++) shock += chol[row + j] * z[j];
+                        cumulative[i] += mean[i] + shock;
+                    }
+
+                    if (day == horizons[h]) {
+                        double value = 0;
+                        for (int i = 0; i < n; i++) value += exposure[i] * Math.expm1(cumulative[i]);
+                        pnl[h++][p] = value;
+                    }
+                }
+            }
+        }
+    }
+}
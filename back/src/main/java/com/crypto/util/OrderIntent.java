@@ -0,0 +1,39 @@
+package com.crypto.util;
+
+/**
+ * 📝 Ordem desejada por uma {@link BotStrategy} num tick.
+ *
+ * Mutável e reutilizável; o lado segue {@link BotStrategyKernel}
+ * (BUY, SELL, HOLD). Quem chama executa — ou bloqueia — a ordem.
+ */
+public final class OrderIntent {
+
+    private int side = BotStrategyKernel.HOLD;
+    private double quantity;
+    private String reason;
+
+    public OrderIntent hold() {
+        side = BotStrategyKernel.HOLD;
+        quantity = 0;
+        reason = null;
+        return this;
+    }
+
+    public void buy(double quantity, String reason) {
+        set(BotStrategyKernel.BUY, quantity, reason);
+    }
+
+    public void sell(double quantity, String reason) {
+        set(BotStrategyKernel.SELL, quantity, reason);
+    }
+
+    public int side() { return side; }
+    public double quantity() { return quantity; }
+    public String reason() { return reason; }
+
+    private void set(int side, double quantity, String reason) {
+        this.side = quantity > 0 ? side : BotStrategyKernel.HOLD;
+        this.quantity = quantity;
+        this.reason = reason;
+    }
+}
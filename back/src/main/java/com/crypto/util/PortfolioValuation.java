@@ -0,0 +1,148 @@
+package com.crypto.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * 💼 Valorização de um portfolio mantida a cada tick de preço.
+ *
+ * - Posições carregadas uma vez; cada tick reprecifica só as posições da
+ *   moeda e ajusta os totais pela diferença (sem somar tudo de novo)
+ * - A visão publicada é imutável e trocada por referência: leitura sem
+ *   lock, sem banco e sem recalcular nada
+ *
+ * Mesmo formato e mesma aritmética (BigDecimal) do cálculo completo.
+ */
+public final class PortfolioValuation {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    public record Position(Long id, String coinSymbol, String coinName, BigDecimal quantity,
+                           BigDecimal averageBuyPrice, BigDecimal totalInvested) {}
+
+    private final Position[] positions;
+    private final String[] symbols;
+    private final BigDecimal[] prices;
+    private final BigDecimal[] values;
+    private final Map<String, Object>[] items;
+
+    private final BigDecimal totalInvested;
+    private BigDecimal totalCurrentValue = BigDecimal.ZERO;
+
+    private volatile Map<String, Object> view;
+
+    /**
+     * @param priceOf preço atual por símbolo em maiúsculas (null = usa o preço médio)
+     */
+    @SuppressWarnings("unchecked")
+    public PortfolioValuation(List<Position> positions, Function<String, BigDecimal> priceOf) {
+        int n = positions.size();
+        this.positions = positions.toArray(new Position[0]);
+        this.symbols = new String[n];
+        this.prices = new BigDecimal[n];
+        this.values = new BigDecimal[n];
+        this.items = new Map[n];
+
+        BigDecimal invested = BigDecimal.ZERO;
+        for (int i = 0; i < n; i++) {
+            Position p = this.positions[i];
+            symbols[i] = p.coinSymbol().toUpperCase();
+
+            BigDecimal price = priceOf.apply(symbols[i]);
+            prices[i] = price != null ? price : p.averageBuyPrice();
+            values[i] = p.quantity().multiply(prices[i]);
+            items[i] = item(p, prices[i], values[i]);
+
+            invested = invested.add(p.totalInvested());
+            totalCurrentValue = totalCurrentValue.add(values[i]);
+        }
+        totalInvested = invested;
+        publish();
+    }
+
+    public static PortfolioValuation empty() {
+        return new PortfolioValuation(List.of(), symbol -> null);
+    }
+
+    /**
+     * Símbolos (maiúsculos) das posições, para o índice moeda → usuários.
+     */
+    public Set<String> symbols() {
+        return Collections.unmodifiableSet(new HashSet<>(Arrays.asList(symbols)));
+    }
+
+    /**
+     * Novo preço de uma moeda: reprecifica as posições dela e republica a visão.
+     *
+     * @return true se algo mudou
+     */
+    public synchronized boolean reprice(String symbol, BigDecimal price) {
+        if (price == null) return false;
+
+        boolean changed = false;
+        for (int i = 0; i < positions.length; i++) {
+            if (!symbols[i].equals(symbol) || prices[i].compareTo(price) == 0) continue;
+
+            BigDecimal value = positions[i].quantity().multiply(price);
+            totalCurrentValue = totalCurrentValue.add(value.subtract(values[i]));
+
+            prices[i] = price;
+            values[i] = value;
+            items[i] = item(positions[i], price, value);
+            changed = true;
+        }
+
+        if (changed) publish();
+        return changed;
+    }
+
+    /**
+     * Visão imutável no formato de {@code GET /api/portfolio}.
+     */
+    public Map<String, Object> view() {
+        return view;
+    }
+
+
+    // ================================================
+    // 🔧 INTERNOS
+    // ================================================
+
+    private void publish() {
+        BigDecimal totalProfitLoss = totalCurrentValue.subtract(totalInvested);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("portfolio", List.of(items));
+        result.put("totalInvested", totalInvested);
+        result.put("totalCurrentValue", totalCurrentValue);
+        result.put("totalProfitLoss", totalProfitLoss);
+        result.put("totalProfitLossPercent", percent(totalProfitLoss, totalInvested));
+        view = Collections.unmodifiableMap(result);
+    }
+
+    private static Map<String, Object> item(Position p, BigDecimal price, BigDecimal value) {
+        BigDecimal profitLoss = value.subtract(p.totalInvested());
+
+        // LinkedHashMap: id/nome podem vir nulos de linhas antigas (Map.of não aceita)
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("id", p.id());
+        item.put("coinSymbol", p.coinSymbol());
+        item.put("coinName", p.coinName());
+        item.put("quantity", p.quantity());
+        item.put("averageBuyPrice", p.averageBuyPrice());
+        item.put("currentPrice", price);
+        item.put("totalInvested", p.totalInvested());
+        item.put("currentValue", value);
+        item.put("profitLoss", profitLoss);
+        item.put("profitLossPercent", percent(profitLoss, p.totalInvested()));
+        return Collections.unmodifiableMap(item);
+    }
+
+    private static BigDecimal percent(BigDecimal profitLoss, BigDecimal invested) {
+        return invested.compareTo(BigDecimal.ZERO) > 0
+                ? profitLoss.divide(invested, 4, RoundingMode.HALF_UP).multiply(HUNDRED)
+                : BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,253 @@
+package com.crypto.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+/**
+ * 📒 Livro de níveis de preço de uma moeda (arrays primitivos ordenados).
+ *
+ * - linhas (grid): persistentes, disparam quando o preço as cruza
+ * - stops: disparam uma vez quando o preço fica <= nível
+ * - takes: disparam uma vez quando o preço fica >= nível
+ *
+ * Um tick faz busca binária e visita só os níveis disparados:
+ * O(log n + disparados). Inclusões vão para um trecho não ordenado que é
+ * ordenado e intercalado no próximo tick. Remoção é O(1): cada nível leva a
+ * geração da inscrição do bot e níveis de geração vencida são lápides,
+ * ignoradas no disparo e descartadas quando passam dos níveis vivos.
+ */
+public final class PriceTriggerBook {
+
+    private final Levels lines = new Levels();
+    private final Levels stops = new Levels();
+    private final Levels takes = new Levels();   // chave = -preço, para disparar pelo sufixo também
+
+    // Inscrição vigente de cada bot; níveis com outra geração são lápides
+    private final Map<Long, Registration> registrations = new HashMap<>();
+    private int nextGeneration;
+    private int tombstones;
+
+    private double lastPrice = Double.NaN;
+
+
+    /**
+     * Inscreve o bot; uma inscrição anterior dele vira lápide.
+     */
+    public synchronized void add(long botId, double[] lineLevels, double stop, double take) {
+        remove(botId);
+
+        Registration reg = new Registration(++nextGeneration);
+        for (double level : lineLevels) lines.append(level, botId, reg.generation);
+        reg.levels = lineLevels.length;
+        if (!Double.isNaN(stop)) { stops.append(stop, botId, reg.generation); reg.levels++; }
+        if (!Double.isNaN(take)) { takes.append(-take, botId, reg.generation); reg.levels++; }
+
+        if (reg.levels > 0) registrations.put(botId, reg);
+    }
+
+    public synchronized void remove(long botId) {
+        Registration reg = registrations.remove(botId);
+        if (reg == null) return;
+
+        tombstones += reg.levels;
+        if (tombstones > 64 && tombstones > size()) compact();
+    }
+
+    public synchronized void clear() {
+        lines.size = lines.sorted = 0;
+        stops.size = stops.sorted = 0;
+        takes.size = takes.sorted = 0;
+        registrations.clear();
+        tombstones = 0;
+    }
+
+    /**
+     * Aplica um novo preço e entrega o id de cada nível disparado (um bot
+     * pode aparecer mais de uma vez se cruzou várias linhas).
+     */
+    public synchronized void onPrice(double price, LongConsumer fired) {
+        pop(stops, price, fired);
+        pop(takes, -price, fired);
+
+        if (!Double.isNaN(lastPrice) && price != lastPrice) {
+            lines.ensureSorted();
+            int from, to;
+            if (price > lastPrice) {
+                // subida: lastPrice < nível <= price
+                from = lines.upperBound(lastPrice);
+                to = lines.upperBound(price);
+            } else {
+                // descida: price <= nível < lastPrice
+                from = lines.lowerBound(price);
+                to = lines.lowerBound(lastPrice);
+            }
+            for (int i = from; i < to; i++) {
+                if (live(lines.ids[i], lines.generations[i]) != null) fired.accept(lines.ids[i]);
+            }
+        }
+
+        lastPrice = price;
+    }
+
+    /** Níveis vivos (sem as lápides) */
+    public synchronized int size() {
+        return lines.size + stops.size + takes.size - tombstones;
+    }
+
+
+    // ================================================
+    // 🔧 INTERNOS
+    // ================================================
+
+    /**
+     * Dispara e remove as chaves >= threshold (sufixo do array); lápides só saem.
+     */
+    private void pop(Levels levels, double threshold, LongConsumer fired) {
+        levels.ensureSorted();
+        int idx = levels.lowerBound(threshold);
+
+        for (int i = idx; i < levels.size; i++) {
+            long botId = levels.ids[i];
+            Registration reg = live(botId, levels.generations[i]);
+            if (reg == null) {
+                tombstones--;
+                continue;
+            }
+            if (--reg.levels == 0) registrations.remove(botId);
+            fired.accept(botId);
+        }
+        levels.size = levels.sorted = idx;
+    }
+
+    private Registration live(long botId, int generation) {
+        Registration reg = registrations.get(botId);
+        return reg != null && reg.generation == generation ? reg : null;
+    }
+
+    /** Descarta as lápides: O(n), amortizado pelas remoções que as criaram */
+    private void compact() {
+        compact(lines);
+        compact(stops);
+        compact(takes);
+        tombstones = 0;
+    }
+
+    private void compact(Levels levels) {
+        levels.ensureSorted();
+        int w = 0;
+        for (int r = 0; r < levels.size; r++) {
+            if (live(levels.ids[r], levels.generations[r]) == null) continue;
+            levels.keys[w] = levels.keys[r];
+            levels.ids[w] = levels.ids[r];
+            levels.generations[w] = levels.generations[r];
+            w++;
+        }
+        levels.size = levels.sorted = w;
+    }
+
+    private static final class Registration {
+        final int generation;
+        int levels;   // níveis vivos no livro
+
+        Registration(int generation) {
+            this.generation = generation;
+        }
+    }
+
+    /**
+     * Trios (chave, botId, geração) em arrays paralelos; [0, sorted) ordenado, [sorted, size) pendente.
+     */
+    private static final class Levels {
+        double[] keys = new double[16];
+        long[] ids = new long[16];
+        int[] generations = new int[16];
+        int size;
+        int sorted;
+
+        void append(double key, long id, int generation) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                ids = Arrays.copyOf(ids, size * 2);
+                generations = Arrays.copyOf(generations, size * 2);
+            }
+            keys[size] = key;
+            ids[size] = id;
+            generations[size] = generation;
+            size++;
+        }
+
+        void ensureSorted() {
+            if (sorted == size) return;
+
+            sort(keys, ids, generations, sorted, size - 1);
+            if (sorted > 0) merge();
+            sorted = size;
+        }
+
+        /** primeiro índice com chave >= x */
+        int lowerBound(double x) {
+            int lo = 0, hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (keys[mid] < x) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+
+        /** primeiro índice com chave > x */
+        int upperBound(double x) {
+            int lo = 0, hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (keys[mid] <= x) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+
+        private void merge() {
+            double[] mk = new double[keys.length];
+            long[] mi = new long[ids.length];
+            int[] mg = new int[generations.length];
+
+            int a = 0, b = sorted, w = 0;
+            while (a < sorted || b < size) {
+                int r = b >= size || (a < sorted && keys[a] <= keys[b]) ? a++ : b++;
+                mk[w] = keys[r];
+                mi[w] = ids[r];
+                mg[w++] = generations[r];
+            }
+
+            keys = mk;
+            ids = mi;
+            generations = mg;
+        }
+
+        /** quicksort sobre arrays paralelos (recursão só na metade menor) */
+        private static void sort(double[] k, long[] v, int[] g, int lo, int hi) {
+            while (lo < hi) {
+                double pivot = k[(lo + hi) >>> 1];
+                int i = lo, j = hi;
+                while (i <= j) {
+                    while (k[i] < pivot) i++;
+                    while (k[j] > pivot) j--;
+                    if (i <= j) {
+                        double tk = k[i]; k[i] = k[j]; k[j] = tk;
+                        long tv = v[i]; v[i] = v[j]; v[j] = tv;
+                        int tg = g[i]; g[i] = g[j]; g[j] = tg;
+                        i++;
+                        j--;
+                    }
+                }
+                if (j - lo < hi - i) {
+                    sort(k, v, g, lo, j);
+                    lo = i;
+                } else {
+                    sort(k, v, g, i, hi);
+                    hi = j;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.crypto.util;
+
+import com.crypto.model.CryptoCurrency;
+
+/**
+ * 📊 Visão primitiva de uma cotação para avaliação de regras.
+ *
+ * Preenchida uma vez por moeda por passada ({@link #load}); campos ausentes
+ * viram NaN, que falha qualquer comparação — mesmo efeito do null check.
+ * Mutável e reutilizável: a passada não aloca uma visão por regra.
+ */
+public final class QuoteView {
+
+    private double price = Double.NaN;
+    private double volume = Double.NaN;
+    private double marketCap = Double.NaN;
+    private double change24h = Double.NaN;
+
+    public static QuoteView of(CryptoCurrency crypto) {
+        return new QuoteView().load(crypto);
+    }
+
+    public QuoteView load(CryptoCurrency crypto) {
+        price = crypto.getCurrentPrice() != null ? crypto.getCurrentPrice().doubleValue() : Double.NaN;
+        volume = crypto.getTotalVolume() != null ? crypto.getTotalVolume().doubleValue() : Double.NaN;
+        marketCap = crypto.getMarketCap() != null ? crypto.getMarketCap().doubleValue() : Double.NaN;
+        change24h = crypto.getPriceChange24h() != null ? crypto.getPriceChange24h() : Double.NaN;
+        return this;
+    }
+
+    public QuoteView set(double price, double volume, double marketCap, double change24h) {
+        this.price = price;
+        this.volume = volume;
+        this.marketCap = marketCap;
+        this.change24h = change24h;
+        return this;
+    }
+
+    public double price() { return price; }
+    public double volume() { return volume; }
+    public double marketCap() { return marketCap; }
+    public double change24h() { return change24h; }
+}
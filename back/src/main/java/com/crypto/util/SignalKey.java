@@ -0,0 +1,35 @@
+package com.crypto.util;
+
+/**
+ * 📡 Identidade de um sinal por moeda: indicador + parâmetro.
+ *
+ * Bots que declaram a mesma chave compartilham um único cálculo por tick.
+ */
+public record SignalKey(Kind kind, long param) {
+
+    public enum Kind { RSI, SMA, ZSCORE, CHANGE }
+
+    public static SignalKey rsi(int period) { return new SignalKey(Kind.RSI, period); }
+    public static SignalKey sma(int period) { return new SignalKey(Kind.SMA, period); }
+    public static SignalKey zScore(int period) { return new SignalKey(Kind.ZSCORE, period); }
+    public static SignalKey change(long windowMillis) { return new SignalKey(Kind.CHANGE, windowMillis); }
+
+    /** Chave primitiva usada nas tabelas de leitura */
+    public long code() {
+        return code(kind, param);
+    }
+
+    static long code(Kind kind, long param) {
+        return ((long) kind.ordinal() << 56) | param;
+    }
+
+    /** Calcula o sinal a partir do estado incremental da moeda */
+    public double readFrom(IndicatorView source) {
+        return switch (kind) {
+            case RSI -> source.rsi((int) param);
+            case SMA -> source.sma((int) param);
+            case ZSCORE -> source.priceZScore((int) param);
+            case CHANGE -> source.percentChange(param);
+        };
+    }
+}
@@ -0,0 +1,113 @@
+package com.crypto.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * 📡 Sinais de uma série histórica, calculados uma vez para todo o sweep.
+ *
+ * Um replay incremental preenche um array por chave distinta; cada combinação
+ * do backtest só lê os arrays através de um {@link Cursor} próprio.
+ *
+ * O estado do replay guarda só a janela que os sinais pedidos enxergam
+ * ({@link #window}): a reconstrução periódica dos indicadores custa
+ * O(janela), não O(série), e o replay todo fica linear no tamanho da série.
+ */
+public final class SignalSeries {
+
+    /** Janela por período: a suavização de Wilder do RSI converge bem antes de 10× */
+    static final int WINDOW_PER_PERIOD = 10;
+
+    private final long[] codes;
+    private final double[][] values;
+
+    private SignalSeries(long[] codes, double[][] values) {
+        this.codes = codes;
+        this.values = values;
+    }
+
+    public static SignalSeries compute(long[] times, double[] prices, Collection<SignalKey> signals) {
+        SignalKey[] keys = signals.stream().distinct()
+                .sorted((a, b) -> Long.compare(a.code(), b.code()))
+                .toArray(SignalKey[]::new);
+
+        long[] codes = new long[keys.length];
+        double[][] values = new double[keys.length][prices.length];
+        for (int k = 0; k < keys.length; k++) codes[k] = keys[k].code();
+
+        if (keys.length > 0) {
+            CoinIndicatorState state = new CoinIndicatorState(window(times, keys), Long.MAX_VALUE);
+            for (int i = 0; i < prices.length; i++) {
+                state.offer(times[i], prices[i], 0, 0);
+                for (int k = 0; k < keys.length; k++) values[k][i] = keys[k].readFrom(state);
+            }
+        }
+
+        return new SignalSeries(codes, values);
+    }
+
+    public int size() { return codes.length; }
+
+    /**
+     * Amostras que o maior sinal precisa: {@link #WINDOW_PER_PERIOD}× o período
+     * dos indicadores por amostra e, nas variações por tempo, o maior trecho da
+     * série que cobre a janela. Nunca maior que a série.
+     */
+    static int window(long[] times, SignalKey[] keys) {
+        int window = 4;
+        for (SignalKey key : keys) {
+            if (key.kind() == SignalKey.Kind.CHANGE) {
+                window = Math.max(window, span(times, key.param()));
+            } else {
+                window = (int) Math.max(window, Math.min(Integer.MAX_VALUE, key.param() * WINDOW_PER_PERIOD));
+            }
+        }
+        return Math.max(4, Math.min(window, times.length));
+    }
+
+    /** Maior nº de amostras entre um ponto e a amostra mais recente com idade >= windowMillis */
+    private static int span(long[] times, long windowMillis) {
+        int span = 2;
+        int j = 0;
+        for (int i = 0; i < times.length; i++) {
+            long cutoff = times[i] - windowMillis;
+            if (times[0] > cutoff) continue;
+            while (j + 1 < i && times[j + 1] <= cutoff) j++;
+            span = Math.max(span, i - j + 1);
+        }
+        return span;
+    }
+
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Visão dos sinais num ponto da série; um por replay.
+     */
+    public final class Cursor implements IndicatorView {
+        private int index;
+
+        public Cursor at(int index) {
+            this.index = index;
+            return this;
+        }
+
+        @Override
+        public double rsi(int period) { return get(SignalKey.code(SignalKey.Kind.RSI, period)); }
+
+        @Override
+        public double sma(int period) { return get(SignalKey.code(SignalKey.Kind.SMA, period)); }
+
+        @Override
+        public double priceZScore(int period) { return get(SignalKey.code(SignalKey.Kind.ZSCORE, period)); }
+
+        @Override
+        public double percentChange(long windowMillis) { return get(SignalKey.code(SignalKey.Kind.CHANGE, windowMillis)); }
+
+        private double get(long code) {
+            int k = Arrays.binarySearch(codes, code);
+            return k >= 0 ? values[k][index] : Double.NaN;
+        }
+    }
+}
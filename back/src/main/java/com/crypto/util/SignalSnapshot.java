@@ -0,0 +1,58 @@
+package com.crypto.util;
+
+import java.util.Arrays;
+
+/**
+ * 📡 Valores dos sinais de uma moeda num tick, imutável.
+ *
+ * Publicado uma vez por tick e lido sem lock por todos os bots da moeda;
+ * sinais não registrados retornam NaN.
+ */
+public final class SignalSnapshot implements IndicatorView {
+
+    public static final SignalSnapshot EMPTY = new SignalSnapshot(new long[0], new double[0]);
+
+    private final long[] codes;
+    private final double[] values;
+
+    private SignalSnapshot(long[] codes, double[] values) {
+        this.codes = codes;
+        this.values = values;
+    }
+
+    /**
+     * @param keys chaves distintas; calculadas uma vez cada a partir de {@code source}
+     */
+    public static SignalSnapshot compute(SignalKey[] keys, IndicatorView source) {
+        long[] codes = new long[keys.length];
+        for (int i = 0; i < keys.length; i++) codes[i] = keys[i].code();
+
+        SignalKey[] sorted = keys.clone();
+        Arrays.sort(codes);
+        Arrays.sort(sorted, (a, b) -> Long.compare(a.code(), b.code()));
+
+        double[] values = new double[keys.length];
+        for (int i = 0; i < sorted.length; i++) values[i] = sorted[i].readFrom(source);
+
+        return new SignalSnapshot(codes, values);
+    }
+
+    public int size() { return codes.length; }
+
+    @Override
+    public double rsi(int period) { return get(SignalKey.code(SignalKey.Kind.RSI, period)); }
+
+    @Override
+    public double sma(int period) { return get(SignalKey.code(SignalKey.Kind.SMA, period)); }
+
+    @Override
+    public double priceZScore(int period) { return get(SignalKey.code(SignalKey.Kind.ZSCORE, period)); }
+
+    @Override
+    public double percentChange(long windowMillis) { return get(SignalKey.code(SignalKey.Kind.CHANGE, windowMillis)); }
+
+    private double get(long code) {
+        int i = Arrays.binarySearch(codes, code);
+        return i >= 0 ? values[i] : Double.NaN;
+    }
+}
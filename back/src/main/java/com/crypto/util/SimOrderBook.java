@@ -0,0 +1,316 @@
+package com.crypto.util;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 🏦 Livro de ofertas simulado de uma moeda.
+ *
+ * - Liquidez sintética: escada de níveis em torno do preço médio da cotação,
+ *   com spread, passo e profundidade crescente por nível ({@link Liquidity});
+ *   ordens a mercado consomem a escada até a próxima cotação
+ * - Ordens limitadas dos usuários ficam no livro e casam entre si (preço,
+ *   depois ordem de chegada) e contra a escada
+ * - Ordem limitada em repouso é executada no seu preço quando uma nova
+ *   cotação atravessa o nível (o mercado "negociou através" dela)
+ * - Taxas de taker/maker e slippage em bps ({@link Costs})
+ *
+ * A escada sintética fica em arrays primitivos; as ordens em repouso num
+ * mapa ordenado por preço (inserção, cancelamento e topo em O(log n)).
+ * Execuções saem por callback primitivo ({@link FillSink}): nenhum objeto
+ * por evento. Thread-safe via monitor (um livro por moeda).
+ */
+public final class SimOrderBook {
+
+    public static final int BUY = BotStrategyKernel.BUY;
+    public static final int SELL = BotStrategyKernel.SELL;
+
+    private static final double EPS = 1e-12;
+    private static final double BPS = 10_000.0;
+
+    /**
+     * Uma execução. {@code price} já inclui slippage (taker); {@code fee} em moeda de cotação.
+     */
+    @FunctionalInterface
+    public interface FillSink {
+        void onFill(long orderId, int side, double price, double quantity, double fee, boolean maker);
+    }
+
+    /**
+     * @param topNotional valor (moeda de cotação) no melhor nível de cada lado
+     * @param growth      multiplicador de profundidade a cada nível
+     */
+    public record Liquidity(int levels, double spreadBps, double tickBps, double topNotional, double growth) {}
+
+    public record Costs(double takerFeeBps, double makerFeeBps, double slippageBps) {}
+
+    private final Costs costs;
+    private final Liquidity liquidity;
+    private final FillSink makerSink;
+
+    // Escada sintética; o topo anda conforme a liquidez é consumida
+    private final double[] depthWeights;
+    private final double[] askPx;
+    private final double[] askQty;
+    private final double[] bidPx;
+    private final double[] bidQty;
+    private int askTop;
+    private int bidTop;
+    private double mid = Double.NaN;
+
+    // Ordens em repouso: melhor preço na maior chave de cada lado
+    private final Resting restingBids = new Resting();
+    private final Resting restingAsks = new Resting();
+
+    /**
+     * @param makerSink recebe as execuções das ordens em repouso (o lado passivo)
+     */
+    public SimOrderBook(Liquidity liquidity, Costs costs, FillSink makerSink) {
+        if (liquidity.levels() < 1) throw new IllegalArgumentException("levels deve ser >= 1");
+
+        this.liquidity = liquidity;
+        this.costs = costs;
+        this.makerSink = makerSink;
+
+        int n = liquidity.levels();
+        depthWeights = new double[n];
+        askPx = new double[n];
+        askQty = new double[n];
+        bidPx = new double[n];
+        bidQty = new double[n];
+
+        double w = 1;
+        for (int k = 0; k < n; k++) {
+            depthWeights[k] = w;
+            w *= liquidity.growth();
+        }
+    }
+
+    /**
+     * Nova cotação: recentra e repõe a escada e executa as ordens em repouso
+     * atravessadas pelo novo topo.
+     */
+    public synchronized void onQuote(double midPrice) {
+        if (!(midPrice > 0)) return;
+
+        mid = midPrice;
+        double half = midPrice * liquidity.spreadBps() / 2 / BPS;
+        double tick = midPrice * liquidity.tickBps() / BPS;
+
+        for (int k = 0; k < askPx.length; k++) {
+            double ask = midPrice + half + k * tick;
+            double bid = midPrice - half - k * tick;
+
+            askPx[k] = ask;
+            askQty[k] = liquidity.topNotional() * depthWeights[k] / ask;
+            bidPx[k] = bid;
+            bidQty[k] = bid > 0 ? liquidity.topNotional() * depthWeights[k] / bid : 0;
+        }
+        askTop = 0;
+        bidTop = 0;
+
+        // Compras em repouso acima do novo ask e vendas abaixo do novo bid
+        while (restingBids.size() > 0 && restingBids.bestPrice(BUY) >= askPx[0]) {
+            fillRestingBest(restingBids, BUY, restingBids.best().qty);
+        }
+        while (restingAsks.size() > 0 && restingAsks.bestPrice(SELL) <= bidPx[0]) {
+            fillRestingBest(restingAsks, SELL, restingAsks.best().qty);
+        }
+    }
+
+    /**
+     * Ordem a mercado: varre ordens em repouso e a escada pelo melhor preço.
+     *
+     * @return quantidade executada (menor que a pedida se a liquidez acabou)
+     */
+    public synchronized double market(long orderId, int side, double quantity, FillSink taker) {
+        return take(orderId, side, quantity, Double.NaN, taker);
+    }
+
+    /**
+     * Ordem limitada: executa a parte marcável e deixa o restante em repouso.
+     *
+     * @return quantidade deixada em repouso
+     */
+    public synchronized double limit(long orderId, int side, double price, double quantity, FillSink taker) {
+        if (!(price > 0)) throw new IllegalArgumentException("Preço limite inválido");
+
+        double filled = take(orderId, side, quantity, price, taker);
+        double remaining = quantity - filled;
+
+        if (remaining > EPS) {
+            if (side == BUY) restingBids.insert(price, orderId, remaining);
+            else restingAsks.insert(-price, orderId, remaining);
+            return remaining;
+        }
+        return 0;
+    }
+
+    /**
+     * @return quantidade cancelada (0 se a ordem não estava em repouso)
+     */
+    public synchronized double cancel(long orderId) {
+        double qty = restingBids.remove(orderId);
+        return qty > 0 ? qty : restingAsks.remove(orderId);
+    }
+
+    public synchronized double mid() { return mid; }
+
+    public synchronized double bestBid() {
+        double synthetic = bidTop < bidPx.length && bidQty[bidTop] > EPS ? bidPx[bidTop] : Double.NaN;
+        double resting = restingBids.size() > 0 ? restingBids.bestPrice(BUY) : Double.NaN;
+        return Double.isNaN(resting) || resting < synthetic ? synthetic : resting;
+    }
+
+    public synchronized double bestAsk() {
+        double synthetic = askTop < askPx.length && askQty[askTop] > EPS ? askPx[askTop] : Double.NaN;
+        double resting = restingAsks.size() > 0 ? restingAsks.bestPrice(SELL) : Double.NaN;
+        return Double.isNaN(resting) || resting > synthetic ? synthetic : resting;
+    }
+
+    public synchronized int restingOrders() {
+        return restingBids.size() + restingAsks.size();
+    }
+
+    /**
+     * Copia até {@code depth} níveis sintéticos disponíveis de um lado.
+     *
+     * @return níveis copiados
+     */
+    public synchronized int syntheticLevels(int side, int depth, double[] prices, double[] quantities) {
+        double[] px = side == BUY ? bidPx : askPx;
+        double[] qty = side == BUY ? bidQty : askQty;
+        int top = side == BUY ? bidTop : askTop;
+
+        int n = 0;
+        for (int k = top; k < px.length && n < depth; k++) {
+            if (qty[k] <= EPS) continue;
+            prices[n] = px[k];
+            quantities[n] = qty[k];
+            n++;
+        }
+        return n;
+    }
+
+
+    // ================================================
+    // 🔧 INTERNOS
+    // ================================================
+
+    /**
+     * Varredura do lado oposto até a quantidade ou o limite (NaN = sem limite).
+     */
+    private double take(long orderId, int side, double quantity, double limit, FillSink taker) {
+        if (Double.isNaN(mid)) throw new IllegalStateException("Livro sem cotação");
+        if (!(quantity > 0)) return 0;
+
+        boolean buy = side == BUY;
+        Resting opposite = buy ? restingAsks : restingBids;
+        double[] px = buy ? askPx : bidPx;
+        double[] qty = buy ? askQty : bidQty;
+
+        double slip = (buy ? 1 : -1) * costs.slippageBps() / BPS;
+        double remaining = quantity;
+
+        while (remaining > EPS) {
+            int top = buy ? askTop : bidTop;
+            double synthetic = top < px.length && qty[top] > EPS ? px[top] : Double.NaN;
+            double resting = opposite.size() > 0 ? opposite.bestPrice(-side) : Double.NaN;
+
+            boolean useResting = !Double.isNaN(resting)
+                    && (Double.isNaN(synthetic) || (buy ? resting <= synthetic : resting >= synthetic));
+            double price = useResting ? resting : synthetic;
+
+            if (Double.isNaN(price)) break;
+            if (!Double.isNaN(limit) && (buy ? price > limit : price < limit)) break;
+
+            double fill;
+            if (useResting) {
+                fill = Math.min(remaining, opposite.best().qty);
+                fillRestingBest(opposite, -side, fill);
+            } else {
+                fill = Math.min(remaining, qty[top]);
+                qty[top] -= fill;
+                if (qty[top] <= EPS) {
+                    if (buy) askTop++;
+                    else bidTop++;
+                }
+            }
+
+            double executed = price * (1 + slip);
+            taker.onFill(orderId, side, executed, fill, executed * fill * costs.takerFeeBps() / BPS, false);
+            remaining -= fill;
+        }
+
+        return quantity - remaining;
+    }
+
+    /** Executa {@code quantity} da melhor ordem em repouso de um lado, no preço dela */
+    private void fillRestingBest(Resting book, int side, double quantity) {
+        Resting.Entry best = book.best();
+        double price = book.bestPrice(side);
+
+        makerSink.onFill(best.id, side, price, quantity, price * quantity * costs.makerFeeBps() / BPS, true);
+
+        best.qty -= quantity;
+        if (best.qty <= EPS) book.pollBest();
+    }
+
+    /**
+     * Ordens em repouso de um lado, por chave (bids: preço; asks: -preço).
+     * Melhor na maior chave; no mesmo preço, fila por ordem de chegada.
+     */
+    private static final class Resting {
+        private final TreeMap<Double, ArrayDeque<Entry>> levels = new TreeMap<>();
+        private final Map<Long, Entry> byId = new HashMap<>();
+
+        static final class Entry {
+            final long id;
+            final double key;
+            double qty;
+
+            Entry(long id, double key, double qty) {
+                this.id = id;
+                this.key = key;
+                this.qty = qty;
+            }
+        }
+
+        int size() { return byId.size(); }
+
+        Entry best() {
+            return levels.lastEntry().getValue().peekFirst();
+        }
+
+        double bestPrice(int side) {
+            double key = levels.lastKey();
+            return side == BUY ? key : -key;
+        }
+
+        void insert(double key, long id, double quantity) {
+            Entry entry = new Entry(id, key, quantity);
+            levels.computeIfAbsent(key, k -> new ArrayDeque<>()).addLast(entry);
+            byId.put(id, entry);
+        }
+
+        void pollBest() {
+            Map.Entry<Double, ArrayDeque<Entry>> top = levels.lastEntry();
+            Entry entry = top.getValue().pollFirst();
+            if (top.getValue().isEmpty()) levels.remove(top.getKey());
+            if (entry != null) byId.remove(entry.id);
+        }
+
+        /** O(log n) até o nível, mais a fila do próprio preço */
+        double remove(long id) {
+            Entry entry = byId.remove(id);
+            if (entry == null) return 0;
+
+            ArrayDeque<Entry> level = levels.get(entry.key);
+            level.remove(entry);
+            if (level.isEmpty()) levels.remove(entry.key);
+            return entry.qty;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.crypto.util;
+
+import java.util.List;
+
+/**
+ * ⏱️ Hashed timer wheel para tarefas periódicas (um único ponteiro, sem thread por tarefa).
+ *
+ * - Cada tarefa fica no bucket do tick do seu próximo deadline
+ * - Deadlines além de uma volta do wheel continuam no bucket e são
+ *   ignorados até a volta certa (comparação direta com o deadline)
+ * - Cancelamento é preguiçoso: a entrada marcada sai na próxima passada pelo bucket
+ * - Resolução de um tick: a tarefa dispara no tick do seu deadline
+ * - Tarefas atrasadas não acumulam execuções: o próximo deadline parte de "agora"
+ *
+ * Thread-safe via monitor; o custo de {@link #advance} é O(entradas nos buckets percorridos).
+ */
+public final class TimerWheel<T> {
+
+    private final long tickMillis;
+    private final int wheelMask;
+    private final Timeout<T>[] buckets;
+
+    private long cursorTick = Long.MIN_VALUE;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public TimerWheel(long tickMillis, int wheelSize) {
+        if (tickMillis <= 0) throw new IllegalArgumentException("tickMillis deve ser > 0");
+
+        this.tickMillis = tickMillis;
+
+        int wheel = Integer.highestOneBit(Math.max(2, wheelSize - 1)) << 1;
+        this.wheelMask = wheel - 1;
+        this.buckets = (Timeout<T>[]) new Timeout[wheel];
+    }
+
+    /**
+     * Agenda {@code payload} para {@code firstDeadlineMillis} e, depois, a cada {@code intervalMillis}.
+     */
+    public synchronized Timeout<T> schedule(T payload, long firstDeadlineMillis, long intervalMillis) {
+        if (intervalMillis <= 0) throw new IllegalArgumentException("intervalMillis deve ser > 0");
+
+        Timeout<T> timeout = new Timeout<>(payload, intervalMillis);
+        timeout.deadline = firstDeadlineMillis;
+        link(timeout);
+        size++;
+        return timeout;
+    }
+
+    public synchronized boolean cancel(Timeout<T> timeout) {
+        if (timeout == null || timeout.cancelled) return false;
+
+        timeout.cancelled = true;
+        size--;
+        return true;
+    }
+
+    /**
+     * Avança o ponteiro até {@code nowMillis}, adicionando a {@code due} as tarefas vencidas
+     * e reagendando cada uma para o próximo intervalo.
+     *
+     * @return quantidade de tarefas vencidas nesta chamada
+     */
+    public synchronized int advance(long nowMillis, List<T> due) {
+        long nowTick = nowMillis / tickMillis;
+
+        // Primeiro avanço percorre o wheel inteiro: agendamentos anteriores podem estar em qualquer bucket
+        long steps = cursorTick == Long.MIN_VALUE
+                ? (long) wheelMask + 1
+                : Math.min(nowTick - cursorTick, (long) wheelMask + 1);
+
+        if (steps <= 0) return 0;
+
+        long firstTick = nowTick - steps + 1;
+        cursorTick = nowTick;
+
+        Timeout<T> reschedule = null;
+        int fired = 0;
+
+        for (long t = firstTick; t <= nowTick; t++) {
+            int bucket = (int) (t & wheelMask);
+            Timeout<T> entry = buckets[bucket];
+            Timeout<T> kept = null;
+
+            while (entry != null) {
+                Timeout<T> following = entry.next;
+
+                if (entry.cancelled) {
+                    entry.next = null;
+                } else if (entry.deadline / tickMillis <= nowTick) {
+                    due.add(entry.payload);
+                    fired++;
+
+                    long next = entry.deadline + entry.intervalMillis;
+                    entry.deadline = next > nowMillis ? next : nowMillis + entry.intervalMillis;
+                    entry.next = reschedule;
+                    reschedule = entry;
+                } else {
+                    entry.next = kept;
+                    kept = entry;
+                }
+                entry = following;
+            }
+
+            buckets[bucket] = kept;
+        }
+
+        // Religa só depois da varredura para não revisitar a mesma entrada neste avanço
+        while (reschedule != null) {
+            Timeout<T> following = reschedule.next;
+            link(reschedule);
+            reschedule = following;
+        }
+
+        return fired;
+    }
+
+    public synchronized int size() { return size; }
+    public long tickMillis() { return tickMillis; }
+
+
+    // ================================================
+    // 🔧 INTERNOS
+    // ================================================
+
+    private void link(Timeout<T> timeout) {
+        long tick = timeout.deadline / tickMillis;
+
+        // Deadline já passado (ou no tick atual) vai para o próximo tick a ser percorrido
+        if (cursorTick != Long.MIN_VALUE && tick <= cursorTick) {
+            tick = cursorTick + 1;
+        }
+
+        int bucket = (int) (tick & wheelMask);
+        timeout.next = buckets[bucket];
+        buckets[bucket] = timeout;
+    }
+
+    public static final class Timeout<T> {
+        private final T payload;
+        private final long intervalMillis;
+        private long deadline;
+        private Timeout<T> next;
+        private volatile boolean cancelled;
+
+        private Timeout(T payload, long intervalMillis) {
+            this.payload = payload;
+            this.intervalMillis = intervalMillis;
+        }
+
+        public T payload() { return payload; }
+        public long intervalMillis() { return intervalMillis; }
+        public boolean isCancelled() { return cancelled; }
+    }
+}
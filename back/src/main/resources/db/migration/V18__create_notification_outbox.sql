@@ -0,0 +1,43 @@
+-- ============================================
+-- V18__create_notification_outbox.sql
+-- Outbox transacional de notificações (entrega at-least-once)
+-- ============================================
+
+-- 1️⃣ Estado da regra gravado na mesma transação do outbox
+ALTER TABLE alert_rules
+    ADD COLUMN IF NOT EXISTS last_triggered_at TIMESTAMP;
+
+-- 2️⃣ Tabela de outbox
+CREATE TABLE IF NOT EXISTS notification_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    channel VARCHAR(20) NOT NULL,
+    recipient VARCHAR(255) NOT NULL,
+    subject VARCHAR(255),
+    body TEXT NOT NULL,
+    coin_symbol VARCHAR(20),
+    alert_rule_id BIGINT REFERENCES alert_rules(id) ON DELETE SET NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    locked_by VARCHAR(100),
+    locked_at TIMESTAMP,
+    last_error VARCHAR(500),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    sent_at TIMESTAMP
+);
+
+-- 3️⃣ Índices parciais para o claim (SKIP LOCKED) e para reclaim de workers mortos
+CREATE INDEX IF NOT EXISTS idx_outbox_pending
+    ON notification_outbox(next_attempt_at, id)
+    WHERE status = 'PENDING';
+
+CREATE INDEX IF NOT EXISTS idx_outbox_processing
+    ON notification_outbox(locked_at)
+    WHERE status = 'PROCESSING';
+
+CREATE INDEX IF NOT EXISTS idx_outbox_sent
+    ON notification_outbox(sent_at)
+    WHERE status = 'SENT';
+
+COMMENT ON TABLE notification_outbox IS
+    'Notificações pendentes gravadas junto com o estado das regras; entregues em lote pelos workers';
@@ -0,0 +1,7 @@
+-- ============================================
+-- V19__add_user_telegram_chat_id.sql
+-- Chat do Telegram por usuário (canal de notificações)
+-- ============================================
+
+ALTER TABLE users
+    ADD COLUMN IF NOT EXISTS telegram_chat_id VARCHAR(64);
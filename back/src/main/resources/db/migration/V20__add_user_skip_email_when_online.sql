@@ -0,0 +1,7 @@
+-- ============================================
+-- V20__add_user_skip_email_when_online.sql
+-- Preferência: usuário conectado via WebSocket não recebe email
+-- ============================================
+
+ALTER TABLE users
+    ADD COLUMN IF NOT EXISTS skip_email_when_online BOOLEAN NOT NULL DEFAULT FALSE;
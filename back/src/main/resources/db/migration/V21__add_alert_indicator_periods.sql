@@ -0,0 +1,10 @@
+-- ============================================
+-- V21__add_alert_indicator_periods.sql
+-- Parâmetros dos alertas baseados em indicadores
+-- ============================================
+
+ALTER TABLE alert_rules
+    ADD COLUMN IF NOT EXISTS indicator_period INTEGER;
+
+ALTER TABLE alert_rules
+    ADD COLUMN IF NOT EXISTS indicator_period_long INTEGER;
@@ -0,0 +1,30 @@
+-- ============================================
+-- V22__create_monitoring_sessions.sql
+-- Sessões de monitoramento persistidas + nós do cluster (leases por heartbeat)
+-- ============================================
+
+-- 1️⃣ Sessões: fonte de verdade do monitoramento (sobrevive a restart)
+CREATE TABLE IF NOT EXISTS monitoring_sessions (
+    username VARCHAR(255) PRIMARY KEY,
+    email VARCHAR(255) NOT NULL,
+    interval_minutes INT NOT NULL DEFAULT 5,
+    is_active BOOLEAN NOT NULL DEFAULT TRUE,
+    started_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Sincronização incremental entre heartbeats
+CREATE INDEX IF NOT EXISTS idx_monitoring_sessions_updated
+    ON monitoring_sessions(updated_at);
+
+-- 2️⃣ Nós vivos: o lease de cada nó vale enquanto o heartbeat estiver recente
+CREATE TABLE IF NOT EXISTS monitoring_nodes (
+    node_id VARCHAR(100) PRIMARY KEY,
+    heartbeat_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    started_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+COMMENT ON TABLE monitoring_sessions IS
+    'Usuários com monitoramento ativo; cada sessão é executada pelo nó dono no hash ring';
+COMMENT ON TABLE monitoring_nodes IS
+    'Heartbeats das instâncias; nós sem heartbeat dentro do lease saem do hash ring';
@@ -0,0 +1,31 @@
+-- ============================================
+-- V23__add_bot_position_columns.sql
+-- Posição corrente e custo base por bot (mantidos incrementalmente pelo motor)
+-- ============================================
+
+-- 1️⃣ Colunas de posição
+ALTER TABLE trading_bots
+    ADD COLUMN IF NOT EXISTS position_quantity NUMERIC(19,8) NOT NULL DEFAULT 0;
+
+ALTER TABLE trading_bots
+    ADD COLUMN IF NOT EXISTS position_cost NUMERIC(19,8) NOT NULL DEFAULT 0;
+
+-- 2️⃣ Backfill a partir dos lotes de compra em aberto
+UPDATE trading_bots b
+SET position_quantity = p.quantity,
+    position_cost = p.cost
+FROM (
+    SELECT bot_id,
+           SUM(quantity - COALESCE(sold_quantity, 0)) AS quantity,
+           SUM((quantity - COALESCE(sold_quantity, 0)) * price) AS cost
+    FROM bot_trades
+    WHERE side = 'BUY'
+      AND COALESCE(sold_quantity, 0) < quantity
+    GROUP BY bot_id
+) p
+WHERE p.bot_id = b.id;
+
+COMMENT ON COLUMN trading_bots.position_quantity IS
+    'Quantidade em aberto (soma dos lotes de compra ainda não vendidos)';
+COMMENT ON COLUMN trading_bots.position_cost IS
+    'Custo base FIFO da posição em aberto';
@@ -0,0 +1,10 @@
+-- ============================================
+-- V24__add_bot_custom_strategy.sql
+-- Especificação das regras dos bots CUSTOM (compilada pelo backend)
+-- ============================================
+
+ALTER TABLE trading_bots
+    ADD COLUMN IF NOT EXISTS custom_strategy TEXT;
+
+COMMENT ON COLUMN trading_bots.custom_strategy IS
+    'Regras buy/sell/quantity/params da estratégia CUSTOM';
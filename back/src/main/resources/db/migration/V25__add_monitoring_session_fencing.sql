@@ -0,0 +1,13 @@
+-- ============================================
+-- V25__add_monitoring_session_fencing.sql
+-- Fencing token por sessão: cada nó que assume a sessão incrementa o token
+-- ============================================
+
+ALTER TABLE monitoring_sessions
+    ADD COLUMN IF NOT EXISTS fencing_token BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE monitoring_sessions
+    ADD COLUMN IF NOT EXISTS owner_node VARCHAR(100);
+
+COMMENT ON COLUMN monitoring_sessions.fencing_token IS
+    'Incrementado a cada troca de dono; o nó só avalia a sessão enquanto o token for o seu';
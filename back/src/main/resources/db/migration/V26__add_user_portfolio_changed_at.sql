@@ -0,0 +1,14 @@
+-- ============================================
+-- V26__add_user_portfolio_changed_at.sql
+-- Marca de alteração do portfolio: os outros nós descartam a valorização em memória
+-- ============================================
+
+ALTER TABLE users
+    ADD COLUMN IF NOT EXISTS portfolio_changed_at TIMESTAMP;
+
+CREATE INDEX IF NOT EXISTS idx_users_portfolio_changed_at
+    ON users (portfolio_changed_at)
+    WHERE portfolio_changed_at IS NOT NULL;
+
+COMMENT ON COLUMN users.portfolio_changed_at IS
+    'Relógio do banco (UTC) na última transação incluída ou excluída; lida pelo sync entre nós';
@@ -0,0 +1,11 @@
+-- ============================================
+-- V27__add_monitoring_session_last_activity.sql
+-- Última atividade do usuário, compartilhada entre os nós: o dono da sessão
+-- decide a expiração por inatividade mesmo quando o usuário está conectado a outro nó
+-- ============================================
+
+ALTER TABLE monitoring_sessions
+    ADD COLUMN IF NOT EXISTS last_activity_at TIMESTAMP;
+
+COMMENT ON COLUMN monitoring_sessions.last_activity_at IS
+    'Relógio do banco (UTC); gravado em lote pelo nó que recebeu a atividade, sem mexer em updated_at';
@@ -0,0 +1,140 @@
+package com.crypto.benchmark;
+
+import com.crypto.model.AlertRule;
+import com.crypto.model.AlertRule.AlertType;
+import com.crypto.model.CryptoCurrency;
+import com.crypto.util.AlertPredicate;
+import com.crypto.util.AlertRuleCompiler;
+import com.crypto.util.QuoteView;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ⏱️ Avaliações de regras por segundo: switch por AlertType sobre BigDecimal
+ * (implementação anterior do AlertService) vs. predicados compilados.
+ *
+ * Execução: {@code mvn -B test-compile} e depois rodar {@link #main} com o
+ * classpath de teste (ou pela IDE).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AlertRuleEvaluationBenchmark {
+
+    private static final AlertType[] TYPES = {
+            AlertType.PRICE_INCREASE,
+            AlertType.PRICE_DECREASE,
+            AlertType.VOLUME_SPIKE,
+            AlertType.MARKET_CAP,
+            AlertType.PERCENT_CHANGE_24H
+    };
+
+    @Param({"1000"})
+    private int rules;
+
+    private AlertRule[] alertRules;
+    private AlertPredicate[] predicates;
+    private CryptoCurrency crypto;
+    private QuoteView quote;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(7);
+
+        alertRules = new AlertRule[rules];
+        predicates = new AlertPredicate[rules];
+
+        for (int i = 0; i < rules; i++) {
+            AlertType type = TYPES[random.nextInt(TYPES.length)];
+            double threshold = switch (type) {
+                case PRICE_INCREASE, PRICE_DECREASE -> 20_000 + random.nextDouble() * 20_000;
+                case VOLUME_SPIKE -> random.nextDouble() * 5e10;
+                case MARKET_CAP -> random.nextDouble() * 1e12;
+                default -> random.nextDouble() * 20 - 10;
+            };
+
+            alertRules[i] = AlertRule.builder()
+                    .alertType(type)
+                    .thresholdValue(BigDecimal.valueOf(threshold))
+                    .build();
+            predicates[i] = AlertRuleCompiler.compile(alertRules[i], r -> AlertRuleCompiler.NEVER);
+        }
+
+        crypto = new CryptoCurrency();
+        crypto.setCurrentPrice(BigDecimal.valueOf(30_123.45));
+        crypto.setTotalVolume(BigDecimal.valueOf(2.5e10));
+        crypto.setMarketCap(BigDecimal.valueOf(6e11));
+        crypto.setPriceChange24h(-3.2);
+
+        quote = QuoteView.of(crypto);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1000)
+    public void switchOnAlertType(Blackhole bh) {
+        for (AlertRule rule : alertRules) {
+            bh.consume(shouldTriggerAlert(crypto, rule));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1000)
+    public void compiledPredicates(Blackhole bh) {
+        QuoteView q = quote.load(crypto);
+        for (AlertPredicate predicate : predicates) {
+            bh.consume(predicate.test(q));
+        }
+    }
+
+    /**
+     * Cópia da avaliação anterior do AlertService (referência do benchmark).
+     */
+    private static boolean shouldTriggerAlert(CryptoCurrency crypto, AlertRule rule) {
+        if (crypto == null || rule == null || rule.getThresholdValue() == null) {
+            return false;
+        }
+
+        BigDecimal threshold = rule.getThresholdValue();
+
+        switch (rule.getAlertType()) {
+            case PRICE_INCREASE:
+                return crypto.getCurrentPrice() != null &&
+                        crypto.getCurrentPrice().compareTo(threshold) >= 0;
+            case PRICE_DECREASE:
+                return crypto.getCurrentPrice() != null &&
+                        crypto.getCurrentPrice().compareTo(threshold) <= 0;
+            case VOLUME_SPIKE:
+                return crypto.getTotalVolume() != null &&
+                        crypto.getTotalVolume().compareTo(threshold) >= 0;
+            case MARKET_CAP:
+                return crypto.getMarketCap() != null &&
+                        crypto.getMarketCap().compareTo(threshold) >= 0;
+            case PERCENT_CHANGE_24H:
+                if (crypto.getPriceChange24h() == null) return false;
+                double change = crypto.getPriceChange24h();
+                double trg = threshold.doubleValue();
+                return trg < 0 ? change <= trg : change >= trg;
+            default:
+                return false;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(AlertRuleEvaluationBenchmark.class.getSimpleName())
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,138 @@
+package com.crypto.service;
+
+import com.crypto.model.NotificationOutbox;
+import com.crypto.support.LocalSendGridServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * ✅ TESTES UNITÁRIOS - NotificationOutboxDispatcher
+ *
+ * Entrega real via SendGridEmailService contra o stand-in local do SendGrid.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("NotificationOutboxDispatcher - Testes Unitários")
+class NotificationOutboxDispatcherTest {
+
+    @Mock
+    private NotificationOutboxService outboxService;
+
+    @Mock
+    private NotificationService notificationService;
+
+    private LocalSendGridServer sendGrid;
+    private SendGridEmailService sendGridEmailService;
+    private NotificationOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        sendGrid = new LocalSendGridServer();
+
+        sendGridEmailService = new SendGridEmailService();
+        ReflectionTestUtils.setField(sendGridEmailService, "sendGridApiKey", "SG.test-key");
+        ReflectionTestUtils.setField(sendGridEmailService, "fromEmail", "alerts@crypto.test");
+        ReflectionTestUtils.setField(sendGridEmailService, "fromName", "Crypto Monitor");
+        ReflectionTestUtils.setField(sendGridEmailService, "sendGridHost", sendGrid.host());
+        ReflectionTestUtils.setField(sendGridEmailService, "plainHttp", true);
+
+        EmailService emailService = new EmailService(sendGridEmailService);
+        lenient().doAnswer(inv -> {
+            NotificationOutbox row = inv.getArgument(0);
+            emailService.sendEmail(row.getRecipient(), row.getSubject(), row.getBody());
+            return null;
+        }).when(notificationService).deliverEmail(any());
+
+        dispatcher = new NotificationOutboxDispatcher(outboxService, notificationService, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(dispatcher, "enabled", true);
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 10);
+        ReflectionTestUtils.setField(dispatcher, "maxBatchesPerRun", 3);
+        ReflectionTestUtils.setField(dispatcher, "emailConcurrency", 2);
+        ReflectionTestUtils.setField(dispatcher, "telegramConcurrency", 2);
+        ReflectionTestUtils.setField(dispatcher, "batchTimeoutSeconds", 10L);
+        dispatcher.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+        sendGrid.close();
+    }
+
+    @Test
+    @DisplayName("Deve entregar o lote e marcar tudo como enviado em um único update")
+    @SuppressWarnings("unchecked")
+    void shouldDeliverBatchAndMarkSentInBulk() {
+        List<NotificationOutbox> batch = List.of(emailRow(1L), emailRow(2L), emailRow(3L));
+        when(outboxService.claimBatch(anyString(), eq(10))).thenReturn(batch);
+
+        dispatcher.dispatch();
+
+        ArgumentCaptor<Collection<Long>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(outboxService).markSent(ids.capture());
+        assertThat(ids.getValue()).containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertThat(sendGrid.receivedBodies()).hasSize(3);
+        verify(outboxService, never()).markFailed(any(), any());
+    }
+
+    @Test
+    @DisplayName("Falha no SendGrid deve reagendar a linha e não marcá-la como enviada")
+    @SuppressWarnings("unchecked")
+    void shouldRescheduleWhenSendGridFails() {
+        sendGrid.respondWith(500);
+        NotificationOutbox row = emailRow(7L);
+        when(outboxService.claimBatch(anyString(), eq(10))).thenReturn(List.of(row));
+
+        dispatcher.dispatch();
+
+        verify(outboxService).markFailed(eq(row), contains("SendGrid"));
+
+        ArgumentCaptor<Collection<Long>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(outboxService).markSent(ids.capture());
+        assertThat(ids.getValue()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Lote cheio deve disparar novo claim até esvaziar")
+    void shouldKeepClaimingWhileBatchesAreFull() {
+        List<NotificationOutbox> full = java.util.stream.LongStream.rangeClosed(1, 10)
+                .mapToObj(this::emailRow)
+                .toList();
+
+        when(outboxService.claimBatch(anyString(), eq(10)))
+                .thenReturn(full)
+                .thenReturn(List.of(emailRow(11L)));
+
+        dispatcher.dispatch();
+
+        verify(outboxService, times(2)).claimBatch(anyString(), eq(10));
+        assertThat(sendGrid.requestCount()).isEqualTo(11);
+    }
+
+    private NotificationOutbox emailRow(long id) {
+        return NotificationOutbox.builder()
+                .id(id)
+                .channel(NotificationOutbox.Channel.EMAIL)
+                .recipient("user" + id + "@crypto.test")
+                .subject("🚨 Alerta Crypto")
+                .body("BTC atingiu o alvo")
+                .attempts(1)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
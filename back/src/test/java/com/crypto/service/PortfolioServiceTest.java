@@ -38,6 +38,15 @@ class PortfolioServiceTest {
     @Mock
     private CryptoService cryptoService;
 
+    @Mock
+    private PortfolioLotService portfolioLotService;
+
+    @Mock
+    private PortfolioHistoryService portfolioHistoryService;
+
+    @Mock
+    private MonitoringClusterService clusterService;
+
     @InjectMocks
     private PortfolioService portfolioService;
 
@@ -299,4 +308,45 @@ class PortfolioServiceTest {
                 .isInstanceOf(RuntimeException.class)
                 .hasMessageContaining("permissão");
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Invalidação durante a carga não deve publicar a visão antiga")
+    void shouldNotCacheValuationInvalidatedWhileLoading() {
+        // Arrange: a transação commita entre a leitura do banco e a publicação
+        when(portfolioRepository.findByUserUsernameOptimized("testuser")).thenAnswer(inv -> {
+            when(userRepository.findPortfolioChangedSince(any())).thenReturn(List.of("testuser"));
+            when(clusterService.databaseNow()).thenReturn(java.time.LocalDateTime.now());
+            portfolioService.syncWithCluster();
+            portfolioService.syncWithCluster();
+            return List.of();
+        });
+
+        // Act
+        portfolioService.getPortfolio("testuser");
+        portfolioService.getPortfolio("testuser");
+
+        // Assert: a segunda leitura vai ao banco de novo
+        verify(portfolioRepository, times(2)).findByUserUsernameOptimized("testuser");
+    }
+
+    @Test
+    @DisplayName("Deve descartar a visão de usuários alterados em outro nó")
+    void shouldInvalidateUsersChangedOnOtherNodes() {
+        // Arrange
+        when(portfolioRepository.findByUserUsernameOptimized("testuser")).thenReturn(List.of());
+        when(clusterService.databaseNow()).thenReturn(java.time.LocalDateTime.now());
+        when(userRepository.findPortfolioChangedSince(any())).thenReturn(List.of("testuser"));
+
+        portfolioService.getPortfolio("testuser");
+        portfolioService.syncWithCluster();   // primeira rodada só marca o relógio
+
+        // Act
+        portfolioService.syncWithCluster();
+        portfolioService.getPortfolio("testuser");
+
+        // Assert
+        verify(portfolioRepository, times(2)).findByUserUsernameOptimized("testuser");
+        verify(portfolioLotService).evict("testuser");
+        verify(portfolioHistoryService).invalidateFrom("testuser", null);
+    }
+}
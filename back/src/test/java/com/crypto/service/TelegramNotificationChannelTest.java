@@ -0,0 +1,113 @@
+package com.crypto.service;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * ✅ TESTES UNITÁRIOS - TelegramNotificationChannel
+ *
+ * Bot API simulada com HttpServer local (status configurável por requisição).
+ */
+@DisplayName("TelegramNotificationChannel - Testes Unitários")
+class TelegramNotificationChannelTest {
+
+    private HttpServer server;
+    private final List<String> receivedBodies = new CopyOnWriteArrayList<>();
+    private final Queue<String[]> scriptedResponses = new ConcurrentLinkedQueue<>();
+
+    private TelegramNotificationChannel channel;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            receivedBodies.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+
+            String[] scripted = scriptedResponses.poll();
+            int status = scripted != null ? Integer.parseInt(scripted[0]) : 200;
+            byte[] body = (scripted != null ? scripted[1] : "{\"ok\":true}").getBytes(StandardCharsets.UTF_8);
+
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+
+        channel = new TelegramNotificationChannel(WebClient.create(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(channel, "botToken", "test-token");
+        ReflectionTestUtils.setField(channel, "apiBaseUrl", "http://localhost:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(channel, "perChatPerSecond", 1);
+        ReflectionTestUtils.setField(channel, "perChatBurst", 1);
+        ReflectionTestUtils.setField(channel, "globalPerSecond", 30);
+        ReflectionTestUtils.setField(channel, "maxRetries", 2);
+        ReflectionTestUtils.setField(channel, "backoffBaseMs", 10L);
+        ReflectionTestUtils.setField(channel, "maxMessageLength", 4096);
+        ReflectionTestUtils.setField(channel, "idleEvictionMinutes", 30L);
+        channel.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    @DisplayName("Mensagens acumuladas durante o throttling devem sair coalescidas")
+    void shouldCoalesceWhileThrottled() {
+        List<Mono<Void>> sends = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            sends.add(channel.send("12345", "alerta " + i));
+        }
+
+        Mono.when(sends).block(Duration.ofSeconds(5));
+
+        assertThat(receivedBodies).hasSize(2);
+        assertThat(receivedBodies.get(0)).contains("alerta 0");
+        assertThat(receivedBodies.get(1)).contains("4 alertas", "alerta 1", "alerta 4");
+        assertThat(channel.getStats()).containsEntry("coalesced", 4L);
+    }
+
+    @Test
+    @DisplayName("Deve respeitar retry_after do 429 e reenviar")
+    void shouldRetryAfter429() {
+        scriptedResponses.add(new String[]{"429",
+                "{\"ok\":false,\"error_code\":429,\"description\":\"Too Many Requests\",\"parameters\":{\"retry_after\":1}}"});
+
+        long start = System.nanoTime();
+        channel.send("12345", "alerta").block(Duration.ofSeconds(5));
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertThat(receivedBodies).hasSize(2);
+        assertThat(elapsedMillis).isGreaterThanOrEqualTo(1000);
+    }
+
+    @Test
+    @DisplayName("Erro 400 não deve ser retentado")
+    void shouldNotRetryClientErrors() {
+        scriptedResponses.add(new String[]{"400", "{\"ok\":false,\"description\":\"Bad Request: chat not found\"}"});
+
+        assertThatThrownBy(() -> channel.send("999", "alerta").block(Duration.ofSeconds(5)))
+                .hasMessageContaining("chat not found");
+
+        assertThat(receivedBodies).hasSize(1);
+    }
+}
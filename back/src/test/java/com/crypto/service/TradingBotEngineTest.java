@@ -0,0 +1,263 @@
+package com.crypto.service;
+
+import com.crypto.event.PriceTickEvent;
+import com.crypto.model.CryptoCurrency;
+import com.crypto.model.TradingBot;
+import com.crypto.util.FifoLots;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.util.*;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * ✅ TESTES UNITÁRIOS - TradingBotEngine
+ *
+ * Ciclo de bots DCA: agrupamento por moeda, avaliação em chunks e
+ * gravação dos deltas num único flush em lote.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TradingBotEngine - Testes Unitários")
+class TradingBotEngineTest {
+
+    @Mock private com.crypto.repository.TradingBotRepository botRepository;
+    @Mock private BotLotLedger lotLedger;
+    @Mock private BotPerformanceService performanceService;
+    @Mock private SimulatedVenue venue;
+    @Mock private CryptoService cryptoService;
+    @Mock private BotTriggerRegistry triggerRegistry;
+    @Mock private CustomStrategyService customStrategyService;
+    @Mock private SignalService signalService;
+    @Mock private MonitoringClusterService clusterService;
+    @Mock private JdbcTemplate jdbcTemplate;
+    @Mock private TransactionTemplate transactionTemplate;
+
+    private TradingBotEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new TradingBotEngine(botRepository, lotLedger, performanceService, venue, cryptoService,
+                triggerRegistry, customStrategyService, signalService, clusterService, jdbcTemplate,
+                transactionTemplate, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(engine, "parallelism", 2);
+        ReflectionTestUtils.setField(engine, "chunkSize", 2);
+        engine.init();
+
+        lenient().when(clusterService.owns(anyString())).thenReturn(true);
+        lenient().when(cryptoService.getCurrentPrices()).thenReturn(List.of(
+                quote("bitcoin", "BTC", "50000"),
+                quote("ethereum", "ETH", "2500")));
+
+        lenient().doAnswer(inv -> {
+            Consumer<TransactionStatus> work = inv.getArgument(0);
+            work.accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        // INSERT dos trades devolve um id gerado por linha
+        lenient().doAnswer(inv -> {
+            BatchPreparedStatementSetter setter = inv.getArgument(1);
+            GeneratedKeyHolder keys = inv.getArgument(2);
+            for (int i = 0; i < setter.getBatchSize(); i++) keys.getKeyList().add(Map.of("id", 1000L + i));
+            return new int[setter.getBatchSize()];
+        }).when(jdbcTemplate).batchUpdate(any(PreparedStatementCreator.class),
+                any(BatchPreparedStatementSetter.class), any(KeyHolder.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.shutdown();
+    }
+
+    @Test
+    @DisplayName("Deve avaliar cada bot uma vez, agrupado por moeda e em chunks, num único flush")
+    @SuppressWarnings("unchecked")
+    void shouldEvaluateChunksAndFlushOnce() {
+        List<TradingBot> bots = new ArrayList<>();
+        for (long id = 1; id <= 5; id++) bots.add(dcaBot(id, "BTC"));
+        bots.add(dcaBot(6L, "ETH"));
+        bots.add(dcaBot(7L, "XYZ"));   // sem cotação: fica de fora
+        when(botRepository.findByStatusAndStrategyIn(eq(TradingBot.BotStatus.RUNNING), anyCollection()))
+                .thenReturn(bots);
+
+        engine.runCycle();
+
+        verify(transactionTemplate, times(1)).executeWithoutResult(any());
+
+        ArgumentCaptor<BatchPreparedStatementSetter> inserts = ArgumentCaptor.forClass(BatchPreparedStatementSetter.class);
+        verify(jdbcTemplate).batchUpdate(any(PreparedStatementCreator.class), inserts.capture(), any(KeyHolder.class));
+        assertThat(inserts.getValue().getBatchSize()).isEqualTo(6);
+
+        ArgumentCaptor<Collection<TradingBotEngine.CycleBatch.BotUpdate>> updates = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE trading_bots"), updates.capture(), eq(6),
+                any(ParameterizedPreparedStatementSetter.class));
+
+        Map<Long, TradingBotEngine.CycleBatch.BotUpdate> byBot = new HashMap<>();
+        updates.getValue().forEach(u -> byBot.put(u.botId, u));
+        assertThat(byBot).containsOnlyKeys(1L, 2L, 3L, 4L, 5L, 6L);
+        assertThat(byBot.values()).allSatisfy(u -> {
+            assertThat(u.trades).isEqualTo(1);
+            assertThat(u.lastDcaExecution).isNotNull();
+        });
+        assertThat(byBot.get(1L).positionQuantity).isEqualByComparingTo("0.002");
+        assertThat(byBot.get(6L).positionQuantity).isEqualByComparingTo("0.04");
+    }
+
+    @Test
+    @DisplayName("Deltas do lote devem sair como parâmetros do UPDATE incremental")
+    @SuppressWarnings("unchecked")
+    void shouldBindDeltasInBatchUpdate() throws Exception {
+        when(botRepository.findByStatusAndStrategyIn(eq(TradingBot.BotStatus.RUNNING), anyCollection()))
+                .thenReturn(List.of(dcaBot(1L, "BTC")));
+
+        engine.runCycle();
+
+        ArgumentCaptor<Collection<TradingBotEngine.CycleBatch.BotUpdate>> updates = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<ParameterizedPreparedStatementSetter<TradingBotEngine.CycleBatch.BotUpdate>> setter =
+                ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE trading_bots"), updates.capture(), eq(1), setter.capture());
+
+        PreparedStatement ps = mock(PreparedStatement.class);
+        setter.getValue().setValues(ps, updates.getValue().iterator().next());
+
+        verify(ps).setInt(1, 1);
+        verify(ps).setBigDecimal(eq(5), argThat(q -> q.compareTo(new BigDecimal("0.002")) == 0));
+        verify(ps).setObject(eq(8), isNull(), anyInt());   // status inalterado
+        verify(ps).setLong(10, 1L);
+    }
+
+    @Test
+    @DisplayName("Bots de outro nó do cluster não devem ser avaliados")
+    void shouldSkipBotsOwnedByOtherNodes() {
+        when(clusterService.owns("bot:2")).thenReturn(false);
+        when(botRepository.findByStatusAndStrategyIn(eq(TradingBot.BotStatus.RUNNING), anyCollection()))
+                .thenReturn(List.of(dcaBot(1L, "BTC"), dcaBot(2L, "BTC")));
+
+        engine.runCycle();
+
+        ArgumentCaptor<BatchPreparedStatementSetter> inserts = ArgumentCaptor.forClass(BatchPreparedStatementSetter.class);
+        verify(jdbcTemplate).batchUpdate(any(PreparedStatementCreator.class), inserts.capture(), any(KeyHolder.class));
+        assertThat(inserts.getValue().getBatchSize()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Falha no flush deve descartar os lotes em memória dos bots do lote")
+    void shouldEvictLotsWhenFlushFails() {
+        when(botRepository.findByStatusAndStrategyIn(eq(TradingBot.BotStatus.RUNNING), anyCollection()))
+                .thenReturn(List.of(dcaBot(1L, "BTC")));
+        doThrow(new IllegalStateException("db down")).when(transactionTemplate).executeWithoutResult(any());
+
+        engine.runCycle();
+
+        verify(lotLedger).evictAll(argThat(ids -> ids.contains(1L)));
+        verify(performanceService, never()).onTrades(any());
+    }
+
+    @Test
+    @DisplayName("Mudança no hash ring deve limpar o livro de lotes antes da avaliação")
+    void shouldClearLedgerWhenRingChanges() {
+        when(botRepository.findByStatusAndStrategyIn(eq(TradingBot.BotStatus.RUNNING), anyCollection()))
+                .thenReturn(List.of(dcaBot(1L, "BTC")));
+
+        engine.runCycle();
+        verify(lotLedger, never()).clear();
+
+        when(clusterService.ringVersion()).thenReturn(1L);
+        engine.runCycle();
+        engine.runCycle();
+
+        verify(lotLedger, times(1)).clear();
+    }
+
+    @Test
+    @DisplayName("Venda sobre lote já consumido no banco deve abortar o flush e reler os lotes")
+    void shouldRejectStaleLotSale() {
+        TradingBot bot = stopLossBot(1L, "BTC");
+        FifoLots lots = new FifoLots();
+        lots.add(500L, new BigDecimal("60000"), new BigDecimal("0.01"), BigDecimal.ZERO);
+
+        when(triggerRegistry.triggered(any())).thenReturn(Set.of(1L));
+        when(botRepository.findAllById(any())).thenReturn(List.of(bot));
+        when(lotLedger.lotsOf(1L)).thenReturn(lots);
+        when(jdbcTemplate.batchUpdate(startsWith("UPDATE bot_trades"), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class))).thenReturn(new int[][]{{0}});
+
+        engine.onPriceTick(new PriceTickEvent(this, List.of(quote("bitcoin", "BTC", "50000"))));
+
+        verify(lotLedger).evictAll(argThat(ids -> ids.contains(1L)));
+        verify(performanceService, never()).onTrades(any());
+    }
+
+    @Test
+    @DisplayName("Falha no tick deve rearmar os gatilhos disparados dos bots deste nó")
+    void shouldRearmFiredBotsWhenTickFails() {
+        TradingBot bot = stopLossBot(1L, "BTC");
+        FifoLots lots = new FifoLots();
+        lots.add(500L, new BigDecimal("60000"), new BigDecimal("0.01"), BigDecimal.ZERO);
+
+        when(triggerRegistry.triggered(any())).thenReturn(Set.of(1L));
+        when(botRepository.findAllById(any())).thenReturn(List.of(bot));
+        when(lotLedger.lotsOf(1L)).thenReturn(lots);
+        doThrow(new IllegalStateException("db down")).when(transactionTemplate).executeWithoutResult(any());
+
+        engine.onPriceTick(new PriceTickEvent(this, List.of(quote("bitcoin", "BTC", "50000"))));
+
+        verify(triggerRegistry).rearm(bot);
+        verify(triggerRegistry, never()).unregister(1L);
+    }
+
+    private static TradingBot stopLossBot(long id, String coin) {
+        return TradingBot.builder()
+                .id(id)
+                .name("stop-" + id)
+                .coinSymbol(coin)
+                .strategy(TradingBot.TradingStrategy.STOP_LOSS)
+                .status(TradingBot.BotStatus.RUNNING)
+                .entryPrice(new BigDecimal("60000"))
+                .stopLossPercent(new BigDecimal("5"))
+                .build();
+    }
+
+    private static TradingBot dcaBot(long id, String coin) {
+        return TradingBot.builder()
+                .id(id)
+                .name("dca-" + id)
+                .coinSymbol(coin)
+                .strategy(TradingBot.TradingStrategy.DCA)
+                .status(TradingBot.BotStatus.RUNNING)
+                .dcaAmount(new BigDecimal("100"))
+                .dcaIntervalMinutes(60)
+                .build();
+    }
+
+    private static CryptoCurrency quote(String coinId, String symbol, String price) {
+        return CryptoCurrency.builder()
+                .coinId(coinId)
+                .symbol(symbol)
+                .name(symbol)
+                .currentPrice(new BigDecimal(price))
+                .build();
+    }
+}
@@ -0,0 +1,93 @@
+package com.crypto.support;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 🧪 Stand-in local da API do SendGrid para testes.
+ *
+ * Responde em {@code POST /v3/mail/send}, guarda os corpos recebidos e permite
+ * simular falhas (status configurável) e lentidão.
+ *
+ * Uso com o SendGridEmailService:
+ * {@code sendgrid.api.host=localhost:<porta>} + {@code sendgrid.api.plain-http=true}
+ */
+public class LocalSendGridServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final List<String> receivedBodies = new CopyOnWriteArrayList<>();
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private volatile int statusCode = 202;
+    private volatile long delayMillis = 0;
+
+    public LocalSendGridServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/v3/mail/send", this::handle);
+        server.start();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+
+        if (delayMillis > 0) {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        int status = statusCode;
+        if (status >= 200 && status < 300) {
+            receivedBodies.add(body);
+        }
+
+        byte[] response = status >= 400
+                ? "{\"errors\":[{\"message\":\"stand-in failure\"}]}".getBytes(StandardCharsets.UTF_8)
+                : new byte[0];
+
+        exchange.sendResponseHeaders(status, response.length == 0 ? -1 : response.length);
+        if (response.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        }
+        exchange.close();
+    }
+
+    public String host() {
+        return "localhost:" + server.getAddress().getPort();
+    }
+
+    public void respondWith(int statusCode) {
+        this.statusCode = statusCode;
+    }
+
+    public void delay(long millis) {
+        this.delayMillis = millis;
+    }
+
+    public List<String> receivedBodies() {
+        return receivedBodies;
+    }
+
+    public int requestCount() {
+        return requests.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
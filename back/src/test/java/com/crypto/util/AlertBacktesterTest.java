@@ -0,0 +1,116 @@
+package com.crypto.util;
+
+import com.crypto.model.AlertRule.AlertType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * ✅ TESTES UNITÁRIOS - AlertBacktester
+ */
+@DisplayName("AlertBacktester - Testes Unitários")
+class AlertBacktesterTest {
+
+    private static final long MINUTE = 60_000;
+
+    private static AlertBacktester.Series series(double... prices) {
+        long[] times = new long[prices.length];
+        double[] volumes = new double[prices.length];
+        for (int i = 0; i < prices.length; i++) {
+            times[i] = i * MINUTE;
+            volumes[i] = 1_000;
+        }
+        return new AlertBacktester.Series(times, prices, volumes);
+    }
+
+    @Test
+    @DisplayName("Deve respeitar o cooldown entre disparos")
+    void shouldRespectCooldown() {
+        AlertBacktester backtester = new AlertBacktester(series(10, 11, 12, 13, 14, 15));
+        AlertBacktester.RuleSpec rule = AlertBacktester.RuleSpec.of(AlertType.PRICE_INCREASE, 11, 0, 0, 0);
+
+        assertThat(backtester.run(rule, 0, 10).fires()).isEqualTo(5);
+
+        AlertBacktester.Result withCooldown = backtester.run(rule, 2 * MINUTE, 10);
+        assertThat(withCooldown.fires()).isEqualTo(3);
+        assertThat(withCooldown.eventIndexes()).containsExactly(1, 3, 5);
+    }
+
+    @Test
+    @DisplayName("Variação na janela negativa dispara abaixo do limite")
+    void shouldFireOnWindowDrop() {
+        AlertBacktester backtester = new AlertBacktester(series(100, 100, 94, 90, 95));
+        AlertBacktester.RuleSpec rule = AlertBacktester.RuleSpec.of(
+                AlertType.PERCENT_CHANGE_WINDOW, -5, 2 * MINUTE, 0, 0);
+
+        AlertBacktester.Result result = backtester.run(rule, 0, 10);
+
+        assertThat(result.eventIndexes()).containsExactly(2, 3);
+        assertThat(result.eventValues()[0]).isCloseTo(-6.0, within(1e-9));
+    }
+
+    @Test
+    @DisplayName("Cruzamento de médias dispara só no ponto do cruzamento")
+    void shouldFireOnMaCross() {
+        AlertBacktester backtester = new AlertBacktester(series(10, 9, 8, 7, 6, 5, 12, 13, 14));
+        AlertBacktester.RuleSpec up = AlertBacktester.RuleSpec.of(AlertType.MA_CROSS_UP, 0, 0, 2, 4);
+
+        assertThat(backtester.run(up, 0, 10).eventIndexes()).containsExactly(6);
+    }
+
+    @Test
+    @DisplayName("Um ano de dados por minuto contra centenas de regras em paralelo")
+    void shouldReplayYearOfMinutesAgainstManyRules() {
+        int n = 365 * 24 * 60;
+        long[] times = new long[n];
+        double[] prices = new double[n];
+        double[] volumes = new double[n];
+        SplittableRandom random = new SplittableRandom(42);
+
+        double price = 30_000;
+        for (int i = 0; i < n; i++) {
+            price *= 1 + random.nextGaussian() * 0.001;
+            times[i] = i * MINUTE;
+            prices[i] = price;
+            volumes[i] = 1e9 * (1 + random.nextDouble());
+        }
+
+        AlertBacktester backtester = new AlertBacktester(new AlertBacktester.Series(times, prices, volumes));
+
+        List<AlertBacktester.RuleSpec> rules = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            rules.add(AlertBacktester.RuleSpec.of(AlertType.PERCENT_CHANGE_24H, -i * 0.2, 0, 0, 0));
+            rules.add(AlertBacktester.RuleSpec.of(AlertType.RSI_ABOVE, 50 + i * 0.4, 0, 14, 0));
+            rules.add(AlertBacktester.RuleSpec.of(AlertType.PRICE_INCREASE, 25_000 + i * 100, 0, 0, 0));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            AlertBacktester.Result[] results = backtester.runAll(rules, 60 * MINUTE, 50, pool);
+
+            assertThat(results).hasSize(300).doesNotContainNull();
+            assertThat(backtester.derivedCount()).isEqualTo(2);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Resolução da série é o espaçamento mediano entre pontos")
+    void shouldReportMedianResolution() {
+        long day = 24 * 60 * MINUTE;
+        long[] times = {0, day, 2 * day, 3 * day + 5 * MINUTE, 4 * day, 5 * day};
+        double[] prices = new double[times.length];
+
+        AlertBacktester.Series series = new AlertBacktester.Series(times, prices, prices);
+
+        assertThat(series.resolutionMinutes()).isEqualTo(24 * 60);
+        assertThat(new AlertBacktester.Series(new long[]{0}, new double[1], new double[1]).resolutionMillis()).isZero();
+    }
+}
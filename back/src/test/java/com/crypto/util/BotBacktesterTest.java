@@ -0,0 +1,105 @@
+package com.crypto.util;
+
+import com.crypto.model.TradingBot.TradingStrategy;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * ✅ TESTES UNITÁRIOS - BotBacktester
+ */
+@DisplayName("BotBacktester - Testes Unitários")
+class BotBacktesterTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    @Test
+    @DisplayName("Grid compra ao cruzar linhas da zona baixa e realiza lucro na zona alta")
+    void gridShouldBuyLowAndSellHigh() {
+        BotBacktester bt = backtester(150, 125, 115, 150, 175, 185);
+        BotBacktester.Params p = new BotBacktester.Params(TradingStrategy.GRID_TRADING,
+                100, 200, 10, 1, 0, Double.NaN, Double.NaN, null);
+
+        BotBacktester.Result r = bt.run(p);
+
+        assertThat(r.buys()).isEqualTo(2);       // 125 (nível 2) e 115 (nível 1)
+        assertThat(r.sells()).isEqualTo(2);      // 175 (nível 7) e 185 (nível 8)
+        assertThat(r.realizedPnl()).isCloseTo((175 - 125) + (185 - 115), within(1e-9));
+        assertThat(r.winRate()).isEqualTo(1.0);
+        assertThat(r.position()).isZero();
+    }
+
+    @Test
+    @DisplayName("DCA compra a cada intervalo vencido")
+    void dcaShouldBuyOnInterval() {
+        BotBacktester bt = backtester(100, 100, 100, 100, 100);
+        BotBacktester.Params p = new BotBacktester.Params(TradingStrategy.DCA,
+                Double.NaN, Double.NaN, 0, 50, 120, Double.NaN, Double.NaN, null);
+
+        BotBacktester.Result r = bt.run(p);
+
+        assertThat(r.buys()).isEqualTo(3);       // horas 0, 2 e 4
+        assertThat(r.position()).isCloseTo(1.5, within(1e-9));
+    }
+
+    @Test
+    @DisplayName("Stop loss encerra a posição e mede o drawdown")
+    void stopLossShouldExitAndTrackDrawdown() {
+        BotBacktester bt = backtester(100, 104, 97, 94, 120);
+        BotBacktester.Params p = new BotBacktester.Params(TradingStrategy.STOP_LOSS,
+                Double.NaN, Double.NaN, 0, 2, 0, 5, 10, null);
+
+        BotBacktester.Result r = bt.run(p);
+
+        assertThat(r.sells()).isEqualTo(1);
+        assertThat(r.realizedPnl()).isCloseTo(-12, within(1e-9));   // 2 × (94 - 100)
+        assertThat(r.maxDrawdown()).isCloseTo(20, within(1e-9));    // pico +8 → -12
+        assertThat(r.position()).isZero();
+    }
+
+    @Test
+    @DisplayName("CUSTOM compra e vende conforme a regra compilada")
+    void customShouldFollowCompiledRule() {
+        BotBacktester bt = backtester(100, 90, 80, 95, 110, 120);
+        BotStrategy rule = BotRuleCompiler.compile("buy: price < 85; sell: pnlPct >= 20; quantity: 1");
+        BotBacktester.Params p = new BotBacktester.Params(TradingStrategy.CUSTOM,
+                Double.NaN, Double.NaN, 0, 0, 0, Double.NaN, Double.NaN, rule);
+
+        BotBacktester.Result r = bt.run(p);
+
+        assertThat(r.buys()).isEqualTo(1);       // 80
+        assertThat(r.sells()).isEqualTo(1);      // 110 (+37,5%)
+        assertThat(r.realizedPnl()).isCloseTo(30, within(1e-9));
+    }
+
+    @Test
+    @DisplayName("Sweep paralelo devolve os resultados na ordem das combinações")
+    void sweepShouldKeepOrder() {
+        double[] prices = new double[8760];
+        for (int i = 0; i < prices.length; i++) prices[i] = 150 + 40 * Math.sin(i / 24.0);
+        BotBacktester bt = backtester(prices);
+
+        List<BotBacktester.Params> params = new ArrayList<>();
+        for (int levels = 3; levels < 203; levels++) {
+            params.add(new BotBacktester.Params(TradingStrategy.GRID_TRADING,
+                    100, 200, levels, 1, 0, Double.NaN, Double.NaN, null));
+        }
+
+        BotBacktester.Result[] results = bt.runAll(params, ForkJoinPool.commonPool());
+
+        for (int i = 0; i < params.size(); i += 37) {
+            assertThat(results[i]).isEqualTo(bt.run(params.get(i)));
+        }
+    }
+
+    private static BotBacktester backtester(double... prices) {
+        long[] times = new long[prices.length];
+        for (int i = 0; i < times.length; i++) times[i] = i * HOUR;
+        return new BotBacktester(times, prices);
+    }
+}
@@ -0,0 +1,64 @@
+package com.crypto.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * ✅ TESTES UNITÁRIOS - BotPerformance
+ */
+@DisplayName("BotPerformance - Testes Unitários")
+class BotPerformanceTest {
+
+    private static final long MIN = 60_000L;
+
+    @Test
+    @DisplayName("PnL, médias de ganho/perda, drawdown e exposição incrementais")
+    void shouldTrackMetricsIncrementally() {
+        BotPerformance perf = new BotPerformance(8);
+
+        perf.onTrade(1, 0, true, 100, 2, 0, 0);
+        perf.onPrice(10 * MIN, 90);                          // equity -20
+        perf.onTrade(2, 20 * MIN, false, 110, 1, 10, 100);   // +10%
+        perf.onTrade(3, 30 * MIN, false, 95, 1, -5, 100);    // -5%, posição zerada
+
+        BotPerformance.Snapshot s = perf.snapshot(60 * MIN, 120);
+
+        assertThat(s.realizedPnl()).isCloseTo(5, within(1e-9));
+        assertThat(s.unrealizedPnl()).isZero();
+        assertThat(s.maxDrawdown()).isCloseTo(20, within(1e-9));
+        assertThat(s.averageWin()).isCloseTo(10, within(1e-9));
+        assertThat(s.averageLoss()).isCloseTo(-5, within(1e-9));
+        assertThat(s.winRate()).isEqualTo(0.5);
+        assertThat(s.returnMean()).isCloseTo(0.025, within(1e-12));
+        assertThat(s.returnStdDev()).isCloseTo(Math.sqrt(0.01125), within(1e-12));
+        assertThat(s.exposedMillis()).isEqualTo(30 * MIN);
+        assertThat(s.exposure()).isCloseTo(0.5, within(1e-9));
+    }
+
+    @Test
+    @DisplayName("Trade repetido (reconstrução + append) não é contado duas vezes")
+    void shouldIgnoreReplayedTrades() {
+        BotPerformance perf = new BotPerformance(8);
+
+        perf.onTrade(5, 0, true, 100, 1, 0, 0);
+        perf.onTrade(5, 0, true, 100, 1, 0, 0);
+
+        assertThat(perf.snapshot(0, 100).buys()).isEqualTo(1);
+        assertThat(perf.snapshot(0, 100).position()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Curva de patrimônio nunca passa da capacidade")
+    void shouldBoundEquityCurve() {
+        BotPerformance perf = new BotPerformance(16);
+        perf.onTrade(1, 0, true, 100, 1, 0, 0);
+
+        for (int i = 1; i <= 10_000; i++) perf.onPrice(i * MIN, 100 + (i % 7));
+
+        BotPerformance.Snapshot s = perf.snapshot(10_001 * MIN, 100);
+        assertThat(s.curveTimes()).hasSizeLessThanOrEqualTo(16).isSorted();
+        assertThat(s.curveTimes()[0]).isZero();
+    }
+}
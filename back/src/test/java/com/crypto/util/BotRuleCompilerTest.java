@@ -0,0 +1,89 @@
+package com.crypto.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * ✅ TESTES UNITÁRIOS - BotRuleCompiler
+ */
+@DisplayName("BotRuleCompiler - Testes Unitários")
+class BotRuleCompilerTest {
+
+    private static final String SPEC = """
+            buy: rsi(14) < ${low} && price < sma(50)
+            sell: pnlPct >= ${tp} || rsi(14) > 70
+            quantity: 0.5
+            params: low=30, tp=5
+            """;
+
+    @Test
+    @DisplayName("Compra quando todas as condições do && casam")
+    void shouldBuyWhenConjunctionMatches() {
+        BotStrategy strategy = BotRuleCompiler.compile(SPEC);
+        OrderIntent intent = new OrderIntent();
+
+        strategy.onTick(tick(90, 0, 0), indicators(25, 100), intent.hold());
+        assertThat(intent.side()).isEqualTo(BotStrategyKernel.BUY);
+        assertThat(intent.quantity()).isEqualTo(0.5);
+
+        strategy.onTick(tick(110, 0, 0), indicators(25, 100), intent.hold());
+        assertThat(intent.side()).isEqualTo(BotStrategyKernel.HOLD);
+    }
+
+    @Test
+    @DisplayName("Vende no máximo a posição quando a regra de venda casa")
+    void shouldSellUpToPosition() {
+        BotStrategy strategy = BotRuleCompiler.compile(SPEC);
+        OrderIntent intent = new OrderIntent();
+
+        // 0,2 a preço médio 100; +6% ≥ tp
+        strategy.onTick(tick(106, 0.2, 20), indicators(50, 100), intent.hold());
+
+        assertThat(intent.side()).isEqualTo(BotStrategyKernel.SELL);
+        assertThat(intent.quantity()).isEqualTo(0.2);
+    }
+
+    @Test
+    @DisplayName("Parâmetros sobrescritos geram outra estratégia")
+    void shouldApplyOverrides() {
+        BotRuleCompiler.RuleStrategy strategy =
+                BotRuleCompiler.compile(BotRuleCompiler.parse(SPEC), Map.of("low", 20.0));
+        OrderIntent intent = new OrderIntent();
+
+        strategy.onTick(tick(90, 0, 0), indicators(25, 100), intent.hold());
+
+        assertThat(intent.side()).isEqualTo(BotStrategyKernel.HOLD);
+        assertThat(strategy.params()).containsEntry("low", 20.0).containsEntry("tp", 5.0);
+    }
+
+    @Test
+    @DisplayName("Erros de sintaxe e parâmetros ausentes são rejeitados na compilação")
+    void shouldRejectInvalidSpecs() {
+        assertThatThrownBy(() -> BotRuleCompiler.compile("buy: rsi(14) < ${low}; quantity: 1"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("low");
+        assertThatThrownBy(() -> BotRuleCompiler.compile("buy: macd > 1; quantity: 1"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BotRuleCompiler.compile("buy: rsi(1) < 30; quantity: 1"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BotRuleCompiler.compile("buy: price < 10"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static BotTickView tick(double price, double position, double cost) {
+        return new BotTickView().quote(0, price, 0, 0).position(position, cost, 100);
+    }
+
+    private static IndicatorView indicators(double rsi, double sma) {
+        return new IndicatorView() {
+            @Override public double rsi(int period) { return rsi; }
+            @Override public double sma(int period) { return sma; }
+            @Override public double priceZScore(int period) { return 0; }
+            @Override public double percentChange(long windowMillis) { return 0; }
+        };
+    }
+}
@@ -0,0 +1,58 @@
+package com.crypto.util;
+
+import com.crypto.model.TradingBot;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * ✅ TESTES UNITÁRIOS - BotTriggers
+ */
+@DisplayName("BotTriggers - Testes Unitários")
+class BotTriggersTest {
+
+    @Test
+    @DisplayName("Stop loss e take profit viram níveis de preço calculados uma vez")
+    void stopLossShouldBecomeLevels() {
+        TradingBot bot = TradingBot.builder()
+                .strategy(TradingBot.TradingStrategy.STOP_LOSS)
+                .entryPrice(new BigDecimal("100"))
+                .stopLossPercent(new BigDecimal("5"))
+                .takeProfitPercent(new BigDecimal("10"))
+                .build();
+
+        BotTriggers.Levels levels = BotTriggers.forBot(bot);
+
+        assertThat(levels.lines()).isEmpty();
+        assertThat(levels.stop()).isCloseTo(95.0, within(0.01));
+        assertThat(levels.take()).isCloseTo(110.0, within(0.01));
+    }
+
+    @Test
+    @DisplayName("Grid só registra as linhas que levam às zonas de compra e venda")
+    void gridShouldRegisterOnlyActionLines() {
+        TradingBot bot = TradingBot.builder()
+                .strategy(TradingBot.TradingStrategy.GRID_TRADING)
+                .gridLowerPrice(new BigDecimal("100"))
+                .gridUpperPrice(new BigDecimal("200"))
+                .gridLevels(10)
+                .build();
+
+        // compra nos níveis 0-2, venda nos níveis 7-10: linhas 4, 5 e 6 não têm ação
+        assertThat(BotTriggers.forBot(bot).lines())
+                .containsExactly(100, 110, 120, 130, 170, 180, 190, 200);
+    }
+
+    @Test
+    @DisplayName("DCA é guiado por tempo e não tem nível de preço")
+    void dcaShouldHaveNoLevels() {
+        TradingBot bot = TradingBot.builder()
+                .strategy(TradingBot.TradingStrategy.DCA)
+                .build();
+
+        assertThat(BotTriggers.forBot(bot)).isNull();
+    }
+}
@@ -0,0 +1,105 @@
+package com.crypto.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * ✅ TESTES UNITÁRIOS - CoinIndicatorState
+ */
+@DisplayName("CoinIndicatorState - Testes Unitários")
+class CoinIndicatorStateTest {
+
+    private static final long MINUTE = 60_000;
+
+    private static CoinIndicatorState feed(double... prices) {
+        CoinIndicatorState state = new CoinIndicatorState(64, 1_000);
+        for (int i = 0; i < prices.length; i++) {
+            state.offer(i * MINUTE, prices[i], 1_000, MINUTE);
+        }
+        return state;
+    }
+
+    @Test
+    @DisplayName("Deve ignorar amostras dentro do intervalo mínimo")
+    void shouldIgnoreSamplesInsideInterval() {
+        CoinIndicatorState state = new CoinIndicatorState(16, 100);
+
+        assertThat(state.offer(0, 100, 0, MINUTE)).isTrue();
+        assertThat(state.offer(30_000, 101, 0, MINUTE)).isFalse();
+        assertThat(state.offer(MINUTE, 102, 0, MINUTE)).isTrue();
+        assertThat(state.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("RSI deve ser 100 em alta contínua e NaN no aquecimento")
+    void shouldComputeRsi() {
+        assertThat(feed(1, 2, 3).rsi(14)).isNaN();
+        assertThat(feed(1, 2, 3, 4, 5, 6).rsi(5)).isEqualTo(100.0);
+        assertThat(feed(10, 11, 10, 11, 10, 11, 10).rsi(6)).isCloseTo(50.0, within(1e-9));
+    }
+
+    @Test
+    @DisplayName("Regras com os mesmos parâmetros compartilham o indicador")
+    void shouldShareIndicatorsByParameters() {
+        CoinIndicatorState state = feed(1, 2, 3, 4, 5, 6);
+
+        for (int i = 0; i < 1_000; i++) {
+            state.rsi(5);
+        }
+        state.maCross(2, 4);
+
+        assertThat(state.indicatorCount()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Deve detectar o cruzamento de médias apenas na amostra do cruzamento")
+    void shouldDetectMaCross() {
+        CoinIndicatorState state = feed(10, 9, 8, 7, 6, 5);
+        assertThat(state.maCross(2, 4)).isZero();
+
+        state.offer(6 * MINUTE, 12, 1_000, MINUTE);
+        assertThat(state.maCross(2, 4)).isEqualTo(1);
+
+        state.offer(7 * MINUTE, 13, 1_000, MINUTE);
+        assertThat(state.maCross(2, 4)).isZero();
+    }
+
+    @Test
+    @DisplayName("Último cruzamento fica guardado após a amostra em que ocorreu")
+    void shouldLatchLastCross() {
+        CoinIndicatorState state = feed(10, 9, 8, 7, 6, 5);
+        assertThat(state.lastCross(2, 4, 1)).isZero();
+
+        state.offer(6 * MINUTE, 12, 1_000, MINUTE);
+        long crossedAt = state.sampleCount();
+
+        state.offer(7 * MINUTE, 13, 1_000, MINUTE);
+        assertThat(state.maCross(2, 4)).isZero();
+        assertThat(state.lastCross(2, 4, 1)).isEqualTo(crossedAt);
+        assertThat(state.lastCross(2, 4, -1)).isZero();
+    }
+
+    @Test
+    @DisplayName("Variação na janela usa a amostra mais recente com idade suficiente")
+    void shouldComputePercentChangeOverWindow() {
+        CoinIndicatorState state = feed(100, 110, 120, 130, 150);
+
+        assertThat(state.percentChange(2 * MINUTE)).isCloseTo(25.0, within(1e-9));
+        assertThat(state.percentChange(4 * MINUTE)).isCloseTo(50.0, within(1e-9));
+        assertThat(state.percentChange(10 * MINUTE)).isNaN();
+    }
+
+    @Test
+    @DisplayName("Z-score de volume compara com as amostras anteriores")
+    void shouldFlagVolumeAnomaly() {
+        CoinIndicatorState state = new CoinIndicatorState(64, 1_000);
+        double[] volumes = {100, 110, 90, 105, 95, 100, 1_000};
+        for (int i = 0; i < volumes.length; i++) {
+            state.offer(i * MINUTE, 50, volumes[i], MINUTE);
+        }
+
+        assertThat(state.volumeZScore(6)).isGreaterThan(10);
+    }
+}
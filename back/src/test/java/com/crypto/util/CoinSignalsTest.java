@@ -0,0 +1,104 @@
+package com.crypto.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * ✅ TESTES UNITÁRIOS - CoinSignals
+ */
+@DisplayName("CoinSignals - Testes Unitários")
+class CoinSignalsTest {
+
+    @Test
+    @DisplayName("Chave compartilhada é calculada uma vez por publicação")
+    void shouldComputeSharedKeyOnce() {
+        CoinSignals signals = new CoinSignals();
+        for (int bot = 0; bot < 1000; bot++) signals.acquire(List.of(SignalKey.rsi(14)));
+        signals.acquire(List.of(SignalKey.sma(50)));
+
+        CountingView source = new CountingView();
+        SignalSnapshot snapshot = signals.publish(source);
+
+        assertThat(signals.size()).isEqualTo(2);
+        assertThat(source.reads).isEqualTo(2);
+        assertThat(snapshot.rsi(14)).isEqualTo(14);
+        assertThat(snapshot.sma(50)).isEqualTo(50);
+        assertThat(snapshot.sma(20)).isNaN();
+    }
+
+    @Test
+    @DisplayName("Chave sai do cálculo quando a última referência é solta")
+    void shouldDropKeyWhenUnreferenced() {
+        CoinSignals signals = new CoinSignals();
+        signals.acquire(List.of(SignalKey.rsi(14)));
+        signals.acquire(List.of(SignalKey.rsi(14)));
+
+        signals.release(List.of(SignalKey.rsi(14)));
+        assertThat(signals.publish(new CountingView()).rsi(14)).isEqualTo(14);
+
+        signals.release(List.of(SignalKey.rsi(14)));
+        assertThat(signals.isEmpty()).isTrue();
+        assertThat(signals.publish(new CountingView()).rsi(14)).isNaN();
+    }
+
+    @Test
+    @DisplayName("Série de sinais bate com o estado incremental ponto a ponto")
+    void seriesShouldMatchIncrementalState() {
+        int n = 300;
+        long[] times = new long[n];
+        double[] prices = new double[n];
+        for (int i = 0; i < n; i++) {
+            times[i] = i * 60_000L;
+            prices[i] = 100 + 10 * Math.sin(i / 7.0);
+        }
+
+        SignalSeries series = SignalSeries.compute(times, prices, List.of(SignalKey.rsi(14), SignalKey.sma(20)));
+        SignalSeries.Cursor cursor = series.cursor();
+        CoinIndicatorState state = new CoinIndicatorState(n, Long.MAX_VALUE);
+
+        for (int i = 0; i < n; i++) {
+            state.offer(times[i], prices[i], 0, 0);
+            assertThat(cursor.at(i).sma(20)).isEqualByComparingTo(state.sma(20));
+            assertThat(cursor.at(i).rsi(14)).isEqualByComparingTo(state.rsi(14));
+        }
+    }
+
+    @Test
+    @DisplayName("Série longa usa só a janela dos sinais e bate com um estado do mesmo tamanho")
+    void seriesShouldUseBoundedWindow() {
+        int n = 5000;
+        long[] times = new long[n];
+        double[] prices = new double[n];
+        for (int i = 0; i < n; i++) {
+            times[i] = i * 60_000L;
+            prices[i] = 100 + 10 * Math.sin(i / 7.0) + i * 0.01;
+        }
+
+        List<SignalKey> keys = List.of(SignalKey.sma(20), SignalKey.change(30 * 60_000L));
+        int window = SignalSeries.window(times, keys.toArray(SignalKey[]::new));
+        assertThat(window).isEqualTo(20 * SignalSeries.WINDOW_PER_PERIOD);
+
+        SignalSeries series = SignalSeries.compute(times, prices, keys);
+        SignalSeries.Cursor cursor = series.cursor();
+        CoinIndicatorState state = new CoinIndicatorState(window, Long.MAX_VALUE);
+
+        for (int i = 0; i < n; i++) {
+            state.offer(times[i], prices[i], 0, 0);
+            assertThat(cursor.at(i).sma(20)).isCloseTo(state.sma(20), within(1e-9));
+            assertThat(cursor.at(i).percentChange(30 * 60_000L)).isCloseTo(state.percentChange(30 * 60_000L), within(1e-9));
+        }
+    }
+
+    private static final class CountingView implements IndicatorView {
+        int reads;
+
+        @Override public double rsi(int period) { reads++; return period; }
+        @Override public double sma(int period) { reads++; return period; }
+        @Override public double priceZScore(int period) { reads++; return period; }
+        @Override public double percentChange(long windowMillis) { reads++; return windowMillis; }
+    }
+}
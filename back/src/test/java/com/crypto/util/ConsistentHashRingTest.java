@@ -0,0 +1,60 @@
+package com.crypto.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * ✅ TESTES UNITÁRIOS - ConsistentHashRing
+ */
+@DisplayName("ConsistentHashRing - Testes Unitários")
+class ConsistentHashRingTest {
+
+    private static final int USERS = 30_000;
+
+    @Test
+    @DisplayName("Deve distribuir usuários de forma equilibrada entre os nós")
+    void shouldBalanceUsers() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("a:8080", "b:8080", "c:8080"), 128);
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < USERS; i++) {
+            counts.merge(ring.ownerOf("user" + i), 1, Integer::sum);
+        }
+
+        assertThat(counts).hasSize(3);
+        assertThat(counts.values()).allSatisfy(c -> assertThat(c).isBetween(USERS / 3 * 8 / 10, USERS / 3 * 12 / 10));
+    }
+
+    @Test
+    @DisplayName("Entrada de um nó só move as chaves que passam a ser dele")
+    void shouldMoveOnlyKeysOfJoiningNode() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of("a", "b", "c"), 128);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("a", "b", "c", "d"), 128);
+
+        int moved = 0;
+        for (int i = 0; i < USERS; i++) {
+            String key = "user" + i;
+            String oldOwner = before.ownerOf(key);
+            String newOwner = after.ownerOf(key);
+
+            if (!oldOwner.equals(newOwner)) {
+                assertThat(newOwner).isEqualTo("d");
+                moved++;
+            }
+        }
+
+        assertThat(moved).isBetween(USERS / 4 * 7 / 10, USERS / 4 * 13 / 10);
+    }
+
+    @Test
+    @DisplayName("Anel vazio não tem dono")
+    void shouldReturnNullOnEmptyRing() {
+        assertThat(new ConsistentHashRing(List.of(), 16).ownerOf("x")).isNull();
+    }
+}
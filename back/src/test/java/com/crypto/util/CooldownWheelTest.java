@@ -0,0 +1,124 @@
+package com.crypto.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * ✅ TESTES UNITÁRIOS - CooldownWheel
+ */
+@DisplayName("CooldownWheel - Testes Unitários")
+class CooldownWheelTest {
+
+    private static final long MINUTE = 60_000;
+
+    private CooldownWheel wheel;
+
+    @BeforeEach
+    void setUp() {
+        wheel = new CooldownWheel(4, 1000, 64);
+    }
+
+    @Test
+    @DisplayName("Deve suprimir a mesma chave durante o cooldown")
+    void shouldSuppressSameKeyWhileCooling() {
+        assertThat(wheel.tryAcquire("a@x.com|BTC|PRICE_INCREASE", 0, MINUTE)).isTrue();
+        assertThat(wheel.tryAcquire("a@x.com|BTC|PRICE_INCREASE", 30_000, MINUTE)).isFalse();
+        assertThat(wheel.suppressedCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Destinatários diferentes não compartilham cooldown")
+    void shouldIsolateRecipients() {
+        assertThat(wheel.tryAcquire("a@x.com|BTC|PRICE_INCREASE", 0, MINUTE)).isTrue();
+        assertThat(wheel.tryAcquire("b@x.com|BTC|PRICE_INCREASE", 0, MINUTE)).isTrue();
+        assertThat(wheel.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Deve expirar entradas ao avançar o wheel")
+    void shouldExpireOnAdvance() {
+        wheel.tryAcquire("a", 0, 5_000);
+        wheel.tryAcquire("b", 0, 10_000);
+
+        assertThat(wheel.advance(6_000)).isEqualTo(1);
+        assertThat(wheel.isActive("a", 6_000)).isFalse();
+        assertThat(wheel.isActive("b", 6_000)).isTrue();
+
+        assertThat(wheel.tryAcquire("a", 6_000, 5_000)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Cooldown maior que a volta do wheel deve sobreviver às voltas")
+    void shouldSurviveWheelRounds() {
+        wheel.tryAcquire("a", 0, 200_000);
+
+        for (long now = 1_000; now < 200_000; now += 1_000) {
+            wheel.advance(now);
+        }
+
+        assertThat(wheel.isActive("a", 199_000)).isTrue();
+        assertThat(wheel.advance(200_000)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve expulsar a entrada mais próxima de expirar ao atingir a capacidade")
+    void shouldEvictEarliestWhenFull() {
+        wheel.tryAcquire("a", 0, 50_000);
+        wheel.tryAcquire("b", 0, 5_000);
+        wheel.tryAcquire("c", 0, 40_000);
+        wheel.tryAcquire("d", 0, 30_000);
+
+        assertThat(wheel.tryAcquire("e", 1_000, 60_000)).isTrue();
+
+        assertThat(wheel.size()).isEqualTo(4);
+        assertThat(wheel.evictedCount()).isEqualTo(1);
+        assertThat(wheel.isActive("b", 1_000)).isFalse();
+        assertThat(wheel.isActive("a", 1_000)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve expulsar o menor deadline mesmo com entrada de outra volta num bucket anterior")
+    void shouldEvictGlobalEarliestAcrossRounds() {
+        wheel.tryAcquire("a", 0, 66_000);   // bucket 2, segunda volta do wheel de 64s
+        wheel.tryAcquire("b", 0, 10_000);
+        wheel.tryAcquire("c", 0, 20_000);
+        wheel.tryAcquire("d", 0, 30_000);
+
+        wheel.tryAcquire("e", 0, 40_000);
+
+        assertThat(wheel.isActive("b", 0)).isFalse();
+        assertThat(wheel.isActive("a", 0)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Avanço deve reexaminar o bucket do cursor")
+    void shouldExpireEntriesLeftInCursorBucket() {
+        wheel.tryAcquire("a", 0, 1_500);
+
+        assertThat(wheel.advance(1_000)).isZero();   // mesmo tick, ainda não venceu
+        assertThat(wheel.advance(2_500)).isEqualTo(1);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Remoção mantém o índice consistente")
+    void shouldKeepIndexConsistentAfterRemovals() {
+        CooldownWheel big = new CooldownWheel(1_000, 1000, 64);
+
+        for (int i = 0; i < 1_000; i++) {
+            big.tryAcquire("k" + i, 0, MINUTE);
+        }
+        for (int i = 0; i < 1_000; i += 2) {
+            assertThat(big.remove("k" + i)).isTrue();
+        }
+        for (int i = 1; i < 1_000; i += 2) {
+            assertThat(big.isActive("k" + i, 1)).isTrue();
+        }
+
+        assertThat(big.size()).isEqualTo(500);
+        assertThat(big.removeIf(k -> k.endsWith("1"))).isEqualTo(100);
+    }
+}
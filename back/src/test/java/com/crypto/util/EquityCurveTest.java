@@ -0,0 +1,93 @@
+package com.crypto.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * ✅ TESTES UNITÁRIOS - EquityCurve
+ */
+@DisplayName("EquityCurve - Testes Unitários")
+class EquityCurveTest {
+
+    private static final long DAY = 86_400_000L;
+
+    // Fechamentos diários 100, 110, 120, ... a partir do dia 10 (dois pontos no dia 10)
+    private static EquityCurve.DailyCloses closes() {
+        long[] times = {10 * DAY, 10 * DAY + 5, 11 * DAY, 13 * DAY};
+        double[] prices = {90, 100, 110, 130};
+        return EquityCurve.DailyCloses.of(times, prices);
+    }
+
+    @Test
+    @DisplayName("Fechamento diário usa o último ponto do dia e herda dias sem ponto")
+    void dailyClosesShouldCarryForward() {
+        EquityCurve.DailyCloses closes = closes();
+
+        assertThat(closes.at(10)).isEqualTo(100);
+        assertThat(closes.at(12)).isEqualTo(110);
+        assertThat(closes.at(20)).isEqualTo(130);
+        assertThat(closes.at(9)).isNaN();
+    }
+
+    @Test
+    @DisplayName("Série valoriza a posição de cada dia e só acrescenta os dias novos")
+    void extendShouldAppendNewDays() {
+        List<EquityCurve.Flow> flows = List.of(
+                new EquityCurve.Flow(8, 0, true, 2, 80),      // antes do histórico: usa o preço da compra
+                new EquityCurve.Flow(11, 0, false, 1, 110));
+
+        EquityCurve curve = new EquityCurve();
+        curve.extend(flows, new EquityCurve.DailyCloses[]{closes()}, 11);
+
+        assertThat(curve.firstDay()).isEqualTo(8);
+        assertThat(curve.size()).isEqualTo(4);
+        assertThat(curve.value(0)).isEqualTo(160);   // dia 8: 2 × 80
+        assertThat(curve.value(2)).isEqualTo(200);   // dia 10: 2 × 100
+        assertThat(curve.value(3)).isEqualTo(110);   // dia 11: 1 × 110
+        assertThat(curve.invested(3)).isEqualTo(80);
+
+        EquityCurve.Holdings holdings = curve.extend(flows, new EquityCurve.DailyCloses[]{closes()}, 13);
+        assertThat(curve.size()).isEqualTo(6);
+        assertThat(curve.value(5)).isEqualTo(130);
+        assertThat(holdings.quantity()[0]).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Transação retroativa descarta só os pontos a partir do dia dela")
+    void truncateShouldKeepEarlierDays() {
+        List<EquityCurve.Flow> flows = List.of(new EquityCurve.Flow(10, 0, true, 1, 100));
+        EquityCurve curve = new EquityCurve();
+        curve.extend(flows, new EquityCurve.DailyCloses[]{closes()}, 13);
+
+        curve.truncateFrom(12);
+        assertThat(curve.nextDay()).isEqualTo(12);
+
+        List<EquityCurve.Flow> changed = List.of(
+                new EquityCurve.Flow(10, 0, true, 1, 100),
+                new EquityCurve.Flow(12, 0, true, 1, 110));
+        curve.extend(changed, new EquityCurve.DailyCloses[]{closes()}, 13);
+
+        assertThat(curve.size()).isEqualTo(4);
+        assertThat(curve.value(1)).isEqualTo(110);
+        assertThat(curve.value(3)).isEqualTo(260);
+
+        curve.truncateFrom(5);
+        assertThat(curve.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Truncar desde Long.MIN_VALUE descarta a série inteira")
+    void truncateFromMinValueShouldClear() {
+        EquityCurve curve = new EquityCurve();
+        curve.extend(List.of(new EquityCurve.Flow(10, 0, true, 1, 100)), new EquityCurve.DailyCloses[]{closes()}, 13);
+
+        curve.truncateFrom(Long.MIN_VALUE);
+
+        assertThat(curve.size()).isZero();
+        assertThat(curve.nextDay()).isEqualTo(Long.MIN_VALUE);
+    }
+}
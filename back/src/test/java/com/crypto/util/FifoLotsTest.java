@@ -0,0 +1,59 @@
+package com.crypto.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * ✅ TESTES UNITÁRIOS - FifoLots
+ */
+@DisplayName("FifoLots - Testes Unitários")
+class FifoLotsTest {
+
+    @Test
+    @DisplayName("Venda consome os lotes mais antigos e atualiza posição e custo base")
+    void sellShouldConsumeOldestLots() {
+        FifoLots lots = new FifoLots();
+        lots.add(1, bd("100"), bd("1"), BigDecimal.ZERO);
+        lots.add(2, bd("120"), bd("2"), bd("0.5"));
+
+        List<Long> touched = new ArrayList<>();
+        FifoLots.Fill fill = lots.sell(bd("1.5"), bd("130"), (lot, taken) -> touched.add(lot.tradeId()));
+
+        assertThat(touched).containsExactly(1L, 2L);
+        assertThat(fill.profit()).isEqualByComparingTo("35");        // 1×30 + 0.5×10
+        assertThat(fill.costBasis()).isEqualByComparingTo("160");    // 1×100 + 0.5×120
+        assertThat(lots.quantity()).isEqualByComparingTo("1");
+        assertThat(lots.cost()).isEqualByComparingTo("120");
+        assertThat(lots.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Venda maior que a posição é recusada sem alterar os lotes")
+    void sellShouldRejectOversell() {
+        FifoLots lots = new FifoLots();
+        lots.add(1, bd("100"), bd("1"), BigDecimal.ZERO);
+
+        assertThat(lots.sell(bd("2"), bd("110"), (lot, taken) -> fail("não deveria tocar lotes"))).isNull();
+        assertThat(lots.quantity()).isEqualByComparingTo("1");
+    }
+
+    @Test
+    @DisplayName("Lotes já totalmente vendidos não entram na fila")
+    void fullySoldLotsShouldBeSkipped() {
+        FifoLots lots = new FifoLots();
+        lots.add(1, bd("100"), bd("1"), bd("1"));
+
+        assertThat(lots.size()).isZero();
+        assertThat(lots.quantity()).isEqualByComparingTo("0");
+    }
+
+    private static BigDecimal bd(String value) {
+        return new BigDecimal(value);
+    }
+}
@@ -0,0 +1,89 @@
+package com.crypto.util;
+
+import com.crypto.util.LotLedger.Method;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * ✅ TESTES UNITÁRIOS - LotLedger
+ */
+@DisplayName("LotLedger - Testes Unitários")
+class LotLedgerTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    /** Compra 1 @ 100, compra 1 @ 200, vende 1 @ 250 */
+    private static LotLedger replay(Method method) {
+        LotLedger ledger = new LotLedger(method);
+        ledger.apply(1, T0, true, new BigDecimal("1"), new BigDecimal("100"));
+        ledger.apply(2, T0.plusDays(1), true, new BigDecimal("1"), new BigDecimal("200"));
+        ledger.apply(3, T0.plusDays(2), false, new BigDecimal("1"), new BigDecimal("250"));
+        return ledger;
+    }
+
+    @Test
+    @DisplayName("FIFO realiza contra o lote mais antigo")
+    void fifoShouldConsumeOldestLot() {
+        LotLedger ledger = replay(Method.FIFO);
+
+        assertThat(ledger.realizedPnl()).isEqualByComparingTo("150");
+        assertThat(ledger.costBasis()).isEqualByComparingTo("200");
+        assertThat(ledger.unrealizedPnl(new BigDecimal("300"))).isEqualByComparingTo("100");
+        assertThat(ledger.openLots()).extracting(LotLedger.OpenLot::transactionId).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("LIFO realiza contra o lote mais recente")
+    void lifoShouldConsumeNewestLot() {
+        LotLedger ledger = replay(Method.LIFO);
+
+        assertThat(ledger.realizedPnl()).isEqualByComparingTo("50");
+        assertThat(ledger.costBasis()).isEqualByComparingTo("100");
+        assertThat(ledger.openLots()).extracting(LotLedger.OpenLot::transactionId).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("Custo médio baixa o custo proporcional")
+    void averageShouldUseMeanCost() {
+        LotLedger ledger = replay(Method.AVERAGE);
+
+        assertThat(ledger.realizedPnl()).isEqualByComparingTo("100");
+        assertThat(ledger.averageCost()).isEqualByComparingTo("150");
+        assertThat(ledger.openLots()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Venda acima da posição realiza só a parte coberta")
+    void oversellShouldBeUnmatched() {
+        LotLedger ledger = replay(Method.FIFO);
+        ledger.apply(4, T0.plusDays(3), false, new BigDecimal("3"), new BigDecimal("100"));
+
+        assertThat(ledger.quantity()).isEqualByComparingTo("0");
+        assertThat(ledger.costBasis()).isEqualByComparingTo("0");
+        assertThat(ledger.unmatchedQuantity()).isEqualByComparingTo("2");
+        assertThat(ledger.realizedPnl()).isEqualByComparingTo("50");
+    }
+
+    @Test
+    @DisplayName("Só transações posteriores à última aplicada entram incrementalmente")
+    void followsShouldOrderByDateThenId() {
+        LotLedger ledger = replay(Method.FIFO);
+
+        assertThat(ledger.follows(T0.plusDays(2), 4)).isTrue();
+        assertThat(ledger.follows(T0.plusDays(2), 2)).isFalse();
+        assertThat(ledger.follows(T0.plusDays(1), 9)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Método inválido é rejeitado; ausente usa FIFO")
+    void parseShouldDefaultToFifo() {
+        assertThat(Method.parse(null)).isEqualTo(Method.FIFO);
+        assertThat(Method.parse("lifo")).isEqualTo(Method.LIFO);
+        assertThatThrownBy(() -> Method.parse("hifo")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
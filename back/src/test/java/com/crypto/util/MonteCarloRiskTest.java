@@ -0,0 +1,99 @@
+package com.crypto.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * ✅ TESTES UNITÁRIOS - MonteCarloRisk
+ */
+@DisplayName("MonteCarloRisk - Testes Unitários")
+class MonteCarloRiskTest {
+
+    private static final int[] HORIZONS = {1, 7};
+
+    /** Retornos alternando ±sigma: média 0, desvio ~sigma */
+    private static double[] alternating(int n, double sigma) {
+        double[] r = new double[n];
+        for (int i = 0; i < n; i++) r[i] = i % 2 == 0 ? sigma : -sigma;
+        return r;
+    }
+
+    @Test
+    @DisplayName("VaR de um ativo segue a normal calibrada e cresce com o horizonte")
+    void singleAssetShouldMatchNormalQuantile() {
+        MonteCarloRisk model = MonteCarloRisk.calibrate(new double[]{10_000}, new double[][]{alternating(200, 0.02)});
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            double[][] pnl = model.simulate(200_000, HORIZONS, 42, pool);
+
+            MonteCarloRisk.Tail oneDay = MonteCarloRisk.tail(pnl[0], 0.95);
+            MonteCarloRisk.Tail sevenDays = MonteCarloRisk.tail(pnl[1], 0.95);
+
+            // 10000 × (1 − e^(−1,645 × 0,02)) ≈ 324
+            assertThat(oneDay.valueAtRisk()).isCloseTo(324, within(8.0));
+            assertThat(oneDay.conditionalValueAtRisk()).isGreaterThan(oneDay.valueAtRisk());
+            assertThat(sevenDays.valueAtRisk()).isCloseTo(oneDay.valueAtRisk() * Math.sqrt(7), withinPercentage(5));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Mesma semente gera o mesmo resultado com qualquer paralelismo")
+    void shouldBeDeterministicAcrossPoolSizes() {
+        MonteCarloRisk model = MonteCarloRisk.calibrate(
+                new double[]{5_000, 3_000},
+                new double[][]{alternating(60, 0.03), alternating(60, 0.01)});
+
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool many = new ForkJoinPool(8);
+        try {
+            double[][] a = model.simulate(50_000, HORIZONS, 7, single);
+            double[][] b = model.simulate(50_000, HORIZONS, 7, many);
+            assertThat(a[1]).containsExactly(b[1]);
+        } finally {
+            single.shutdown();
+            many.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Ativos perfeitamente correlacionados somam o risco; opostos se anulam")
+    void correlationShouldDriveDiversification() {
+        double[] up = alternating(100, 0.02);
+        double[] down = new double[up.length];
+        for (int i = 0; i < up.length; i++) down[i] = -up[i];
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            double together = MonteCarloRisk.tail(MonteCarloRisk.calibrate(new double[]{1_000, 1_000},
+                    new double[][]{up, up}).simulate(20_000, HORIZONS, 1, pool)[0], 0.99).valueAtRisk();
+            double single = MonteCarloRisk.tail(MonteCarloRisk.calibrate(new double[]{2_000},
+                    new double[][]{up}).simulate(20_000, HORIZONS, 1, pool)[0], 0.99).valueAtRisk();
+            double hedged = MonteCarloRisk.tail(MonteCarloRisk.calibrate(new double[]{1_000, 1_000},
+                    new double[][]{up, down}).simulate(20_000, HORIZONS, 1, pool)[0], 0.99).valueAtRisk();
+
+            assertThat(together).isCloseTo(single, withinPercentage(5));
+            assertThat(hedged).isLessThan(single * 0.1);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Cauda: VaR no quantil e CVaR como média das perdas além dele")
+    void tailShouldUseEmpiricalQuantile() {
+        double[] pnl = new double[100];
+        for (int i = 0; i < pnl.length; i++) pnl[i] = i - 50;   // −50 .. 49
+
+        MonteCarloRisk.Tail tail = MonteCarloRisk.tail(pnl, 0.95);
+
+        assertThat(tail.valueAtRisk()).isEqualTo(45);
+        assertThat(tail.conditionalValueAtRisk()).isEqualTo(47.5);
+    }
+}
@@ -0,0 +1,67 @@
+package com.crypto.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * ✅ TESTES UNITÁRIOS - PortfolioValuation
+ */
+@DisplayName("PortfolioValuation - Testes Unitários")
+class PortfolioValuationTest {
+
+    private static PortfolioValuation.Position position(long id, String symbol, String qty, String avg) {
+        BigDecimal quantity = new BigDecimal(qty);
+        BigDecimal average = new BigDecimal(avg);
+        return new PortfolioValuation.Position(id, symbol, symbol, quantity, average, quantity.multiply(average));
+    }
+
+    private final PortfolioValuation valuation = new PortfolioValuation(List.of(
+            position(1, "BTC", "0.5", "45000"),
+            position(2, "eth", "2", "3000")
+    ), symbol -> symbol.equals("BTC") ? new BigDecimal("50000") : null);
+
+    @Test
+    @DisplayName("Carga inicial valoriza pelo preço atual ou pelo preço médio")
+    void shouldValueOnLoad() {
+        Map<String, Object> view = valuation.view();
+
+        assertThat((BigDecimal) view.get("totalInvested")).isEqualByComparingTo("28500");
+        assertThat((BigDecimal) view.get("totalCurrentValue")).isEqualByComparingTo("31000");
+        assertThat((BigDecimal) view.get("totalProfitLoss")).isEqualByComparingTo("2500");
+        assertThat(valuation.symbols()).containsExactlyInAnyOrder("BTC", "ETH");
+    }
+
+    @Test
+    @DisplayName("Tick reprecifica só a moeda e ajusta os totais pela diferença")
+    void repriceShouldUpdateIncrementally() {
+        Map<String, Object> before = valuation.view();
+
+        assertThat(valuation.reprice("ETH", new BigDecimal("3500"))).isTrue();
+        assertThat(valuation.reprice("ETH", new BigDecimal("3500.00"))).isFalse();
+        assertThat(valuation.reprice("SOL", new BigDecimal("100"))).isFalse();
+
+        Map<String, Object> view = valuation.view();
+        assertThat(view).isNotSameAs(before);
+        assertThat((BigDecimal) view.get("totalCurrentValue")).isEqualByComparingTo("32000");
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> items = (List<Map<String, Object>>) view.get("portfolio");
+        assertThat((BigDecimal) items.get(1).get("profitLoss")).isEqualByComparingTo("1000");
+        assertThat((BigDecimal) items.get(1).get("profitLossPercent")).isEqualByComparingTo("16.67");
+
+        // A visão anterior continua válida para quem já a tinha
+        assertThat((BigDecimal) before.get("totalCurrentValue")).isEqualByComparingTo("31000");
+    }
+
+    @Test
+    @DisplayName("Visão publicada é imutável")
+    void viewShouldBeImmutable() {
+        assertThatThrownBy(() -> valuation.view().put("x", 1)).isInstanceOf(UnsupportedOperationException.class);
+    }
+}
@@ -0,0 +1,105 @@
+package com.crypto.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * ✅ TESTES UNITÁRIOS - PriceTriggerBook
+ */
+@DisplayName("PriceTriggerBook - Testes Unitários")
+class PriceTriggerBookTest {
+
+    private static final double NONE = Double.NaN;
+
+    @Test
+    @DisplayName("Stop dispara uma única vez quando o preço fica abaixo do nível")
+    void stopShouldFireOnce() {
+        PriceTriggerBook book = new PriceTriggerBook();
+        book.add(1, new double[0], 95, NONE);
+        book.add(2, new double[0], 90, NONE);
+
+        assertThat(fire(book, 100)).isEmpty();
+        assertThat(fire(book, 94)).containsExactly(1L);
+        assertThat(fire(book, 93)).isEmpty();
+        assertThat(fire(book, 80)).containsExactly(2L);
+        assertThat(book.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Take profit dispara quando o preço fica acima do nível")
+    void takeShouldFireAbove() {
+        PriceTriggerBook book = new PriceTriggerBook();
+        book.add(1, new double[0], NONE, 110);
+        book.add(2, new double[0], NONE, 120);
+
+        assertThat(fire(book, 115)).containsExactly(1L);
+        assertThat(fire(book, 125)).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("Linhas de grid disparam só quando cruzadas, nos dois sentidos, e continuam no livro")
+    void linesShouldFireOnCross() {
+        PriceTriggerBook book = new PriceTriggerBook();
+        book.add(1, new double[]{100, 110, 120}, NONE, NONE);
+        book.add(2, new double[]{105}, NONE, NONE);
+
+        assertThat(fire(book, 99)).isEmpty();            // primeiro preço: nada cruzado
+        assertThat(fire(book, 106)).containsExactly(1L, 2L);
+        assertThat(fire(book, 108)).isEmpty();
+        assertThat(fire(book, 100)).containsExactly(1L, 2L);
+        assertThat(book.size()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Remover um bot tira todos os seus níveis")
+    void removeShouldDropAllLevels() {
+        PriceTriggerBook book = new PriceTriggerBook();
+        book.add(1, new double[]{100, 110}, 90, 130);
+        book.add(2, new double[0], 95, NONE);
+
+        book.remove(1);
+
+        assertThat(book.size()).isEqualTo(1);
+        assertThat(fire(book, 50)).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("Reinscrever um bot substitui os níveis anteriores")
+    void addShouldReplacePreviousRegistration() {
+        PriceTriggerBook book = new PriceTriggerBook();
+        book.add(1, new double[]{100}, 90, NONE);
+        book.add(1, new double[]{200}, 80, NONE);
+
+        assertThat(book.size()).isEqualTo(2);
+        assertThat(fire(book, 150)).isEmpty();
+        assertThat(fire(book, 85)).isEmpty();              // stop antigo (90) é lápide
+        assertThat(fire(book, 79)).containsExactly(1L);
+        assertThat(fire(book, 210)).containsExactly(1L);   // só a linha nova
+    }
+
+    @Test
+    @DisplayName("Lápides de reinscrições repetidas são descartadas e não disparam")
+    void tombstonesShouldBeCompacted() {
+        PriceTriggerBook book = new PriceTriggerBook();
+        for (int i = 0; i < 10_000; i++) {
+            book.add(i % 10, new double[]{100 + i % 10}, 50 + i % 10, NONE);
+        }
+
+        assertThat(book.size()).isEqualTo(20);
+        assertThat(fire(book, 99)).isEmpty();
+        assertThat(fire(book, 120)).containsExactly(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L);
+        assertThat(fire(book, 40)).containsExactly(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L);
+        assertThat(book.size()).isEqualTo(10);
+    }
+
+    private static List<Long> fire(PriceTriggerBook book, double price) {
+        List<Long> fired = new ArrayList<>();
+        book.onPrice(price, fired::add);
+        return fired.stream().distinct().sorted().toList();
+    }
+}
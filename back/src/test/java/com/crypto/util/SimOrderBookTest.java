@@ -0,0 +1,98 @@
+package com.crypto.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * ✅ TESTES UNITÁRIOS - SimOrderBook
+ */
+@DisplayName("SimOrderBook - Testes Unitários")
+class SimOrderBookTest {
+
+    // Spread 20bps, níveis a cada 10bps, 1000 de valor por nível (sem crescimento)
+    private static final SimOrderBook.Liquidity LIQUIDITY = new SimOrderBook.Liquidity(5, 20, 10, 1000, 1.0);
+    private static final SimOrderBook.Costs NO_COSTS = new SimOrderBook.Costs(0, 0, 0);
+
+    private final List<double[]> makerFills = new ArrayList<>();
+    private final SimOrderBook.FillSink makerSink =
+            (id, side, price, qty, fee, maker) -> makerFills.add(new double[]{id, price, qty});
+
+    @Test
+    @DisplayName("Ordem a mercado varre os níveis sintéticos e consome a liquidez")
+    void marketShouldSweepLevels() {
+        SimOrderBook book = new SimOrderBook(LIQUIDITY, NO_COSTS, makerSink);
+        book.onQuote(100);
+
+        double[] notional = new double[1];
+        double filled = book.market(1, SimOrderBook.BUY, 15, (id, s, p, q, f, m) -> notional[0] += p * q);
+
+        // 100,1 (~9,99) e 100,2 (~5,01)
+        assertThat(filled).isCloseTo(15, within(1e-9));
+        assertThat(notional[0] / filled).isBetween(100.1, 100.2);
+        assertThat(book.bestAsk()).isCloseTo(100.2, within(1e-9));
+
+        // Nova cotação repõe a escada
+        book.onQuote(100);
+        assertThat(book.bestAsk()).isCloseTo(100.1, within(1e-9));
+    }
+
+    @Test
+    @DisplayName("Taxa e slippage entram no preço e na taxa de cada execução")
+    void shouldApplyFeesAndSlippage() {
+        SimOrderBook book = new SimOrderBook(LIQUIDITY, new SimOrderBook.Costs(10, 0, 5), makerSink);
+        book.onQuote(100);
+
+        double[] fill = new double[2];
+        book.market(1, SimOrderBook.SELL, 1, (id, s, p, q, f, m) -> { fill[0] = p; fill[1] = f; });
+
+        assertThat(fill[0]).isCloseTo(99.9 * (1 - 0.0005), within(1e-9));
+        assertThat(fill[1]).isCloseTo(fill[0] * 0.001, within(1e-12));
+    }
+
+    @Test
+    @DisplayName("Limitada em repouso casa com outra ordem e com a cotação que a atravessa")
+    void restingLimitShouldMatch() {
+        SimOrderBook book = new SimOrderBook(LIQUIDITY, NO_COSTS, makerSink);
+        book.onQuote(100);
+
+        // Venda limitada dentro do spread fica no topo do livro
+        assertThat(book.limit(7, SimOrderBook.SELL, 100.05, 2, (id, s, p, q, f, m) -> {})).isEqualTo(2);
+        assertThat(book.bestAsk()).isEqualTo(100.05);
+
+        // Compra a mercado pega primeiro a ordem do usuário (melhor preço)
+        double[] first = new double[1];
+        book.market(8, SimOrderBook.BUY, 1, (id, s, p, q, f, m) -> first[0] = p);
+        assertThat(first[0]).isEqualTo(100.05);
+        assertThat(makerFills).hasSize(1);
+        assertThat(makerFills.get(0)[2]).isEqualTo(1.0);
+
+        // Cotação sobe: o bid sintético atravessa a venda restante, executada no limite
+        book.onQuote(101);
+        assertThat(makerFills).hasSize(2);
+        assertThat(makerFills.get(1)[1]).isEqualTo(100.05);
+        assertThat(book.restingOrders()).isZero();
+    }
+
+    @Test
+    @DisplayName("Cancelamento retira a ordem e mantém a prioridade das demais")
+    void cancelShouldKeepTimePriority() {
+        SimOrderBook book = new SimOrderBook(LIQUIDITY, NO_COSTS, makerSink);
+        book.onQuote(100);
+
+        SimOrderBook.FillSink none = (id, s, p, q, f, m) -> {};
+        book.limit(1, SimOrderBook.BUY, 99.95, 1, none);
+        book.limit(2, SimOrderBook.BUY, 99.95, 1, none);
+        book.limit(3, SimOrderBook.BUY, 99.95, 1, none);
+
+        assertThat(book.cancel(2)).isEqualTo(1);
+        assertThat(book.cancel(2)).isZero();
+
+        book.market(9, SimOrderBook.SELL, 2, none);
+        assertThat(makerFills).extracting(f -> (long) f[0]).containsExactly(1L, 3L);
+    }
+}
@@ -0,0 +1,65 @@
+package com.crypto.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * ✅ TESTES UNITÁRIOS - TimerWheel
+ */
+@DisplayName("TimerWheel - Testes Unitários")
+class TimerWheelTest {
+
+    private static List<String> advance(TimerWheel<String> wheel, long now) {
+        List<String> due = new ArrayList<>();
+        wheel.advance(now, due);
+        return due;
+    }
+
+    @Test
+    @DisplayName("Deve respeitar o intervalo de cada tarefa")
+    void shouldHonorPerTaskIntervals() {
+        TimerWheel<String> wheel = new TimerWheel<>(1_000, 16);
+        wheel.schedule("a", 1_000, 2_000);
+        wheel.schedule("b", 1_000, 5_000);
+
+        List<String> fired = new ArrayList<>();
+        for (long now = 0; now <= 11_000; now += 1_000) {
+            for (String key : advance(wheel, now)) fired.add(key + "@" + now / 1_000);
+        }
+
+        assertThat(fired).containsExactly(
+                "a@1", "b@1", "a@3", "a@5", "b@6", "a@7", "a@9", "a@11", "b@11");
+    }
+
+    @Test
+    @DisplayName("Intervalo maior que uma volta do wheel só dispara na volta certa")
+    void shouldWaitForTheRightRound() {
+        TimerWheel<String> wheel = new TimerWheel<>(1_000, 4);
+        wheel.schedule("x", 10_000, 60_000);
+
+        for (long now = 0; now < 10_000; now += 1_000) {
+            assertThat(advance(wheel, now)).isEmpty();
+        }
+        assertThat(advance(wheel, 10_000)).containsExactly("x");
+    }
+
+    @Test
+    @DisplayName("Tarefa cancelada não dispara e atraso não acumula execuções")
+    void shouldDropCancelledAndSkipMissedRuns() {
+        TimerWheel<String> wheel = new TimerWheel<>(1_000, 64);
+        TimerWheel.Timeout<String> cancelled = wheel.schedule("gone", 1_000, 1_000);
+        wheel.schedule("slow", 1_000, 1_000);
+
+        assertThat(wheel.cancel(cancelled)).isTrue();
+        assertThat(wheel.size()).isEqualTo(1);
+
+        assertThat(advance(wheel, 1_000)).containsExactly("slow");
+        assertThat(advance(wheel, 20_000)).containsExactly("slow");
+        assertThat(advance(wheel, 21_000)).containsExactly("slow");
+    }
+}